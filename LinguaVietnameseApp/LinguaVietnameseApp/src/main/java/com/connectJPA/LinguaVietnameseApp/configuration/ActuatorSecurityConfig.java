@@ -11,8 +11,11 @@ public class ActuatorSecurityConfig {
     @Bean
     public WebSecurityCustomizer webSecurityCustomizer() {
         return (web) -> web.ignoring().requestMatchers(
-            new AntPathRequestMatcher("/actuator/**"),
+            new AntPathRequestMatcher("/actuator/health"),
             new AntPathRequestMatcher("/actuator/health/**"),
+            new AntPathRequestMatcher("/actuator/info"),
+            new AntPathRequestMatcher("/actuator/metrics"),
+            new AntPathRequestMatcher("/actuator/metrics/**"),
             new AntPathRequestMatcher("/api/v1/health")
         );
     }
@@ -46,6 +46,7 @@ public class SecurityConfig {
             
             .authorizeHttpRequests(auth -> auth
                 .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
+                .requestMatchers("/actuator/websocketsessions", "/actuator/websocketsessions/**").hasAuthority("ROLE_ADMIN")
                 .requestMatchers(
                     "/health",
                     "/actuator/**",
@@ -62,6 +63,7 @@ public class SecurityConfig {
                     "/api/v1/badge",
                     "/api/v1/certificates",
                     "/ws/**",
+                    "/ws-native/**",
                     "/api/v1/health",
                     "/api/v1/transactions/webhook"
                 ).permitAll()
@@ -0,0 +1,49 @@
+package com.connectJPA.LinguaVietnameseApp.configuration;
+
+import com.connectJPA.LinguaVietnameseApp.service.chat.OutboundSessionTracker;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.support.AbstractSubscribableChannel;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.config.annotation.DelegatingWebSocketMessageBrokerConfiguration;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.messaging.SubProtocolWebSocketHandler;
+
+/**
+ * Replaces @EnableWebSocketMessageBroker so the STOMP handler can hand each session's send buffer
+ * to {@link OutboundSessionTracker}. Everything else still comes from the
+ * {@link org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer}s, see WebSocketConfig.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class WebSocketBrokerConfiguration extends DelegatingWebSocketMessageBrokerConfiguration {
+
+    private final OutboundSessionTracker outboundSessionTracker;
+
+    @Bean
+    @Override
+    public WebSocketHandler subProtocolWebSocketHandler(AbstractSubscribableChannel clientInboundChannel,
+                                                       AbstractSubscribableChannel clientOutboundChannel) {
+        SubProtocolWebSocketHandler handler = new SubProtocolWebSocketHandler(clientInboundChannel, clientOutboundChannel) {
+            @Override
+            protected WebSocketSession decorateSession(WebSocketSession session) {
+                WebSocketSession decorated = super.decorateSession(session);
+                if (decorated instanceof ConcurrentWebSocketSessionDecorator concurrent) {
+                    outboundSessionTracker.register(concurrent);
+                }
+                return decorated;
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                outboundSessionTracker.unregister(session.getId());
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+        handler.setPhase(getPhase());
+        return handler;
+    }
+}
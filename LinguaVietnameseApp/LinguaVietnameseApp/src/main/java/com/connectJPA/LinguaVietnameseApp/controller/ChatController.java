@@ -1,21 +1,17 @@
 package com.connectJPA.LinguaVietnameseApp.controller;
 
 import com.connectJPA.LinguaVietnameseApp.dto.request.ChatMessageRequest;
-import com.connectJPA.LinguaVietnameseApp.dto.request.ReadReceiptRequest;
 import com.connectJPA.LinguaVietnameseApp.dto.request.TypingStatusRequest;
 import com.connectJPA.LinguaVietnameseApp.dto.request.UserStatusRequest;
 import com.connectJPA.LinguaVietnameseApp.dto.response.AppApiResponse;
 import com.connectJPA.LinguaVietnameseApp.dto.response.ChatMessageResponse;
 import com.connectJPA.LinguaVietnameseApp.dto.response.ChatStatsResponse;
-import com.connectJPA.LinguaVietnameseApp.entity.Room;
-import com.connectJPA.LinguaVietnameseApp.entity.RoomMember;
-import com.connectJPA.LinguaVietnameseApp.entity.id.RoomMemberId;
+import com.connectJPA.LinguaVietnameseApp.dto.response.CursorPageResponse;
 import com.connectJPA.LinguaVietnameseApp.enums.RoomPurpose;
 import com.connectJPA.LinguaVietnameseApp.exception.AppException;
 import com.connectJPA.LinguaVietnameseApp.exception.ErrorCode;
-import com.connectJPA.LinguaVietnameseApp.repository.jpa.RoomMemberRepository;
-import com.connectJPA.LinguaVietnameseApp.repository.jpa.RoomRepository;
 import com.connectJPA.LinguaVietnameseApp.service.ChatMessageService;
+import com.connectJPA.LinguaVietnameseApp.service.chat.PresenceService;
 import io.swagger.v3.oas.annotations.Operation;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -23,7 +19,6 @@ import org.springframework.context.MessageSource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.http.ResponseEntity;
 import org.springframework.messaging.handler.annotation.DestinationVariable;
 import org.springframework.messaging.handler.annotation.MessageMapping;
@@ -45,18 +40,13 @@ public class ChatController {
     private final ChatMessageService chatMessageService;
     private final SimpMessagingTemplate messagingTemplate;
     private final MessageSource messageSource;
-    private final RoomRepository roomRepository;
-    private final RoomMemberRepository roomMemberRepository;
-    private final RedisTemplate<String, Object> redisTemplate;
+    private final PresenceService presenceService;
 
     @GetMapping("/status/{userId}")
     public ResponseEntity<AppApiResponse<Boolean>> getUserOnlineStatus(@PathVariable UUID userId, Locale locale) {
-        String redisKey = "user:online:" + userId.toString();
-        Boolean isOnline = redisTemplate.hasKey(redisKey);
-        
         return ResponseEntity.ok(AppApiResponse.<Boolean>builder()
                 .code(200)
-                .result(isOnline != null && isOnline)
+                .result(presenceService.isOnline(userId))
                 .message("Success")
                 .build());
     }
@@ -75,6 +65,34 @@ public class ChatController {
                 .build();
     }
 
+    @Operation(summary = "Get chat messages by cursor", description = "Get messages older than the cursor, newest first, without a total count")
+    @GetMapping("/room/{roomId}/messages/cursor")
+    public AppApiResponse<CursorPageResponse<ChatMessageResponse>> getMessagesByRoomCursor(
+            @PathVariable UUID roomId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            Locale locale) {
+        CursorPageResponse<ChatMessageResponse> messages = chatMessageService.getMessagesByRoomCursor(roomId, cursor, size);
+        return AppApiResponse.<CursorPageResponse<ChatMessageResponse>>builder()
+                .code(200)
+                .message(messageSource.getMessage("chatMessage.list.success", null, locale))
+                .result(messages)
+                .build();
+    }
+
+    @Operation(summary = "Get unread message count", description = "Count messages after the user's read watermark in a room")
+    @GetMapping("/room/{roomId}/unread-count/{userId}")
+    public AppApiResponse<Long> getUnreadCount(
+            @PathVariable UUID roomId,
+            @PathVariable UUID userId,
+            Locale locale) {
+        return AppApiResponse.<Long>builder()
+                .code(200)
+                .message(messageSource.getMessage("chatMessage.list.success", null, locale))
+                .result(chatMessageService.countUnreadMessages(roomId, userId))
+                .build();
+    }
+
     @GetMapping("/stats/{userId}")
     public ResponseEntity<AppApiResponse<ChatStatsResponse>> getStats(
             @PathVariable UUID userId,
@@ -166,18 +184,7 @@ public class ChatController {
         }
 
         UUID userId = UUID.fromString(senderIdStr);
-        ChatMessageResponse updatedMessage = chatMessageService.markAsRead(messageId, userId);
-        
-        if (updatedMessage != null) {
-            messagingTemplate.convertAndSend("/topic/room/" + updatedMessage.getRoomId(), updatedMessage);
-            
-            ReadReceiptRequest receipt = ReadReceiptRequest.builder()
-                    .userId(userId)
-                    .messageId(messageId)
-                    .roomId(updatedMessage.getRoomId())
-                    .build();
-            messagingTemplate.convertAndSend("/topic/room/" + updatedMessage.getRoomId() + "/read", receipt);
-        }
+        chatMessageService.markAsRead(messageId, userId);
     }
 
     @MessageMapping("/chat/room/{roomId}/typing")
@@ -190,23 +197,6 @@ public class ChatController {
         }
 
         chatMessageService.handleTypingStatus(roomId, request);
-        Room room = roomRepository.findByRoomIdAndIsDeletedFalse(roomId)
-                .orElseThrow(() -> new AppException(ErrorCode.ROOM_NOT_FOUND));
-        
-        if (room.getPurpose() == RoomPurpose.PRIVATE_CHAT) {
-            roomMemberRepository.findAllByIdRoomIdAndIsDeletedFalse(roomId).stream()
-                    .map(RoomMember::getId)
-                    .map(RoomMemberId::getUserId)
-                    .filter(userId -> !userId.equals(request.getUserId()))
-                    .forEach(userId ->
-                            messagingTemplate.convertAndSendToUser(
-                                    userId.toString(), "/queue/typing", request));
-        } else if (room.getPurpose() == RoomPurpose.GROUP_CHAT) {
-            messagingTemplate.convertAndSend("/topic/room/" + roomId + "/typing", request);
-        } else if (room.getPurpose() == RoomPurpose.AI_CHAT) {
-            messagingTemplate.convertAndSendToUser(
-                    request.getUserId().toString(), "/queue/typing", request);
-        }
     }
     
     @MessageMapping("/chat/room/{roomId}/status")
@@ -2,6 +2,7 @@ package com.connectJPA.LinguaVietnameseApp.controller;
 
 import com.connectJPA.LinguaVietnameseApp.dto.request.NotificationRequest;
 import com.connectJPA.LinguaVietnameseApp.dto.response.AppApiResponse;
+import com.connectJPA.LinguaVietnameseApp.dto.response.CursorPageResponse;
 import com.connectJPA.LinguaVietnameseApp.dto.response.NotificationResponse;
 import com.connectJPA.LinguaVietnameseApp.service.NotificationService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -55,6 +56,21 @@ public class NotificationController {
                 .build();
     }
 
+    @Operation(summary = "Get notification feed by cursor", description = "Get notifications older than the cursor, newest first, without a total count")
+    @GetMapping("/{userId}/feed")
+    public AppApiResponse<CursorPageResponse<NotificationResponse>> getNotificationFeed(
+            @PathVariable UUID userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            Locale locale) {
+        CursorPageResponse<NotificationResponse> notifications = notificationService.getNotificationFeed(userId, cursor, size);
+        return AppApiResponse.<CursorPageResponse<NotificationResponse>>builder()
+                .code(200)
+                .message(messageSource.getMessage("notification.list.success", null, locale))
+                .result(notifications)
+                .build();
+    }
+
     @Operation(summary = "Mark single notification as read")
     @PatchMapping("/{id}/read")
     public AppApiResponse<Void> markAsRead(@PathVariable UUID id, Locale locale) {
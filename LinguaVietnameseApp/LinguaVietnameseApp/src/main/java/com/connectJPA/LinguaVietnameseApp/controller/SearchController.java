@@ -27,7 +27,6 @@ public class SearchController {
     private final UserRepository userRepository;
 
     private final UserMapper userMapper;
-    private final ChatMessageMapper chatMessageMapper;
     private final CourseMapper courseMapper;
     private final LessonMapper lessonMapper;
     private final NotificationMapper notificationMapper;
@@ -51,8 +50,7 @@ public class SearchController {
             @RequestParam(required = false) UUID roomId,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
-        Page<ChatMessage> messages = chatMessageService.searchMessages(keyword, roomId, page, size);
-        return messages.map(chatMessageMapper::toResponse);
+        return chatMessageService.searchMessages(keyword, roomId, page, size);
     }
 
     // @GetMapping("/courses")
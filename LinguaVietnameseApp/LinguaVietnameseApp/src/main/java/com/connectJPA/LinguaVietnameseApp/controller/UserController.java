@@ -149,6 +149,29 @@ public AppApiResponse<Long> countOnlineUsers() {
                 .build();
     }
 
+    @DeleteMapping("/{targetId}/admire")
+    @PreAuthorize("isAuthenticated()")
+    public AppApiResponse<Void> unadmireUser(
+            @PathVariable UUID targetId,
+            Principal principal,
+            Locale locale) {
+
+        if (principal == null) {
+            return AppApiResponse.<Void>builder()
+                    .code(401)
+                    .message(messageSource.getMessage("user.unauthenticated", null, locale))
+                    .build();
+        }
+
+        UUID senderId = UUID.fromString(principal.getName());
+        userService.unadmire(senderId, targetId);
+
+        return AppApiResponse.<Void>builder()
+                .code(200)
+                .message(messageSource.getMessage("user.unadmire.success", null, locale))
+                .build();
+    }
+
     @PostMapping("/fcm-token")
     @PreAuthorize("isAuthenticated()")
     public AppApiResponse<Void> registerFcmToken(
@@ -7,6 +7,7 @@ import com.connectJPA.LinguaVietnameseApp.exception.AppException;
 import com.connectJPA.LinguaVietnameseApp.exception.ErrorCode;
 import com.connectJPA.LinguaVietnameseApp.repository.jpa.UserRepository;
 import com.connectJPA.LinguaVietnameseApp.repository.jpa.UserSettingsRepository;
+import com.connectJPA.LinguaVietnameseApp.service.notification.PushRecipientCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
 
@@ -19,6 +20,7 @@ public class UserSettingsController {
 
     private final UserSettingsRepository userSettingsRepository;
     private final UserRepository userRepository;
+    private final PushRecipientCache pushRecipientCache;
 
     @GetMapping("/{userId}")
     public AppApiResponse<UserSettings> getSettings(@PathVariable UUID userId) {
@@ -49,9 +51,11 @@ public class UserSettingsController {
         settings.setSoundEnabled(request.isSoundEnabled());
         settings.setStudyReminders(request.isStudyReminders());
 
+        UserSettings saved = userSettingsRepository.save(settings);
+        pushRecipientCache.evict(userId);
         return AppApiResponse.<UserSettings>builder()
                 .code(200)
-                .result(userSettingsRepository.save(settings))
+                .result(saved)
                 .build();
     }
 
@@ -5,6 +5,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.OffsetDateTime;
 import java.util.UUID;
 
 @Data
@@ -15,4 +16,5 @@ public class ReadReceiptRequest {
     private UUID userId;
     private UUID messageId;
     private UUID roomId;
+    private OffsetDateTime readUpTo;
 }
\ No newline at end of file
@@ -35,7 +35,8 @@ public class ChatMessageResponse {
     private RoomPurpose purpose;
     private boolean isRead;
     private boolean isDeleted;
-    private UserProfileResponse senderProfile;
+    private ChatSenderSummary senderProfile;
+    private String snippet;
     
     @JsonSerialize(using = OffsetDateTimeSerializer.class)
     private OffsetDateTime sentAt;
@@ -0,0 +1,31 @@
+package com.connectJPA.LinguaVietnameseApp.dto.response;
+
+import com.connectJPA.LinguaVietnameseApp.enums.Country;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ChatSenderSummary implements Serializable {
+    private UUID userId;
+    private String fullname;
+    private String nickname;
+    private String avatarUrl;
+    private Country country;
+    private int level;
+
+    private OffsetDateTime vipExpirationDate;
+
+    // Derived on read so a cached summary never outlives the VIP period it was built with
+    public boolean isVip() {
+        return vipExpirationDate != null && vipExpirationDate.isAfter(OffsetDateTime.now());
+    }
+}
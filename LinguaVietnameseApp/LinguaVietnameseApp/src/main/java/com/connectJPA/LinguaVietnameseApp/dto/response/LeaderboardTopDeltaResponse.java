@@ -0,0 +1,22 @@
+package com.connectJPA.LinguaVietnameseApp.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class LeaderboardTopDeltaResponse {
+    private UUID leaderboardId;
+    private List<LeaderboardEntryResponse> upserted;
+    private List<Move> moved;
+    private List<UUID> left;
+
+    public record Move(UUID userId, int rank, int score, int level, int exp) {}
+}
@@ -0,0 +1,18 @@
+package com.connectJPA.LinguaVietnameseApp.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class TypingStateResponse {
+    private UUID roomId;
+    private List<UUID> typingUserIds;
+}
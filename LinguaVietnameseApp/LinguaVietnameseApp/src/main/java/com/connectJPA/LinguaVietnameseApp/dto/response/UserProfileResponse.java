@@ -81,4 +81,7 @@ public class UserProfileResponse {
     private List<String> certificationIds;
     private List<UUID> interestIds;
     private List<String> goalIds;
+
+    // Profile sections that could not be loaded in time; their fields hold empty values
+    private List<String> unavailableSections;
 }
\ No newline at end of file
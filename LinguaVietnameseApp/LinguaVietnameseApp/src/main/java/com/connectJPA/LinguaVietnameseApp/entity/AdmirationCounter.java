@@ -0,0 +1,32 @@
+package com.connectJPA.LinguaVietnameseApp.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Denormalized admiration totals per user, updated in the same transaction as the admiration
+ * itself and reconciled nightly against the admirations table.
+ */
+@Entity
+@Table(name = "admiration_counters")
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class AdmirationCounter {
+    @Id
+    @Column(name = "user_id")
+    private UUID userId;
+
+    @Column(name = "received_count", nullable = false)
+    private long receivedCount;
+
+    @Column(name = "given_count", nullable = false)
+    private long givenCount;
+
+    @Column(name = "updated_at", nullable = false)
+    private OffsetDateTime updatedAt;
+}
@@ -17,7 +17,9 @@ import java.util.UUID;
 
 @Entity
 @Data
-@Table(name = "chat_messages")
+@Table(name = "chat_messages", indexes = {
+        @Index(name = "idx_chat_messages_room_keyset", columnList = "room_id, sentAt DESC, chat_message_id DESC")
+})
 @SuperBuilder
 @AllArgsConstructor
 @NoArgsConstructor
@@ -72,6 +74,10 @@ public class ChatMessage {
     @Column(name = "is_read", nullable = false)
     private boolean isRead;
 
+    // Diacritic-folded plaintext for the trigram search index; null for E2EE and non-text messages
+    @Column(name = "search_text", columnDefinition = "TEXT")
+    private String searchText;
+
     @JdbcTypeCode(SqlTypes.JSON)
     @Column(name = "translations", columnDefinition = "jsonb")
     private Map<String, String> translations;
@@ -29,6 +29,10 @@ public class MessageReaction extends BaseEntity {
     @Column(name = "sent_at", nullable = false)
     private OffsetDateTime sentAt;
 
+    // sent_at of the reacted-to message: part of its key in the partitioned chat_messages table
+    @Column(name = "message_sent_at")
+    private OffsetDateTime messageSentAt;
+
     @Column(name = "user_id", nullable = false)
     private UUID userId;
 
@@ -9,7 +9,9 @@ import lombok.experimental.SuperBuilder;
 import java.util.UUID;
 
 @Entity
-@Table(name = "notifications")
+@Table(name = "notifications", indexes = {
+        @Index(name = "idx_notifications_user_feed", columnList = "user_id, created_at DESC, notification_id DESC")
+})
 @Data
 @SuperBuilder
 @AllArgsConstructor
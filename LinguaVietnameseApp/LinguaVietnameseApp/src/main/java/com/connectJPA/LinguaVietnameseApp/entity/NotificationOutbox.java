@@ -0,0 +1,54 @@
+package com.connectJPA.LinguaVietnameseApp.entity;
+
+import com.connectJPA.LinguaVietnameseApp.enums.OutboxKind;
+import com.connectJPA.LinguaVietnameseApp.enums.OutboxStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Pending notification side effect (push, email), written in the same transaction as the change
+ * that caused it and drained by NotificationOutboxRelay. Delivered rows are deleted; rows that
+ * exhaust their retries stay behind as DEAD.
+ */
+@Entity
+@Table(name = "notification_outbox", indexes = {
+        @Index(name = "idx_notification_outbox_due", columnList = "status, partition_key, next_attempt_at")
+})
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class NotificationOutbox {
+    @Id
+    @Column(name = "outbox_id")
+    private UUID outboxId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "kind", nullable = false, length = 16)
+    private OutboxKind kind;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 16)
+    private OutboxStatus status;
+
+    @Column(name = "partition_key", nullable = false)
+    private int partitionKey;
+
+    @Column(name = "payload", nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private OffsetDateTime nextAttemptAt;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private OffsetDateTime createdAt;
+}
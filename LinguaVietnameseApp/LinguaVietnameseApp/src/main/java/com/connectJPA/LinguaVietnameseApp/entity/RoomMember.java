@@ -8,6 +8,7 @@ import lombok.*;
 import lombok.experimental.SuperBuilder;
 
 import java.time.OffsetDateTime;
+import java.util.UUID;
 
 @Entity
 @Data
@@ -44,4 +45,10 @@ public class RoomMember extends BaseEntity {
 
     @Column(name = "nick_name_in_rom") 
     private String nickNameInRom;
+
+    @Column(name = "last_read_at")
+    private OffsetDateTime lastReadAt;
+
+    @Column(name = "last_read_message_id")
+    private UUID lastReadMessageId;
 }
\ No newline at end of file
@@ -0,0 +1,27 @@
+package com.connectJPA.LinguaVietnameseApp.enums;
+
+public enum EmailTemplate {
+    PURCHASE_COURSE("email.course"),
+    VOUCHER_REGISTRATION("email.voucher"),
+    ACHIEVEMENT("email.achievement"),
+    DAILY_REMINDER("email.daily_reminder"),
+    PASSWORD_RESET("email.reset"),
+    VERIFY_ACCOUNT("email.verify"),
+    INACTIVITY_WARNING("email.inactivity"),
+    STREAK_REWARD("email.streak"),
+    OTP("email.otp");
+
+    private final String messagePrefix;
+
+    EmailTemplate(String messagePrefix) {
+        this.messagePrefix = messagePrefix;
+    }
+
+    public String subjectCode() {
+        return messagePrefix + ".subject";
+    }
+
+    public String bodyCode() {
+        return messagePrefix + ".body";
+    }
+}
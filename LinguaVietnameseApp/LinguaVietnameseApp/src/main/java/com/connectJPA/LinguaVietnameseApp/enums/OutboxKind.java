@@ -0,0 +1,5 @@
+package com.connectJPA.LinguaVietnameseApp.enums;
+
+public enum OutboxKind {
+    PUSH, EMAIL
+}
@@ -0,0 +1,5 @@
+package com.connectJPA.LinguaVietnameseApp.enums;
+
+public enum ProfileSection {
+    IDENTITY, ACTIVITY, BADGES, TEACHING, RANKS, COUPLE
+}
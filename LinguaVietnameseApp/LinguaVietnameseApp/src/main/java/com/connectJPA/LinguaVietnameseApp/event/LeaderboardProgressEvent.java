@@ -0,0 +1,27 @@
+package com.connectJPA.LinguaVietnameseApp.event;
+
+import lombok.Getter;
+
+import java.util.UUID;
+
+/**
+ * Exp earned by a user together with the totals it produced; consumed after commit by the
+ * leaderboard aggregator.
+ */
+@Getter
+public class LeaderboardProgressEvent {
+
+    private final UUID userId;
+    private final int expDelta;
+    private final int level;
+    private final int exp;
+    private final int coins;
+
+    public LeaderboardProgressEvent(UUID userId, int expDelta, int level, int exp, int coins) {
+        this.userId = userId;
+        this.expDelta = expDelta;
+        this.level = level;
+        this.exp = exp;
+        this.coins = coins;
+    }
+}
@@ -0,0 +1,18 @@
+package com.connectJPA.LinguaVietnameseApp.event;
+
+import com.connectJPA.LinguaVietnameseApp.enums.ProfileSection;
+import lombok.Getter;
+
+import java.util.UUID;
+
+@Getter
+public class ProfileSectionChangedEvent {
+
+    private final UUID userId;
+    private final ProfileSection section;
+
+    public ProfileSectionChangedEvent(UUID userId, ProfileSection section) {
+        this.userId = userId;
+        this.section = section;
+    }
+}
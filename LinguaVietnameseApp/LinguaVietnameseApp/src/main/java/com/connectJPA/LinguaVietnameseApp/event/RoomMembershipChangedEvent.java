@@ -0,0 +1,15 @@
+package com.connectJPA.LinguaVietnameseApp.event;
+
+import lombok.Getter;
+
+import java.util.UUID;
+
+@Getter
+public class RoomMembershipChangedEvent {
+
+    private final UUID roomId;
+
+    public RoomMembershipChangedEvent(UUID roomId) {
+        this.roomId = roomId;
+    }
+}
@@ -0,0 +1,15 @@
+package com.connectJPA.LinguaVietnameseApp.event;
+
+import lombok.Getter;
+
+import java.util.UUID;
+
+@Getter
+public class UserProfileChangedEvent {
+
+    private final UUID userId;
+
+    public UserProfileChangedEvent(UUID userId) {
+        this.userId = userId;
+    }
+}
@@ -71,6 +71,7 @@ public enum ErrorCode {
     INVALID_COURSE_TYPE(1401, "error.invalid_course_type", HttpStatus.BAD_REQUEST, true),
     REASON_FOR_CHANGE_REQUIRED(1402, "error.reason_for_change_required", HttpStatus.BAD_REQUEST, true),
     MESSAGE_EDIT_EXPIRED(1403, "error.message_edit_expired", HttpStatus.BAD_REQUEST, true),
+    SEARCH_TOO_BROAD(1404, "error.search_too_broad", HttpStatus.BAD_REQUEST, true),
 
 
     // Nhóm: External Services (15xx)
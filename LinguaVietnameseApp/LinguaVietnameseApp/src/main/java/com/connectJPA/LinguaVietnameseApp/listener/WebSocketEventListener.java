@@ -1,31 +1,25 @@
 package com.connectJPA.LinguaVietnameseApp.listener;
 
-import com.connectJPA.LinguaVietnameseApp.controller.ChatController;
-import com.connectJPA.LinguaVietnameseApp.dto.request.UserStatusRequest;
+import com.connectJPA.LinguaVietnameseApp.service.chat.PresenceService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.event.EventListener;
-import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.messaging.simp.SimpMessageSendingOperations;
 import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.messaging.SessionConnectedEvent;
 import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
 
 import java.security.Principal;
 import java.util.UUID;
-import java.util.concurrent.TimeUnit;
 
 @Component
 @Slf4j
 @RequiredArgsConstructor
 public class WebSocketEventListener {
 
-    private final SimpMessageSendingOperations messagingTemplate;
-    private final RedisTemplate<String, String> redisTemplate;
-
-    private static final String ONLINE_USER_KEY_PREFIX = "user:online:";
-    private static final long TIMEOUT_MINUTES = 5; 
+    private final PresenceService presenceService;
 
     @EventListener
     public void handleWebSocketConnectListener(SessionConnectedEvent event) {
@@ -35,37 +29,29 @@ public class WebSocketEventListener {
         if (principal != null) {
             String userId = principal.getName();
             log.info("User Connected: {}", userId);
-
-            String redisKey = ONLINE_USER_KEY_PREFIX + userId;
-            redisTemplate.opsForValue().set(redisKey, "ONLINE", TIMEOUT_MINUTES, TimeUnit.MINUTES);
-
-            UserStatusRequest statusUpdate = UserStatusRequest.builder()
-                    .userId(UUID.fromString(userId))
-                    .status("ONLINE")
-                    .build();
-            
-            messagingTemplate.convertAndSend("/topic/user/" + userId + "/status", statusUpdate);
+            try {
+                presenceService.sessionConnected(headerAccessor.getSessionId(), UUID.fromString(userId));
+            } catch (IllegalArgumentException e) {
+                log.warn("Ignoring presence for non-UUID principal {}", userId);
+            }
         }
     }
 
     @EventListener
     public void handleWebSocketDisconnectListener(SessionDisconnectEvent event) {
-        StompHeaderAccessor headerAccessor = StompHeaderAccessor.wrap(event.getMessage());
-        Principal principal = headerAccessor.getUser();
-
-        if (principal != null) {
-            String userId = principal.getName();
-            log.info("User Disconnected: {}", userId);
-
-            String redisKey = ONLINE_USER_KEY_PREFIX + userId;
-            redisTemplate.delete(redisKey);
+        log.info("Session Disconnected: {}", event.getSessionId());
+        presenceService.sessionDisconnected(event.getSessionId());
+    }
 
-            UserStatusRequest statusUpdate = UserStatusRequest.builder()
-                    .userId(UUID.fromString(userId))
-                    .status("OFFLINE")
-                    .build();
+    @EventListener
+    public void handleSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor headerAccessor = StompHeaderAccessor.wrap(event.getMessage());
+        presenceService.subscribed(headerAccessor.getSessionId(), headerAccessor.getSubscriptionId(), headerAccessor.getDestination());
+    }
 
-            messagingTemplate.convertAndSend("/topic/user/" + userId + "/status", statusUpdate);
-        }
+    @EventListener
+    public void handleUnsubscribe(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor headerAccessor = StompHeaderAccessor.wrap(event.getMessage());
+        presenceService.unsubscribed(headerAccessor.getSessionId(), headerAccessor.getSubscriptionId());
     }
-}
\ No newline at end of file
+}
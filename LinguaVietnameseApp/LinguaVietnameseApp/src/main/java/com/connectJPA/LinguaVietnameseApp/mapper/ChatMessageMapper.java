@@ -29,6 +29,7 @@ public interface ChatMessageMapper {
     @Mapping(target = "isDeleted", constant = "false")
     @Mapping(target = "updatedAt", ignore = true)
     @Mapping(target = "deletedAt", ignore = true)
+    @Mapping(target = "searchText", ignore = true)
     ChatMessage toEntity(ChatMessageRequest request);
 
     @Mapping(source = "id.chatMessageId", target = "chatMessageId")
@@ -47,5 +48,6 @@ public interface ChatMessageMapper {
 
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "translations", ignore = true)
+    @Mapping(target = "searchText", ignore = true)
     void updateEntityFromRequest(ChatMessageRequest request, @MappingTarget ChatMessage message);
 }
\ No newline at end of file
@@ -2,11 +2,14 @@ package com.connectJPA.LinguaVietnameseApp.repository.jpa;
 
 import com.connectJPA.LinguaVietnameseApp.entity.Admiration;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
 @Repository
@@ -18,6 +21,13 @@ public interface AdmirationRepository extends JpaRepository<Admiration, UUID> {
 
     boolean existsByUserIdAndSenderId(UUID userId, UUID senderId);
 
+    @Query("SELECT a.userId FROM Admiration a WHERE a.senderId = :senderId AND a.userId IN :userIds")
+    List<UUID> findAdmiredUserIds(@Param("senderId") UUID senderId, @Param("userIds") Collection<UUID> userIds);
+
+    @Modifying
+    @Query("DELETE FROM Admiration a WHERE a.userId = :userId AND a.senderId = :senderId")
+    int deleteByUserIdAndSenderId(@Param("userId") UUID userId, @Param("senderId") UUID senderId);
+
     @Query("SELECT COUNT(a) FROM Admiration a WHERE a.senderId = :senderId AND a.createdAt BETWEEN :start AND :end")
     long countBySenderIdAndCreatedAtBetween(@Param("senderId") UUID senderId, 
                                             @Param("start") OffsetDateTime start, 
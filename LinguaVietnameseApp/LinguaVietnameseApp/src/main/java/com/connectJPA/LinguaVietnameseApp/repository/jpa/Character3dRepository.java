@@ -9,11 +9,16 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface Character3dRepository extends JpaRepository<Character3d, UUID> {
+
+    List<Character3d> findByCharacter3dIdInAndIsDeletedFalse(Collection<UUID> character3dIds);
+
     @Query(value = "SELECT * FROM character3ds WHERE character3d_name LIKE %:character3dName% AND is_deleted = false LIMIT :limit OFFSET :offset",
             countQuery = "SELECT COUNT(*) FROM character3ds WHERE character3d_name LIKE %:character3dName% AND is_deleted = false",
             nativeQuery = true)
@@ -4,12 +4,14 @@ import com.connectJPA.LinguaVietnameseApp.entity.ChatMessage;
 import com.connectJPA.LinguaVietnameseApp.entity.id.ChatMessagesId;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -47,13 +49,39 @@ public interface ChatMessageRepository extends JpaRepository<ChatMessage, ChatMe
 
     Page<ChatMessage> findByRoomIdAndIsDeletedFalseOrderById_SentAtDesc(UUID roomId, Pageable pageable);
 
+    @Query("SELECT cm FROM ChatMessage cm WHERE cm.roomId = :roomId AND cm.isDeleted = false " +
+           "ORDER BY cm.id.sentAt DESC, cm.id.chatMessageId DESC")
+    Slice<ChatMessage> findRoomHistory(@Param("roomId") UUID roomId, Pageable pageable);
+
+    @Query("SELECT cm FROM ChatMessage cm WHERE cm.roomId = :roomId AND cm.isDeleted = false " +
+           "AND (cm.id.sentAt < :sentAt OR (cm.id.sentAt = :sentAt AND cm.id.chatMessageId < :messageId)) " +
+           "ORDER BY cm.id.sentAt DESC, cm.id.chatMessageId DESC")
+    Slice<ChatMessage> findRoomHistoryBefore(@Param("roomId") UUID roomId,
+                                             @Param("sentAt") OffsetDateTime sentAt,
+                                             @Param("messageId") UUID messageId,
+                                             Pageable pageable);
+
     @Query("SELECT cm FROM ChatMessage cm WHERE cm.id.chatMessageId = :chatMessageId AND cm.isDeleted = false")
     Optional<ChatMessage> findByIdChatMessageIdAndIsDeletedFalse(@Param("chatMessageId") UUID chatMessageId);
 
+    @Query("SELECT cm FROM ChatMessage cm WHERE cm.id.chatMessageId = :chatMessageId AND cm.id.sentAt >= :since " +
+           "AND cm.isDeleted = false")
+    Optional<ChatMessage> findRecentById(@Param("chatMessageId") UUID chatMessageId, @Param("since") OffsetDateTime since);
+
+    /**
+     * Message ids carry no time, so a lookup by id alone visits every partition. Most lookups are
+     * for recent messages: the bounded query only touches the newest partitions, and older
+     * messages fall back to the full lookup.
+     */
+    default Optional<ChatMessage> findLiveById(UUID chatMessageId, OffsetDateTime recentSince) {
+        Optional<ChatMessage> recent = findRecentById(chatMessageId, recentSince);
+        return recent.isPresent() ? recent : findByIdChatMessageIdAndIsDeletedFalse(chatMessageId);
+    }
+
     @Modifying
     @Query("UPDATE ChatMessage cm SET cm.isDeleted = true, cm.deletedAt = CURRENT_TIMESTAMP " +
-            "WHERE cm.id.chatMessageId = :chatMessageId")
-    void softDeleteByChatMessageId(@Param("chatMessageId") UUID chatMessageId);
+            "WHERE cm.id.chatMessageId = :chatMessageId AND cm.id.sentAt = :sentAt")
+    void softDeleteByChatMessageId(@Param("chatMessageId") UUID chatMessageId, @Param("sentAt") OffsetDateTime sentAt);
 
     @Query("SELECT COUNT(cm) FROM ChatMessage cm WHERE (cm.senderId = :userId OR cm.receiverId = :userId) AND cm.isDeleted = false")
     long countMessagesForUser(@Param("userId") UUID userId);
@@ -61,6 +89,17 @@ public interface ChatMessageRepository extends JpaRepository<ChatMessage, ChatMe
     @Query("SELECT COUNT(cm) FROM ChatMessage cm WHERE cm.senderId = :userId AND cm.translations IS NOT NULL AND cm.isDeleted = false")
     long countTranslationsForUser(@Param("userId") UUID userId);
 
+    @Query("SELECT cm.senderId, COUNT(cm) FROM ChatMessage cm WHERE cm.senderId IN :userIds AND cm.isDeleted = false GROUP BY cm.senderId")
+    List<Object[]> countSentMessagesByUserIds(@Param("userIds") Collection<UUID> userIds);
+
+    @Query("SELECT cm.receiverId, COUNT(cm) FROM ChatMessage cm WHERE cm.receiverId IN :userIds " +
+           "AND (cm.senderId IS NULL OR cm.senderId <> cm.receiverId) AND cm.isDeleted = false GROUP BY cm.receiverId")
+    List<Object[]> countReceivedMessagesByUserIds(@Param("userIds") Collection<UUID> userIds);
+
+    @Query("SELECT cm.senderId, COUNT(cm) FROM ChatMessage cm WHERE cm.senderId IN :userIds AND cm.translations IS NOT NULL " +
+           "AND cm.isDeleted = false GROUP BY cm.senderId")
+    List<Object[]> countTranslationsByUserIds(@Param("userIds") Collection<UUID> userIds);
+
 
     @Query("SELECT COUNT(DISTINCT cm.receiverId) FROM ChatMessage cm " +
            "WHERE cm.senderId = :senderId AND cm.id.sentAt BETWEEN :start AND :end AND cm.isDeleted = false")
@@ -72,15 +111,40 @@ public interface ChatMessageRepository extends JpaRepository<ChatMessage, ChatMe
            "WHERE cm.senderId = :senderId AND cm.isDeleted = false")
     long countDistinctReceiversBySenderId(@Param("senderId") UUID senderId);
     
-    @Query("SELECT cm FROM ChatMessage cm WHERE " +
-            "LOWER(cm.content) LIKE LOWER(CONCAT('%', :keyword, '%')) AND " +
-            "(:roomId IS NULL OR cm.roomId = :roomId) AND " +
-            "cm.isDeleted = false " +
-            "ORDER BY cm.id.sentAt DESC")
-    Page<ChatMessage> searchMessagesByKeyword(
-            @Param("keyword") String keyword,
-            @Param("roomId") UUID roomId,
-            Pageable pageable);
+    @Query(value = "WITH candidates AS (SELECT * FROM chat_messages " +
+            "WHERE search_text LIKE :pattern ESCAPE '!' AND is_deleted = false " +
+            "AND room_id IN (SELECT rm.room_id FROM room_members rm WHERE rm.user_id = :userId AND rm.is_deleted = false) " +
+            "ORDER BY sent_at DESC LIMIT :candidateLimit) " +
+            "SELECT * FROM candidates ORDER BY word_similarity(:query, search_text) DESC, sent_at DESC " +
+            "LIMIT :limit OFFSET :offset", nativeQuery = true)
+    List<ChatMessage> searchIndexed(@Param("query") String query,
+                                    @Param("pattern") String pattern,
+                                    @Param("userId") UUID userId,
+                                    @Param("candidateLimit") int candidateLimit,
+                                    @Param("limit") int limit,
+                                    @Param("offset") int offset);
+
+    @Query(value = "WITH candidates AS (SELECT * FROM chat_messages " +
+            "WHERE search_text LIKE :pattern ESCAPE '!' AND is_deleted = false " +
+            "AND room_id IN (SELECT rm.room_id FROM room_members rm WHERE rm.user_id = :userId AND rm.is_deleted = false) " +
+            "AND room_id = :roomId " +
+            "ORDER BY sent_at DESC LIMIT :candidateLimit) " +
+            "SELECT * FROM candidates ORDER BY word_similarity(:query, search_text) DESC, sent_at DESC " +
+            "LIMIT :limit OFFSET :offset", nativeQuery = true)
+    List<ChatMessage> searchIndexedInRoom(@Param("query") String query,
+                                          @Param("pattern") String pattern,
+                                          @Param("userId") UUID userId,
+                                          @Param("roomId") UUID roomId,
+                                          @Param("candidateLimit") int candidateLimit,
+                                          @Param("limit") int limit,
+                                          @Param("offset") int offset);
 
     Optional<ChatMessage> findFirstByRoomIdAndIsDeletedFalseOrderByIdSentAtDesc(UUID roomId);
+
+    @Query("SELECT COUNT(cm) FROM ChatMessage cm WHERE cm.roomId = :roomId AND cm.senderId <> :userId " +
+           "AND cm.id.sentAt > :after AND cm.isDeleted = false")
+    long countUnreadAfter(@Param("roomId") UUID roomId, @Param("userId") UUID userId, @Param("after") OffsetDateTime after);
+
+    @Query("SELECT COUNT(cm) FROM ChatMessage cm WHERE cm.roomId = :roomId AND cm.senderId <> :userId AND cm.isDeleted = false")
+    long countFromOthers(@Param("roomId") UUID roomId, @Param("userId") UUID userId);
 }
\ No newline at end of file
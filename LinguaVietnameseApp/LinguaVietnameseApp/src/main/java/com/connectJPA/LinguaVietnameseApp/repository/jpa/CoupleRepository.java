@@ -10,6 +10,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -22,6 +23,10 @@ public interface CoupleRepository extends JpaRepository<Couple, UUID> {
     @Query("SELECT c FROM Couple c WHERE (c.user1.userId = :userId OR c.user2.userId = :userId) AND c.isDeleted = false")
     Optional<Couple> findByUserId(@Param("userId") UUID userId);
 
+    @Query("SELECT c FROM Couple c JOIN FETCH c.user1 JOIN FETCH c.user2 " +
+           "WHERE (c.user1.userId IN :userIds OR c.user2.userId IN :userIds) AND c.isDeleted = false")
+    List<Couple> findAllByUserIds(@Param("userIds") Collection<UUID> userIds);
+
     @Query("SELECT c FROM Couple c WHERE c.status IN ('COUPLE', 'IN_LOVE') AND c.isDeleted = false")
     List<Couple> findAllActiveCouples();
 
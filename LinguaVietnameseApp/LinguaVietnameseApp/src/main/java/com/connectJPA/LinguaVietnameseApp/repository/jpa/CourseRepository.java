@@ -11,6 +11,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -26,6 +27,8 @@ public interface CourseRepository extends JpaRepository<Course, UUID> {
     Page<Course> findByCreatorIdAndIsDeletedFalse(UUID creatorId, Pageable pageable);
     List<Course> findByCreatorIdAndIsDeletedFalse(UUID creatorId);
 
+    List<Course> findByCreatorIdInAndIsDeletedFalse(Collection<UUID> creatorIds);
+
     List<Course> findByCreatedAtBetweenAndIsDeletedFalse(OffsetDateTime start, OffsetDateTime end);
     long countByCreatedAtBetweenAndIsDeletedFalse(OffsetDateTime start, OffsetDateTime end);
 
@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -17,6 +18,11 @@ public interface DatingInviteRepository extends JpaRepository<DatingInvite, UUID
     List<DatingInvite> findByExpiresAtBeforeAndStatus(OffsetDateTime time, DatingInviteStatus status);
     List<DatingInvite> findByTargetIdAndStatus(UUID targetId, DatingInviteStatus status);
 
+    @Query("SELECT d FROM DatingInvite d WHERE d.status = :status AND " +
+           "((d.senderId = :userId AND d.targetId IN :otherIds) OR (d.targetId = :userId AND d.senderId IN :otherIds))")
+    List<DatingInvite> findBetweenByStatus(@Param("userId") UUID userId, @Param("otherIds") Collection<UUID> otherIds,
+                                           @Param("status") DatingInviteStatus status);
+
     @Modifying
     @Query("UPDATE DatingInvite d SET d.status = 'expired' WHERE d.status = 'pending' AND d.expiresAt < :now")
     int expirePendingInvites(@Param("now") OffsetDateTime now);
@@ -12,11 +12,17 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface FriendshipRepository extends JpaRepository<Friendship, FriendshipId> {
+
+    @Query("SELECT f FROM Friendship f WHERE f.isDeleted = false AND " +
+           "((f.id.requesterId = :userId AND f.id.receiverId IN :otherIds) OR (f.id.receiverId = :userId AND f.id.requesterId IN :otherIds))")
+    List<Friendship> findEdgesBetween(@Param("userId") UUID userId, @Param("otherIds") Collection<UUID> otherIds);
+
     Page<Friendship> findByIdRequesterIdAndStatusAndIsDeletedFalse(
         UUID requesterId, 
         FriendshipStatus status,
@@ -11,6 +11,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -131,4 +132,14 @@ public interface LeaderboardEntryRepository extends JpaRepository<LeaderboardEnt
             "FROM LeaderboardEntry le WHERE le.leaderboard.tab = :tab) ranked " +
             "WHERE ranked.uid = :userId")
     Integer findRankByUserAndTab(@Param("userId") UUID userId, @Param("tab") String tab);
-}
\ No newline at end of file
+
+    @Query("SELECT le.leaderboardEntryId.userId, le.score, u.level, u.exp FROM LeaderboardEntry le JOIN le.user u " +
+            "WHERE le.leaderboardEntryId.leaderboardId = :leaderboardId AND le.leaderboardEntryId.userId > :after " +
+            "AND le.isDeleted = false AND u.isDeleted = false ORDER BY le.leaderboardEntryId.userId")
+    List<Object[]> findRankingRowsAfter(@Param("leaderboardId") UUID leaderboardId, @Param("after") UUID after, Pageable pageable);
+
+    @Query("SELECT le FROM LeaderboardEntry le JOIN FETCH le.user u " +
+            "WHERE le.leaderboardEntryId.leaderboardId = :leaderboardId AND le.leaderboardEntryId.userId IN :userIds " +
+            "AND le.isDeleted = false AND u.isDeleted = false")
+    List<LeaderboardEntry> findByLeaderboardIdAndUserIds(@Param("leaderboardId") UUID leaderboardId, @Param("userIds") Collection<UUID> userIds);
+}
@@ -3,11 +3,15 @@ package com.connectJPA.LinguaVietnameseApp.repository.jpa;
 import com.connectJPA.LinguaVietnameseApp.entity.Notification;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -39,6 +43,21 @@ public interface NotificationRepository extends JpaRepository<Notification, UUID
 
     long countByUserIdAndReadFalseAndIsDeletedFalse(UUID userId);
 
+    @Query("SELECT n.userId, COUNT(n) FROM Notification n WHERE n.userId IN :userIds AND n.read = false AND n.isDeleted = false GROUP BY n.userId")
+    List<Object[]> countUnreadByUserIds(@Param("userIds") Collection<UUID> userIds);
+
+    @Query("SELECT n FROM Notification n WHERE n.userId = :userId AND n.isDeleted = false " +
+           "ORDER BY n.createdAt DESC, n.notificationId DESC")
+    Slice<Notification> findFeed(@Param("userId") UUID userId, Pageable pageable);
+
+    @Query("SELECT n FROM Notification n WHERE n.userId = :userId AND n.isDeleted = false " +
+           "AND (n.createdAt < :createdAt OR (n.createdAt = :createdAt AND n.notificationId < :notificationId)) " +
+           "ORDER BY n.createdAt DESC, n.notificationId DESC")
+    Slice<Notification> findFeedBefore(@Param("userId") UUID userId,
+                                       @Param("createdAt") OffsetDateTime createdAt,
+                                       @Param("notificationId") UUID notificationId,
+                                       Pageable pageable);
+
     @Modifying
     @Query("UPDATE Notification n SET n.read = true WHERE n.userId = :userId AND n.read = false AND n.isDeleted = false")
     void markAllAsReadByUserId(@Param("userId") UUID userId);
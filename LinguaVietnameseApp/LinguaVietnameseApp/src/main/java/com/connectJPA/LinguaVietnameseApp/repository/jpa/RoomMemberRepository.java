@@ -9,6 +9,7 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -38,4 +39,20 @@ public interface RoomMemberRepository extends JpaRepository<RoomMember, RoomMemb
 
     @Query("SELECT rm.id.userId FROM RoomMember rm WHERE rm.id.roomId = :roomId AND rm.id.userId != :senderId AND rm.isDeleted = false")
     UUID findOtherMemberId(@Param("roomId") UUID roomId, @Param("senderId") UUID senderId);
+
+    @Query("SELECT rm.id.userId FROM RoomMember rm WHERE rm.id.roomId = :roomId AND rm.isDeleted = false")
+    List<UUID> findActiveMemberIds(@Param("roomId") UUID roomId);
+
+    @Query("SELECT DISTINCT u.nativeLanguageCode FROM RoomMember rm JOIN rm.user u " +
+           "WHERE rm.id.roomId = :roomId AND rm.isDeleted = false AND u.nativeLanguageCode IS NOT NULL")
+    List<String> findMemberNativeLanguages(@Param("roomId") UUID roomId);
+
+    @Query("SELECT rm.id.roomId FROM RoomMember rm WHERE rm.id.userId = :userId AND rm.isDeleted = false")
+    List<UUID> findActiveRoomIds(@Param("userId") UUID userId);
+
+    @Query("SELECT rm.id.userId, rm.lastReadAt FROM RoomMember rm WHERE rm.id.roomId = :roomId AND rm.isDeleted = false")
+    List<Object[]> findReadWatermarksByRoomId(@Param("roomId") UUID roomId);
+
+    @Query("SELECT rm.lastReadAt FROM RoomMember rm WHERE rm.id.roomId = :roomId AND rm.id.userId = :userId AND rm.isDeleted = false")
+    Optional<OffsetDateTime> findLastReadAt(@Param("roomId") UUID roomId, @Param("userId") UUID userId);
 }
\ No newline at end of file
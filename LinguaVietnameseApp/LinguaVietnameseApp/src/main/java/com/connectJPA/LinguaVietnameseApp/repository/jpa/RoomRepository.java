@@ -11,6 +11,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -82,6 +83,10 @@ public interface RoomRepository extends JpaRepository<Room, UUID> {
     @Query("UPDATE Room r SET r.isDeleted = true, r.deletedAt = CURRENT_TIMESTAMP WHERE r.roomId = :roomId")
     void softDeleteByRoomId(@Param("roomId") UUID roomId);
 
+    @Modifying
+    @Query("UPDATE Room r SET r.updatedAt = :at WHERE r.roomId = :roomId AND (r.updatedAt IS NULL OR r.updatedAt < :at)")
+    int touchUpdatedAt(@Param("roomId") UUID roomId, @Param("at") OffsetDateTime at);
+
     List<Room> findByCreatorIdAndPurposeAndIsDeletedFalse(UUID userId, RoomPurpose purpose);
 
     Optional<Room> findByCreatorIdAndPurposeAndRoomTypeAndIsDeletedFalse(UUID userId, RoomPurpose purpose, RoomType roomType);
@@ -10,6 +10,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.data.util.Streamable;
 
 import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -23,6 +24,9 @@ public interface UserBadgeRepository extends JpaRepository<UserBadge, UserBadgeI
     @Query("SELECT ub.badge FROM UserBadge ub WHERE ub.id.userId = :userId AND ub.isDeleted = false")
     List<Badge> findBadgesByUserId(@Param("userId") UUID userId);
 
+    @Query("SELECT ub FROM UserBadge ub JOIN FETCH ub.badge WHERE ub.id.userId IN :userIds AND ub.isDeleted = false")
+    List<UserBadge> findWithBadgeByUserIds(@Param("userIds") Collection<UUID> userIds);
+
     Optional<UserBadge> findFirstByIdUserIdAndIsDeletedFalseOrderByCreatedAtDesc(UUID userId);
 
     List<UserBadge> findByUser_UserIdAndCreatedAtBetween(UUID userId, OffsetDateTime startOdt, OffsetDateTime endOdt);
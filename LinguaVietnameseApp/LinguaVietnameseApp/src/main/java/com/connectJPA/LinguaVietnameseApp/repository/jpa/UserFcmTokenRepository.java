@@ -2,10 +2,13 @@ package com.connectJPA.LinguaVietnameseApp.repository.jpa;
 
 import com.connectJPA.LinguaVietnameseApp.entity.UserFcmToken;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -19,6 +22,13 @@ public interface UserFcmTokenRepository extends JpaRepository<UserFcmToken, UUID
     
     List<UserFcmToken> findByUserIdAndIsDeletedFalse(UUID userId);
 
+    List<UserFcmToken> findByUserIdInAndIsDeletedFalse(Collection<UUID> userIds);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM UserFcmToken t WHERE t.fcmToken IN :tokens")
+    int deleteByFcmTokenIn(@Param("tokens") Collection<String> tokens);
+
     Optional<UserFcmToken> findByUserIdAndDeviceId(UUID userId, String deviceId);
 
     // MỚI: Chỉ lấy ID của những user thực sự có Token (distinct để tránh trùng lặp nếu user đăng nhập nhiều máy)
@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -20,6 +21,9 @@ public interface UserLanguageRepository extends JpaRepository<UserLanguage, User
     @Query("SELECT ul.id.languageCode FROM UserLanguage ul WHERE ul.id.userId = :userId AND ul.isDeleted = false")
     List<String> findLanguageCodesByUserId(@Param("userId") UUID userId);
 
+    @Query("SELECT ul.id.userId, ul.id.languageCode FROM UserLanguage ul WHERE ul.id.userId IN :userIds AND ul.isDeleted = false")
+    List<Object[]> findLanguageCodesByUserIds(@Param("userIds") Collection<UUID> userIds);
+
     // SỬA LỖI Ở ĐÂY:
     // 1. Đổi kiểu trả về từ List<Language> -> List<UserLanguage>
     // 2. Đổi tên phương thức findById_UserId -> findByIdUserId
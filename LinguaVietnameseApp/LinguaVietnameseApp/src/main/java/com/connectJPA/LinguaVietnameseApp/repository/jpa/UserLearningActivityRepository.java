@@ -9,6 +9,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import java.time.LocalDate;
 import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -31,6 +32,10 @@ public interface UserLearningActivityRepository extends JpaRepository<UserLearni
     
     @Query("SELECT COALESCE(SUM(ula.durationInSeconds), 0) / 60 FROM UserLearningActivity ula WHERE ula.userId = :userId AND DATE(ula.createdAt) = :date AND ula.isDeleted = false")
     Long sumDurationMinutesByUserIdAndDate(@Param("userId") UUID userId, @Param("date") LocalDate date);
+
+    @Query("SELECT ula.userId, COALESCE(SUM(ula.durationInSeconds), 0) / 60 FROM UserLearningActivity ula " +
+            "WHERE ula.userId IN :userIds AND DATE(ula.createdAt) = :date AND ula.isDeleted = false GROUP BY ula.userId")
+    List<Object[]> sumDurationMinutesByUserIdsAndDate(@Param("userIds") Collection<UUID> userIds, @Param("date") LocalDate date);
     
     @Query("SELECT ula FROM UserLearningActivity ula " +
             "WHERE ula.targetId = :lessonId " +
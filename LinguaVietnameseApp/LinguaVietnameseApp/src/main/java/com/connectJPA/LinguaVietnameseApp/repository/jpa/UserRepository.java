@@ -1,5 +1,6 @@
 package com.connectJPA.LinguaVietnameseApp.repository.jpa;
 
+import com.connectJPA.LinguaVietnameseApp.dto.response.ChatSenderSummary;
 import com.connectJPA.LinguaVietnameseApp.entity.User;
 import com.connectJPA.LinguaVietnameseApp.enums.AgeRange;
 import com.connectJPA.LinguaVietnameseApp.enums.Country;
@@ -13,6 +14,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -20,9 +22,6 @@ import java.util.UUID;
 @Repository
 public interface UserRepository extends JpaRepository<User , UUID>, JpaSpecificationExecutor<User> {
 
-        @Query("SELECT COUNT(u) FROM User u WHERE u.lastActiveAt >= :threshold AND u.isDeleted = false")
-    long countOnlineUsers(@Param("threshold") OffsetDateTime threshold);
-    
     long countByCreatedAtBetween(OffsetDateTime startDate, OffsetDateTime endDate);
 
     @Query("SELECT u FROM User u WHERE (" +
@@ -103,4 +102,16 @@ public interface UserRepository extends JpaRepository<User , UUID>, JpaSpecifica
                                   
     @Query("SELECT u FROM User u WHERE u.vipExpirationDate BETWEEN :start AND :end AND u.isDeleted = false")
     List<User> findByVipExpirationDateBetween(@Param("start") OffsetDateTime start, @Param("end") OffsetDateTime end);
-}
\ No newline at end of file
+
+    @Query("SELECT new com.connectJPA.LinguaVietnameseApp.dto.response.ChatSenderSummary(" +
+           "u.userId, u.fullname, u.nickname, u.avatarUrl, u.country, u.level, u.vipExpirationDate) " +
+           "FROM User u WHERE u.userId = :id AND u.isDeleted = false")
+    Optional<ChatSenderSummary> findChatSenderSummary(@Param("id") UUID id);
+
+    @Query("SELECT u.userId, u.nativeLanguageCode FROM User u WHERE u.userId IN :ids AND u.isDeleted = false")
+    List<Object[]> findNativeLanguageCodes(@Param("ids") Collection<UUID> ids);
+
+    @Query("SELECT u FROM User u LEFT JOIN FETCH u.userSettings WHERE u.isDeleted = false AND u.userId > :after " +
+            "AND EXISTS (SELECT 1 FROM UserFcmToken t WHERE t.userId = u.userId AND t.isDeleted = false) ORDER BY u.userId")
+    List<User> findUsersWithTokensAfter(@Param("after") UUID after, Pageable pageable);
+}
@@ -4,10 +4,12 @@ import com.connectJPA.LinguaVietnameseApp.entity.Permission;
 import com.connectJPA.LinguaVietnameseApp.entity.Role;
 import com.connectJPA.LinguaVietnameseApp.entity.UserRole;
 import com.connectJPA.LinguaVietnameseApp.entity.id.UserRoleId;
+import com.connectJPA.LinguaVietnameseApp.enums.RoleName;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -32,6 +34,10 @@ WHERE ur.user_id = :userId
             "WHERE ur.id.userId = :userId")
     List<Role> findRolesByUserId(@Param("userId") UUID userId);
 
+    @Query("SELECT ur.id.userId FROM UserRole ur WHERE ur.id.userId IN :userIds " +
+            "AND ur.role.roleName = :roleName AND ur.role.isDeleted = false")
+    List<UUID> findUserIdsWithRole(@Param("userIds") Collection<UUID> userIds, @Param("roleName") RoleName roleName);
+
 
 
 
@@ -9,6 +9,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -31,6 +32,15 @@ public interface VideoCallRepository extends JpaRepository<VideoCall, UUID> {
            "AND (vc.status = 'ENDED' OR vc.status = 'COMPLETED') AND vc.isDeleted = false")
     long countCompletedCallsForUser(@Param("userId") UUID userId);
 
+    @Query("SELECT vc.callerId, COUNT(vc) FROM VideoCall vc WHERE vc.callerId IN :userIds " +
+           "AND (vc.status = 'ENDED' OR vc.status = 'COMPLETED') AND vc.isDeleted = false GROUP BY vc.callerId")
+    List<Object[]> countCompletedCallsByCallerIds(@Param("userIds") Collection<UUID> userIds);
+
+    @Query("SELECT vc.calleeId, COUNT(vc) FROM VideoCall vc WHERE vc.calleeId IN :userIds " +
+           "AND (vc.callerId IS NULL OR vc.callerId <> vc.calleeId) " +
+           "AND (vc.status = 'ENDED' OR vc.status = 'COMPLETED') AND vc.isDeleted = false GROUP BY vc.calleeId")
+    List<Object[]> countCompletedCallsByCalleeIds(@Param("userIds") Collection<UUID> userIds);
+
     // For Daily Challenge (Today)
     @Query("SELECT COUNT(vc) FROM VideoCall vc WHERE (vc.callerId = :userId OR vc.calleeId = :userId) " +
            "AND (vc.status = 'ENDED' OR vc.status = 'COMPLETED') " +
@@ -9,6 +9,9 @@ import com.connectJPA.LinguaVietnameseApp.enums.TransactionStatus;
 import com.connectJPA.LinguaVietnameseApp.enums.VersionStatus;
 import com.connectJPA.LinguaVietnameseApp.repository.jpa.*;
 import com.connectJPA.LinguaVietnameseApp.service.NotificationService;
+import com.connectJPA.LinguaVietnameseApp.service.notification.FanOutAudience;
+import com.connectJPA.LinguaVietnameseApp.service.notification.FanOutRecipient;
+import com.connectJPA.LinguaVietnameseApp.service.notification.FanOutTemplate;
 import com.connectJPA.LinguaVietnameseApp.utils.NotificationI18nUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -18,6 +21,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.net.http.HttpClient.Version;
 import java.time.OffsetDateTime;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -121,22 +125,24 @@ public class CommerceScheduler {
             
             log.info("Sending COURSE_UPDATE notification to {} users for courseId {}", userIds.size(), course.getCourseId());
 
-            Map<UUID, String> userLangMap = userRepository.findAllById(userIds).stream()
-                    .collect(Collectors.toMap(User::getUserId, user -> user.getNativeLanguageCode() != null ? user.getNativeLanguageCode() : "en"));
-
-            for (UUID userId : userIds) {
-                String langCode = userLangMap.getOrDefault(userId, "en");
-                String[] message = NotificationI18nUtil.getLocalizedMessage("COURSE_UPDATE", langCode);
-                
-                NotificationRequest request = NotificationRequest.builder()
-                        .userId(userId)
-                        .title(message[0])
-                        .content(String.format(message[1], course.getTitle()))
-                        .type("COURSE_UPDATE")
-                        .payload(String.format("{\"screen\":\"CourseStack\", \"stackScreen\":\"CourseDetail\", \"courseId\":\"%s\"}", course.getCourseId()))
-                        .build();
-                notificationService.createPushNotification(request);
-            }
+            UUID courseId = course.getCourseId();
+            String courseTitle = course.getTitle();
+            FanOutTemplate template = new FanOutTemplate("COURSE_UPDATE", "COURSE_UPDATE",
+                    String.format("{\"screen\":\"CourseStack\", \"stackScreen\":\"CourseDetail\", \"courseId\":\"%s\"}", courseId));
+            notificationService.fanOut((cursor, limit) -> {
+                int from = cursor != null ? Integer.parseInt(cursor) : 0;
+                int to = Math.min(from + limit, userIds.size());
+                List<UUID> chunkIds = userIds.subList(from, to);
+                Map<UUID, String> languages = new HashMap<>();
+                for (Object[] row : userRepository.findNativeLanguageCodes(chunkIds)) {
+                    languages.put((UUID) row[0], (String) row[1]);
+                }
+                List<FanOutRecipient> recipients = chunkIds.stream()
+                        .filter(languages::containsKey)
+                        .map(userId -> new FanOutRecipient(userId, languages.get(userId), courseTitle))
+                        .toList();
+                return new FanOutAudience.Chunk(recipients, to < userIds.size() ? Integer.toString(to) : null);
+            }, template);
         }
     }
 }
\ No newline at end of file
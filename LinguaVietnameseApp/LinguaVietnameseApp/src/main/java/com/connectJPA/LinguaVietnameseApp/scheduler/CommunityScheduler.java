@@ -10,6 +10,9 @@ import com.connectJPA.LinguaVietnameseApp.repository.jpa.FriendshipRepository;
 import com.connectJPA.LinguaVietnameseApp.repository.jpa.LeaderboardEntryRepository;
 import com.connectJPA.LinguaVietnameseApp.repository.jpa.UserRepository;
 import com.connectJPA.LinguaVietnameseApp.service.NotificationService;
+import com.connectJPA.LinguaVietnameseApp.service.notification.FanOutAudience;
+import com.connectJPA.LinguaVietnameseApp.service.notification.FanOutRecipient;
+import com.connectJPA.LinguaVietnameseApp.service.notification.FanOutTemplate;
 import com.connectJPA.LinguaVietnameseApp.utils.NotificationI18nUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -21,7 +24,10 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.OffsetDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -101,32 +107,21 @@ public class CommunityScheduler {
         List<Couple> couples = coupleRepository.findAllActiveCouples();
         OffsetDateTime threshold = OffsetDateTime.now().minusDays(1);
 
+        Map<UUID, FanOutRecipient> recipients = new LinkedHashMap<>();
         for (Couple couple : couples) {
             if (couple.getLastInteractionAt() != null && couple.getLastInteractionAt().isAfter(threshold)) continue;
 
-            notifyCoupleMember(couple.getUser1());
-            notifyCoupleMember(couple.getUser2());
+            addCoupleMember(recipients, couple.getUser1());
+            addCoupleMember(recipients, couple.getUser2());
         }
-    }
-
-    private void notifyCoupleMember(User user) {
-        if (user == null || user.isDeleted() || !user.getUserSettings().isCoupleReminders()) return;
-
-        try {
-            String langCode = user.getNativeLanguageCode() != null ? user.getNativeLanguageCode() : "en";
-            String[] message = NotificationI18nUtil.getLocalizedMessage("COUPLE_REMINDER", langCode);
+        if (recipients.isEmpty()) return;
 
-            NotificationRequest request = NotificationRequest.builder()
-                    .userId(user.getUserId())
-                    .title(message[0])
-                    .content(message[1])
-                    .type("COUPLE_REMINDER")
-                    .payload("{\"screen\":\"Community\", \"subScreen\":\"Couple\"}")
-                    .build();
+        notificationService.fanOut(FanOutAudience.of(recipients.values()), new FanOutTemplate("COUPLE_REMINDER",
+                "COUPLE_REMINDER", "{\"screen\":\"Community\", \"subScreen\":\"Couple\"}"));
+    }
 
-            notificationService.createPushNotification(request);
-        } catch (Exception e) {
-            log.error("Failed to notify couple user {}", user.getUserId());
-        }
+    private void addCoupleMember(Map<UUID, FanOutRecipient> recipients, User user) {
+        if (user == null || user.isDeleted() || user.getUserSettings() == null || !user.getUserSettings().isCoupleReminders()) return;
+        recipients.putIfAbsent(user.getUserId(), new FanOutRecipient(user.getUserId(), user.getNativeLanguageCode()));
     }
-}
\ No newline at end of file
+}
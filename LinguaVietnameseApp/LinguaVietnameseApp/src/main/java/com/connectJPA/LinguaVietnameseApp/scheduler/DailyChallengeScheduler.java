@@ -10,13 +10,16 @@ import com.connectJPA.LinguaVietnameseApp.enums.ChallengePeriod;
 import com.connectJPA.LinguaVietnameseApp.enums.ChallengeStatus;
 import com.connectJPA.LinguaVietnameseApp.repository.jpa.DailyChallengeRepository;
 import com.connectJPA.LinguaVietnameseApp.repository.jpa.UserDailyChallengeRepository;
-import com.connectJPA.LinguaVietnameseApp.repository.jpa.UserFcmTokenRepository;
 import com.connectJPA.LinguaVietnameseApp.repository.jpa.UserRepository;
 import com.connectJPA.LinguaVietnameseApp.service.DailyChallengeService;
 import com.connectJPA.LinguaVietnameseApp.service.NotificationService;
+import com.connectJPA.LinguaVietnameseApp.service.notification.FanOutAudience;
+import com.connectJPA.LinguaVietnameseApp.service.notification.FanOutRecipient;
+import com.connectJPA.LinguaVietnameseApp.service.notification.FanOutTemplate;
 import com.connectJPA.LinguaVietnameseApp.utils.NotificationI18nUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
@@ -26,6 +29,7 @@ import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.time.temporal.ChronoUnit;
 import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -40,7 +44,6 @@ public class DailyChallengeScheduler {
     private final UserRepository userRepository;
     private final UserDailyChallengeRepository userDailyChallengeRepository;
     private final NotificationService notificationService;
-    private final UserFcmTokenRepository userFcmTokenRepository;
 
     private static final String TIME_ZONE = "UTC";
 
@@ -117,39 +120,32 @@ public class DailyChallengeScheduler {
     }
 
     @Scheduled(cron = "0 0/30 * * * ?", zone = TIME_ZONE)
-    @Transactional
     public void suggestDailyChallenges() {
-        List<UUID> userIdsWithToken = userFcmTokenRepository.findAllUserIdsWithTokens();
-        if (userIdsWithToken.isEmpty()) return;
-        
-        List<User> activeUsers = userRepository.findAllById(userIdsWithToken);
-
-        for (User user : activeUsers) {
-            if (user.isDeleted()) continue;
-
-            UserSettings settings = user.getUserSettings();
-            if (settings == null || !settings.isDailyChallengeReminders()) continue;
-
-            try {
-                Map<String, Object> stats = dailyChallengeService.getDailyChallengeStats(user.getUserId());
-                if (stats.containsKey("canAssignMore") && Boolean.TRUE.equals(stats.get("canAssignMore"))) {
-                    String langCode = user.getNativeLanguageCode() != null ? user.getNativeLanguageCode() : "en";
-                    String[] message = NotificationI18nUtil.getLocalizedMessage("DAILY_CHALLENGE_SUGGESTION", langCode);
-
-                    NotificationRequest suggestion = NotificationRequest.builder()
-                            .userId(user.getUserId())
-                            .title(message[0])
-                            .content(message[1])
-                            .type("DAILY_CHALLENGE_SUGGESTION")
-                            .payload("{\"screen\":\"Home\", \"action\":\"dailyChallenge\"}")
-                            .build();
-
-                    notificationService.createPushNotification(suggestion);
+        FanOutTemplate template = new FanOutTemplate("DAILY_CHALLENGE_SUGGESTION", "DAILY_CHALLENGE_SUGGESTION",
+                "{\"screen\":\"Home\", \"action\":\"dailyChallenge\"}");
+
+        notificationService.fanOut((cursor, limit) -> {
+            UUID after = cursor != null ? UUID.fromString(cursor) : new UUID(0L, 0L);
+            List<User> users = userRepository.findUsersWithTokensAfter(after, PageRequest.of(0, limit));
+            if (users.isEmpty()) return new FanOutAudience.Chunk(List.of(), null);
+
+            List<FanOutRecipient> recipients = new ArrayList<>();
+            for (User user : users) {
+                UserSettings settings = user.getUserSettings();
+                if (settings == null || !settings.isDailyChallengeReminders()) continue;
+
+                try {
+                    Map<String, Object> stats = dailyChallengeService.getDailyChallengeStats(user.getUserId());
+                    if (stats.containsKey("canAssignMore") && Boolean.TRUE.equals(stats.get("canAssignMore"))) {
+                        recipients.add(new FanOutRecipient(user.getUserId(), user.getNativeLanguageCode()));
+                    }
+                } catch (Exception e) {
+                    log.error("Error processing user {}: {}", user.getUserId(), e.getMessage());
                 }
-            } catch (Exception e) {
-                log.error("Error processing user {}: {}", user.getUserId(), e.getMessage());
             }
-        }
+            String next = users.size() < limit ? null : users.get(users.size() - 1).getUserId().toString();
+            return new FanOutAudience.Chunk(recipients, next);
+        }, template);
     }
 
     @Scheduled(cron = "0 0 14 * * ?", zone = TIME_ZONE)
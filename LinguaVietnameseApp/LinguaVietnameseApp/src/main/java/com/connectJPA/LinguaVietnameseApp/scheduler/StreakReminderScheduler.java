@@ -2,20 +2,26 @@ package com.connectJPA.LinguaVietnameseApp.scheduler;
 
 import com.connectJPA.LinguaVietnameseApp.dto.request.NotificationRequest;
 import com.connectJPA.LinguaVietnameseApp.entity.User;
-import com.connectJPA.LinguaVietnameseApp.repository.jpa.UserFcmTokenRepository;
 import com.connectJPA.LinguaVietnameseApp.repository.jpa.UserLearningActivityRepository;
 import com.connectJPA.LinguaVietnameseApp.repository.jpa.UserRepository;
 import com.connectJPA.LinguaVietnameseApp.service.NotificationService;
+import com.connectJPA.LinguaVietnameseApp.service.notification.FanOutAudience;
+import com.connectJPA.LinguaVietnameseApp.service.notification.FanOutRecipient;
+import com.connectJPA.LinguaVietnameseApp.service.notification.FanOutTemplate;
 import com.connectJPA.LinguaVietnameseApp.utils.NotificationI18nUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @Component
@@ -25,69 +31,58 @@ public class StreakReminderScheduler {
     private final UserRepository userRepository;
     private final UserLearningActivityRepository userLearningActivityRepository;
     private final NotificationService notificationService;
-    private final UserFcmTokenRepository userFcmTokenRepository;
 
     private static final String TIME_ZONE = "UTC";
     private static final ZoneId VN_ZONE = ZoneId.of("Asia/Ho_Chi_Minh");
 
     @Scheduled(cron = "0 0 5 * * ?", zone = TIME_ZONE)
-    @Transactional
     public void sendStreakRemindersMidday() {
         log.info("Running Midday Streak Reminder (VN Time)");
         sendStreakReminders();
     }
 
     @Scheduled(cron = "0 0 10 * * ?", zone = TIME_ZONE)
-    @Transactional
     public void sendStreakRemindersAfternoon() {
         log.info("Running Afternoon Streak Reminder (VN Time)");
         sendStreakReminders();
     }
 
     @Scheduled(cron = "0 0 15 * * ?", zone = TIME_ZONE)
-    @Transactional
     public void sendStreakRemindersEvening() {
         log.info("Running Evening Streak Reminder (VN Time)");
         sendStreakReminders();
     }
 
     public void sendStreakReminders() {
-        List<UUID> userIdsWithToken = userFcmTokenRepository.findAllUserIdsWithTokens();
-        if (userIdsWithToken.isEmpty()) return;
-
-        List<User> users = userRepository.findAllById(userIdsWithToken);
         LocalDate today = LocalDate.now(VN_ZONE);
+        FanOutTemplate template = new FanOutTemplate("STREAK_REMINDER", "STREAK_REMINDER", "{\"screen\":\"Home\"}");
+
+        notificationService.fanOut((cursor, limit) -> {
+            UUID after = cursor != null ? UUID.fromString(cursor) : new UUID(0L, 0L);
+            List<User> users = userRepository.findUsersWithTokensAfter(after, PageRequest.of(0, limit));
+            if (users.isEmpty()) return new FanOutAudience.Chunk(List.of(), null);
+
+            List<User> streaking = users.stream().filter(user -> user.getStreak() > 0).toList();
+            Map<UUID, Long> minutesToday = new HashMap<>();
+            if (!streaking.isEmpty()) {
+                for (Object[] row : userLearningActivityRepository.sumDurationMinutesByUserIdsAndDate(
+                        streaking.stream().map(User::getUserId).toList(), today)) {
+                    minutesToday.put((UUID) row[0], ((Number) row[1]).longValue());
+                }
+            }
 
-        String notificationKey = "STREAK_REMINDER";
-
-        for (User user : users) {
-            try {
-                UUID userId = user.getUserId();
-                Long minGoal = user.getMinLearningDurationMinutes() != 0 ? user.getMinLearningDurationMinutes() : 15L;
-                Long totalDurationToday = userLearningActivityRepository.sumDurationMinutesByUserIdAndDate(userId, today);
-                if (totalDurationToday == null) totalDurationToday = 0L;
-                
-                boolean hasHitDailyGoal = totalDurationToday >= minGoal;
-
-                if (!hasHitDailyGoal && user.getStreak() > 0) {
-                    long minutesRemaining = minGoal - totalDurationToday;
-                    String langCode = user.getNativeLanguageCode() != null ? user.getNativeLanguageCode() : "en"; 
-                    String[] message = NotificationI18nUtil.getLocalizedMessage(notificationKey, langCode);
-
-                    NotificationRequest notificationRequest = NotificationRequest.builder()
-                            .userId(userId)
-                            .title(message[0])
-                            .content(String.format(message[1], minutesRemaining, user.getStreak()))
-                            .type("STREAK_REMINDER")
-                            .payload("{\"screen\":\"Home\"}")
-                            .build();
-                    
-                    notificationService.createPushNotification(notificationRequest);
+            List<FanOutRecipient> recipients = new ArrayList<>();
+            for (User user : streaking) {
+                long minGoal = user.getMinLearningDurationMinutes() != 0 ? user.getMinLearningDurationMinutes() : 15L;
+                long totalDurationToday = minutesToday.getOrDefault(user.getUserId(), 0L);
+                if (totalDurationToday < minGoal) {
+                    recipients.add(new FanOutRecipient(user.getUserId(), user.getNativeLanguageCode(),
+                            minGoal - totalDurationToday, user.getStreak()));
                 }
-            } catch (Exception e) {
-                log.error("Failed to process reminder for user {}: {}", user.getUserId(), e.getMessage());
             }
-        }
+            String next = users.size() < limit ? null : users.get(users.size() - 1).getUserId().toString();
+            return new FanOutAudience.Chunk(recipients, next);
+        }, template);
     }
 
     @Scheduled(cron = "0 0 17 * * ?", zone = TIME_ZONE)
@@ -1,10 +1,11 @@
 package com.connectJPA.LinguaVietnameseApp.scheduler;
 
-import com.connectJPA.LinguaVietnameseApp.dto.request.NotificationRequest;
 import com.connectJPA.LinguaVietnameseApp.entity.User;
 import com.connectJPA.LinguaVietnameseApp.repository.jpa.UserRepository;
 import com.connectJPA.LinguaVietnameseApp.service.NotificationService;
-import com.connectJPA.LinguaVietnameseApp.utils.NotificationI18nUtil;
+import com.connectJPA.LinguaVietnameseApp.service.notification.FanOutAudience;
+import com.connectJPA.LinguaVietnameseApp.service.notification.FanOutRecipient;
+import com.connectJPA.LinguaVietnameseApp.service.notification.FanOutTemplate;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -16,6 +17,7 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
 import java.util.List;
 
 @Component
@@ -40,32 +42,17 @@ public class VipScheduler {
 
         List<User> expiringUsers = userRepository.findByVipExpirationDateBetween(startOfTomorrow, endOfTomorrow);
 
+        List<FanOutRecipient> recipients = new ArrayList<>();
         for (User user : expiringUsers) {
-            if (user.isDeleted() || !user.getUserSettings().isVipReminders()) continue;
-
-            try {
-                if (user.getVipExpirationDate().isBefore(endOfTomorrow.plusDays(1))) {
-                    sendVipExpirationReminder(user);
-                }
-            } catch (Exception e) {
-                log.error("Failed to send VIP reminder to user {}: {}", user.getUserId(), e.getMessage());
+            if (user.isDeleted() || user.getUserSettings() == null || !user.getUserSettings().isVipReminders()) continue;
+            if (user.getVipExpirationDate().isBefore(endOfTomorrow.plusDays(1))) {
+                recipients.add(new FanOutRecipient(user.getUserId(), user.getNativeLanguageCode()));
             }
         }
-    }
-
-    private void sendVipExpirationReminder(User user) {
-        String langCode = user.getNativeLanguageCode() != null ? user.getNativeLanguageCode() : "en";
-        String[] messages = NotificationI18nUtil.getLocalizedMessage("VIP_EXPIRATION_WARNING", langCode);
-
-        NotificationRequest notification = NotificationRequest.builder()
-                .userId(user.getUserId())
-                .title(messages[0])
-                .content(messages[1])
-                .type("VIP_EXPIRATION_WARNING")
-                .payload("{\"screen\":\"PaymentStack\", \"stackScreen\":\"VipSubscription\"}")
-                .build();
+        if (recipients.isEmpty()) return;
 
-        notificationService.createPushNotification(notification);
-        log.info("Sent VIP expiration reminder to user {}", user.getUserId());
+        log.info("Sending VIP expiration reminders to {} users", recipients.size());
+        notificationService.fanOut(FanOutAudience.of(recipients), new FanOutTemplate("VIP_EXPIRATION_WARNING",
+                "VIP_EXPIRATION_WARNING", "{\"screen\":\"PaymentStack\", \"stackScreen\":\"VipSubscription\"}"));
     }
-}
\ No newline at end of file
+}
@@ -4,7 +4,7 @@ import com.connectJPA.LinguaVietnameseApp.dto.request.ChatMessageRequest;
 import com.connectJPA.LinguaVietnameseApp.dto.request.TypingStatusRequest;
 import com.connectJPA.LinguaVietnameseApp.dto.response.ChatMessageResponse;
 import com.connectJPA.LinguaVietnameseApp.dto.response.ChatStatsResponse;
-import com.connectJPA.LinguaVietnameseApp.entity.ChatMessage; // Cần import
+import com.connectJPA.LinguaVietnameseApp.dto.response.CursorPageResponse;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -12,16 +12,18 @@ import java.util.UUID;
 
 public interface ChatMessageService {
     Page<ChatMessageResponse> getMessagesByRoom(UUID roomId, Pageable pageable);
+    CursorPageResponse<ChatMessageResponse> getMessagesByRoomCursor(UUID roomId, String cursor, int size);
     ChatMessageResponse saveMessage(UUID roomId, ChatMessageRequest request);
     void deleteChatMessage(UUID id);
     ChatMessageResponse addReaction(UUID messageId, String reaction, UUID userId);
-    ChatMessageResponse markAsRead(UUID messageId, UUID userId);
+    void markAsRead(UUID messageId, UUID userId);
+    long countUnreadMessages(UUID roomId, UUID userId);
     ChatMessageResponse generateAIResponse(ChatMessageResponse userMessage);
     void handleTypingStatus(UUID roomId, TypingStatusRequest request);
     ChatStatsResponse getStatsByUser(UUID userId);
     ChatMessageResponse saveTranslation(UUID messageId, String targetLang, String translatedText);
     ChatMessageResponse saveMessageInternal(UUID roomId, ChatMessageRequest request);
 
-    Page<ChatMessage> searchMessages(String keyword, UUID roomId, int page, int size);
+    Page<ChatMessageResponse> searchMessages(String keyword, UUID roomId, int page, int size);
     ChatMessageResponse editChatMessage(UUID messageId, String newContent);
 }
\ No newline at end of file
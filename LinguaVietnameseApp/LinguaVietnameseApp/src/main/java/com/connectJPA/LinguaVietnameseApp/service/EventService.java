@@ -6,7 +6,9 @@ import com.connectJPA.LinguaVietnameseApp.dto.response.MemorySummaryResponse;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 public interface EventService {
@@ -16,4 +18,5 @@ public interface EventService {
     EventResponse updateEvent(UUID id, EventRequest request);
     void deleteEvent(UUID id);
     List<MemorySummaryResponse> findMutualMemories(UUID userA, UUID userB);
+    Map<UUID, List<MemorySummaryResponse>> findMutualMemories(UUID userId, Collection<UUID> otherUserIds);
 }
\ No newline at end of file
@@ -7,6 +7,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 public interface LeaderboardEntryService {
@@ -32,4 +33,6 @@ public interface LeaderboardEntryService {
     void updateScore(UUID leaderboardId, UUID userId, double score);
     
     Integer getRankForUserByTab(String tab, String type, UUID userId);
+
+    Map<UUID, Integer> getRanksForUsersByTab(String tab, String type, List<UUID> userIds);
 }
\ No newline at end of file
@@ -1,8 +1,11 @@
 package com.connectJPA.LinguaVietnameseApp.service;
 
 import com.connectJPA.LinguaVietnameseApp.dto.request.NotificationRequest;
+import com.connectJPA.LinguaVietnameseApp.dto.response.CursorPageResponse;
 import com.connectJPA.LinguaVietnameseApp.dto.response.NotificationResponse;
 import com.connectJPA.LinguaVietnameseApp.entity.Notification;
+import com.connectJPA.LinguaVietnameseApp.service.notification.FanOutAudience;
+import com.connectJPA.LinguaVietnameseApp.service.notification.FanOutTemplate;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -16,6 +19,7 @@ public interface NotificationService {
     NotificationResponse getNotificationById(UUID id);
     NotificationResponse createNotification(NotificationRequest request);
     void createPushNotification(NotificationRequest request);
+    void fanOut(FanOutAudience audience, FanOutTemplate template);
     NotificationResponse updateNotification(UUID id, NotificationRequest request);
     void deleteNotification(UUID id);
     boolean isUserAuthorizedForNotification(UUID notificationId, UUID userId);
@@ -35,6 +39,7 @@ public interface NotificationService {
 
     // New Features
     long countUnreadNotifications(UUID userId);
+    CursorPageResponse<NotificationResponse> getNotificationFeed(UUID userId, String cursor, int size);
     void markAllAsRead(UUID userId);
     void deleteAllNotifications(UUID userId);
 }
\ No newline at end of file
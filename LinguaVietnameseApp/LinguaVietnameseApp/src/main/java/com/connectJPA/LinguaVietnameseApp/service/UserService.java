@@ -43,6 +43,7 @@ public interface UserService {
     UserResponse restoreUser(UUID id);
     UserProfileResponse getUserProfile(UUID viewerId, UUID targetId);
     void admire(UUID senderId, UUID targetId);
+    void unadmire(UUID senderId, UUID targetId);
     void registerFcmToken(NotificationRequest request);
     UserResponse updateSetupStatus(UUID id, boolean isFinished);
     UserResponse updatePlacementTestStatus(UUID id, boolean isDone);
@@ -0,0 +1,139 @@
+package com.connectJPA.LinguaVietnameseApp.service.chat;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Staged off-thread pipeline for everything that happens after a chat message is durable.
+ * Each stage owns a bounded executor; when a stage queue is full the submitting thread runs
+ * the task itself, which slows producers down instead of dropping fan-out or push work.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ChatDispatchPipeline {
+
+    public enum Stage {
+        FANOUT("fanout", 4, 1000),
+        PUSH("push", 8, 5000),
+        STATS("stats", 2, 2000),
+        TRANSLATION("translation", 2, 2000);
+
+        private final String key;
+        private final int defaultThreads;
+        private final int defaultQueueCapacity;
+
+        Stage(String key, int defaultThreads, int defaultQueueCapacity) {
+            this.key = key;
+            this.defaultThreads = defaultThreads;
+            this.defaultQueueCapacity = defaultQueueCapacity;
+        }
+    }
+
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<Stage, ThreadPoolTaskExecutor> executors = new EnumMap<>(Stage.class);
+    private final Map<Stage, Counter> submittedCounters = new EnumMap<>(Stage.class);
+    private final Map<Stage, Counter> saturatedCounters = new EnumMap<>(Stage.class);
+    private final Map<Stage, Counter> failedCounters = new EnumMap<>(Stage.class);
+    private final Map<Stage, Timer> queueWaitTimers = new EnumMap<>(Stage.class);
+    private final Map<Stage, Timer> executionTimers = new EnumMap<>(Stage.class);
+
+    @PostConstruct
+    public void init() {
+        for (Stage stage : Stage.values()) {
+            int threads = environment.getProperty("chat.pipeline." + stage.key + ".threads", Integer.class, stage.defaultThreads);
+            int capacity = environment.getProperty("chat.pipeline." + stage.key + ".queue-capacity", Integer.class, stage.defaultQueueCapacity);
+
+            Counter saturated = Counter.builder("chat.pipeline.saturated")
+                    .tag("stage", stage.key)
+                    .description("Tasks executed on the caller thread because the stage queue was full")
+                    .register(meterRegistry);
+
+            ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+            executor.setCorePoolSize(threads);
+            executor.setMaxPoolSize(threads);
+            executor.setQueueCapacity(capacity);
+            executor.setThreadNamePrefix("Chat-" + stage.key + "-");
+            executor.setWaitForTasksToCompleteOnShutdown(true);
+            executor.setAwaitTerminationSeconds(10);
+            executor.setRejectedExecutionHandler((task, pool) -> {
+                saturated.increment();
+                new ThreadPoolExecutor.CallerRunsPolicy().rejectedExecution(task, pool);
+            });
+            executor.initialize();
+
+            executors.put(stage, executor);
+            saturatedCounters.put(stage, saturated);
+            submittedCounters.put(stage, Counter.builder("chat.pipeline.submitted").tag("stage", stage.key).register(meterRegistry));
+            failedCounters.put(stage, Counter.builder("chat.pipeline.failed").tag("stage", stage.key).register(meterRegistry));
+            queueWaitTimers.put(stage, Timer.builder("chat.pipeline.queue.wait").tag("stage", stage.key).register(meterRegistry));
+            executionTimers.put(stage, Timer.builder("chat.pipeline.execution").tag("stage", stage.key).register(meterRegistry));
+
+            Gauge.builder("chat.pipeline.queue.depth", executor, e -> e.getThreadPoolExecutor().getQueue().size())
+                    .tag("stage", stage.key)
+                    .register(meterRegistry);
+            Gauge.builder("chat.pipeline.active", executor, ThreadPoolTaskExecutor::getActiveCount)
+                    .tag("stage", stage.key)
+                    .register(meterRegistry);
+
+            log.info("Chat pipeline stage {} started with {} threads, queue capacity {}", stage.key, threads, capacity);
+        }
+    }
+
+    public void submit(Stage stage, Runnable task) {
+        long enqueuedAt = System.nanoTime();
+        submittedCounters.get(stage).increment();
+        executors.get(stage).execute(() -> {
+            queueWaitTimers.get(stage).record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+            long startedAt = System.nanoTime();
+            try {
+                task.run();
+            } catch (Exception e) {
+                failedCounters.get(stage).increment();
+                log.error("Chat pipeline stage {} task failed", stage.key, e);
+            } finally {
+                executionTimers.get(stage).record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            }
+        });
+    }
+
+    /**
+     * Runs the given action once the current transaction commits, or immediately when no
+     * transaction is active. Nothing leaves the node before the message row is durable.
+     */
+    public void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executors.values().forEach(ThreadPoolTaskExecutor::shutdown);
+    }
+}
@@ -0,0 +1,238 @@
+package com.connectJPA.LinguaVietnameseApp.service.chat;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps chat_messages range-partitioned by month on sent_at. Partitions are created ahead of the
+ * current month, and partitions past the retention window are detached into the archive schema
+ * (optionally on a separate tablespace) so recent-history scans only touch a few small partitions.
+ * Every run holds a transaction-scoped advisory lock, so only one node does the work.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ChatMessagePartitionManager {
+
+    private static final long ADVISORY_LOCK_KEY = 0x63686174L; // "chat"
+    private static final Pattern PARTITION_NAME = Pattern.compile("chat_messages_p(\\d{6})");
+    private static final Pattern IDENTIFIER = Pattern.compile("[a-z_][a-z0-9_]*");
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${chat.partitioning.enabled:true}")
+    private boolean enabled;
+
+    @Value("${chat.partitioning.migrate:false}")
+    private boolean migrate;
+
+    @Value("${chat.partitioning.months-ahead:3}")
+    private int monthsAhead;
+
+    @Value("${chat.partitioning.archive.enabled:false}")
+    private boolean archiveEnabled;
+
+    @Value("${chat.partitioning.archive.retention-months:12}")
+    private int retentionMonths;
+
+    @Value("${chat.partitioning.archive.schema:chat_archive}")
+    private String archiveSchema;
+
+    @Value("${chat.partitioning.archive.tablespace:}")
+    private String archiveTablespace;
+
+    private Counter partitionsCreated;
+    private Counter partitionsArchived;
+
+    @PostConstruct
+    public void init() {
+        if (!IDENTIFIER.matcher(archiveSchema).matches()
+                || (!archiveTablespace.isEmpty() && !IDENTIFIER.matcher(archiveTablespace).matches())) {
+            throw new IllegalStateException("Invalid chat archive schema/tablespace name");
+        }
+        partitionsCreated = Counter.builder("chat.partitions.created").register(meterRegistry);
+        partitionsArchived = Counter.builder("chat.partitions.archived").register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        maintain();
+    }
+
+    @Scheduled(cron = "${chat.partitioning.cron:0 30 3 * * *}")
+    public void maintain() {
+        if (!enabled) return;
+        try {
+            if (!isPartitioned()) {
+                if (!migrate) {
+                    log.info("chat_messages is not partitioned; set chat.partitioning.migrate=true to convert it");
+                    return;
+                }
+                inLockedTransaction(this::convertToPartitioned);
+                if (!isPartitioned()) return;
+            }
+            inLockedTransaction(this::createUpcomingPartitions);
+            inLockedTransaction(this::ensureReactionForeignKey);
+            if (archiveEnabled) {
+                archiveExpiredPartitions();
+            }
+        } catch (Exception e) {
+            log.error("chat_messages partition maintenance failed", e);
+        }
+    }
+
+    private boolean isPartitioned() {
+        Boolean partitioned = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = to_regclass('public.chat_messages'))",
+                Boolean.class);
+        return Boolean.TRUE.equals(partitioned);
+    }
+
+    private void inLockedTransaction(Runnable work) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Boolean locked = jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?)", Boolean.class, ADVISORY_LOCK_KEY);
+            if (Boolean.TRUE.equals(locked)) {
+                work.run();
+            }
+        });
+    }
+
+    /**
+     * One-off conversion of the legacy heap table. The old table is kept as chat_messages_legacy
+     * for verification and must be dropped by hand.
+     */
+    private void convertToPartitioned() {
+        if (isPartitioned()) return;
+        log.warn("Converting chat_messages to a monthly partitioned table");
+
+        // A partitioned table cannot carry a unique key without the partition column
+        jdbcTemplate.execute("ALTER TABLE IF EXISTS message_translations DROP CONSTRAINT IF EXISTS message_translations_chat_message_id_fkey");
+        jdbcTemplate.execute("ALTER TABLE IF EXISTS message_reactions DROP CONSTRAINT IF EXISTS fk_message_reactions_message");
+        jdbcTemplate.execute("ALTER TABLE chat_messages RENAME TO chat_messages_legacy");
+        jdbcTemplate.execute("ALTER INDEX IF EXISTS idx_chat_messages_room_keyset RENAME TO idx_chat_messages_legacy_room_keyset");
+
+        jdbcTemplate.execute("CREATE TABLE chat_messages (LIKE chat_messages_legacy INCLUDING DEFAULTS) PARTITION BY RANGE (sent_at)");
+        jdbcTemplate.execute("ALTER TABLE chat_messages ADD CONSTRAINT chat_messages_part_pkey PRIMARY KEY (chat_message_id, sent_at)");
+        jdbcTemplate.execute("CREATE INDEX idx_chat_messages_room_keyset ON chat_messages (room_id, sent_at DESC, chat_message_id DESC)");
+        jdbcTemplate.execute("CREATE TABLE chat_messages_default PARTITION OF chat_messages DEFAULT");
+
+        OffsetDateTime oldest = jdbcTemplate.queryForObject("SELECT MIN(sent_at) FROM chat_messages_legacy", OffsetDateTime.class);
+        YearMonth month = oldest != null ? YearMonth.from(oldest.withOffsetSameInstant(ZoneOffset.UTC)) : currentMonth();
+        YearMonth last = currentMonth().plusMonths(monthsAhead);
+        for (; !month.isAfter(last); month = month.plusMonths(1)) {
+            createPartition(month);
+        }
+
+        int copied = jdbcTemplate.update("INSERT INTO chat_messages SELECT * FROM chat_messages_legacy");
+        ensureReactionForeignKey();
+        log.warn("chat_messages converted: {} rows copied, legacy table kept as chat_messages_legacy", copied);
+    }
+
+    /**
+     * message_reactions.sent_at is the reaction time, so the key into the partitioned table is a
+     * copy of the parent message's sent_at. Rows written before that column existed are filled in
+     * here, and a key that was created on the wrong column is replaced.
+     */
+    private void ensureReactionForeignKey() {
+        Boolean hasReactions = jdbcTemplate.queryForObject("SELECT to_regclass('public.message_reactions') IS NOT NULL", Boolean.class);
+        if (!Boolean.TRUE.equals(hasReactions)) return;
+
+        jdbcTemplate.execute("ALTER TABLE message_reactions ADD COLUMN IF NOT EXISTS message_sent_at timestamptz");
+        jdbcTemplate.update("UPDATE message_reactions r SET message_sent_at = m.sent_at FROM chat_messages m " +
+                "WHERE r.message_sent_at IS NULL AND m.chat_message_id = r.chat_message_id");
+
+        List<String> definition = jdbcTemplate.queryForList("SELECT pg_get_constraintdef(oid) FROM pg_constraint " +
+                "WHERE conname = 'fk_message_reactions_message' AND conrelid = 'public.message_reactions'::regclass", String.class);
+        if (!definition.isEmpty() && definition.get(0).contains("message_sent_at")) return;
+
+        jdbcTemplate.execute("ALTER TABLE message_reactions DROP CONSTRAINT IF EXISTS fk_message_reactions_message");
+        jdbcTemplate.execute("ALTER TABLE message_reactions ADD CONSTRAINT fk_message_reactions_message " +
+                "FOREIGN KEY (chat_message_id, message_sent_at) REFERENCES chat_messages (chat_message_id, sent_at) ON DELETE CASCADE");
+        log.info("message_reactions now references chat_messages through message_sent_at");
+    }
+
+    private void createUpcomingPartitions() {
+        YearMonth month = currentMonth();
+        for (int i = 0; i <= monthsAhead; i++) {
+            createPartition(month.plusMonths(i));
+        }
+    }
+
+    private void createPartition(YearMonth month) {
+        String name = partitionName(month);
+        Boolean exists = jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, "public." + name);
+        if (Boolean.TRUE.equals(exists)) return;
+
+        jdbcTemplate.execute("CREATE TABLE " + name + " PARTITION OF chat_messages FOR VALUES FROM ('"
+                + startOf(month) + "') TO ('" + startOf(month.plusMonths(1)) + "')");
+        partitionsCreated.increment();
+        log.info("Created chat partition {}", name);
+    }
+
+    private void archiveExpiredPartitions() {
+        YearMonth cutoff = currentMonth().minusMonths(retentionMonths);
+        List<String> partitions = jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                "WHERE i.inhparent = 'public.chat_messages'::regclass ORDER BY c.relname", String.class);
+
+        for (String partition : partitions) {
+            Matcher matcher = PARTITION_NAME.matcher(partition);
+            if (!matcher.matches()) continue;
+            YearMonth month = YearMonth.parse(matcher.group(1), SUFFIX);
+            if (month.isBefore(cutoff)) {
+                inLockedTransaction(() -> archivePartition(partition));
+            }
+        }
+    }
+
+    // Reactions reference message rows, so they move to the archive schema together with their partition
+    private void archivePartition(String partition) {
+        jdbcTemplate.execute("CREATE SCHEMA IF NOT EXISTS " + archiveSchema);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + archiveSchema + ".message_reactions (LIKE public.message_reactions INCLUDING DEFAULTS)");
+        jdbcTemplate.update("INSERT INTO " + archiveSchema + ".message_reactions SELECT r.* FROM message_reactions r " +
+                "WHERE r.chat_message_id IN (SELECT chat_message_id FROM public." + partition + ")");
+        jdbcTemplate.update("DELETE FROM message_reactions WHERE chat_message_id IN (SELECT chat_message_id FROM public." + partition + ")");
+
+        jdbcTemplate.execute("ALTER TABLE chat_messages DETACH PARTITION public." + partition);
+        jdbcTemplate.execute("ALTER TABLE public." + partition + " SET SCHEMA " + archiveSchema);
+        if (!archiveTablespace.isEmpty()) {
+            jdbcTemplate.execute("ALTER TABLE " + archiveSchema + "." + partition + " SET TABLESPACE " + archiveTablespace);
+        }
+        partitionsArchived.increment();
+        log.info("Archived chat partition {} to {}", partition, archiveSchema);
+    }
+
+    private static YearMonth currentMonth() {
+        return YearMonth.now(ZoneOffset.UTC);
+    }
+
+    private static String partitionName(YearMonth month) {
+        return "chat_messages_p" + month.format(SUFFIX);
+    }
+
+    private static String startOf(YearMonth month) {
+        return month.atDay(1).atStartOfDay().atOffset(ZoneOffset.UTC).toString();
+    }
+}
@@ -0,0 +1,246 @@
+package com.connectJPA.LinguaVietnameseApp.service.chat;
+
+import com.connectJPA.LinguaVietnameseApp.entity.ChatMessage;
+import com.connectJPA.LinguaVietnameseApp.enums.MessageType;
+import com.connectJPA.LinguaVietnameseApp.enums.RoomPurpose;
+import com.connectJPA.LinguaVietnameseApp.exception.AppException;
+import com.connectJPA.LinguaVietnameseApp.exception.ErrorCode;
+import com.connectJPA.LinguaVietnameseApp.repository.jpa.ChatMessageRepository;
+import com.connectJPA.LinguaVietnameseApp.service.chat.RoomMembershipCache.RoomSnapshot;
+import com.connectJPA.LinguaVietnameseApp.utils.AESUtils;
+import com.connectJPA.LinguaVietnameseApp.utils.VietnameseTextFolder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Trigram index over a diacritic-folded copy of searchable message text. TEXT messages are indexed
+ * in every room whose text the server can read: group and course content is decrypted with the
+ * room key first. Only end-to-end encrypted private rooms, which hold no server-side key, are
+ * skipped. search_text is written on insert and edit, older rows are backfilled once in the
+ * background, and searches only return rooms the caller is a member of.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ChatMessageSearchIndex {
+
+    private static final int MIN_UNSCOPED_QUERY_LENGTH = 3;
+    private static final int MAX_BACKFILL_BATCHES_PER_RUN = 50;
+    private static final String BACKFILL_DONE_KEY = "chat:search:backfill:done";
+    private static final String STATEMENT_TIMEOUT_SQLSTATE = "57014";
+
+    private final ChatMessageRepository chatMessageRepository;
+    private final AESUtils aesUtils;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final StringRedisTemplate stringRedisTemplate;
+    // Resolved by parameter name: the "taskScheduler" bean from SchedulerConfig
+    private final TaskScheduler taskScheduler;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${chat.search.candidate-limit:500}")
+    private int candidateLimit;
+
+    @Value("${chat.search.statement-timeout-ms:2000}")
+    private long statementTimeoutMs;
+
+    @Value("${chat.search.backfill-batch-size:1000}")
+    private int backfillBatchSize;
+
+    @Value("${chat.search.snippet-radius:40}")
+    private int snippetRadius;
+
+    @Value("${chat.search.backfill-interval-ms:60000}")
+    private long backfillIntervalMs;
+
+    private Timer searchTimer;
+    private Counter searchTimeouts;
+    private volatile ScheduledFuture<?> backfillTask;
+
+    private record Unindexed(UUID id, OffsetDateTime sentAt, String content, String secretKey) {}
+
+    @PostConstruct
+    public void init() {
+        searchTimer = Timer.builder("chat.search.latency").register(meterRegistry);
+        searchTimeouts = Counter.builder("chat.search.timeouts").register(meterRegistry);
+    }
+
+    // Private chats are end-to-end encrypted by the clients; every other room has a server-side key or none
+    public static boolean isEndToEndEncrypted(RoomSnapshot room) {
+        return room.purpose() == RoomPurpose.PRIVATE_CHAT && room.secretKey() == null;
+    }
+
+    public static boolean isSearchable(RoomSnapshot room, MessageType type) {
+        return type == MessageType.TEXT && !isEndToEndEncrypted(room);
+    }
+
+    public void index(ChatMessage message, RoomSnapshot room) {
+        message.setSearchText(isSearchable(room, message.getMessageType())
+                ? searchText(message.getContent(), room.secretKey())
+                : null);
+    }
+
+    // Text that cannot be decrypted is stored as "" so the backfill does not pick the row up again
+    private String searchText(String content, String secretKey) {
+        if (content == null) return null;
+        String text = secretKey != null ? aesUtils.decrypt(content, secretKey) : content;
+        return text != null ? VietnameseTextFolder.fold(text) : "";
+    }
+
+    /**
+     * Group messages are AES-encrypted with the room key; rooms without a key store plaintext.
+     * Only used to build snippets for the response, never written back.
+     */
+    public String plaintext(String content, String secretKey) {
+        if (content == null || secretKey == null) return content;
+        String decrypted = aesUtils.decrypt(content, secretKey);
+        return decrypted != null ? decrypted : content;
+    }
+
+    /**
+     * Ranked matches for one page. At most size + 1 rows are returned so the caller can tell
+     * whether another page exists without counting.
+     */
+    public List<ChatMessage> search(String keyword, UUID userId, UUID roomId, int page, int size) {
+        String query = VietnameseTextFolder.fold(keyword.trim());
+        if (query.isEmpty() || (roomId == null && query.length() < MIN_UNSCOPED_QUERY_LENGTH)) {
+            return List.of();
+        }
+        int offset = page * size;
+        if (offset >= candidateLimit) {
+            return List.of();
+        }
+        String pattern = "%" + escapeLike(query) + "%";
+
+        try {
+            return searchTimer.record(() -> new TransactionTemplate(transactionManager).execute(status -> {
+                jdbcTemplate.execute("SET LOCAL statement_timeout = " + statementTimeoutMs);
+                return roomId != null
+                        ? chatMessageRepository.searchIndexedInRoom(query, pattern, userId, roomId, candidateLimit, size + 1, offset)
+                        : chatMessageRepository.searchIndexed(query, pattern, userId, candidateLimit, size + 1, offset);
+            }));
+        } catch (RuntimeException e) {
+            if (!isStatementTimeout(e)) throw e;
+            searchTimeouts.increment();
+            throw new AppException(ErrorCode.SEARCH_TOO_BROAD);
+        }
+    }
+
+    // Postgres cancels with 57014; depending on the path it arrives translated or as the raw SQLException
+    private static boolean isStatementTimeout(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof QueryTimeoutException || t instanceof jakarta.persistence.QueryTimeoutException) return true;
+            if (t instanceof SQLException sql && STATEMENT_TIMEOUT_SQLSTATE.equals(sql.getSQLState())) return true;
+        }
+        return false;
+    }
+
+    public String snippet(String content, String keyword) {
+        if (content == null || content.length() <= snippetRadius * 2) return content;
+        String query = VietnameseTextFolder.fold(keyword.trim());
+        int at = VietnameseTextFolder.fold(content).indexOf(query);
+        if (at < 0) return content.substring(0, snippetRadius * 2) + "…";
+        int start = Math.max(0, at - snippetRadius);
+        int end = Math.min(content.length(), at + query.length() + snippetRadius);
+        return (start > 0 ? "…" : "") + content.substring(start, end) + (end < content.length() ? "…" : "");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndex() {
+        try {
+            jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS pg_trgm");
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_chat_messages_search_trgm ON chat_messages " +
+                    "USING gin (search_text gin_trgm_ops) WHERE is_deleted = false AND search_text IS NOT NULL");
+        } catch (Exception e) {
+            log.warn("Could not create chat search index, searches will scan: {}", e.getMessage());
+        }
+        try {
+            int purged = jdbcTemplate.update("UPDATE chat_messages cm SET search_text = NULL FROM rooms r " +
+                    "WHERE r.room_id = cm.room_id AND cm.search_text IS NOT NULL " +
+                    "AND r.purpose = 'PRIVATE_CHAT' AND r.secret_key IS NULL");
+            if (purged > 0) log.info("Cleared search text of {} end-to-end encrypted chat messages", purged);
+        } catch (Exception e) {
+            log.warn("Could not clear search text of end-to-end encrypted chat messages: {}", e.getMessage());
+        }
+        startBackfill();
+    }
+
+    private void startBackfill() {
+        try {
+            if (Boolean.TRUE.equals(stringRedisTemplate.hasKey(BACKFILL_DONE_KEY))) return;
+        } catch (Exception e) {
+            log.warn("Could not read chat search backfill state, running it again: {}", e.getMessage());
+        }
+        backfillTask = taskScheduler.scheduleWithFixedDelay(this::backfill, Duration.ofMillis(backfillIntervalMs));
+    }
+
+    /**
+     * Indexes rows written before search_text existed, a bounded number of batches per run. Every
+     * selected row gets a non-null search_text, so the pending set only shrinks; once a run finds
+     * nothing left the task cancels itself and records completion for the other nodes and restarts.
+     */
+    public void backfill() {
+        try {
+            for (int i = 0; i < MAX_BACKFILL_BATCHES_PER_RUN; i++) {
+                List<Unindexed> rows = jdbcTemplate.query(
+                        "SELECT cm.chat_message_id, cm.sent_at, cm.content, r.secret_key FROM chat_messages cm " +
+                        "JOIN rooms r ON r.room_id = cm.room_id " +
+                        "WHERE cm.search_text IS NULL AND cm.message_type = 'TEXT' AND cm.content IS NOT NULL " +
+                        "AND NOT (r.purpose = 'PRIVATE_CHAT' AND r.secret_key IS NULL) LIMIT ?",
+                        (rs, n) -> new Unindexed(rs.getObject(1, UUID.class), rs.getObject(2, OffsetDateTime.class),
+                                rs.getString(3), rs.getString(4)),
+                        backfillBatchSize);
+                if (!rows.isEmpty()) {
+                    jdbcTemplate.batchUpdate("UPDATE chat_messages SET search_text = ? WHERE chat_message_id = ? AND sent_at = ?",
+                            rows, rows.size(), (ps, row) -> {
+                                ps.setString(1, searchText(row.content(), row.secretKey()));
+                                ps.setObject(2, row.id());
+                                ps.setObject(3, row.sentAt());
+                            });
+                }
+                if (rows.size() < backfillBatchSize) {
+                    finishBackfill();
+                    return;
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Chat search backfill failed: {}", e.getMessage());
+        }
+    }
+
+    private void finishBackfill() {
+        ScheduledFuture<?> task = backfillTask;
+        if (task != null) task.cancel(false);
+        try {
+            stringRedisTemplate.opsForValue().set(BACKFILL_DONE_KEY, OffsetDateTime.now().toString());
+        } catch (Exception e) {
+            log.warn("Could not record chat search backfill completion: {}", e.getMessage());
+        }
+        log.info("Chat search backfill finished");
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+}
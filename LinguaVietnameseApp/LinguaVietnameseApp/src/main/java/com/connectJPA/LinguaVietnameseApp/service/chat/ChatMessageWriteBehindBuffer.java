@@ -0,0 +1,309 @@
+package com.connectJPA.LinguaVietnameseApp.service.chat;
+
+import com.connectJPA.LinguaVietnameseApp.entity.ChatMessage;
+import com.connectJPA.LinguaVietnameseApp.exception.ErrorCode;
+import com.connectJPA.LinguaVietnameseApp.exception.SystemException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Group-commit persistence for chat messages. Senders park on a future while a single flusher
+ * drains the ring into one multi-row JDBC batch per transaction, so many messages share one commit.
+ * Futures complete only after the batch has committed. A sender that gives up waiting withdraws its
+ * write if the flusher has not taken it yet, so a failed send is never inserted behind the caller's back;
+ * a write already in flight is only reported as saved once its batch has actually committed.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ChatMessageWriteBehindBuffer {
+
+    private static final String INSERT_SQL = "INSERT INTO chat_messages (chat_message_id, sent_at, content, " +
+            "sender_ephemeral_key, initialization_vector, used_prekey_id, self_content, self_ephemeral_key, " +
+            "self_initialization_vector, media_url, message_type, room_id, sender_id, receiver_id, " +
+            "is_deleted, is_read, updated_at, translations, search_text) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, false, false, ?, CAST(? AS jsonb), ?)";
+
+    private static final String TOUCH_ROOM_SQL = "UPDATE rooms SET updated_at = ? " +
+            "WHERE room_id = ? AND (updated_at IS NULL OR updated_at < ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${chat.persistence.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${chat.persistence.write-behind.capacity:10000}")
+    private int capacity;
+
+    @Value("${chat.persistence.write-behind.max-batch-size:200}")
+    private int maxBatchSize;
+
+    @Value("${chat.persistence.write-behind.max-delay-ms:5}")
+    private long maxDelayMs;
+
+    @Value("${chat.persistence.write-behind.ack-timeout-ms:3000}")
+    private long ackTimeoutMs;
+
+    // Extra wait for a write the flusher took just before the ack timed out
+    @Value("${chat.persistence.write-behind.in-flight-wait-ms:2000}")
+    private long inFlightWaitMs;
+
+    private BlockingQueue<PendingWrite> ring;
+    private Thread flusher;
+    private volatile boolean running;
+
+    private DistributionSummary batchSizes;
+    private Timer flushTimer;
+    private Counter rowsCommitted;
+    private Counter rowsFailed;
+    private Counter rejected;
+    private Counter withdrawn;
+    private Counter committedLate;
+    private Counter failedLate;
+    private Counter unknown;
+
+    private record PendingWrite(ChatMessage message, CompletableFuture<Void> committed, AtomicBoolean claimed) {
+
+        PendingWrite(ChatMessage message) {
+            this(message, new CompletableFuture<>(), new AtomicBoolean());
+        }
+
+        /** Flusher and a timed-out sender race for the write; only one of them wins. */
+        boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        ring = new ArrayBlockingQueue<>(capacity);
+        batchSizes = DistributionSummary.builder("chat.persistence.batch.size").register(meterRegistry);
+        flushTimer = Timer.builder("chat.persistence.flush").register(meterRegistry);
+        rowsCommitted = Counter.builder("chat.persistence.rows").tag("result", "committed").register(meterRegistry);
+        rowsFailed = Counter.builder("chat.persistence.rows").tag("result", "failed").register(meterRegistry);
+        rejected = Counter.builder("chat.persistence.rejected").register(meterRegistry);
+        withdrawn = Counter.builder("chat.persistence.ack.timeouts").tag("outcome", "withdrawn").register(meterRegistry);
+        committedLate = Counter.builder("chat.persistence.ack.timeouts").tag("outcome", "committed").register(meterRegistry);
+        failedLate = Counter.builder("chat.persistence.ack.timeouts").tag("outcome", "failed").register(meterRegistry);
+        unknown = Counter.builder("chat.persistence.ack.timeouts").tag("outcome", "unknown").register(meterRegistry);
+        Gauge.builder("chat.persistence.ring.depth", ring, BlockingQueue::size).register(meterRegistry);
+
+        running = true;
+        flusher = new Thread(this::flushLoop, "Chat-write-behind");
+        flusher.setDaemon(true);
+        flusher.start();
+        log.info("Chat write-behind enabled: capacity={}, maxBatchSize={}, maxDelayMs={}", capacity, maxBatchSize, maxDelayMs);
+    }
+
+    public boolean isEnabled() {
+        return enabled && running;
+    }
+
+    /**
+     * Queues the message and blocks until the batch containing it commits. When the ack times out
+     * while the message is still queued, it is withdrawn and the call fails. Once the flusher has
+     * taken it, the call waits up to in-flight-wait-ms more for the real outcome and fails if there
+     * is none yet, so the client retries instead of trusting a write that may not have landed.
+     *
+     * @return false when the ring is full and the caller should persist the message itself
+     */
+    public boolean persist(ChatMessage message) {
+        PendingWrite write = new PendingWrite(message);
+        if (!ring.offer(write)) {
+            rejected.increment();
+            return false;
+        }
+        try {
+            write.committed().get(ackTimeoutMs, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (withdraw(write)) throw new SystemException(ErrorCode.UNCATEGORIZED_EXCEPTION);
+            return awaitInFlight(write);
+        } catch (TimeoutException e) {
+            if (withdraw(write)) {
+                log.error("Write-behind ack timed out for message {}, withdrawn before flush", message.getId().getChatMessageId());
+                throw new SystemException(ErrorCode.UNCATEGORIZED_EXCEPTION);
+            }
+            return awaitInFlight(write);
+        } catch (ExecutionException e) {
+            log.error("Write-behind commit failed for message {}", message.getId().getChatMessageId(), e);
+            throw new SystemException(ErrorCode.UNCATEGORIZED_EXCEPTION);
+        }
+    }
+
+    private boolean awaitInFlight(PendingWrite write) {
+        UUID messageId = write.message().getId().getChatMessageId();
+        try {
+            write.committed().get(inFlightWaitMs, TimeUnit.MILLISECONDS);
+            committedLate.increment();
+            log.warn("Write-behind ack for message {} arrived after the ack timeout", messageId);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (TimeoutException e) {
+            // Outcome still unknown, handled below
+        } catch (ExecutionException e) {
+            failedLate.increment();
+            log.error("Write-behind commit failed for message {}", messageId, e.getCause());
+            throw new SystemException(ErrorCode.UNCATEGORIZED_EXCEPTION);
+        }
+        unknown.increment();
+        log.error("Write-behind batch holding message {} has not finished, reporting the send as failed", messageId);
+        throw new SystemException(ErrorCode.UNCATEGORIZED_EXCEPTION);
+    }
+
+    private boolean withdraw(PendingWrite write) {
+        if (!write.claim()) return false;
+        ring.remove(write);
+        withdrawn.increment();
+        return true;
+    }
+
+    private void flushLoop() {
+        List<PendingWrite> batch = new ArrayList<>(maxBatchSize);
+        while (running || !ring.isEmpty()) {
+            try {
+                PendingWrite first = ring.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxDelayMs);
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) break;
+                    PendingWrite next = ring.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                    ring.drainTo(batch, maxBatchSize - batch.size());
+                }
+
+                batch.removeIf(write -> !write.claim());
+                if (!batch.isEmpty()) flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } catch (Exception e) {
+                log.error("Chat write-behind flusher error", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<PendingWrite> batch) {
+        batchSizes.record(batch.size());
+        long startedAt = System.nanoTime();
+        try {
+            writeInTransaction(batch);
+            rowsCommitted.increment(batch.size());
+            batch.forEach(w -> w.committed().complete(null));
+        } catch (Exception batchError) {
+            log.warn("Chat batch of {} rows failed, retrying row by row: {}", batch.size(), batchError.getMessage());
+            for (PendingWrite write : batch) {
+                try {
+                    writeInTransaction(List.of(write));
+                    rowsCommitted.increment();
+                    write.committed().complete(null);
+                } catch (Exception rowError) {
+                    rowsFailed.increment();
+                    write.committed().completeExceptionally(rowError);
+                }
+            }
+        } finally {
+            flushTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void writeInTransaction(List<PendingWrite> batch) {
+        Map<UUID, OffsetDateTime> latestPerRoom = new HashMap<>();
+        for (PendingWrite write : batch) {
+            ChatMessage m = write.message();
+            latestPerRoom.merge(m.getRoomId(), m.getId().getSentAt(), (a, b) -> a.isAfter(b) ? a : b);
+        }
+        List<Map.Entry<UUID, OffsetDateTime>> roomTouches = new ArrayList<>(latestPerRoom.entrySet());
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, write) -> bindInsert(ps, write.message()));
+            jdbcTemplate.batchUpdate(TOUCH_ROOM_SQL, roomTouches, roomTouches.size(), (ps, touch) -> {
+                ps.setObject(1, touch.getValue());
+                ps.setObject(2, touch.getKey());
+                ps.setObject(3, touch.getValue());
+            });
+        });
+    }
+
+    private void bindInsert(PreparedStatement ps, ChatMessage m) throws SQLException {
+        ps.setObject(1, m.getId().getChatMessageId());
+        ps.setObject(2, m.getId().getSentAt());
+        ps.setString(3, m.getContent());
+        ps.setString(4, m.getSenderEphemeralKey());
+        ps.setString(5, m.getInitializationVector());
+        if (m.getUsedPreKeyId() != null) ps.setInt(6, m.getUsedPreKeyId());
+        else ps.setNull(6, Types.INTEGER);
+        ps.setString(7, m.getSelfContent());
+        ps.setString(8, m.getSelfEphemeralKey());
+        ps.setString(9, m.getSelfInitializationVector());
+        ps.setString(10, m.getMediaUrl());
+        ps.setString(11, m.getMessageType() != null ? m.getMessageType().name() : null);
+        ps.setObject(12, m.getRoomId());
+        ps.setObject(13, m.getSenderId());
+        ps.setObject(14, m.getReceiverId());
+        ps.setObject(15, OffsetDateTime.now());
+        ps.setString(16, toJson(m.getTranslations()));
+        ps.setString(17, m.getSearchText());
+    }
+
+    private String toJson(Map<String, String> translations) {
+        if (translations == null) return null;
+        try {
+            return objectMapper.writeValueAsString(translations);
+        } catch (JsonProcessingException e) {
+            return "{}";
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (flusher == null) return;
+        running = false;
+        flusher.join(TimeUnit.SECONDS.toMillis(10));
+    }
+}
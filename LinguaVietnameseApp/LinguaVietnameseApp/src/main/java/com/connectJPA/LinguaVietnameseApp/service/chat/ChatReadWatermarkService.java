@@ -0,0 +1,183 @@
+package com.connectJPA.LinguaVietnameseApp.service.chat;
+
+import com.connectJPA.LinguaVietnameseApp.dto.request.ReadReceiptRequest;
+import com.connectJPA.LinguaVietnameseApp.entity.ChatMessage;
+import com.connectJPA.LinguaVietnameseApp.entity.id.RoomMemberId;
+import com.connectJPA.LinguaVietnameseApp.exception.AppException;
+import com.connectJPA.LinguaVietnameseApp.exception.ErrorCode;
+import com.connectJPA.LinguaVietnameseApp.repository.jpa.ChatMessageRepository;
+import com.connectJPA.LinguaVietnameseApp.repository.jpa.RoomMemberRepository;
+import com.connectJPA.LinguaVietnameseApp.utils.NearCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * "Read up to" watermark per (room, user). Read events only move the in-memory watermark forward;
+ * a periodic flush writes the latest position per member in one batch and emits one receipt per
+ * advanced member instead of a message rebroadcast per read.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ChatReadWatermarkService {
+
+    private static final String ADVANCE_SQL = "UPDATE room_members SET last_read_at = ?, last_read_message_id = ? " +
+            "WHERE room_id = ? AND user_id = ? AND is_deleted = false AND (last_read_at IS NULL OR last_read_at < ?)";
+
+    public record Watermark(UUID messageId, OffsetDateTime sentAt) {
+        boolean isAfter(Watermark other) {
+            return other == null || sentAt.isAfter(other.sentAt());
+        }
+    }
+
+    private record MessagePosition(UUID roomId, OffsetDateTime sentAt) {}
+
+    private final ChatMessageRepository chatMessageRepository;
+    private final RoomMemberRepository roomMemberRepository;
+    private final RoomMembershipCache roomMembershipCache;
+    private final JdbcTemplate jdbcTemplate;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${chat.partitioning.recent-lookup-days:7}")
+    private int recentLookupDays;
+
+    private final ConcurrentHashMap<RoomMemberId, Watermark> pending = new ConcurrentHashMap<>();
+    private final NearCache<RoomMemberId, Watermark> latest = new NearCache<>(100_000, Duration.ofMinutes(30));
+    private final NearCache<UUID, MessagePosition> positions = new NearCache<>(50_000, Duration.ofMinutes(30));
+
+    private Counter advancedCounter;
+    private Counter coalescedCounter;
+
+    @PostConstruct
+    public void init() {
+        advancedCounter = Counter.builder("chat.read.events").tag("result", "advanced").register(meterRegistry);
+        coalescedCounter = Counter.builder("chat.read.events").tag("result", "coalesced").register(meterRegistry);
+    }
+
+    public void rememberMessage(ChatMessage message) {
+        positions.put(message.getId().getChatMessageId(), new MessagePosition(message.getRoomId(), message.getId().getSentAt()));
+    }
+
+    public void markReadUpTo(UUID messageId, UUID userId) {
+        MessagePosition position = positions.get(messageId, id -> chatMessageRepository.findLiveById(id, OffsetDateTime.now().minusDays(recentLookupDays))
+                .map(m -> new MessagePosition(m.getRoomId(), m.getId().getSentAt()))
+                .orElse(null));
+        if (position == null) {
+            throw new AppException(ErrorCode.CHAT_MESSAGE_NOT_FOUND);
+        }
+
+        RoomMemberId key = new RoomMemberId(position.roomId(), userId);
+        Watermark candidate = new Watermark(messageId, position.sentAt());
+        Watermark known = latest.getIfPresent(key);
+        if (known != null && !candidate.isAfter(known)) {
+            coalescedCounter.increment();
+            return;
+        }
+        if (known == null && !roomMembershipCache.isMember(position.roomId(), userId)) {
+            throw new AppException(ErrorCode.NOT_ROOM_MEMBER);
+        }
+
+        Watermark merged = pending.merge(key, candidate, (current, next) -> next.isAfter(current) ? next : current);
+        latest.put(key, merged);
+        advancedCounter.increment();
+    }
+
+    public OffsetDateTime getLastReadAt(UUID roomId, UUID userId) {
+        RoomMemberId key = new RoomMemberId(roomId, userId);
+        Watermark inMemory = latest.getIfPresent(key);
+        if (inMemory != null) return inMemory.sentAt();
+        return roomMemberRepository.findLastReadAt(roomId, userId).orElse(null);
+    }
+
+    /**
+     * Watermarks of every active member of the room, with not-yet-flushed positions applied.
+     */
+    public Map<UUID, OffsetDateTime> getRoomWatermarks(UUID roomId) {
+        Map<UUID, OffsetDateTime> result = new HashMap<>();
+        for (Object[] row : roomMemberRepository.findReadWatermarksByRoomId(roomId)) {
+            if (row[1] != null) result.put((UUID) row[0], (OffsetDateTime) row[1]);
+        }
+        pending.forEach((key, wm) -> {
+            if (key.getRoomId().equals(roomId)) {
+                result.merge(key.getUserId(), wm.sentAt(), (a, b) -> a.isAfter(b) ? a : b);
+            }
+        });
+        return result;
+    }
+
+    public long countUnread(UUID roomId, UUID userId) {
+        OffsetDateTime lastReadAt = getLastReadAt(roomId, userId);
+        return lastReadAt != null
+                ? chatMessageRepository.countUnreadAfter(roomId, userId, lastReadAt)
+                : chatMessageRepository.countFromOthers(roomId, userId);
+    }
+
+    @Scheduled(fixedDelayString = "${chat.read-watermark.flush-interval-ms:1000}")
+    public void flush() {
+        if (pending.isEmpty()) return;
+
+        List<Map.Entry<RoomMemberId, Watermark>> batch = new ArrayList<>();
+        for (RoomMemberId key : pending.keySet()) {
+            Watermark wm = pending.remove(key);
+            if (wm != null) batch.add(Map.entry(key, wm));
+        }
+        if (batch.isEmpty()) return;
+
+        int[][] updated;
+        try {
+            updated = jdbcTemplate.batchUpdate(ADVANCE_SQL, batch, batch.size(), (ps, entry) -> {
+                ps.setObject(1, entry.getValue().sentAt());
+                ps.setObject(2, entry.getValue().messageId());
+                ps.setObject(3, entry.getKey().getRoomId());
+                ps.setObject(4, entry.getKey().getUserId());
+                ps.setObject(5, entry.getValue().sentAt());
+            });
+        } catch (Exception e) {
+            log.error("Failed to flush {} read watermarks, keeping them for the next run", batch.size(), e);
+            batch.forEach(entry -> pending.merge(entry.getKey(), entry.getValue(), (current, old) -> current.isAfter(old) ? current : old));
+            return;
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            // 0 rows: the member left the room or the stored watermark is already further along
+            if (updated[0][i] <= 0) continue;
+            Map.Entry<RoomMemberId, Watermark> entry = batch.get(i);
+            UUID roomId = entry.getKey().getRoomId();
+            ReadReceiptRequest receipt = ReadReceiptRequest.builder()
+                    .roomId(roomId)
+                    .userId(entry.getKey().getUserId())
+                    .messageId(entry.getValue().messageId())
+                    .readUpTo(entry.getValue().sentAt())
+                    .build();
+            try {
+                messagingTemplate.convertAndSend("/topic/room/" + roomId + "/read", receipt);
+            } catch (Exception e) {
+                log.warn("Failed to broadcast read receipt for room {}", roomId);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+}
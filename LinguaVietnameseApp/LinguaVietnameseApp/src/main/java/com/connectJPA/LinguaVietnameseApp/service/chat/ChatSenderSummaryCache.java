@@ -0,0 +1,107 @@
+package com.connectJPA.LinguaVietnameseApp.service.chat;
+
+import com.connectJPA.LinguaVietnameseApp.dto.response.ChatSenderSummary;
+import com.connectJPA.LinguaVietnameseApp.event.UserProfileChangedEvent;
+import com.connectJPA.LinguaVietnameseApp.repository.jpa.UserRepository;
+import com.connectJPA.LinguaVietnameseApp.utils.NearCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Sender name/avatar stamped on chat broadcasts. Reads go near-cache, then Redis, then one
+ * projection query; profile writes publish {@link UserProfileChangedEvent} which evicts locally
+ * and on every other node through Redis pub/sub.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ChatSenderSummaryCache {
+
+    private static final String REDIS_KEY_PREFIX = "chat:sender:";
+    private static final String INVALIDATION_CHANNEL = "cache:invalidate:chat-sender";
+    private static final Duration REDIS_TTL = Duration.ofHours(6);
+
+    private final UserRepository userRepository;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final MeterRegistry meterRegistry;
+
+    private final NearCache<UUID, ChatSenderSummary> nearCache = new NearCache<>(50_000, Duration.ofMinutes(10));
+
+    @PostConstruct
+    public void init() {
+        listenerContainer.addMessageListener((message, pattern) -> {
+            try {
+                nearCache.invalidate(UUID.fromString(new String(message.getBody(), StandardCharsets.UTF_8)));
+            } catch (IllegalArgumentException e) {
+                log.warn("Ignoring malformed sender invalidation message");
+            }
+        }, new ChannelTopic(INVALIDATION_CHANNEL));
+
+        FunctionCounter.builder("chat.sender.cache.requests", nearCache, NearCache::hitCount)
+                .tag("result", "hit").register(meterRegistry);
+        FunctionCounter.builder("chat.sender.cache.requests", nearCache, NearCache::missCount)
+                .tag("result", "miss").register(meterRegistry);
+    }
+
+    public ChatSenderSummary get(UUID userId) {
+        if (userId == null) return null;
+        ChatSenderSummary local = nearCache.getIfPresent(userId);
+        if (local != null) return local;
+
+        ChatSenderSummary summary = readShared(userId);
+        if (summary == null) {
+            summary = userRepository.findChatSenderSummary(userId).orElse(null);
+            if (summary != null) writeShared(summary);
+        }
+        nearCache.put(userId, summary);
+        return summary;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProfileChanged(UserProfileChangedEvent event) {
+        evict(event.getUserId());
+    }
+
+    public void evict(UUID userId) {
+        nearCache.invalidate(userId);
+        try {
+            redisTemplate.delete(REDIS_KEY_PREFIX + userId);
+            stringRedisTemplate.convertAndSend(INVALIDATION_CHANNEL, userId.toString());
+        } catch (Exception e) {
+            log.warn("Failed to propagate sender summary invalidation for {}: {}", userId, e.getMessage());
+        }
+    }
+
+    private ChatSenderSummary readShared(UUID userId) {
+        try {
+            Object cached = redisTemplate.opsForValue().get(REDIS_KEY_PREFIX + userId);
+            if (cached instanceof ChatSenderSummary summary) return summary;
+        } catch (Exception e) {
+            log.warn("Redis read failed for sender summary {}: {}", userId, e.getMessage());
+        }
+        return null;
+    }
+
+    private void writeShared(ChatSenderSummary summary) {
+        try {
+            redisTemplate.opsForValue().set(REDIS_KEY_PREFIX + summary.getUserId(), summary, REDIS_TTL);
+        } catch (Exception e) {
+            log.warn("Redis write failed for sender summary {}: {}", summary.getUserId(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.connectJPA.LinguaVietnameseApp.service.chat;
+
+import com.connectJPA.LinguaVietnameseApp.utils.NearCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Plaintext translations keyed by (text hash, source, target): near-cache first, then Redis.
+ * An empty value records that the worker produced nothing for that target (usually because
+ * the text already is in that language), so such targets are not queued again.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ChatTranslationCache {
+
+    private static final String REDIS_KEY_PREFIX = "chat:translation:";
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${chat.translation.cache.local-size:50000}")
+    private int localSize;
+
+    @Value("${chat.translation.cache.local-ttl-minutes:10}")
+    private long localTtlMinutes;
+
+    // The values are the plaintext of encrypted messages, so they only live long enough to
+    // absorb bursts of the same text (broadcasts, greetings), not as a long-term store
+    @Value("${chat.translation.cache.redis-ttl-minutes:30}")
+    private long redisTtlMinutes;
+
+    // Short, so a transient worker failure is not remembered as "nothing to translate" for long
+    @Value("${chat.translation.cache.negative-ttl-minutes:10}")
+    private long negativeTtlMinutes;
+
+    private NearCache<String, String> nearCache;
+    private Counter localHits;
+    private Counter redisHits;
+    private Counter misses;
+
+    @PostConstruct
+    public void init() {
+        nearCache = new NearCache<>(localSize, Duration.ofMinutes(localTtlMinutes));
+        localHits = Counter.builder("chat.translation.lookups").tag("result", "local_hit").register(meterRegistry);
+        redisHits = Counter.builder("chat.translation.lookups").tag("result", "redis_hit").register(meterRegistry);
+        misses = Counter.builder("chat.translation.lookups").tag("result", "miss").register(meterRegistry);
+    }
+
+    public static String hash(String text) {
+        String normalized = text.strip().replaceAll("\\s+", " ");
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(normalized.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Cached translations for the given targets. Targets that are absent from the result missed
+     * both tiers; an empty string means "known to have no translation".
+     */
+    public Map<String, String> getAll(String textHash, String source, List<String> targets) {
+        Map<String, String> found = new HashMap<>();
+        List<String> remoteTargets = new ArrayList<>();
+        for (String target : targets) {
+            String local = nearCache.getIfPresent(key(textHash, source, target));
+            if (local != null) {
+                found.put(target, local);
+                localHits.increment();
+            } else {
+                remoteTargets.add(target);
+            }
+        }
+        if (remoteTargets.isEmpty()) return found;
+
+        List<String> remote = null;
+        try {
+            remote = stringRedisTemplate.opsForValue().multiGet(remoteTargets.stream().map(t -> key(textHash, source, t)).toList());
+        } catch (Exception e) {
+            log.warn("Redis read failed for translation cache: {}", e.getMessage());
+        }
+        for (int i = 0; i < remoteTargets.size(); i++) {
+            String value = remote != null ? remote.get(i) : null;
+            if (value != null) {
+                nearCache.put(key(textHash, source, remoteTargets.get(i)), value);
+                found.put(remoteTargets.get(i), value);
+                redisHits.increment();
+            } else {
+                misses.increment();
+            }
+        }
+        return found;
+    }
+
+    public void putAll(String textHash, String source, Map<String, String> translations) {
+        if (translations.isEmpty()) return;
+        Map<String, String> entries = new HashMap<>();
+        translations.forEach((target, text) -> {
+            String key = key(textHash, source, target);
+            nearCache.put(key, text);
+            entries.put(key, text);
+        });
+        try {
+            long ttlSeconds = Duration.ofMinutes(redisTtlMinutes).toSeconds();
+            long negativeTtlSeconds = Duration.ofMinutes(negativeTtlMinutes).toSeconds();
+            stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                entries.forEach((key, text) -> connection.stringCommands().setEx(key.getBytes(StandardCharsets.UTF_8),
+                        text.isEmpty() ? negativeTtlSeconds : ttlSeconds, text.getBytes(StandardCharsets.UTF_8)));
+                return null;
+            });
+        } catch (Exception e) {
+            log.warn("Redis write failed for translation cache: {}", e.getMessage());
+        }
+    }
+
+    private static String key(String textHash, String source, String target) {
+        return REDIS_KEY_PREFIX + source + ":" + target + ":" + textHash;
+    }
+}
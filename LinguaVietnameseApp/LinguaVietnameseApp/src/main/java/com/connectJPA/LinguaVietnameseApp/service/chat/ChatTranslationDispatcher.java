@@ -0,0 +1,304 @@
+package com.connectJPA.LinguaVietnameseApp.service.chat;
+
+import com.connectJPA.LinguaVietnameseApp.entity.ChatMessage;
+import com.connectJPA.LinguaVietnameseApp.event.RoomMembershipChangedEvent;
+import com.connectJPA.LinguaVietnameseApp.repository.jpa.RoomMemberRepository;
+import com.connectJPA.LinguaVietnameseApp.service.chat.RoomMembershipCache.RoomSnapshot;
+import com.connectJPA.LinguaVietnameseApp.utils.AESUtils;
+import com.connectJPA.LinguaVietnameseApp.utils.NearCache;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.PatternTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Sends group text messages to the Python translation worker. Cached translations are applied
+ * to the message straight away; only the missing targets are queued. Queued tasks are pushed in
+ * batches, and identical text waiting on the same targets rides on a single worker task: the
+ * worker's update is picked up from its Redis channel, cached, and copied to the followers. When
+ * the worker reports that it could not handle the leader, the followers are queued again on their own.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ChatTranslationDispatcher {
+
+    private static final String TRANSLATION_QUEUE_KEY = "chat_translation_queue";
+    private static final String UPDATE_CHANNEL_PATTERN = "room_translation_update_*";
+    private static final String ERROR_CHANNEL_PATTERN = "room_translation_error_*";
+    private static final Pattern VIETNAMESE = Pattern.compile(
+            "[àáạảãâầấậẩẫăằắặẳẵèéẹẻẽêềếệểễìíịỉĩòóọỏõôồốộổỗơờớợởỡùúụủũưừứựửữỳýỵỷỹđ]",
+            Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+    private static final Pattern CJK = Pattern.compile("[\\u4e00-\\u9fff]");
+
+    private final RoomMemberRepository roomMemberRepository;
+    private final ChatTranslationCache translationCache;
+    private final ChatDispatchPipeline dispatchPipeline;
+    private final AESUtils aesUtils;
+    private final JdbcTemplate jdbcTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${chat.translation.max-batch-size:100}")
+    private int maxBatchSize;
+
+    @Value("${chat.translation.follower-timeout-ms:30000}")
+    private long followerTimeoutMs;
+
+    private final NearCache<UUID, List<String>> roomLanguages = new NearCache<>(10_000, Duration.ofMinutes(10));
+    private final ConcurrentLinkedQueue<Task> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final Map<String, InFlight> inFlightByKey = new HashMap<>();
+    private final Map<UUID, String> inFlightKeyByLeader = new HashMap<>();
+
+    private DistributionSummary batchSize;
+    private Counter deduplicated;
+
+    private record Task(UUID messageId, OffsetDateTime sentAt, UUID roomId, UUID senderId, String content,
+                        String secretKey, String textHash, String source, List<String> targets) {
+        String dedupKey() {
+            return textHash + "|" + source + "|" + String.join(",", targets);
+        }
+    }
+
+    private record InFlight(Task leader, List<Task> followers, long deadlineNanos) {}
+
+    @PostConstruct
+    public void init() {
+        listenerContainer.addMessageListener((message, pattern) -> onWorkerUpdate(message.getBody()),
+                new PatternTopic(UPDATE_CHANNEL_PATTERN));
+        listenerContainer.addMessageListener((message, pattern) -> onWorkerError(message.getBody()),
+                new PatternTopic(ERROR_CHANNEL_PATTERN));
+
+        batchSize = DistributionSummary.builder("chat.translation.batch.size").register(meterRegistry);
+        deduplicated = Counter.builder("chat.translation.deduplicated").register(meterRegistry);
+    }
+
+    public void dispatch(ChatMessage message, RoomSnapshot room) {
+        // The worker cannot decrypt for rooms without a key, so there is nothing to translate
+        if (room.secretKey() == null || message.getContent() == null) return;
+        String text = aesUtils.decrypt(message.getContent(), room.secretKey());
+        if (text == null || text.isBlank()) return;
+
+        String source = detectSource(text);
+        List<String> targets = roomLanguages.get(room.roomId(), roomMemberRepository::findMemberNativeLanguages).stream()
+                .filter(lang -> !lang.equals(source))
+                .sorted()
+                .toList();
+        if (targets.isEmpty()) return;
+
+        String textHash = ChatTranslationCache.hash(text);
+        Map<String, String> cached = translationCache.getAll(textHash, source, targets);
+        apply(message.getId().getChatMessageId(), message.getId().getSentAt(), room.roomId(), room.secretKey(), cached);
+
+        List<String> missing = targets.stream().filter(lang -> !cached.containsKey(lang)).toList();
+        if (missing.isEmpty()) return;
+
+        pending.add(new Task(message.getId().getChatMessageId(), message.getId().getSentAt(), room.roomId(),
+                message.getSenderId(), message.getContent(), room.secretKey(), textHash, source, missing));
+        if (pendingCount.incrementAndGet() >= maxBatchSize) {
+            flush();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMembershipChanged(RoomMembershipChangedEvent event) {
+        roomLanguages.invalidate(event.getRoomId());
+    }
+
+    @Scheduled(fixedDelayString = "${chat.translation.flush-interval-ms:200}")
+    public synchronized void flush() {
+        List<Task> batch = new ArrayList<>();
+        for (Task task; (task = pending.poll()) != null; ) {
+            pendingCount.decrementAndGet();
+            batch.add(task);
+        }
+        releaseExpiredFollowers(batch);
+        if (batch.isEmpty()) return;
+
+        List<String> payloads = new ArrayList<>();
+        List<String> registered = new ArrayList<>();
+        for (Task task : batch) {
+            String key = task.dedupKey();
+            InFlight inFlight = inFlightByKey.get(key);
+            if (inFlight != null) {
+                inFlight.followers().add(task);
+                deduplicated.increment();
+                continue;
+            }
+            String payload = toWorkerTask(task);
+            if (payload == null) continue;
+            inFlightByKey.put(key, new InFlight(task, new ArrayList<>(), System.nanoTime() + followerTimeoutMs * 1_000_000));
+            inFlightKeyByLeader.put(task.messageId(), key);
+            registered.add(key);
+            payloads.add(payload);
+        }
+        if (payloads.isEmpty()) return;
+
+        try {
+            stringRedisTemplate.opsForList().leftPushAll(TRANSLATION_QUEUE_KEY, payloads);
+            batchSize.record(payloads.size());
+        } catch (Exception e) {
+            log.error("Failed to push {} translation tasks to Redis", payloads.size(), e);
+            for (String key : registered) {
+                InFlight dropped = inFlightByKey.remove(key);
+                if (dropped != null) inFlightKeyByLeader.remove(dropped.leader().messageId());
+            }
+        }
+    }
+
+    // A leader the worker never answered (decrypt failure, worker down) must not strand its followers
+    private void releaseExpiredFollowers(List<Task> batch) {
+        long now = System.nanoTime();
+        Iterator<InFlight> it = inFlightByKey.values().iterator();
+        while (it.hasNext()) {
+            InFlight inFlight = it.next();
+            if (inFlight.deadlineNanos() - now > 0) continue;
+            it.remove();
+            inFlightKeyByLeader.remove(inFlight.leader().messageId());
+            batch.addAll(inFlight.followers());
+        }
+    }
+
+    private void onWorkerUpdate(byte[] body) {
+        Map<String, Object> update;
+        InFlight inFlight;
+        try {
+            update = objectMapper.readValue(body, new TypeReference<>() {});
+            UUID leaderId = UUID.fromString(String.valueOf(update.get("id")));
+            synchronized (this) {
+                String key = inFlightKeyByLeader.remove(leaderId);
+                if (key == null) return;
+                inFlight = inFlightByKey.remove(key);
+            }
+        } catch (Exception e) {
+            log.warn("Ignoring malformed translation update: {}", e.getMessage());
+            return;
+        }
+        if (inFlight == null) return;
+
+        dispatchPipeline.submit(ChatDispatchPipeline.Stage.TRANSLATION, () -> complete(inFlight, update));
+    }
+
+    // The leader's failure says nothing about the followers: they may sit in other rooms with other keys
+    private void onWorkerError(byte[] body) {
+        String error;
+        InFlight inFlight;
+        try {
+            Map<String, Object> report = objectMapper.readValue(body, new TypeReference<>() {});
+            UUID leaderId = UUID.fromString(String.valueOf(report.get("messageId")));
+            error = String.valueOf(report.get("error"));
+            synchronized (this) {
+                String key = inFlightKeyByLeader.remove(leaderId);
+                inFlight = key != null ? inFlightByKey.remove(key) : null;
+            }
+        } catch (Exception e) {
+            log.warn("Ignoring malformed translation error: {}", e.getMessage());
+            return;
+        }
+        meterRegistry.counter("chat.translation.worker.errors", "error", error).increment();
+        if (inFlight == null) return;
+
+        log.warn("Translation worker failed on {} ({}); requeueing {} followers",
+                inFlight.leader().messageId(), error, inFlight.followers().size());
+        pending.addAll(inFlight.followers());
+        pendingCount.addAndGet(inFlight.followers().size());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void complete(InFlight inFlight, Map<String, Object> update) {
+        Task leader = inFlight.leader();
+        Map<String, String> encrypted = update.get("translations") instanceof Map<?, ?> map
+                ? (Map<String, String>) map : Map.of();
+
+        Map<String, String> plain = new HashMap<>();
+        for (String target : leader.targets()) {
+            String value = encrypted.containsKey(target) ? aesUtils.decrypt(encrypted.get(target), leader.secretKey()) : null;
+            plain.put(target, value != null ? value : "");
+        }
+        translationCache.putAll(leader.textHash(), leader.source(), plain);
+
+        // The worker already stored the leader's translations; only the room broadcast is missing
+        try {
+            messagingTemplate.convertAndSend("/topic/room/" + leader.roomId(), update);
+        } catch (Exception e) {
+            log.warn("Failed to broadcast translation update for {}: {}", leader.messageId(), e.getMessage());
+        }
+
+        for (Task follower : inFlight.followers()) {
+            apply(follower.messageId(), follower.sentAt(), follower.roomId(), follower.secretKey(), plain);
+        }
+    }
+
+    private void apply(UUID messageId, OffsetDateTime sentAt, UUID roomId, String secretKey, Map<String, String> plain) {
+        Map<String, String> encrypted = new HashMap<>();
+        plain.forEach((lang, text) -> {
+            if (!text.isEmpty()) encrypted.put(lang, aesUtils.encrypt(text, secretKey));
+        });
+        if (encrypted.isEmpty()) return;
+
+        try {
+            jdbcTemplate.update("UPDATE chat_messages SET translations = COALESCE(translations, '{}'::jsonb) || CAST(? AS jsonb) " +
+                    "WHERE chat_message_id = ? AND sent_at = ?", objectMapper.writeValueAsString(encrypted), messageId, sentAt);
+
+            Map<String, Object> update = new LinkedHashMap<>();
+            update.put("type", "TRANSLATION_UPDATE");
+            update.put("id", messageId.toString());
+            update.put("roomId", roomId.toString());
+            update.put("translations", encrypted);
+            messagingTemplate.convertAndSend("/topic/room/" + roomId, update);
+        } catch (Exception e) {
+            log.warn("Failed to apply cached translations to {}: {}", messageId, e.getMessage());
+        }
+    }
+
+    private String toWorkerTask(Task task) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("messageId", task.messageId().toString());
+        payload.put("roomId", task.roomId().toString());
+        payload.put("content", task.content());
+        payload.put("senderId", task.senderId() != null ? task.senderId().toString() : null);
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (Exception e) {
+            log.error("Failed to serialize translation task for {}", task.messageId(), e);
+            return null;
+        }
+    }
+
+    // Coarse script check; it only has to be deterministic so the same text maps to the same cache key
+    private static String detectSource(String text) {
+        if (VIETNAMESE.matcher(text).find()) return "vi";
+        if (CJK.matcher(text).find()) return "zh-CN";
+        return "auto";
+    }
+}
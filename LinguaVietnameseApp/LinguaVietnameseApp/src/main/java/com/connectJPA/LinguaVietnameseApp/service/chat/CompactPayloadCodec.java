@@ -0,0 +1,177 @@
+package com.connectJPA.LinguaVietnameseApp.service.chat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.converter.MessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.io.IOException;
+import java.security.Principal;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opt-in CBOR payloads for STOMP clients on the native WebSocket endpoint. A client asks for it
+ * with a "payload-encoding: cbor" header on CONNECT. Outbound JSON frames for that session are
+ * transcoded to CBOR, sent as binary frames (application/octet-stream plus a "payload-encoding"
+ * header), and chat messages lose the sender-only E2EE copy when the recipient is not the sender.
+ * SockJS sessions keep JSON, because SockJS only carries text frames.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class CompactPayloadCodec implements ChannelInterceptor {
+
+    public static final String NATIVE_TRANSPORT_ATTRIBUTE = "nativeTransport";
+    public static final String ENCODING_HEADER = "payload-encoding";
+    public static final MimeType CBOR = new MimeType("application", "cbor");
+    private static final String CBOR_ENCODING = "cbor";
+    private static final List<String> SENDER_ONLY_FIELDS = List.of("selfContent", "selfEphemeralKey", "selfInitializationVector");
+
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    private ObjectMapper cborMapper;
+    private final Map<String, String> compactSessions = new ConcurrentHashMap<>();
+
+    // The broker hands every subscriber the same payload array, so consecutive frames on one
+    // thread usually repeat the previous conversion
+    private final ThreadLocal<Encoded> lastEncoded = new ThreadLocal<>();
+
+    private DistributionSummary jsonBytes;
+    private DistributionSummary cborBytes;
+    private Timer encodeTimer;
+
+    @PostConstruct
+    public void init() {
+        cborMapper = objectMapper.copyWith(new CBORFactory());
+        jsonBytes = DistributionSummary.builder("chat.ws.payload.bytes").tag("encoding", "json").baseUnit("bytes").register(meterRegistry);
+        cborBytes = DistributionSummary.builder("chat.ws.payload.bytes").tag("encoding", "cbor").baseUnit("bytes").register(meterRegistry);
+        encodeTimer = Timer.builder("chat.ws.payload.encode").tag("encoding", "cbor").register(meterRegistry);
+    }
+
+    /**
+     * Reads CBOR bodies that compact clients SEND with content-type application/cbor.
+     */
+    public MessageConverter inboundConverter() {
+        MappingJackson2MessageConverter converter = new MappingJackson2MessageConverter(CBOR);
+        converter.setObjectMapper(cborMapper);
+        return converter;
+    }
+
+    public void negotiate(StompHeaderAccessor connect) {
+        Map<String, Object> attributes = connect.getSessionAttributes();
+        boolean nativeTransport = attributes != null && Boolean.TRUE.equals(attributes.get(NATIVE_TRANSPORT_ATTRIBUTE));
+        if (nativeTransport && CBOR_ENCODING.equalsIgnoreCase(connect.getFirstNativeHeader(ENCODING_HEADER))) {
+            Principal user = connect.getUser();
+            compactSessions.put(connect.getSessionId(), user != null ? user.getName() : "");
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        compactSessions.remove(event.getSessionId());
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.MESSAGE
+                || !(message.getPayload() instanceof byte[] json) || json.length == 0) {
+            return message;
+        }
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        String userId = sessionId != null ? compactSessions.get(sessionId) : null;
+        MimeType contentType = contentType(message.getHeaders());
+        if (userId == null || (contentType != null && !contentType.isCompatibleWith(MimeTypeUtils.APPLICATION_JSON))) {
+            jsonBytes.record(json.length);
+            return message;
+        }
+
+        try {
+            long start = System.nanoTime();
+            byte[] cbor = encode(json, userId);
+            encodeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            cborBytes.record(cbor.length);
+
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+            accessor.setContentType(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+            accessor.setNativeHeader(ENCODING_HEADER, CBOR_ENCODING);
+            return MessageBuilder.createMessage(cbor, accessor.getMessageHeaders());
+        } catch (Exception e) {
+            log.warn("CBOR transcoding failed for session {}, sending JSON: {}", sessionId, e.getMessage());
+            jsonBytes.record(json.length);
+            return message;
+        }
+    }
+
+    private static MimeType contentType(MessageHeaders headers) {
+        Object value = headers.get(MessageHeaders.CONTENT_TYPE);
+        return value instanceof MimeType mimeType ? mimeType
+                : value instanceof String text ? MimeType.valueOf(text) : null;
+    }
+
+    private byte[] encode(byte[] json, String userId) throws IOException {
+        Encoded encoded = lastEncoded.get();
+        if (encoded == null || encoded.source != json) {
+            JsonNode tree = objectMapper.readTree(json);
+            encoded = new Encoded(json, tree);
+            lastEncoded.set(encoded);
+        }
+        boolean strip = encoded.hasSenderOnlyFields && !Objects.equals(encoded.senderId, userId);
+        return strip ? encoded.stripped() : encoded.full();
+    }
+
+    private final class Encoded {
+        final byte[] source;
+        final JsonNode tree;
+        final String senderId;
+        final boolean hasSenderOnlyFields;
+        byte[] full;
+        byte[] stripped;
+
+        Encoded(byte[] source, JsonNode tree) {
+            this.source = source;
+            this.tree = tree;
+            this.senderId = tree.path("senderId").asText(null);
+            this.hasSenderOnlyFields = tree instanceof ObjectNode && tree.hasNonNull("selfContent");
+        }
+
+        byte[] full() throws IOException {
+            if (full == null) full = cborMapper.writeValueAsBytes(tree);
+            return full;
+        }
+
+        byte[] stripped() throws IOException {
+            if (stripped == null) {
+                ObjectNode copy = ((ObjectNode) tree).deepCopy();
+                copy.remove(SENDER_ONLY_FIELDS);
+                stripped = cborMapper.writeValueAsBytes(copy);
+            }
+            return stripped;
+        }
+    }
+}
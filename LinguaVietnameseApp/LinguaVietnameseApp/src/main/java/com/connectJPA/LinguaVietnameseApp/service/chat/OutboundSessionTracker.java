@@ -0,0 +1,194 @@
+package com.connectJPA.LinguaVietnameseApp.service.chat;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Interceptor on the client outbound channel. It tracks how many frames each session has queued,
+ * how many bytes sit in its WebSocket send buffer and how long frames take to reach the socket.
+ * Once a session falls behind, typing, status and read-receipt frames are dropped so chat frames
+ * keep flowing. Chat frames are never dropped here;
+ * if they still back up, the transport's send-buffer/time limits close the session and the
+ * client resyncs from history.
+ */
+@Component
+@RequiredArgsConstructor
+public class OutboundSessionTracker implements ExecutorChannelInterceptor {
+
+    private static final String ENQUEUED_AT_HEADER = "outboundEnqueuedAt";
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${chat.ws.outbound.low-priority-depth-limit:32}")
+    private int lowPriorityDepthLimit;
+
+    @Value("${chat.ws.outbound.low-priority-buffer-limit:65536}")
+    private int lowPriorityBufferLimit;
+
+    public record SessionSnapshot(String sessionId, int queueDepth, int bufferedBytes, long sent, long dropped,
+                                  double avgSendLatencyMs, double maxSendLatencyMs) {}
+
+    private static final class SessionStats {
+        final AtomicInteger depth = new AtomicInteger();
+        final LongAdder sent = new LongAdder();
+        final LongAdder dropped = new LongAdder();
+        final LongAdder latencyNanos = new LongAdder();
+        final AtomicLong maxLatencyNanos = new AtomicLong();
+    }
+
+    private final Map<String, SessionStats> sessions = new ConcurrentHashMap<>();
+    // Registered by WebSocketBrokerConfiguration; the buffer fills while another thread holds the socket
+    private final Map<String, ConcurrentWebSocketSessionDecorator> sendBuffers = new ConcurrentHashMap<>();
+
+    private Counter droppedLowPriority;
+    private Timer sendLatency;
+
+    @PostConstruct
+    public void init() {
+        droppedLowPriority = Counter.builder("chat.ws.outbound.dropped").tag("priority", "low").register(meterRegistry);
+        sendLatency = Timer.builder("chat.ws.outbound.latency")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("chat.ws.outbound.buffer.max", sendBuffers,
+                b -> b.values().stream().mapToInt(ConcurrentWebSocketSessionDecorator::getBufferSize).max().orElse(0))
+                .baseUnit("bytes").register(meterRegistry);
+        Gauge.builder("chat.ws.outbound.buffer.total", sendBuffers,
+                b -> b.values().stream().mapToInt(ConcurrentWebSocketSessionDecorator::getBufferSize).sum())
+                .baseUnit("bytes").register(meterRegistry);
+    }
+
+    public void register(ConcurrentWebSocketSessionDecorator session) {
+        sendBuffers.put(session.getId(), session);
+    }
+
+    public void unregister(String sessionId) {
+        sendBuffers.remove(sessionId);
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        if (sessionId == null) return message;
+        // Tracking starts with the CONNECT_ACK, so stray frames after a disconnect do not recreate entries
+        SessionStats stats = SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) == SimpMessageType.CONNECT_ACK
+                ? sessions.computeIfAbsent(sessionId, id -> new SessionStats())
+                : sessions.get(sessionId);
+        if (stats == null) return message;
+
+        if (isBehind(sessionId, stats) && isLowPriority(SimpMessageHeaderAccessor.getDestination(message.getHeaders()))) {
+            stats.dropped.increment();
+            droppedLowPriority.increment();
+            return null;
+        }
+        stats.depth.incrementAndGet();
+        return stamp(message);
+    }
+
+    @Override
+    public void afterSendCompletion(Message<?> message, MessageChannel channel, boolean sent, Exception ex) {
+        // Rejected by the outbound executor: it will never reach afterMessageHandled
+        if (!sent || ex != null) {
+            release(message);
+        }
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+        SessionStats stats = release(message);
+        if (stats == null) return;
+        Long enqueuedAt = message.getHeaders().get(ENQUEUED_AT_HEADER, Long.class);
+        if (enqueuedAt == null) return;
+
+        long elapsed = System.nanoTime() - enqueuedAt;
+        stats.sent.increment();
+        stats.latencyNanos.add(elapsed);
+        stats.maxLatencyNanos.accumulateAndGet(elapsed, Math::max);
+        sendLatency.record(elapsed, TimeUnit.NANOSECONDS);
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        sessions.remove(event.getSessionId());
+        sendBuffers.remove(event.getSessionId());
+    }
+
+    public int sessionCount() {
+        return sessions.size();
+    }
+
+    public List<SessionSnapshot> slowestSessions(int limit) {
+        return sessions.entrySet().stream()
+                .map(e -> snapshot(e.getKey(), e.getValue(), bufferSize(e.getKey())))
+                .sorted(Comparator.comparingInt(SessionSnapshot::bufferedBytes).reversed()
+                        .thenComparing(Comparator.comparingInt(SessionSnapshot::queueDepth).reversed())
+                        .thenComparing(Comparator.comparingDouble(SessionSnapshot::maxSendLatencyMs).reversed()))
+                .limit(limit)
+                .toList();
+    }
+
+    private boolean isBehind(String sessionId, SessionStats stats) {
+        return stats.depth.get() >= lowPriorityDepthLimit || bufferSize(sessionId) >= lowPriorityBufferLimit;
+    }
+
+    private int bufferSize(String sessionId) {
+        ConcurrentWebSocketSessionDecorator session = sendBuffers.get(sessionId);
+        return session != null ? session.getBufferSize() : 0;
+    }
+
+    private SessionStats release(Message<?> message) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        if (sessionId == null) return null;
+        SessionStats stats = sessions.get(sessionId);
+        if (stats != null) stats.depth.decrementAndGet();
+        return stats;
+    }
+
+    // Broker replies carry mutable headers, so the timestamp can usually be added without a copy
+    private static Message<?> stamp(Message<?> message) {
+        SimpMessageHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, SimpMessageHeaderAccessor.class);
+        if (accessor != null && accessor.isMutable()) {
+            accessor.setHeader(ENQUEUED_AT_HEADER, System.nanoTime());
+            return message;
+        }
+        return MessageBuilder.fromMessage(message).setHeader(ENQUEUED_AT_HEADER, System.nanoTime()).build();
+    }
+
+    private static boolean isLowPriority(String destination) {
+        if (destination == null) return false;
+        return destination.endsWith("/typing") || destination.contains("/typing-user")
+                || destination.endsWith("/status") || destination.endsWith("/read");
+    }
+
+    private static SessionSnapshot snapshot(String sessionId, SessionStats stats, int bufferedBytes) {
+        long sent = stats.sent.sum();
+        return new SessionSnapshot(sessionId, stats.depth.get(), bufferedBytes, sent, stats.dropped.sum(),
+                sent == 0 ? 0 : stats.latencyNanos.sum() / (double) sent / 1_000_000,
+                stats.maxLatencyNanos.get() / 1_000_000.0);
+    }
+}
@@ -0,0 +1,330 @@
+package com.connectJPA.LinguaVietnameseApp.service.chat;
+
+import com.connectJPA.LinguaVietnameseApp.dto.request.UserStatusRequest;
+import com.connectJPA.LinguaVietnameseApp.repository.jpa.RoomMemberRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.zset.DefaultTuple;
+import org.springframework.data.redis.connection.zset.Tuple;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Single source of truth for who is online. STOMP sessions are tracked in memory and kept alive
+ * by inbound frames (including heartbeats); locally online users are synced to a Redis sorted
+ * set (score = last seen) in pipelined batches so every node can answer status and count
+ * queries. ONLINE/OFFLINE changes are debounced to absorb reconnect flapping and are only sent
+ * to status topics that somebody is subscribed to.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class PresenceService {
+
+    private static final String ONLINE_KEY = "presence:online";
+    private static final byte[] ONLINE_KEY_BYTES = ONLINE_KEY.getBytes(StandardCharsets.UTF_8);
+    private static final int SYNC_CHUNK_SIZE = 1000;
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final SimpUserRegistry simpUserRegistry;
+    private final RoomMemberRepository roomMemberRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${chat.broker.mode:simple}")
+    private String brokerMode;
+
+    @Value("${chat.presence.online-debounce-ms:2000}")
+    private long onlineDebounceMs;
+
+    @Value("${chat.presence.offline-debounce-ms:10000}")
+    private long offlineDebounceMs;
+
+    @Value("${chat.presence.heartbeat-timeout-ms:60000}")
+    private long heartbeatTimeoutMs;
+
+    @Value("${chat.presence.stale-after-ms:30000}")
+    private long staleAfterMs;
+
+    private enum Status { ONLINE, OFFLINE }
+
+    private record Pending(Status status, long dueAtMillis) {}
+
+    private final Map<String, UUID> sessionUsers = new ConcurrentHashMap<>();
+    private final Map<String, Long> sessionLastSeen = new ConcurrentHashMap<>();
+    // Sessions dropped for missing heartbeats whose socket is still open; a later frame brings them back
+    private final Map<String, UUID> silentSessions = new ConcurrentHashMap<>();
+    private final Map<UUID, Set<String>> userSessions = new ConcurrentHashMap<>();
+    private final Map<UUID, Pending> pending = new ConcurrentHashMap<>();
+    // Users whose ONLINE state has gone through goOnline; only these are refreshed by sync()
+    private final Set<UUID> announced = ConcurrentHashMap.newKeySet();
+    private final Map<String, Map<String, String>> sessionSubscriptions = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> subscriberCounts = new ConcurrentHashMap<>();
+
+    private Counter onlineTransitions;
+    private Counter offlineTransitions;
+    private Counter suppressedTransitions;
+
+    @PostConstruct
+    public void init() {
+        onlineTransitions = Counter.builder("chat.presence.transitions").tag("status", "online").register(meterRegistry);
+        offlineTransitions = Counter.builder("chat.presence.transitions").tag("status", "offline").register(meterRegistry);
+        suppressedTransitions = Counter.builder("chat.presence.transitions").tag("status", "suppressed").register(meterRegistry);
+        Gauge.builder("chat.presence.sessions", sessionUsers, Map::size).register(meterRegistry);
+        Gauge.builder("chat.presence.users", userSessions, Map::size).tag("scope", "local").register(meterRegistry);
+    }
+
+    public void sessionConnected(String sessionId, UUID userId) {
+        sessionUsers.put(sessionId, userId);
+        sessionLastSeen.put(sessionId, System.currentTimeMillis());
+
+        boolean first = userSessions.compute(userId, (id, sessions) -> {
+            Set<String> next = sessions != null ? sessions : ConcurrentHashMap.newKeySet();
+            next.add(sessionId);
+            return next;
+        }).size() == 1;
+        if (!first) return;
+
+        Pending previous = pending.remove(userId);
+        if (previous != null && previous.status() == Status.OFFLINE) {
+            // Reconnected inside the grace period: nobody was told the user left
+            suppressedTransitions.increment();
+            return;
+        }
+        pending.put(userId, new Pending(Status.ONLINE, System.currentTimeMillis() + onlineDebounceMs));
+    }
+
+    public void sessionDisconnected(String sessionId) {
+        silentSessions.remove(sessionId);
+        Map<String, String> subscribed = sessionSubscriptions.remove(sessionId);
+        if (subscribed != null) {
+            subscribed.values().forEach(this::releaseDestination);
+        }
+        leave(sessionId);
+    }
+
+    private UUID leave(String sessionId) {
+        sessionLastSeen.remove(sessionId);
+        UUID userId = sessionUsers.remove(sessionId);
+        if (userId == null) return null;
+
+        boolean last = userSessions.computeIfPresent(userId, (id, sessions) -> {
+            sessions.remove(sessionId);
+            return sessions.isEmpty() ? null : sessions;
+        }) == null;
+        if (!last) return userId;
+
+        Pending previous = pending.remove(userId);
+        if (previous != null && previous.status() == Status.ONLINE) {
+            // Left before the ONLINE change was announced, so there is nothing to take back
+            suppressedTransitions.increment();
+            return userId;
+        }
+        pending.put(userId, new Pending(Status.OFFLINE, System.currentTimeMillis() + offlineDebounceMs));
+        return userId;
+    }
+
+    /**
+     * Any inbound frame, heartbeats included, proves the session is alive. A session that was
+     * dropped for missing heartbeats is registered again.
+     */
+    public void touch(String sessionId) {
+        if (sessionId == null) return;
+        if (sessionLastSeen.computeIfPresent(sessionId, (id, seen) -> System.currentTimeMillis()) != null) return;
+        UUID userId = silentSessions.remove(sessionId);
+        if (userId != null) {
+            log.debug("Presence session {} is sending again, restoring it", sessionId);
+            sessionConnected(sessionId, userId);
+        }
+    }
+
+    public void subscribed(String sessionId, String subscriptionId, String destination) {
+        if (sessionId == null || subscriptionId == null || !isStatusDestination(destination)) return;
+        Map<String, String> subscribed = sessionSubscriptions.computeIfAbsent(sessionId, id -> new ConcurrentHashMap<>());
+        if (subscribed.putIfAbsent(subscriptionId, destination) == null) {
+            subscriberCounts.computeIfAbsent(destination, d -> new AtomicInteger()).incrementAndGet();
+        }
+    }
+
+    public void unsubscribed(String sessionId, String subscriptionId) {
+        if (sessionId == null || subscriptionId == null) return;
+        Map<String, String> subscribed = sessionSubscriptions.get(sessionId);
+        if (subscribed != null) {
+            releaseDestination(subscribed.remove(subscriptionId));
+        }
+    }
+
+    public boolean isOnline(UUID userId) {
+        if (userSessions.containsKey(userId)) return true;
+        try {
+            Double lastSeen = stringRedisTemplate.opsForZSet().score(ONLINE_KEY, userId.toString());
+            return lastSeen != null && lastSeen >= System.currentTimeMillis() - staleAfterMs;
+        } catch (Exception e) {
+            log.warn("Presence lookup failed for {}: {}", userId, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Cluster-wide online users. Stale members are trimmed on every sync, so ZCARD is enough.
+     */
+    public long onlineCount() {
+        try {
+            Long count = stringRedisTemplate.opsForZSet().zCard(ONLINE_KEY);
+            return count != null ? count : userSessions.size();
+        } catch (Exception e) {
+            log.warn("Presence count failed: {}", e.getMessage());
+            return userSessions.size();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${chat.presence.tick-ms:1000}")
+    public void tick() {
+        long now = System.currentTimeMillis();
+        sessionLastSeen.forEach((sessionId, seen) -> {
+            // Conditional, so a frame that arrived since the read keeps the session
+            if (now - seen > heartbeatTimeoutMs && sessionLastSeen.remove(sessionId, seen)) {
+                log.debug("Presence session {} missed heartbeats, dropping it", sessionId);
+                // Subscriptions stay: the socket is still open and may resume
+                UUID userId = leave(sessionId);
+                if (userId != null) silentSessions.put(sessionId, userId);
+            }
+        });
+
+        pending.forEach((userId, transition) -> {
+            if (transition.dueAtMillis() > now || !pending.remove(userId, transition)) return;
+            try {
+                if (transition.status() == Status.ONLINE) {
+                    goOnline(userId, now);
+                } else {
+                    goOffline(userId, transition.dueAtMillis() - offlineDebounceMs);
+                }
+            } catch (Exception e) {
+                log.warn("Presence transition failed for {}: {}", userId, e.getMessage());
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${chat.presence.sync-interval-ms:5000}")
+    public void sync() {
+        long now = System.currentTimeMillis();
+        // A user still waiting on the ONLINE debounce must stay out of the set, or goOnline would
+        // see the member already present and never announce them
+        List<UUID> users = new ArrayList<>();
+        for (UUID userId : userSessions.keySet()) {
+            if (announced.contains(userId)) users.add(userId);
+        }
+        try {
+            stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (int from = 0; from < users.size(); from += SYNC_CHUNK_SIZE) {
+                    Set<Tuple> chunk = new HashSet<>();
+                    for (UUID userId : users.subList(from, Math.min(users.size(), from + SYNC_CHUNK_SIZE))) {
+                        chunk.add(new DefaultTuple(userId.toString().getBytes(StandardCharsets.UTF_8), (double) now));
+                    }
+                    connection.zSetCommands().zAdd(ONLINE_KEY_BYTES, chunk);
+                }
+                // Members of a node that died stop being refreshed and age out here
+                connection.zSetCommands().zRemRangeByScore(ONLINE_KEY_BYTES, Double.NEGATIVE_INFINITY, now - staleAfterMs);
+                return null;
+            });
+        } catch (Exception e) {
+            log.warn("Presence sync to Redis failed: {}", e.getMessage());
+        }
+    }
+
+    private void goOnline(UUID userId, long now) {
+        if (!userSessions.containsKey(userId)) return;
+        Boolean added = stringRedisTemplate.opsForZSet().add(ONLINE_KEY, userId.toString(), now);
+        announced.add(userId);
+        if (!Boolean.TRUE.equals(added)) {
+            // Already online through another node
+            suppressedTransitions.increment();
+            return;
+        }
+        onlineTransitions.increment();
+        recordLastActive(userId);
+        broadcast(userId, Status.ONLINE);
+    }
+
+    private void goOffline(UUID userId, long disconnectedAt) {
+        if (userSessions.containsKey(userId)) return;
+        announced.remove(userId);
+        // This node stopped refreshing the user when the last session closed; a later score means
+        // another node still holds a session
+        Double lastSeen = stringRedisTemplate.opsForZSet().score(ONLINE_KEY, userId.toString());
+        if (lastSeen != null && lastSeen > disconnectedAt) {
+            suppressedTransitions.increment();
+            return;
+        }
+        stringRedisTemplate.opsForZSet().remove(ONLINE_KEY, userId.toString());
+        offlineTransitions.increment();
+        recordLastActive(userId);
+        broadcast(userId, Status.OFFLINE);
+    }
+
+    private void broadcast(UUID userId, Status status) {
+        UserStatusRequest update = UserStatusRequest.builder().userId(userId).status(status.name()).build();
+
+        Set<String> subscribed = subscribedStatusDestinations();
+        String userTopic = "/topic/user/" + userId + "/status";
+        if (subscribed == null || subscribed.contains(userTopic)) {
+            messagingTemplate.convertAndSend(userTopic, update);
+        }
+        if (subscribed != null && subscribed.stream().noneMatch(d -> d.startsWith("/topic/room/"))) return;
+
+        for (UUID roomId : roomMemberRepository.findActiveRoomIds(userId)) {
+            String roomTopic = "/topic/room/" + roomId + "/status";
+            if (subscribed == null || subscribed.contains(roomTopic)) {
+                messagingTemplate.convertAndSend(roomTopic, update);
+            }
+        }
+    }
+
+    private void recordLastActive(UUID userId) {
+        jdbcTemplate.update("UPDATE users SET last_active_at = ? WHERE user_id = ?", OffsetDateTime.now(), userId);
+    }
+
+    // With the relay broker, subscribers on other nodes are visible through the shared user registry.
+    // The fan-out modes have no shared registry, so null means "unknown, send everywhere"
+    private Set<String> subscribedStatusDestinations() {
+        if ("redis".equals(brokerMode) || "in-jvm".equals(brokerMode)) return null;
+        Set<String> destinations = new HashSet<>(subscriberCounts.keySet());
+        if ("relay".equals(brokerMode)) {
+            simpUserRegistry.findSubscriptions(sub -> isStatusDestination(sub.getDestination()))
+                    .forEach(sub -> destinations.add(sub.getDestination()));
+        }
+        return destinations;
+    }
+
+    private void releaseDestination(String destination) {
+        if (destination == null) return;
+        subscriberCounts.computeIfPresent(destination, (d, count) -> count.decrementAndGet() <= 0 ? null : count);
+    }
+
+    private static boolean isStatusDestination(String destination) {
+        return destination != null && destination.endsWith("/status")
+                && (destination.startsWith("/topic/room/") || destination.startsWith("/topic/user/"));
+    }
+}
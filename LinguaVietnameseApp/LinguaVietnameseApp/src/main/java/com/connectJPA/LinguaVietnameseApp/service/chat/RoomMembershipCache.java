@@ -0,0 +1,118 @@
+package com.connectJPA.LinguaVietnameseApp.service.chat;
+
+import com.connectJPA.LinguaVietnameseApp.enums.RoomPurpose;
+import com.connectJPA.LinguaVietnameseApp.event.RoomMembershipChangedEvent;
+import com.connectJPA.LinguaVietnameseApp.exception.AppException;
+import com.connectJPA.LinguaVietnameseApp.exception.ErrorCode;
+import com.connectJPA.LinguaVietnameseApp.repository.jpa.RoomMemberRepository;
+import com.connectJPA.LinguaVietnameseApp.repository.jpa.RoomRepository;
+import com.connectJPA.LinguaVietnameseApp.utils.NearCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Room purpose, name, group key and active member set for the STOMP hot path. Room and membership writes in
+ * RoomServiceImpl publish {@link RoomMembershipChangedEvent}; eviction is applied locally after
+ * commit and fanned out to the other nodes through Redis pub/sub.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class RoomMembershipCache {
+
+    private static final String INVALIDATION_CHANNEL = "cache:invalidate:room-membership";
+    private static final int GENERATION_STRIPES = 4096;
+
+    public record RoomSnapshot(UUID roomId, String roomName, RoomPurpose purpose, String secretKey, Set<UUID> memberIds) {
+        public boolean isMember(UUID userId) {
+            return memberIds.contains(userId);
+        }
+    }
+
+    private final RoomRepository roomRepository;
+    private final RoomMemberRepository roomMemberRepository;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final MeterRegistry meterRegistry;
+
+    private final NearCache<UUID, RoomSnapshot> nearCache = new NearCache<>(20_000, Duration.ofMinutes(15));
+    // Bumped on eviction so a load that raced with a membership change of its room is not cached.
+    // Striped by room id to stay bounded; a collision only skips one cache fill
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    @PostConstruct
+    public void init() {
+        listenerContainer.addMessageListener((message, pattern) -> {
+            try {
+                invalidateLocal(UUID.fromString(new String(message.getBody(), StandardCharsets.UTF_8)));
+            } catch (IllegalArgumentException e) {
+                log.warn("Ignoring malformed room membership invalidation message");
+            }
+        }, new ChannelTopic(INVALIDATION_CHANNEL));
+
+        FunctionCounter.builder("chat.room.cache.requests", nearCache, NearCache::hitCount)
+                .tag("result", "hit").register(meterRegistry);
+        FunctionCounter.builder("chat.room.cache.requests", nearCache, NearCache::missCount)
+                .tag("result", "miss").register(meterRegistry);
+    }
+
+    /**
+     * @throws AppException ROOM_NOT_FOUND when the room does not exist or is deleted
+     */
+    public RoomSnapshot get(UUID roomId) {
+        RoomSnapshot snapshot = nearCache.getIfPresent(roomId);
+        if (snapshot != null) return snapshot;
+
+        int stripe = stripe(roomId);
+        long loadedAt = generations.get(stripe);
+        snapshot = roomRepository.findByRoomIdAndIsDeletedFalse(roomId)
+                .map(room -> new RoomSnapshot(room.getRoomId(), room.getRoomName(), room.getPurpose(), room.getSecretKey(),
+                        Set.copyOf(roomMemberRepository.findActiveMemberIds(roomId))))
+                .orElseThrow(() -> new AppException(ErrorCode.ROOM_NOT_FOUND));
+        if (generations.get(stripe) == loadedAt) {
+            nearCache.put(roomId, snapshot);
+        }
+        return snapshot;
+    }
+
+    public boolean isMember(UUID roomId, UUID userId) {
+        return get(roomId).isMember(userId);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMembershipChanged(RoomMembershipChangedEvent event) {
+        evict(event.getRoomId());
+    }
+
+    public void evict(UUID roomId) {
+        invalidateLocal(roomId);
+        try {
+            stringRedisTemplate.convertAndSend(INVALIDATION_CHANNEL, roomId.toString());
+        } catch (Exception e) {
+            log.warn("Failed to propagate room membership invalidation for {}: {}", roomId, e.getMessage());
+        }
+    }
+
+    private void invalidateLocal(UUID roomId) {
+        generations.incrementAndGet(stripe(roomId));
+        nearCache.invalidate(roomId);
+    }
+
+    private static int stripe(UUID roomId) {
+        return (roomId.hashCode() & Integer.MAX_VALUE) % GENERATION_STRIPES;
+    }
+}
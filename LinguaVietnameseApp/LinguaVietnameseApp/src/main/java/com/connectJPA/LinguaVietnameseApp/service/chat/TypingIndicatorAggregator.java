@@ -0,0 +1,176 @@
+package com.connectJPA.LinguaVietnameseApp.service.chat;
+
+import com.connectJPA.LinguaVietnameseApp.dto.response.TypingStateResponse;
+import com.connectJPA.LinguaVietnameseApp.enums.RoomPurpose;
+import com.connectJPA.LinguaVietnameseApp.exception.AppException;
+import com.connectJPA.LinguaVietnameseApp.service.chat.RoomMembershipCache.RoomSnapshot;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Folds typing frames into per-room state. Frames only update who is typing; a fixed-rate tick
+ * sends at most one broadcast per changed room carrying the full set of typers, and typers that
+ * stop sending frames drop out after the TTL. The tick runs on its own thread so it keeps its
+ * cadence however busy the shared scheduler is.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class TypingIndicatorAggregator {
+
+    private final RoomMembershipCache roomMembershipCache;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${chat.typing.ttl-ms:5000}")
+    private long ttlMs;
+
+    @Value("${chat.typing.broadcast-interval-ms:500}")
+    private long broadcastIntervalMs;
+
+    private static final class RoomTyping {
+        // System.nanoTime() deadlines
+        final Map<UUID, Long> expiresAt = new HashMap<>();
+        // Users who started or stopped typing since the last broadcast
+        final Set<UUID> changed = new HashSet<>();
+    }
+
+    private record Change(List<UUID> typers, Set<UUID> changed) {}
+
+    // All reads and writes of a RoomTyping happen inside compute* on this map, which serialises them per room
+    private final ConcurrentHashMap<UUID, RoomTyping> rooms = new ConcurrentHashMap<>();
+
+    private long ttlNanos;
+    private ScheduledExecutorService ticker;
+    private Counter emitted;
+    private Counter suppressed;
+    private Timer tickTimer;
+
+    @PostConstruct
+    public void init() {
+        ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        emitted = Counter.builder("chat.typing.frames").tag("result", "emitted").register(meterRegistry);
+        suppressed = Counter.builder("chat.typing.frames").tag("result", "suppressed").register(meterRegistry);
+        tickTimer = Timer.builder("chat.typing.tick").register(meterRegistry);
+        Gauge.builder("chat.typing.rooms", rooms, Map::size).register(meterRegistry);
+
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "Typing-broadcast");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // An exception escaping a fixed-rate task would cancel every later run
+        ticker.scheduleAtFixedRate(() -> {
+            try {
+                tick();
+            } catch (Exception e) {
+                log.warn("Typing tick failed: {}", e.getMessage());
+            }
+        }, broadcastIntervalMs, broadcastIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ticker.shutdownNow();
+    }
+
+    public void record(UUID roomId, UUID userId, boolean typing) {
+        long now = System.nanoTime();
+        boolean[] scheduled = new boolean[1];
+        rooms.compute(roomId, (id, state) -> {
+            if (state == null) {
+                if (!typing) return null;
+                state = new RoomTyping();
+            }
+            boolean changed = typing
+                    ? state.expiresAt.put(userId, now + ttlNanos) == null
+                    : state.expiresAt.remove(userId) != null;
+            if (changed) {
+                scheduled[0] = state.changed.isEmpty();
+                state.changed.add(userId);
+            }
+            return state;
+        });
+        if (!scheduled[0]) {
+            suppressed.increment();
+        }
+    }
+
+    public void tick() {
+        if (rooms.isEmpty()) return;
+        long now = System.nanoTime();
+
+        Map<UUID, Change> changes = new HashMap<>();
+        for (UUID roomId : rooms.keySet()) {
+            rooms.computeIfPresent(roomId, (id, state) -> {
+                state.expiresAt.entrySet().removeIf(typer -> {
+                    boolean expired = typer.getValue() - now <= 0;
+                    if (expired) state.changed.add(typer.getKey());
+                    return expired;
+                });
+                if (!state.changed.isEmpty()) {
+                    changes.put(id, new Change(new ArrayList<>(state.expiresAt.keySet()), Set.copyOf(state.changed)));
+                    state.changed.clear();
+                }
+                return state.expiresAt.isEmpty() ? null : state;
+            });
+        }
+
+        changes.forEach(this::broadcast);
+        tickTimer.record(System.nanoTime() - now, TimeUnit.NANOSECONDS);
+    }
+
+    private void broadcast(UUID roomId, Change change) {
+        List<UUID> typers = change.typers();
+        RoomSnapshot room;
+        try {
+            room = roomMembershipCache.get(roomId);
+        } catch (AppException e) {
+            rooms.remove(roomId);
+            return;
+        }
+
+        try {
+            if (room.purpose() == RoomPurpose.GROUP_CHAT) {
+                messagingTemplate.convertAndSend("/topic/room/" + roomId + "/typing", new TypingStateResponse(roomId, typers));
+                emitted.increment();
+            } else if (room.purpose() == RoomPurpose.PRIVATE_CHAT) {
+                // A member only hears about the other side; their own typing never comes back to them
+                for (UUID memberId : room.memberIds()) {
+                    if (change.changed().stream().allMatch(memberId::equals)) continue;
+                    List<UUID> others = typers.stream().filter(u -> !u.equals(memberId)).toList();
+                    messagingTemplate.convertAndSendToUser(memberId.toString(), "/queue/typing", new TypingStateResponse(roomId, others));
+                    emitted.increment();
+                }
+            } else if (room.purpose() == RoomPurpose.AI_CHAT) {
+                for (UUID memberId : room.memberIds()) {
+                    messagingTemplate.convertAndSendToUser(memberId.toString(), "/queue/typing", new TypingStateResponse(roomId, typers));
+                    emitted.increment();
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Typing broadcast failed for room {}: {}", roomId, e.getMessage());
+        }
+    }
+}
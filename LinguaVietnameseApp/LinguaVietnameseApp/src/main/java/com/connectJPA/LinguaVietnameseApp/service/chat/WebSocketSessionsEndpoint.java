@@ -0,0 +1,31 @@
+package com.connectJPA.LinguaVietnameseApp.service.chat;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * /actuator/websocketsessions: per-session send buffer, outbound queue depth, drops and send latency
+ * for the slowest sessions on this node. Admin only, see SecurityConfig.
+ */
+@Component
+@Endpoint(id = "websocketsessions")
+@RequiredArgsConstructor
+public class WebSocketSessionsEndpoint {
+
+    private static final int MAX_SESSIONS = 50;
+
+    private final OutboundSessionTracker outboundSessionTracker;
+
+    @ReadOperation
+    public Map<String, Object> sessions() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("sessions", outboundSessionTracker.sessionCount());
+        result.put("slowest", outboundSessionTracker.slowestSessions(MAX_SESSIONS));
+        return result;
+    }
+}
@@ -0,0 +1,138 @@
+package com.connectJPA.LinguaVietnameseApp.service.chat.broker;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.ApplicationContext;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.AbstractSubscribableChannel;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Cross-node fan-out for the simple broker. Every /topic and /queue message sent to the local
+ * broker channel is also published on the {@link BrokerFanoutTransport}; other nodes replay it
+ * into their own broker channel, so their subscribers receive it as well. There is no shared user
+ * registry in these modes, so /user messages are forwarded unresolved and every node resolves
+ * them against its own sessions; destinations already resolved to a local session stay local.
+ * Does nothing unless a transport bean is active (chat.broker.mode=redis or in-jvm).
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class BrokerFanoutRelay implements ChannelInterceptor, SmartInitializingSingleton {
+
+    private static final String RELAYED_HEADER = "fanoutRelayed";
+    // Matches config.setUserDestinationPrefix in WebSocketConfig
+    private static final String USER_DESTINATION_PREFIX = "/user/";
+
+    private final ObjectProvider<BrokerFanoutTransport> transportProvider;
+    private final ApplicationContext applicationContext;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private BrokerFanoutTransport transport;
+    private MessageChannel brokerChannel;
+    private Counter published;
+    private Counter received;
+    private Counter failed;
+    private Timer deliveryLatency;
+
+    private record Envelope(String origin, long sentAtMillis, String destination, String contentType,
+                            Map<String, List<String>> nativeHeaders, byte[] payload) {}
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        transport = transportProvider.getIfAvailable();
+        if (transport == null) return;
+
+        AbstractSubscribableChannel channel = applicationContext.getBean("brokerChannel", AbstractSubscribableChannel.class);
+        channel.addInterceptor(this);
+        brokerChannel = channel;
+
+        published = Counter.builder("chat.broker.fanout.messages").tag("direction", "published").register(meterRegistry);
+        received = Counter.builder("chat.broker.fanout.messages").tag("direction", "received").register(meterRegistry);
+        failed = Counter.builder("chat.broker.fanout.messages").tag("direction", "failed").register(meterRegistry);
+        // Publish on one node to delivery into the broker on another; assumes roughly synced clocks
+        deliveryLatency = Timer.builder("chat.broker.fanout.latency")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .maximumExpectedValue(Duration.ofSeconds(5))
+                .register(meterRegistry);
+
+        transport.subscribe(this::onEnvelope);
+        log.info("Broker fan-out enabled via {} (node {})", transport.getClass().getSimpleName(), nodeId);
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        String destination = accessor.getDestination();
+        if (accessor.getMessageType() != SimpMessageType.MESSAGE
+                || accessor.getHeader(RELAYED_HEADER) != null
+                || destination == null
+                || !(destination.startsWith("/topic/") || destination.startsWith("/queue/")
+                    || destination.startsWith(USER_DESTINATION_PREFIX))
+                || accessor.getFirstNativeHeader(SimpMessageHeaderAccessor.ORIGINAL_DESTINATION) != null) {
+            return message;
+        }
+
+        byte[] payload = message.getPayload() instanceof byte[] bytes ? bytes
+                : message.getPayload() instanceof String text ? text.getBytes(StandardCharsets.UTF_8) : null;
+        if (payload == null) return message;
+
+        try {
+            MimeType contentType = accessor.getContentType();
+            Map<String, List<String>> nativeHeaders = accessor.toNativeHeaderMap();
+            transport.publish(objectMapper.writeValueAsBytes(new Envelope(nodeId, System.currentTimeMillis(),
+                    destination, contentType != null ? contentType.toString() : null, nativeHeaders, payload)));
+            published.increment();
+        } catch (Exception e) {
+            failed.increment();
+            log.warn("Broker fan-out publish failed for {}: {}", destination, e.getMessage());
+        }
+        return message;
+    }
+
+    private void onEnvelope(byte[] body) {
+        try {
+            Envelope envelope = objectMapper.readValue(body, Envelope.class);
+            if (nodeId.equals(envelope.origin())) return;
+
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+            accessor.setDestination(envelope.destination());
+            if (envelope.contentType() != null) {
+                accessor.setContentType(MimeType.valueOf(envelope.contentType()));
+            }
+            if (envelope.nativeHeaders() != null) {
+                envelope.nativeHeaders().forEach((name, values) -> values.forEach(value -> accessor.addNativeHeader(name, value)));
+            }
+            accessor.setHeader(RELAYED_HEADER, Boolean.TRUE);
+            Message<byte[]> message = MessageBuilder.createMessage(envelope.payload(), accessor.getMessageHeaders());
+
+            brokerChannel.send(message);
+            received.increment();
+            deliveryLatency.record(Duration.ofMillis(Math.max(0, System.currentTimeMillis() - envelope.sentAtMillis())));
+        } catch (Exception e) {
+            failed.increment();
+            log.warn("Broker fan-out delivery failed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.connectJPA.LinguaVietnameseApp.service.chat.broker;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries serialized broker messages between application nodes. Implementations deliver every
+ * published envelope to every subscriber, including the publishing node's own.
+ */
+public interface BrokerFanoutTransport {
+
+    void publish(byte[] envelope);
+
+    void subscribe(Consumer<byte[]> listener);
+}
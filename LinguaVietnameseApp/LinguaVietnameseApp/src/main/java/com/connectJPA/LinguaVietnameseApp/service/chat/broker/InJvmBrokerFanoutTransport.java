@@ -0,0 +1,46 @@
+package com.connectJPA.LinguaVietnameseApp.service.chat.broker;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Stand-in for Redis pub/sub when several application contexts run in one JVM, e.g. two nodes
+ * started side by side in an integration test. Delivery is asynchronous and ordered, like a
+ * real pub/sub channel.
+ */
+@Component
+@ConditionalOnProperty(name = "chat.broker.mode", havingValue = "in-jvm")
+public class InJvmBrokerFanoutTransport implements BrokerFanoutTransport {
+
+    private static final List<Consumer<byte[]>> SUBSCRIBERS = new CopyOnWriteArrayList<>();
+    private static final ExecutorService DELIVERY = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "in-jvm-broker");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final List<Consumer<byte[]>> registered = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(byte[] envelope) {
+        DELIVERY.execute(() -> SUBSCRIBERS.forEach(subscriber -> subscriber.accept(envelope)));
+    }
+
+    @Override
+    public void subscribe(Consumer<byte[]> listener) {
+        registered.add(listener);
+        SUBSCRIBERS.add(listener);
+    }
+
+    @PreDestroy
+    public void close() {
+        SUBSCRIBERS.removeAll(registered);
+    }
+}
@@ -0,0 +1,34 @@
+package com.connectJPA.LinguaVietnameseApp.service.chat.broker;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "chat.broker.mode", havingValue = "redis")
+public class RedisBrokerFanoutTransport implements BrokerFanoutTransport {
+
+    private static final String CHANNEL = "stomp:fanout";
+    private static final byte[] CHANNEL_BYTES = CHANNEL.getBytes(StandardCharsets.UTF_8);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    @Override
+    public void publish(byte[] envelope) {
+        stringRedisTemplate.execute((RedisCallback<Long>) connection -> connection.publish(CHANNEL_BYTES, envelope));
+    }
+
+    @Override
+    public void subscribe(Consumer<byte[]> listener) {
+        listenerContainer.addMessageListener((message, pattern) -> listener.accept(message.getBody()), new ChannelTopic(CHANNEL));
+    }
+}
@@ -0,0 +1,251 @@
+package com.connectJPA.LinguaVietnameseApp.service.email;
+
+import com.connectJPA.LinguaVietnameseApp.enums.EmailTemplate;
+import com.connectJPA.LinguaVietnameseApp.service.email.EmailTemplateCatalog.RenderedEmail;
+import com.connectJPA.LinguaVietnameseApp.utils.RetryBackoff;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.internet.MimeMessage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends templated emails in batches over a single SMTP connection each: JavaMailSender opens one
+ * transport per send call and reuses it for every message passed in. {@link #sendNow} is the
+ * synchronous path used by the notification outbox, which owns retries itself. {@link #submit}
+ * queues onto a bounded in-memory queue drained by a few sender threads, each holding its own
+ * connection per batch; failed messages are re-queued with jittered exponential backoff.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class EmailDispatcher {
+
+    public record EmailRequest(EmailTemplate template, String to, Locale locale, List<String> args) {}
+
+    private record Pending(EmailRequest request, int attempt) {}
+
+    private final JavaMailSender mailSender;
+    private final EmailTemplateCatalog templateCatalog;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${spring.mail.username}")
+    private String fromEmail;
+
+    @Value("${notification.email.queue-capacity:5000}")
+    private int queueCapacity;
+
+    @Value("${notification.email.senders:2}")
+    private int senders;
+
+    @Value("${notification.email.messages-per-connection:50}")
+    private int messagesPerConnection;
+
+    @Value("${notification.email.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${notification.email.base-backoff-ms:1000}")
+    private long baseBackoffMs;
+
+    @Value("${notification.email.max-backoff-ms:300000}")
+    private long maxBackoffMs;
+
+    private BlockingQueue<Pending> queue;
+    private ScheduledExecutorService retryScheduler;
+    private final List<Thread> senderThreads = new ArrayList<>();
+    private volatile boolean running;
+
+    private Counter sent;
+    private Counter failed;
+    private Counter rejected;
+    private Counter dropped;
+    private DistributionSummary batchSizes;
+    private Timer sendTimer;
+
+    @PostConstruct
+    public void init() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        retryScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "Email-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        sent = Counter.builder("notification.email.messages").tag("result", "sent").register(meterRegistry);
+        failed = Counter.builder("notification.email.messages").tag("result", "failed").register(meterRegistry);
+        rejected = Counter.builder("notification.email.messages").tag("result", "rejected").register(meterRegistry);
+        dropped = Counter.builder("notification.email.messages").tag("result", "dropped").register(meterRegistry);
+        batchSizes = DistributionSummary.builder("notification.email.batch.size").register(meterRegistry);
+        sendTimer = Timer.builder("notification.email.send").register(meterRegistry);
+        Gauge.builder("notification.email.queue.depth", queue, BlockingQueue::size).register(meterRegistry);
+
+        running = true;
+        for (int i = 0; i < senders; i++) {
+            Thread thread = new Thread(this::senderLoop, "Email-sender-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            senderThreads.add(thread);
+        }
+    }
+
+    /**
+     * Queues an email for background delivery.
+     *
+     * @return false if the queue is full and the email was not accepted
+     */
+    public boolean submit(EmailRequest request) {
+        if (queue.offer(new Pending(request, 1))) return true;
+        rejected.increment();
+        log.warn("Email queue full ({}), rejected {} email to {}", queueCapacity, request.template(), request.to());
+        return false;
+    }
+
+    /**
+     * Renders and sends the batch on the calling thread, one SMTP connection per
+     * messages-per-connection chunk.
+     *
+     * @return indexes of requests that were not sent
+     */
+    public BitSet sendNow(List<EmailRequest> batch) {
+        BitSet failures = new BitSet(batch.size());
+        for (int from = 0; from < batch.size(); from += messagesPerConnection) {
+            int to = Math.min(from + messagesPerConnection, batch.size());
+            sendChunk(batch.subList(from, to), from, failures);
+        }
+        return failures;
+    }
+
+    private void sendChunk(List<EmailRequest> chunk, int offset, BitSet failures) {
+        Map<MimeMessage, Integer> indexes = new IdentityHashMap<>();
+        List<MimeMessage> messages = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            try {
+                MimeMessage message = build(chunk.get(i));
+                messages.add(message);
+                indexes.put(message, offset + i);
+            } catch (Exception e) {
+                failures.set(offset + i);
+                failed.increment();
+                log.warn("Could not build {} email to {}: {}", chunk.get(i).template(), chunk.get(i).to(), e.getMessage());
+            }
+        }
+        if (messages.isEmpty()) return;
+
+        batchSizes.record(messages.size());
+        long startedAt = System.nanoTime();
+        try {
+            mailSender.send(messages.toArray(MimeMessage[]::new));
+            sent.increment(messages.size());
+        } catch (MailSendException e) {
+            // Empty failed-messages means the connection itself failed and nothing went out
+            Map<Object, Exception> failedMessages = e.getFailedMessages();
+            if (failedMessages.isEmpty()) {
+                markAllFailed(indexes, failures);
+            } else {
+                failedMessages.keySet().forEach(message -> {
+                    Integer index = indexes.get(message);
+                    if (index != null) failures.set(index);
+                });
+                failed.increment(failedMessages.size());
+                sent.increment(messages.size() - failedMessages.size());
+            }
+            log.warn("SMTP batch of {} had {} failures: {}", messages.size(), Math.max(failedMessages.size(), 1), e.getMessage());
+        } catch (MailException e) {
+            markAllFailed(indexes, failures);
+            log.warn("SMTP batch of {} failed: {}", messages.size(), e.getMessage());
+        } finally {
+            sendTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void markAllFailed(Map<MimeMessage, Integer> indexes, BitSet failures) {
+        indexes.values().forEach(failures::set);
+        failed.increment(indexes.size());
+    }
+
+    private MimeMessage build(EmailRequest request) throws Exception {
+        RenderedEmail rendered = templateCatalog.render(request.template(), request.locale(), request.args());
+        MimeMessage mimeMessage = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, true);
+        helper.setFrom(fromEmail);
+        helper.setTo(request.to());
+        helper.setSubject(rendered.subject());
+        helper.setText(rendered.body(), true);
+        return mimeMessage;
+    }
+
+    private void senderLoop() {
+        List<Pending> batch = new ArrayList<>(messagesPerConnection);
+        while (running) {
+            try {
+                Pending first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                queue.drainTo(batch, messagesPerConnection - 1);
+
+                BitSet failures = sendNow(batch.stream().map(Pending::request).toList());
+                for (int i = failures.nextSetBit(0); i >= 0; i = failures.nextSetBit(i + 1)) {
+                    retryLater(batch.get(i));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Email sender error", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void retryLater(Pending pending) {
+        if (pending.attempt() >= maxAttempts) {
+            dropped.increment();
+            log.error("Giving up on {} email to {} after {} attempts",
+                    pending.request().template(), pending.request().to(), pending.attempt());
+            return;
+        }
+        Pending next = new Pending(pending.request(), pending.attempt() + 1);
+        retryScheduler.schedule(() -> {
+            if (!queue.offer(next)) {
+                dropped.increment();
+                log.warn("Email queue full, dropped retry of {} email to {}", next.request().template(), next.request().to());
+            }
+        }, RetryBackoff.jitteredMs(pending.attempt(), baseBackoffMs, maxBackoffMs), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        retryScheduler.shutdownNow();
+        for (Thread sender : senderThreads) {
+            sender.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        if (!queue.isEmpty()) {
+            log.warn("Shutting down with {} queued emails unsent", queue.size());
+        }
+    }
+}
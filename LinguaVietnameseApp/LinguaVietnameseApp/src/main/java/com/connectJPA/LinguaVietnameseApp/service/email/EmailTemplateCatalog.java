@@ -0,0 +1,111 @@
+package com.connectJPA.LinguaVietnameseApp.service.email;
+
+import com.connectJPA.LinguaVietnameseApp.enums.EmailTemplate;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.MessageSource;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Email subjects and bodies parsed once per language into literal/placeholder segments, so
+ * rendering is a string concatenation instead of a MessageSource lookup plus MessageFormat parse.
+ * Placeholders ({0}, {1}, ...) are substituted literally; apostrophes in translations are plain
+ * text rather than MessageFormat quotes.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class EmailTemplateCatalog {
+
+    public record RenderedEmail(String subject, String body) {}
+
+    private record CompiledText(List<Object> segments) {
+
+        String render(List<String> args) {
+            StringBuilder out = new StringBuilder();
+            for (Object segment : segments) {
+                if (segment instanceof Integer index) {
+                    out.append(index < args.size() ? args.get(index) : "{" + index + "}");
+                } else {
+                    out.append((String) segment);
+                }
+            }
+            return out.toString();
+        }
+    }
+
+    private record CompiledEmail(CompiledText subject, CompiledText body) {}
+
+    private final MessageSource messageSource;
+
+    @Value("${notification.email.locales:en,vi,zh,es,fr,jp,in}")
+    private List<String> preloadLocales;
+
+    private final Map<Locale, Map<EmailTemplate, CompiledEmail>> compiled = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        preloadLocales.forEach(tag -> templatesFor(Locale.forLanguageTag(tag.trim())));
+        templatesFor(Locale.getDefault());
+        log.info("Compiled {} email templates for {} languages", EmailTemplate.values().length, compiled.size());
+    }
+
+    public RenderedEmail render(EmailTemplate template, Locale locale, List<String> args) {
+        CompiledEmail email = templatesFor(locale != null ? locale : Locale.getDefault()).get(template);
+        return new RenderedEmail(email.subject().render(args), email.body().render(args));
+    }
+
+    // Bundles are per language only, so vi-VN and vi share one compiled set
+    private Map<EmailTemplate, CompiledEmail> templatesFor(Locale locale) {
+        return compiled.computeIfAbsent(Locale.of(locale.getLanguage()), this::compileAll);
+    }
+
+    private Map<EmailTemplate, CompiledEmail> compileAll(Locale locale) {
+        Map<EmailTemplate, CompiledEmail> templates = new EnumMap<>(EmailTemplate.class);
+        for (EmailTemplate template : EmailTemplate.values()) {
+            templates.put(template, new CompiledEmail(
+                    compile(messageSource.getMessage(template.subjectCode(), null, locale)),
+                    compile(messageSource.getMessage(template.bodyCode(), null, locale))));
+        }
+        return templates;
+    }
+
+    private static CompiledText compile(String pattern) {
+        List<Object> segments = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int i = 0;
+        while (i < pattern.length()) {
+            char c = pattern.charAt(i);
+            int close = c == '{' ? pattern.indexOf('}', i) : -1;
+            if (close > i + 1 && isDigits(pattern, i + 1, close)) {
+                if (!literal.isEmpty()) {
+                    segments.add(literal.toString());
+                    literal.setLength(0);
+                }
+                segments.add(Integer.parseInt(pattern, i + 1, close, 10));
+                i = close + 1;
+            } else {
+                literal.append(c);
+                i++;
+            }
+        }
+        if (!literal.isEmpty()) segments.add(literal.toString());
+        return new CompiledText(List.copyOf(segments));
+    }
+
+    private static boolean isDigits(String s, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (!Character.isDigit(s.charAt(i))) return false;
+        }
+        return true;
+    }
+}
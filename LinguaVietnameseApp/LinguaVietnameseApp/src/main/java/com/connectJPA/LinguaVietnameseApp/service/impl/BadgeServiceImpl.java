@@ -10,14 +10,18 @@ import com.connectJPA.LinguaVietnameseApp.entity.UserBadge;
 import com.connectJPA.LinguaVietnameseApp.entity.id.UserBadgeId;
 import com.connectJPA.LinguaVietnameseApp.enums.BadgeType;
 import com.connectJPA.LinguaVietnameseApp.enums.CriteriaType;
+import com.connectJPA.LinguaVietnameseApp.enums.ProfileSection;
+import com.connectJPA.LinguaVietnameseApp.event.ProfileSectionChangedEvent;
 import com.connectJPA.LinguaVietnameseApp.exception.AppException;
 import com.connectJPA.LinguaVietnameseApp.exception.ErrorCode;
 import com.connectJPA.LinguaVietnameseApp.mapper.BadgeMapper;
 import com.connectJPA.LinguaVietnameseApp.repository.jpa.*;
 import com.connectJPA.LinguaVietnameseApp.service.BadgeService;
 import com.connectJPA.LinguaVietnameseApp.service.NotificationService;
+import com.connectJPA.LinguaVietnameseApp.service.profile.AdmirationCounters;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -41,12 +45,13 @@ public class BadgeServiceImpl implements BadgeService {
     private final UserRepository userRepository;
     private final UserLearningActivityRepository userLearningActivityRepository;
     private final VideoCallRepository videoCallRepository;
-    private final AdmirationRepository admirationRepository;
+    private final AdmirationCounters admirationCounters;
     private final FriendshipRepository friendshipRepository;
     private final ChatMessageRepository chatMessageRepository;
 
     private final BadgeMapper badgeMapper;
     private final NotificationService notificationService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public Page<BadgeResponse> getAllBadges(String badgeName, String languageCode, Pageable pageable) {
@@ -86,6 +91,7 @@ public class BadgeServiceImpl implements BadgeService {
                 .build();
 
         userBadgeRepository.save(userBadge);
+        eventPublisher.publishEvent(new ProfileSectionChangedEvent(userId, ProfileSection.BADGES));
         sendBadgeEarnedNotification(userId, badge);
     }
 
@@ -192,7 +198,7 @@ public class BadgeServiceImpl implements BadgeService {
                 return videoCallRepository.countCompletedCallsForUser(user.getUserId());
             
             case GIVE_ADMIRATION: // "Trái tim vàng"
-                return admirationRepository.countBySenderId(user.getUserId());
+                return admirationCounters.given(user.getUserId());
             
             case FRIENDS_MADE: // "Mạng lưới toàn cầu"
                 return friendshipRepository.countAcceptedFriends(user.getUserId());
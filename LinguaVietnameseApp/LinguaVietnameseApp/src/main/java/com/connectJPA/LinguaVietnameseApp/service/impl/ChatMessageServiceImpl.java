@@ -4,7 +4,9 @@ import com.connectJPA.LinguaVietnameseApp.dto.request.ChatMessageRequest;
 import com.connectJPA.LinguaVietnameseApp.dto.request.NotificationRequest;
 import com.connectJPA.LinguaVietnameseApp.dto.request.TypingStatusRequest;
 import com.connectJPA.LinguaVietnameseApp.dto.response.ChatMessageResponse;
+import com.connectJPA.LinguaVietnameseApp.dto.response.ChatSenderSummary;
 import com.connectJPA.LinguaVietnameseApp.dto.response.ChatStatsResponse;
+import com.connectJPA.LinguaVietnameseApp.dto.response.CursorPageResponse;
 import com.connectJPA.LinguaVietnameseApp.entity.*;
 import com.connectJPA.LinguaVietnameseApp.entity.id.ChatMessagesId;
 import com.connectJPA.LinguaVietnameseApp.enums.BadgeType;
@@ -20,21 +22,35 @@ import com.connectJPA.LinguaVietnameseApp.service.BadgeService;
 import com.connectJPA.LinguaVietnameseApp.service.ChatMessageService;
 import com.connectJPA.LinguaVietnameseApp.service.DailyChallengeService;
 import com.connectJPA.LinguaVietnameseApp.service.NotificationService;
-import com.connectJPA.LinguaVietnameseApp.service.UserService;
+import com.connectJPA.LinguaVietnameseApp.service.chat.ChatDispatchPipeline;
+import com.connectJPA.LinguaVietnameseApp.service.chat.ChatMessageSearchIndex;
+import com.connectJPA.LinguaVietnameseApp.service.chat.ChatMessageWriteBehindBuffer;
+import com.connectJPA.LinguaVietnameseApp.service.chat.ChatReadWatermarkService;
+import com.connectJPA.LinguaVietnameseApp.service.chat.ChatSenderSummaryCache;
+import com.connectJPA.LinguaVietnameseApp.service.chat.ChatTranslationDispatcher;
+import com.connectJPA.LinguaVietnameseApp.service.chat.RoomMembershipCache;
+import com.connectJPA.LinguaVietnameseApp.service.chat.RoomMembershipCache.RoomSnapshot;
+import com.connectJPA.LinguaVietnameseApp.service.chat.TypingIndicatorAggregator;
+import com.connectJPA.LinguaVietnameseApp.utils.KeysetCursor;
 import com.google.gson.Gson;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.OffsetDateTime;
 import java.time.temporal.ChronoUnit;
@@ -53,9 +69,16 @@ public class ChatMessageServiceImpl implements ChatMessageService {
     private final UserRepository userRepository;
     private final SimpMessagingTemplate messagingTemplate;
     private final NotificationService notificationService;
-    private final UserService userService;
+    private final ChatDispatchPipeline dispatchPipeline;
+    private final ChatSenderSummaryCache senderSummaryCache;
+    private final ChatReadWatermarkService readWatermarkService;
+    private final RoomMembershipCache roomMembershipCache;
+    private final TypingIndicatorAggregator typingAggregator;
+    private final ChatMessageSearchIndex searchIndex;
+    private final ChatTranslationDispatcher translationDispatcher;
+    private final ChatMessageWriteBehindBuffer writeBehindBuffer;
+    private final PlatformTransactionManager transactionManager;
     
-    private final StringRedisTemplate stringRedisTemplate; 
     private final RedisTemplate<String, Object> redisTemplate;
     
     private final Gson gson = new Gson();
@@ -67,7 +90,14 @@ public class ChatMessageServiceImpl implements ChatMessageService {
 
     private static final UUID AI_BOT_ID = UUID.fromString("00000000-0000-0000-0000-000000000000");
     private static final String USER_STATS_CACHE_PREFIX = "user_statistics::";
-    private static final String TRANSLATION_QUEUE_KEY = "chat_translation_queue";
+    private static final int MAX_HISTORY_PAGE_SIZE = 100;
+
+    @Value("${chat.partitioning.recent-lookup-days:7}")
+    private int recentLookupDays;
+
+    private OffsetDateTime recentSince() {
+        return OffsetDateTime.now().minusDays(recentLookupDays);
+    }
 
     private ChatMessageResponse mapToResponse(ChatMessage entity, RoomPurpose purpose) {
         ChatMessageResponse response = chatMessageMapper.toResponse(entity);
@@ -93,29 +123,37 @@ public class ChatMessageServiceImpl implements ChatMessageService {
     }
 
     @Override
-    public Page<ChatMessage> searchMessages(String keyword, UUID roomId, int page, int size) {
+    public Page<ChatMessageResponse> searchMessages(String keyword, UUID roomId, int page, int size) {
         if (keyword == null || keyword.isBlank()) return Page.empty();
         try {
+            UUID userId = UUID.fromString(SecurityContextHolder.getContext().getAuthentication().getName());
             Pageable pageable = PageRequest.of(page, size);
-            return chatMessageRepository.searchMessagesByKeyword(keyword, roomId, pageable);
+            List<ChatMessage> hits = searchIndex.search(keyword, userId, roomId, page, size);
+            boolean hasNext = hits.size() > size;
+            List<ChatMessageResponse> content = hits.stream().limit(size).map(entity -> {
+                RoomSnapshot room = roomMembershipCache.get(entity.getRoomId());
+                ChatMessageResponse response = mapToResponse(entity, room.purpose());
+                response.setSnippet(searchIndex.snippet(searchIndex.plaintext(entity.getContent(), room.secretKey()), keyword));
+                return response;
+            }).toList();
+            // No COUNT: the total only has to be large enough for hasNext to be right
+            long total = pageable.getOffset() + content.size() + (hasNext ? 1 : 0);
+            return new PageImpl<>(content, pageable, total);
+        } catch (AppException e) {
+            throw e;
         } catch (Exception e) {
             throw new SystemException(ErrorCode.UNCATEGORIZED_EXCEPTION);
         }
     }
 
     @Override
-    @Transactional
     public ChatMessageResponse saveMessage(UUID roomId, ChatMessageRequest request) {
-        Room room = roomRepository.findByRoomIdAndIsDeletedFalse(roomId)
-                .orElseThrow(() -> new AppException(ErrorCode.ROOM_NOT_FOUND));
+        RoomSnapshot room = roomMembershipCache.get(roomId);
 
         boolean isAiBot = AI_BOT_ID.equals(request.getSenderId());
         
-        if (!isAiBot && room.getPurpose() != RoomPurpose.AI_CHAT) {
-            UUID currentUserId = request.getSenderId();
-            if(!roomMemberRepository.existsById_RoomIdAndId_UserIdAndIsDeletedFalse(roomId, currentUserId)){
-                throw new AppException(ErrorCode.NOT_ROOM_MEMBER);
-            }
+        if (!isAiBot && room.purpose() != RoomPurpose.AI_CHAT && !room.isMember(request.getSenderId())) {
+            throw new AppException(ErrorCode.NOT_ROOM_MEMBER);
         }
 
         ChatMessage message = chatMessageMapper.toEntity(request);
@@ -148,68 +186,75 @@ public class ChatMessageServiceImpl implements ChatMessageService {
         }
         
         message.setRead(false);
+        searchIndex.index(message, room);
 
-        ChatMessage savedMessage = chatMessageRepository.save(message);
-        
-        room.setUpdatedAt(OffsetDateTime.now());
-        roomRepository.save(room);
+        ChatMessage savedMessage = persistMessage(message);
+
+        ChatMessageResponse response = mapToResponse(savedMessage, room.purpose());
+        if (isAiBot) response.setSenderProfile(null); 
+        else response.setSenderProfile(senderSummaryCache.get(savedMessage.getSenderId()));
+
+        UUID senderId = request.getSenderId();
+        dispatchPipeline.afterCommit(() -> {
+            readWatermarkService.rememberMessage(savedMessage);
 
-        if (!isAiBot) {
             try {
-                if (badgeService != null) badgeService.updateBadgeProgress(request.getSenderId(), BadgeType.MESSAGE_COUNT, 1);
-                if (dailyChallengeService != null) dailyChallengeService.updateChallengeProgress(request.getSenderId(), ChallengeType.VOCABULARY_REVIEW, 1);
-            } catch (Exception e) { log.warn("Stats update failed but ignored", e); }
-        }
+                // BROADCAST: This sends the object containing BOTH keys to everyone in the room
+                messagingTemplate.convertAndSend("/topic/room/" + roomId, response);
+            } catch (Exception e) {
+                log.error("Broadcast failed", e);
+            }
 
-        ChatMessageResponse response = mapToResponse(savedMessage, room.getPurpose());
-        if (isAiBot) response.setSenderProfile(null); 
-        else response.setSenderProfile(userService.getUserProfile(null, savedMessage.getSenderId()));
+            if (room.purpose() != RoomPurpose.PRIVATE_CHAT && savedMessage.getMessageType() == MessageType.TEXT) {
+                dispatchPipeline.submit(ChatDispatchPipeline.Stage.TRANSLATION, () -> translationDispatcher.dispatch(savedMessage, room));
+            }
 
-        try {
-            // BROADCAST: This sends the object containing BOTH keys to everyone in the room
-            messagingTemplate.convertAndSend("/topic/room/" + roomId, response);
-            
-            if (room.getPurpose() != RoomPurpose.PRIVATE_CHAT && message.getMessageType() == MessageType.TEXT) {
-                dispatchToPythonQueue(savedMessage);
+            dispatchPipeline.submit(ChatDispatchPipeline.Stage.FANOUT, () -> notifyMembers(savedMessage, room, response, senderId));
+
+            if (!isAiBot) {
+                dispatchPipeline.submit(ChatDispatchPipeline.Stage.STATS, () -> updateSenderStats(senderId));
             }
-            
-            notifyMembers(savedMessage, room, response, request.getSenderId());
-        } catch (Exception e) {
-            log.error("Broadcast/Dispatch failed", e);
-        }
+        });
 
-        try {
-            redisTemplate.delete(USER_STATS_CACHE_PREFIX + request.getSenderId());
-        } catch (Exception e) {
-            log.warn("Failed to evict user stats cache", e);
+        return response;
+    }
+
+    private ChatMessage persistMessage(ChatMessage message) {
+        // Callers already inside a transaction (internal persistence) keep the direct path so they
+        // never park on the flusher while holding a pooled connection.
+        if (writeBehindBuffer.isEnabled()
+                && !TransactionSynchronizationManager.isActualTransactionActive()
+                && writeBehindBuffer.persist(message)) {
+            return message;
         }
 
-        return response;
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        return template.execute(status -> {
+            ChatMessage saved = chatMessageRepository.save(message);
+            roomRepository.touchUpdatedAt(saved.getRoomId(), saved.getId().getSentAt());
+            return saved;
+        });
     }
 
-    private void dispatchToPythonQueue(ChatMessage message) {
-        Map<String, Object> task = new HashMap<>();
-        task.put("messageId", message.getId().getChatMessageId().toString());
-        task.put("roomId", message.getRoomId().toString());
-        task.put("content", message.getContent()); 
-        task.put("senderId", message.getSenderId().toString());
-        
-        String jsonTask = gson.toJson(task);
-        
+    private void updateSenderStats(UUID senderId) {
         try {
-            stringRedisTemplate.opsForList().leftPush(TRANSLATION_QUEUE_KEY, jsonTask);
+            if (badgeService != null) badgeService.updateBadgeProgress(senderId, BadgeType.MESSAGE_COUNT, 1);
+            if (dailyChallengeService != null) dailyChallengeService.updateChallengeProgress(senderId, ChallengeType.VOCABULARY_REVIEW, 1);
+        } catch (Exception e) { log.warn("Stats update failed but ignored", e); }
+
+        try {
+            redisTemplate.delete(USER_STATS_CACHE_PREFIX + senderId);
         } catch (Exception e) {
-            log.error("Failed to push translation task to Redis", e);
+            log.warn("Failed to evict user stats cache", e);
         }
     }
 
-    private void notifyMembers(ChatMessage savedMessage, Room room, ChatMessageResponse response, UUID senderId) {
-        List<UUID> memberIds = roomMemberRepository.findAllById_RoomIdAndIsDeletedFalse(room.getRoomId())
-            .stream().map(rm -> rm.getId().getUserId()).filter(u -> !u.equals(senderId)).toList();
+    private void notifyMembers(ChatMessage savedMessage, RoomSnapshot room, ChatMessageResponse response, UUID senderId) {
+        List<UUID> memberIds = room.memberIds().stream().filter(u -> !u.equals(senderId)).toList();
 
         String senderName = "Anonymous";
         try {
-            User sender = userRepository.findByUserIdAndIsDeletedFalse(senderId).orElse(null);
+            ChatSenderSummary sender = senderSummaryCache.get(senderId);
             if (sender != null && sender.getFullname() != null) {
                 senderName = sender.getFullname();
             }
@@ -217,7 +262,7 @@ public class ChatMessageServiceImpl implements ChatMessageService {
             log.warn("Could not fetch sender name for notification");
         }
 
-        String roomName = room.getRoomName();
+        String roomName = room.roomName();
         if (roomName == null || roomName.isBlank()) {
             roomName = "Chat";
         }
@@ -225,7 +270,7 @@ public class ChatMessageServiceImpl implements ChatMessageService {
         Map<String, Object> event = new HashMap<>();
         event.put("type", "NEW_MESSAGE_EVENT");
         event.put("messageId", savedMessage.getId().getChatMessageId().toString());
-        event.put("roomId", room.getRoomId().toString());
+        event.put("roomId", room.roomId().toString());
         event.put("content", savedMessage.getContent());
         event.put("senderId", savedMessage.getSenderId().toString());
         event.put("senderName", senderName);
@@ -246,7 +291,7 @@ public class ChatMessageServiceImpl implements ChatMessageService {
                 Map<String, String> dataPayload = new HashMap<>();
                 dataPayload.put("screen", "ChatStack"); 
                 dataPayload.put("stackScreen", "GroupChatScreen"); 
-                dataPayload.put("roomId", room.getRoomId().toString());
+                dataPayload.put("roomId", room.roomId().toString());
                 dataPayload.put("initialFocusMessageId", response.getChatMessageId().toString());
                 dataPayload.put("senderId", savedMessage.getSenderId().toString());
                 dataPayload.put("isEncrypted", "true");
@@ -257,7 +302,7 @@ public class ChatMessageServiceImpl implements ChatMessageService {
                 // For receiver, the content IS the ciphertext
                 dataPayload.put("ciphertext", savedMessage.getContent()); 
 
-                if (room.getPurpose() == RoomPurpose.PRIVATE_CHAT) {
+                if (room.purpose() == RoomPurpose.PRIVATE_CHAT) {
                     dataPayload.put("encryptionType", "PRIVATE"); 
                     if (savedMessage.getSenderEphemeralKey() != null) {
                         dataPayload.put("senderEphemeralKey", savedMessage.getSenderEphemeralKey());
@@ -275,17 +320,66 @@ public class ChatMessageServiceImpl implements ChatMessageService {
                     .type("CHAT_MESSAGE")
                     .payload(payloadJson)
                     .build();
-                notificationService.createPushNotification(nreq);
+                dispatchPipeline.submit(ChatDispatchPipeline.Stage.PUSH, () -> notificationService.createPushNotification(nreq));
             } catch (Exception pushEx) { log.error("Failed to create push notification", pushEx); }
         }
     }
 
     @Override
     public Page<ChatMessageResponse> getMessagesByRoom(UUID roomId, Pageable pageable) {
-        Room room = roomRepository.findByRoomIdAndIsDeletedFalse(roomId).orElse(null);
-        RoomPurpose purpose = room != null ? room.getPurpose() : RoomPurpose.GROUP_CHAT;
+        RoomPurpose purpose = purposeOrDefault(roomId);
+        Map<UUID, OffsetDateTime> watermarks = readWatermarkService.getRoomWatermarks(roomId);
         return chatMessageRepository.findByRoomIdAndIsDeletedFalseOrderById_SentAtDesc(roomId, pageable)
-                .map(entity -> mapToResponse(entity, purpose));
+                .map(entity -> toHistoryResponse(entity, purpose, watermarks));
+    }
+
+    @Override
+    public CursorPageResponse<ChatMessageResponse> getMessagesByRoomCursor(UUID roomId, String cursor, int size) {
+        Pageable limit = PageRequest.of(0, Math.max(1, Math.min(size, MAX_HISTORY_PAGE_SIZE)));
+        Slice<ChatMessage> slice;
+        if (cursor == null || cursor.isBlank()) {
+            slice = chatMessageRepository.findRoomHistory(roomId, limit);
+        } else {
+            KeysetCursor position = KeysetCursor.decode(cursor);
+            slice = chatMessageRepository.findRoomHistoryBefore(roomId, position.at(), position.id(), limit);
+        }
+
+        RoomPurpose purpose = purposeOrDefault(roomId);
+        Map<UUID, OffsetDateTime> watermarks = readWatermarkService.getRoomWatermarks(roomId);
+        List<ChatMessageResponse> content = slice.getContent().stream()
+                .map(entity -> toHistoryResponse(entity, purpose, watermarks))
+                .toList();
+
+        String nextCursor = null;
+        if (slice.hasNext() && !slice.getContent().isEmpty()) {
+            ChatMessage last = slice.getContent().get(slice.getContent().size() - 1);
+            nextCursor = new KeysetCursor(last.getId().getSentAt(), last.getId().getChatMessageId()).encode();
+        }
+        return CursorPageResponse.<ChatMessageResponse>builder()
+                .content(content)
+                .nextCursor(nextCursor)
+                .hasNext(nextCursor != null)
+                .build();
+    }
+
+    private RoomPurpose purposeOrDefault(UUID roomId) {
+        try {
+            return roomMembershipCache.get(roomId).purpose();
+        } catch (AppException e) {
+            return RoomPurpose.GROUP_CHAT;
+        }
+    }
+
+    private ChatMessageResponse toHistoryResponse(ChatMessage entity, RoomPurpose purpose, Map<UUID, OffsetDateTime> watermarks) {
+        ChatMessageResponse response = mapToResponse(entity, purpose);
+        response.setRead(entity.isRead() || isReadByOthers(entity, watermarks));
+        return response;
+    }
+
+    private boolean isReadByOthers(ChatMessage message, Map<UUID, OffsetDateTime> watermarks) {
+        OffsetDateTime sentAt = message.getId().getSentAt();
+        return watermarks.entrySet().stream()
+                .anyMatch(e -> !e.getKey().equals(message.getSenderId()) && !e.getValue().isBefore(sentAt));
     }
 
     @Override
@@ -298,7 +392,7 @@ public class ChatMessageServiceImpl implements ChatMessageService {
     @Transactional
     public void deleteChatMessage(UUID id) {
         try {
-            ChatMessage message = chatMessageRepository.findByIdChatMessageIdAndIsDeletedFalse(id)
+            ChatMessage message = chatMessageRepository.findLiveById(id, recentSince())
                     .orElseThrow(() -> new AppException(ErrorCode.CHAT_MESSAGE_NOT_FOUND));
             
             String currentUserId = SecurityContextHolder.getContext().getAuthentication().getName();
@@ -310,7 +404,7 @@ public class ChatMessageServiceImpl implements ChatMessageService {
             long minutesSinceSent = ChronoUnit.MINUTES.between(message.getId().getSentAt(), OffsetDateTime.now());
             if (minutesSinceSent > 5) throw new AppException(ErrorCode.MESSAGE_EDIT_EXPIRED); 
 
-            chatMessageRepository.softDeleteByChatMessageId(id);
+            chatMessageRepository.softDeleteByChatMessageId(id, message.getId().getSentAt());
             messageReactionRepository.softDeleteByChatMessageId(id);
 
             redisTemplate.delete(USER_STATS_CACHE_PREFIX + message.getSenderId());
@@ -323,7 +417,7 @@ public class ChatMessageServiceImpl implements ChatMessageService {
     @Transactional
     public ChatMessageResponse editChatMessage(UUID messageId, String newContent) {
         try {
-            ChatMessage message = chatMessageRepository.findByIdChatMessageIdAndIsDeletedFalse(messageId)
+            ChatMessage message = chatMessageRepository.findLiveById(messageId, recentSince())
                     .orElseThrow(() -> new AppException(ErrorCode.CHAT_MESSAGE_NOT_FOUND));
             
             String currentUserId = SecurityContextHolder.getContext().getAuthentication().getName();
@@ -332,19 +426,21 @@ public class ChatMessageServiceImpl implements ChatMessageService {
             long minutesSinceSent = ChronoUnit.MINUTES.between(message.getId().getSentAt(), OffsetDateTime.now());
             if (minutesSinceSent > 5) throw new AppException(ErrorCode.MESSAGE_EDIT_EXPIRED);
 
+            RoomSnapshot room = roomMembershipCache.get(message.getRoomId());
+            RoomPurpose purpose = room.purpose();
             message.setContent(newContent);
             message.setTranslations(new HashMap<>()); 
+            searchIndex.index(message, room);
             
             message.setUpdatedAt(OffsetDateTime.now());
             message = chatMessageRepository.save(message);
 
-            ChatMessageResponse response = mapToResponse(message, null);
-            Room room = roomRepository.findByRoomIdAndIsDeletedFalse(message.getRoomId())
-                    .orElseThrow(() -> new AppException(ErrorCode.ROOM_NOT_FOUND));
-            response.setPurpose(room.getPurpose());
+            ChatMessageResponse response = mapToResponse(message, purpose);
             
-            if (room.getPurpose() != RoomPurpose.PRIVATE_CHAT) {
-                dispatchToPythonQueue(message);
+            if (purpose != RoomPurpose.PRIVATE_CHAT) {
+                ChatMessage edited = message;
+                dispatchPipeline.afterCommit(() -> dispatchPipeline.submit(ChatDispatchPipeline.Stage.TRANSLATION,
+                        () -> translationDispatcher.dispatch(edited, room)));
             }
 
             return response;
@@ -356,41 +452,26 @@ public class ChatMessageServiceImpl implements ChatMessageService {
     @Transactional
     public ChatMessageResponse addReaction(UUID messageId, String reaction, UUID userId) {
         try {
-            ChatMessage message = chatMessageRepository.findByIdChatMessageIdAndIsDeletedFalse(messageId)
+            ChatMessage message = chatMessageRepository.findLiveById(messageId, recentSince())
                     .orElseThrow(() -> new AppException(ErrorCode.CHAT_MESSAGE_NOT_FOUND));
-            roomMemberRepository.findByIdRoomIdAndIdUserIdAndIsDeletedFalse(message.getRoomId(), userId)
-                    .orElseThrow(() -> new AppException(ErrorCode.NOT_ROOM_MEMBER));
+            RoomSnapshot room = roomMembershipCache.get(message.getRoomId());
+            if (!room.isMember(userId)) throw new AppException(ErrorCode.NOT_ROOM_MEMBER);
             MessageReaction messageReaction = MessageReaction.builder()
-                    .reactionId(UUID.randomUUID()).chatMessageId(messageId).sentAt(OffsetDateTime.now()).userId(userId).reaction(reaction).build();
+                    .reactionId(UUID.randomUUID()).chatMessageId(messageId).messageSentAt(message.getId().getSentAt())
+                    .sentAt(OffsetDateTime.now()).userId(userId).reaction(reaction).build();
             messageReactionRepository.save(messageReaction);
-            
-            Room room = roomRepository.findByRoomIdAndIsDeletedFalse(message.getRoomId())
-                    .orElseThrow(() -> new AppException(ErrorCode.ROOM_NOT_FOUND));
-            return mapToResponse(message, room.getPurpose());
+            return mapToResponse(message, room.purpose());
         } catch (Exception e) { throw new SystemException(ErrorCode.UNCATEGORIZED_EXCEPTION); }
     }
 
     @Override
-    @Transactional
-    public ChatMessageResponse markAsRead(UUID messageId, UUID userId) {
-        try {
-            ChatMessage message = chatMessageRepository.findByIdChatMessageIdAndIsDeletedFalse(messageId)
-                    .orElseThrow(() -> new AppException(ErrorCode.CHAT_MESSAGE_NOT_FOUND));
-            roomMemberRepository.findByIdRoomIdAndIdUserIdAndIsDeletedFalse(message.getRoomId(), userId)
-                    .orElseThrow(() -> new AppException(ErrorCode.NOT_ROOM_MEMBER));
-            
-            if (message.isRead()) {
-                return null;
-            }
+    public void markAsRead(UUID messageId, UUID userId) {
+        readWatermarkService.markReadUpTo(messageId, userId);
+    }
 
-            message.setRead(true);
-            message = chatMessageRepository.save(message);
-            
-            Room room = roomRepository.findByRoomIdAndIsDeletedFalse(message.getRoomId())
-                    .orElseThrow(() -> new AppException(ErrorCode.ROOM_NOT_FOUND));
-            
-            return mapToResponse(message, room.getPurpose());
-        } catch (Exception e) { throw new SystemException(ErrorCode.UNCATEGORIZED_EXCEPTION); }
+    @Override
+    public long countUnreadMessages(UUID roomId, UUID userId) {
+        return readWatermarkService.countUnread(roomId, userId);
     }
 
     @Override
@@ -405,22 +486,17 @@ public class ChatMessageServiceImpl implements ChatMessageService {
                     .translations(new HashMap<>()) 
                     .build();
             aiMessage = chatMessageRepository.save(aiMessage);
-            Room room = roomRepository.findByRoomIdAndIsDeletedFalse(userMessage.getRoomId())
-                    .orElseThrow(() -> new AppException(ErrorCode.ROOM_NOT_FOUND));
-            return mapToResponse(aiMessage, room.getPurpose());
+            return mapToResponse(aiMessage, roomMembershipCache.get(userMessage.getRoomId()).purpose());
         } catch (Exception e) { throw new SystemException(ErrorCode.UNCATEGORIZED_EXCEPTION); }
     }
 
     @Override
     public void handleTypingStatus(UUID roomId, TypingStatusRequest request) {
-        try {
-            Room room = roomRepository.findByRoomIdAndIsDeletedFalse(roomId)
-                    .orElseThrow(() -> new AppException(ErrorCode.ROOM_NOT_FOUND));
-            if (room.getPurpose() != RoomPurpose.AI_CHAT) {
-                roomMemberRepository.findByIdRoomIdAndIdUserIdAndIsDeletedFalse(roomId, request.getUserId())
-                        .orElseThrow(() -> new AppException(ErrorCode.NOT_ROOM_MEMBER));
-            }
-        } catch (Exception e) { throw new SystemException(ErrorCode.UNCATEGORIZED_EXCEPTION); }
+        RoomSnapshot room = roomMembershipCache.get(roomId);
+        if (room.purpose() != RoomPurpose.AI_CHAT && !room.isMember(request.getUserId())) {
+            throw new AppException(ErrorCode.NOT_ROOM_MEMBER);
+        }
+        typingAggregator.record(roomId, request.getUserId(), request.isTyping());
     }
 
     @Override
@@ -6,6 +6,8 @@ import com.connectJPA.LinguaVietnameseApp.entity.Couple;
 import com.connectJPA.LinguaVietnameseApp.entity.CoupleProfileSummary;
 import com.connectJPA.LinguaVietnameseApp.entity.User;
 import com.connectJPA.LinguaVietnameseApp.enums.CoupleStatus;
+import com.connectJPA.LinguaVietnameseApp.enums.ProfileSection;
+import com.connectJPA.LinguaVietnameseApp.event.ProfileSectionChangedEvent;
 import com.connectJPA.LinguaVietnameseApp.exception.AppException;
 import com.connectJPA.LinguaVietnameseApp.exception.ErrorCode;
 import com.connectJPA.LinguaVietnameseApp.mapper.CoupleMapper;
@@ -13,12 +15,15 @@ import com.connectJPA.LinguaVietnameseApp.repository.jpa.CoupleRepository;
 import com.connectJPA.LinguaVietnameseApp.repository.jpa.UserRepository;
 import com.connectJPA.LinguaVietnameseApp.service.CoupleService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.UUID;
 
 @Service
@@ -28,6 +33,7 @@ public class CoupleServiceImpl implements CoupleService {
     private final UserRepository userRepository; 
     private final CoupleMapper coupleMapper;
     private final RedisTemplate<String, Object> redisTemplate;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public Page<CoupleResponse> getAllCouples(UUID userId, String statusString, Pageable pageable) {
@@ -68,6 +74,7 @@ public class CoupleServiceImpl implements CoupleService {
         couple.setUser1(u1);
         couple.setUser2(u2);
         couple = coupleRepository.save(couple);
+        publishCoupleChanged(u1.getUserId(), u2.getUserId());
         return coupleMapper.toResponse(couple);
     }
 
@@ -87,6 +94,7 @@ public class CoupleServiceImpl implements CoupleService {
             couple.setUser2(newU2);
         }
         couple = coupleRepository.save(couple);
+        publishCoupleChanged(user1Id, user2Id, couple.getUser1().getUserId(), couple.getUser2().getUserId());
         return coupleMapper.toResponse(couple);
     }
 
@@ -97,6 +105,13 @@ public class CoupleServiceImpl implements CoupleService {
                 .orElseThrow(() -> new AppException(ErrorCode.COUPLE_NOT_FOUND));
         couple.setDeleted(true);
         coupleRepository.save(couple);
+        publishCoupleChanged(user1Id, user2Id);
+    }
+
+    private void publishCoupleChanged(UUID... userIds) {
+        for (UUID userId : new LinkedHashSet<>(Arrays.asList(userIds))) {
+            eventPublisher.publishEvent(new ProfileSectionChangedEvent(userId, ProfileSection.COUPLE));
+        }
     }
 
     @Override
@@ -9,6 +9,7 @@ import com.connectJPA.LinguaVietnameseApp.entity.id.UserDailyChallengeId;
 import com.connectJPA.LinguaVietnameseApp.enums.ChallengePeriod;
 import com.connectJPA.LinguaVietnameseApp.enums.ChallengeStatus;
 import com.connectJPA.LinguaVietnameseApp.enums.ChallengeType;
+import com.connectJPA.LinguaVietnameseApp.event.LeaderboardProgressEvent;
 import com.connectJPA.LinguaVietnameseApp.exception.AppException;
 import com.connectJPA.LinguaVietnameseApp.exception.ErrorCode;
 import com.connectJPA.LinguaVietnameseApp.service.DailyChallengeService;
@@ -17,6 +18,7 @@ import com.connectJPA.LinguaVietnameseApp.repository.jpa.*;
 import com.connectJPA.LinguaVietnameseApp.mapper.UserDailyChallengeMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -47,6 +49,7 @@ public class DailyChallengeServiceImpl implements DailyChallengeService {
     private final ChatMessageRepository chatMessageRepository;
     private final UserDailyChallengeMapper dailyChallengeMapper;
     private final UserLearningActivityRepository userLearningActivityRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     private void syncProgress(UUID userId, ChallengePeriod period, OffsetDateTime start, OffsetDateTime end) {
         List<UserDailyChallenge> activeChallenges = userDailyChallengeRepository.findActiveChallenges(
@@ -356,6 +359,9 @@ public class DailyChallengeServiceImpl implements DailyChallengeService {
         user.setExp(user.getExp() + challenge.getExpReward());
         user.setCoins(user.getCoins() + challenge.getRewardCoins());
         userRepository.save(user);
+
+        eventPublisher.publishEvent(new LeaderboardProgressEvent(userId, challenge.getExpReward(),
+                user.getLevel(), user.getExp(), user.getCoins()));
     }
 
     @Override
@@ -1,191 +1,109 @@
 package com.connectJPA.LinguaVietnameseApp.service.impl;
 
+import com.connectJPA.LinguaVietnameseApp.enums.EmailTemplate;
 import com.connectJPA.LinguaVietnameseApp.exception.AppException;
 import com.connectJPA.LinguaVietnameseApp.exception.ErrorCode;
 import com.connectJPA.LinguaVietnameseApp.exception.SystemException;
 import com.connectJPA.LinguaVietnameseApp.service.EmailService;
-import jakarta.mail.MessagingException;
-import jakarta.mail.internet.MimeMessage;
+import com.connectJPA.LinguaVietnameseApp.service.email.EmailDispatcher;
+import com.connectJPA.LinguaVietnameseApp.service.email.EmailDispatcher.EmailRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.context.MessageSource;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
 import java.util.Locale;
 
+/**
+ * Validates and queues templated emails; rendering and SMTP delivery happen on the
+ * {@link EmailDispatcher} sender threads, so callers never wait on the mail server.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class EmailServiceImpl implements EmailService {
-    private final JavaMailSender mailSender;
-    private final MessageSource messageSource;
+    private final EmailDispatcher emailDispatcher;
 
-    @Value("${spring.mail.username}")
-    private String fromEmail;
-
-    private void sendEmail(String to, String subject, String content) throws MessagingException {
-        MimeMessage mimeMessage = mailSender.createMimeMessage();
-        MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, true);
-        helper.setFrom(fromEmail);
-        helper.setTo(to);
-        helper.setSubject(subject);
-        helper.setText(content, true); // true để gửi HTML nếu cần
-        mailSender.send(mimeMessage);
+    private void queue(EmailTemplate template, String email, Locale locale, String... args) {
+        if (!emailDispatcher.submit(new EmailRequest(template, email, locale, List.of(args)))) {
+            throw new SystemException(ErrorCode.EMAIL_SENDING_FAILED);
+        }
+        log.info("Queued {} email to {}", template, email);
     }
 
     @Override
-    public void sendPurchaseCourseEmail(String email, String courseName, Locale locale) throws MessagingException {
-        try {
-            if (email == null || courseName == null || email.isBlank() || courseName.isBlank()) {
-                throw new AppException(ErrorCode.MISSING_REQUIRED_FIELD);
-            }
-            String subject = messageSource.getMessage("email.course.subject", new Object[]{courseName}, locale != null ? locale : Locale.getDefault());
-            String content = messageSource.getMessage("email.course.body", new Object[]{courseName}, locale != null ? locale : Locale.getDefault());
-            sendEmail(email, subject, content);
-            log.info("Sent course purchase email to {}", email);
-        } catch (MessagingException e) {
-            throw new SystemException(ErrorCode.EMAIL_SENDING_FAILED);
-        } catch (Exception e) {
-            throw new AppException(ErrorCode.UNCATEGORIZED_EXCEPTION);
+    public void sendPurchaseCourseEmail(String email, String courseName, Locale locale) {
+        if (email == null || courseName == null || email.isBlank() || courseName.isBlank()) {
+            throw new AppException(ErrorCode.MISSING_REQUIRED_FIELD);
         }
+        queue(EmailTemplate.PURCHASE_COURSE, email, locale, courseName);
     }
 
     @Override
-    public void sendVoucherRegistrationEmail(String email, String voucherCode, Locale locale) throws MessagingException {
-        try {
-            if (email == null || voucherCode == null || email.isBlank() || voucherCode.isBlank()) {
-                throw new AppException(ErrorCode.MISSING_REQUIRED_FIELD);
-            }
-            String subject = messageSource.getMessage("email.voucher.subject", new Object[]{voucherCode}, locale != null ? locale : Locale.getDefault());
-            String content = messageSource.getMessage("email.voucher.body", new Object[]{voucherCode}, locale != null ? locale : Locale.getDefault());
-            sendEmail(email, subject, content);
-            log.info("Sent voucher email to {}", email);
-        } catch (MessagingException e) {
-            throw new SystemException(ErrorCode.EMAIL_SENDING_FAILED);
-        } catch (Exception e) {
-            throw new AppException(ErrorCode.UNCATEGORIZED_EXCEPTION);
+    public void sendVoucherRegistrationEmail(String email, String voucherCode, Locale locale) {
+        if (email == null || voucherCode == null || email.isBlank() || voucherCode.isBlank()) {
+            throw new AppException(ErrorCode.MISSING_REQUIRED_FIELD);
         }
+        queue(EmailTemplate.VOUCHER_REGISTRATION, email, locale, voucherCode);
     }
 
     @Override
-    public void sendAchievementEmail(String email, String title, String message, Locale locale) throws MessagingException {
-        try {
-            if (email == null || title == null || message == null || email.isBlank() || title.isBlank() || message.isBlank()) {
-                throw new AppException(ErrorCode.MISSING_REQUIRED_FIELD);
-            }
-            String subject = messageSource.getMessage("email.achievement.subject", new Object[]{title}, locale != null ? locale : Locale.getDefault());
-            String content = messageSource.getMessage("email.achievement.body", new Object[]{title, message}, locale != null ? locale : Locale.getDefault());
-            sendEmail(email, subject, content);
-            log.info("Sent achievement email to {}", email);
-        } catch (MessagingException e) {
-            throw new SystemException(ErrorCode.EMAIL_SENDING_FAILED);
-        } catch (Exception e) {
-            throw new AppException(ErrorCode.UNCATEGORIZED_EXCEPTION);
+    public void sendAchievementEmail(String email, String title, String message, Locale locale) {
+        if (email == null || title == null || message == null || email.isBlank() || title.isBlank() || message.isBlank()) {
+            throw new AppException(ErrorCode.MISSING_REQUIRED_FIELD);
         }
+        queue(EmailTemplate.ACHIEVEMENT, email, locale, title, message);
     }
 
     @Override
-    public void sendDailyStudyReminder(String email, Locale locale) throws MessagingException {
+    public void sendDailyStudyReminder(String email, Locale locale) {
         try {
             if (email == null || email.isBlank()) {
                 throw new AppException(ErrorCode.MISSING_REQUIRED_FIELD);
             }
-            String subject = messageSource.getMessage("email.daily_reminder.subject", null, locale != null ? locale : Locale.getDefault());
-            String content = messageSource.getMessage("email.daily_reminder.body", null, locale != null ? locale : Locale.getDefault());
-            sendEmail(email, subject, content);
-            log.info("Sent daily study reminder email to {}", email);
-        } catch (MessagingException e) {
-            throw new SystemException(ErrorCode.EMAIL_SENDING_FAILED);
+            queue(EmailTemplate.DAILY_REMINDER, email, locale);
         } catch (Exception e) {
             log.error("Error sending daily study reminder to {}: {}", email, e.getMessage());
         }
     }
 
     @Override
-    public void sendPasswordResetEmail(String email, String resetLink, Locale locale) throws MessagingException {
-        try {
-            if (email == null || resetLink == null || email.isBlank() || resetLink.isBlank()) {
-                throw new AppException(ErrorCode.MISSING_REQUIRED_FIELD);
-            }
-            String subject = messageSource.getMessage("email.reset.subject", null, locale != null ? locale : Locale.getDefault());
-            String content = messageSource.getMessage("email.reset.body", new Object[]{resetLink}, locale != null ? locale : Locale.getDefault());
-            sendEmail(email, subject, content);
-            log.info("Sent password reset email to {}", email);
-        } catch (MessagingException e) {
-            throw new SystemException(ErrorCode.EMAIL_SENDING_FAILED);
-        } catch (Exception e) {
-            throw new AppException(ErrorCode.UNCATEGORIZED_EXCEPTION);
+    public void sendPasswordResetEmail(String email, String resetLink, Locale locale) {
+        if (email == null || resetLink == null || email.isBlank() || resetLink.isBlank()) {
+            throw new AppException(ErrorCode.MISSING_REQUIRED_FIELD);
         }
+        queue(EmailTemplate.PASSWORD_RESET, email, locale, resetLink);
     }
 
     @Override
-    public void sendVerifyAccountEmail(String email, String verifyLink, Locale locale) throws MessagingException {
-        try {
-            if (email == null || verifyLink == null || email.isBlank() || verifyLink.isBlank()) {
-                throw new AppException(ErrorCode.MISSING_REQUIRED_FIELD);
-            }
-            String subject = messageSource.getMessage("email.verify.subject", null, locale != null ? locale : Locale.getDefault());
-            String content = messageSource.getMessage("email.verify.body", new Object[]{verifyLink}, locale != null ? locale : Locale.getDefault());
-            sendEmail(email, subject, content);
-            log.info("Sent verify account email to {}", email);
-        } catch (MessagingException e) {
-            throw new SystemException(ErrorCode.EMAIL_SENDING_FAILED);
-        } catch (Exception e) {
-            throw new AppException(ErrorCode.UNCATEGORIZED_EXCEPTION);
+    public void sendVerifyAccountEmail(String email, String verifyLink, Locale locale) {
+        if (email == null || verifyLink == null || email.isBlank() || verifyLink.isBlank()) {
+            throw new AppException(ErrorCode.MISSING_REQUIRED_FIELD);
         }
+        queue(EmailTemplate.VERIFY_ACCOUNT, email, locale, verifyLink);
     }
 
     @Override
-    public void sendInactivityWarning(String email, int days, Locale locale) throws MessagingException {
-        try {
-            if (email == null || email.isBlank() || days <= 0) {
-                throw new AppException(ErrorCode.MISSING_REQUIRED_FIELD);
-            }
-            String subject = messageSource.getMessage("email.inactivity.subject", new Object[]{days}, locale != null ? locale : Locale.getDefault());
-            String content = messageSource.getMessage("email.inactivity.body", new Object[]{days}, locale != null ? locale : Locale.getDefault());
-            sendEmail(email, subject, content);
-            log.info("Sent inactivity warning email to {}", email);
-        } catch (MessagingException e) {
-            throw new SystemException(ErrorCode.EMAIL_SENDING_FAILED);
-        } catch (Exception e) {
-            throw new AppException(ErrorCode.UNCATEGORIZED_EXCEPTION);
+    public void sendInactivityWarning(String email, int days, Locale locale) {
+        if (email == null || email.isBlank() || days <= 0) {
+            throw new AppException(ErrorCode.MISSING_REQUIRED_FIELD);
         }
+        queue(EmailTemplate.INACTIVITY_WARNING, email, locale, Integer.toString(days));
     }
 
     @Override
-    public void sendStreakRewardEmail(String email, int streakDays, Locale locale) throws MessagingException {
-        try {
-            if (email == null || email.isBlank() || streakDays <= 0) {
-                throw new AppException(ErrorCode.MISSING_REQUIRED_FIELD);
-            }
-            String subject = messageSource.getMessage("email.streak.subject", new Object[]{streakDays}, locale != null ? locale : Locale.getDefault());
-            String content = messageSource.getMessage("email.streak.body", new Object[]{streakDays}, locale != null ? locale : Locale.getDefault());
-            sendEmail(email, subject, content);
-            log.info("Sent streak reward email to {}", email);
-        } catch (MessagingException e) {
-            throw new SystemException(ErrorCode.EMAIL_SENDING_FAILED);
-        } catch (Exception e) {
-            throw new AppException(ErrorCode.UNCATEGORIZED_EXCEPTION);
+    public void sendStreakRewardEmail(String email, int streakDays, Locale locale) {
+        if (email == null || email.isBlank() || streakDays <= 0) {
+            throw new AppException(ErrorCode.MISSING_REQUIRED_FIELD);
         }
+        queue(EmailTemplate.STREAK_REWARD, email, locale, Integer.toString(streakDays));
     }
 
     @Override
     public void sendOtpEmail(String email, String code, Locale locale) {
-        try {
-            if (email == null || code == null || email.isBlank()) {
-                throw new AppException(ErrorCode.MISSING_REQUIRED_FIELD);
-            }
-            String subject = messageSource.getMessage("email.otp.subject", new Object[]{code}, locale != null ? locale : Locale.getDefault());
-            String content = messageSource.getMessage("email.otp.body", new Object[]{code}, locale != null ? locale : Locale.getDefault());
-            sendEmail(email, subject, content);
-            log.info("Sent OTP email to {}", email);
-        } catch (MessagingException e) {
-            throw new SystemException(ErrorCode.EMAIL_SENDING_FAILED);
-        } catch (Exception e) {
-            throw new AppException(ErrorCode.UNCATEGORIZED_EXCEPTION);
+        if (email == null || code == null || email.isBlank()) {
+            throw new AppException(ErrorCode.MISSING_REQUIRED_FIELD);
         }
+        queue(EmailTemplate.OTP, email, locale, code);
     }
-}
\ No newline at end of file
+}
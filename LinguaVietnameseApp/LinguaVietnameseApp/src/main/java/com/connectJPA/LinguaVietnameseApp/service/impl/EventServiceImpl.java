@@ -20,7 +20,10 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @Service
@@ -118,4 +121,13 @@ public class EventServiceImpl implements EventService {
     public List<MemorySummaryResponse> findMutualMemories(UUID userA, UUID userB) {
         return List.of();
     }
+
+    @Override
+    public Map<UUID, List<MemorySummaryResponse>> findMutualMemories(UUID userId, Collection<UUID> otherUserIds) {
+        Map<UUID, List<MemorySummaryResponse>> memories = new HashMap<>();
+        for (UUID otherUserId : otherUserIds) {
+            memories.put(otherUserId, findMutualMemories(userId, otherUserId));
+        }
+        return memories;
+    }
 }
\ No newline at end of file
@@ -10,14 +10,19 @@ import com.connectJPA.LinguaVietnameseApp.exception.AppException;
 import com.connectJPA.LinguaVietnameseApp.exception.ErrorCode;
 import com.connectJPA.LinguaVietnameseApp.exception.SystemException;
 import com.connectJPA.LinguaVietnameseApp.mapper.LeaderboardEntryMapper;
-import com.connectJPA.LinguaVietnameseApp.repository.jpa.AdmirationRepository;
 import com.connectJPA.LinguaVietnameseApp.repository.jpa.LeaderboardEntryRepository;
 import com.connectJPA.LinguaVietnameseApp.repository.jpa.LeaderboardRepository;
 import com.connectJPA.LinguaVietnameseApp.repository.jpa.UserRepository;
 import com.connectJPA.LinguaVietnameseApp.service.LeaderboardEntryService;
+import com.connectJPA.LinguaVietnameseApp.service.leaderboard.LeaderboardEntryAssembler;
+import com.connectJPA.LinguaVietnameseApp.service.leaderboard.LeaderboardRankEngine;
+import com.connectJPA.LinguaVietnameseApp.service.leaderboard.LeaderboardRankEngine.RankedMember;
+import com.connectJPA.LinguaVietnameseApp.service.leaderboard.LeaderboardTopView;
+import com.connectJPA.LinguaVietnameseApp.utils.NearCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -27,7 +32,12 @@ import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -40,25 +50,19 @@ public class LeaderboardEntryServiceImpl implements LeaderboardEntryService {
     private final LeaderboardEntryMapper leaderboardEntryMapper;
     private final UserRepository userRepository;
     private final LeaderboardRepository leaderboardRepository;
-    private final AdmirationRepository admirationRepository;
     private final PlatformTransactionManager transactionManager;
+    private final LeaderboardRankEngine rankEngine;
+    private final LeaderboardTopView topView;
+    private final LeaderboardEntryAssembler entryAssembler;
+
+    private final NearCache<String, Leaderboard> latestByTab = new NearCache<>(500, Duration.ofMinutes(5));
 
     private LeaderboardEntryResponse mapToResponseWithUserInfo(LeaderboardEntry entry) {
-        LeaderboardEntryResponse dto = leaderboardEntryMapper.toResponse(entry);
-        User u = entry.getUser();
-        if (u != null) {
-            dto.setAvatarUrl(u.getAvatarUrl());
-            dto.setFullname(u.getFullname());
-            dto.setNickname(u.getNickname());
-            dto.setLevel(u.getLevel());
-            dto.setGender(u.getGender());
-            dto.setExp(u.getExp());
-            dto.setCountry(u.getCountry());
-            
-            long admireCount = admirationRepository.countByUserId(u.getUserId());
-            dto.setAdmire((int) admireCount);
-        }
-        return dto;
+        return entryAssembler.assemble(entry);
+    }
+
+    private Page<LeaderboardEntryResponse> mapPageWithUserInfo(Page<LeaderboardEntry> entries) {
+        return new PageImpl<>(entryAssembler.assembleAll(entries.getContent()), entries.getPageable(), entries.getTotalElements());
     }
 
     @Override
@@ -71,6 +75,13 @@ public class LeaderboardEntryServiceImpl implements LeaderboardEntryService {
                     .orElseThrow(() -> new AppException(ErrorCode.LEADERBOARD_NOT_FOUND));
 
             String tab = leaderboard.getTab();
+            if (LeaderboardRankEngine.isGlobal(tab) || pageable.getSort().isUnsorted()) {
+                Optional<Page<LeaderboardEntryResponse>> top = topPage(leaderboardUuid, pageable);
+                if (top.isPresent()) return top.get();
+                Optional<Page<LeaderboardEntryResponse>> ranked = rankedPage(leaderboardUuid, pageable);
+                if (ranked.isPresent()) return ranked.get();
+            }
+
             Page<LeaderboardEntry> entries;
 
             if ("global".equalsIgnoreCase(tab)) {
@@ -83,7 +94,7 @@ public class LeaderboardEntryServiceImpl implements LeaderboardEntryService {
                 entries = leaderboardEntryRepository.findByLeaderboardIdAndIsDeletedFalse(leaderboardUuid, effectivePageable);
             }
 
-            return entries.map(this::mapToResponseWithUserInfo);
+            return mapPageWithUserInfo(entries);
         } catch (AppException e) {
             throw e;
         } catch (Exception e) {
@@ -92,6 +103,49 @@ public class LeaderboardEntryServiceImpl implements LeaderboardEntryService {
         }
     }
 
+    private Optional<Page<LeaderboardEntryResponse>> topPage(UUID leaderboardId, Pageable pageable) {
+        Optional<List<LeaderboardEntryResponse>> rows = topView.top(leaderboardId, pageable.getOffset(), pageable.getPageSize());
+        if (rows.isEmpty()) return Optional.empty();
+        return rankEngine.size(leaderboardId)
+                .map(total -> new PageImpl<>(rows.get(), PageRequest.of(pageable.getPageNumber(), pageable.getPageSize()), total));
+    }
+
+    private Optional<Page<LeaderboardEntryResponse>> rankedPage(UUID leaderboardId, Pageable pageable) {
+        Optional<Long> total = rankEngine.size(leaderboardId);
+        if (total.isEmpty()) return Optional.empty();
+        return rankedEntries(leaderboardId, pageable.getOffset(), pageable.getPageSize())
+                .map(content -> new PageImpl<>(content, PageRequest.of(pageable.getPageNumber(), pageable.getPageSize()), total.get()));
+    }
+
+    private Optional<List<LeaderboardEntryResponse>> rankedEntries(UUID leaderboardId, long offset, int count) {
+        Optional<List<RankedMember>> members = rankEngine.range(leaderboardId, offset, count);
+        if (members.isEmpty()) return Optional.empty();
+        if (members.get().isEmpty()) return Optional.of(List.of());
+
+        Map<UUID, LeaderboardEntry> entries = leaderboardEntryRepository.findByLeaderboardIdAndUserIds(leaderboardId,
+                        members.get().stream().map(RankedMember::userId).toList())
+                .stream()
+                .collect(Collectors.toMap(entry -> entry.getLeaderboardEntryId().getUserId(), entry -> entry));
+        List<LeaderboardEntry> ordered = new ArrayList<>();
+        List<RankedMember> found = new ArrayList<>();
+        for (RankedMember member : members.get()) {
+            LeaderboardEntry entry = entries.get(member.userId());
+            if (entry == null) continue;
+            ordered.add(entry);
+            found.add(member);
+        }
+        List<LeaderboardEntryResponse> responses = entryAssembler.assembleAll(ordered);
+        for (int i = 0; i < responses.size(); i++) {
+            responses.get(i).setRank((int) found.get(i).rank());
+        }
+        return Optional.of(responses);
+    }
+
+    private void indexAfterCommit(LeaderboardEntry entry) {
+        User user = entry.getUser();
+        rankEngine.recordAfterCommit(entry.getLeaderboard(), user.getUserId(), entry.getScore(), user.getLevel(), user.getExp());
+    }
+
     @Override
     public LeaderboardEntryResponse getCurrentUserEntryWithRank(UUID leaderboardId, UUID userId) {
         try {
@@ -99,9 +153,12 @@ public class LeaderboardEntryServiceImpl implements LeaderboardEntryService {
             LeaderboardEntryResponse response = mapToResponseWithUserInfo(entry);
 
             Leaderboard leaderboard = entry.getLeaderboard();
-            Integer rank = "global".equalsIgnoreCase(leaderboard.getTab())
-                ? leaderboardEntryRepository.calculateRankByLevelAndExp(leaderboardId, entry.getUser().getLevel(), entry.getUser().getExp())
-                : leaderboardEntryRepository.calculateRankByScore(leaderboardId, entry.getScore());
+            Integer rank = rankEngine.rank(leaderboardId, userId)
+                .filter(r -> r > 0)
+                .map(Long::intValue)
+                .orElseGet(() -> "global".equalsIgnoreCase(leaderboard.getTab())
+                    ? leaderboardEntryRepository.calculateRankByLevelAndExp(leaderboardId, entry.getUser().getLevel(), entry.getUser().getExp())
+                    : leaderboardEntryRepository.calculateRankByScore(leaderboardId, entry.getScore()));
 
             response.setRank(rank != null ? rank : 0);
             return response;
@@ -139,7 +196,9 @@ public class LeaderboardEntryServiceImpl implements LeaderboardEntryService {
                         .isDeleted(false)
                         .build();
 
-                return leaderboardEntryRepository.save(newEntry);
+                LeaderboardEntry saved = leaderboardEntryRepository.save(newEntry);
+                indexAfterCommit(saved);
+                return saved;
             });
         } catch (Exception e) {
             return leaderboardEntryRepository.findByLeaderboardIdAndUserIdAndIsDeletedFalse(leaderboardId, userId)
@@ -174,6 +233,7 @@ public class LeaderboardEntryServiceImpl implements LeaderboardEntryService {
                 .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_FOUND)));
 
         entry = leaderboardEntryRepository.save(entry);
+        indexAfterCommit(entry);
         return mapToResponseWithUserInfo(entry);
     }
 
@@ -185,6 +245,7 @@ public class LeaderboardEntryServiceImpl implements LeaderboardEntryService {
 
         leaderboardEntryMapper.updateEntityFromRequest(request, entry);
         entry = leaderboardEntryRepository.save(entry);
+        indexAfterCommit(entry);
         return mapToResponseWithUserInfo(entry);
     }
 
@@ -195,15 +256,18 @@ public class LeaderboardEntryServiceImpl implements LeaderboardEntryService {
                 .orElseThrow(() -> new AppException(ErrorCode.LEADERBOARD_ENTRY_NOT_FOUND));
 
         leaderboardEntryRepository.softDeleteByLeaderboardIdAndUserId(leaderboardId, userId);
+        rankEngine.removeAfterCommit(leaderboardId, userId);
     }
 
     @Override
     public List<LeaderboardEntryResponse> getTop3LeaderboardEntries(UUID leaderboardId) {
+        Optional<List<LeaderboardEntryResponse>> top = topView.top(leaderboardId, 0, 3);
+        if (top.isPresent()) return top.get();
+        Optional<List<LeaderboardEntryResponse>> ranked = rankedEntries(leaderboardId, 0, 3);
+        if (ranked.isPresent()) return ranked.get();
+
         Pageable pageable = PageRequest.of(0, 3);
-        return leaderboardEntryRepository.findTop3ByLeaderboardIdOrderByUserLevelDesc(leaderboardId, pageable)
-                .stream()
-                .map(this::mapToResponseWithUserInfo)
-                .collect(Collectors.toList());
+        return entryAssembler.assembleAll(leaderboardEntryRepository.findTop3ByLeaderboardIdOrderByUserLevelDesc(leaderboardId, pageable));
     }
 
     @Override
@@ -216,14 +280,48 @@ public class LeaderboardEntryServiceImpl implements LeaderboardEntryService {
 
     @Override
     public Integer getRankForUserByTab(String tab, String type, UUID userId) {
+        Leaderboard latest = latestByTab(tab);
+        if (latest == null) return null;
+        Optional<Long> rank = rankEngine.rank(latest.getLeaderboardId(), userId);
+        if (rank.isPresent()) return rank.get() > 0 ? rank.get().intValue() : null;
         return leaderboardEntryRepository.findRankByUserAndTab(userId, tab);
     }
 
+    @Override
+    public Map<UUID, Integer> getRanksForUsersByTab(String tab, String type, List<UUID> userIds) {
+        Map<UUID, Integer> result = new HashMap<>();
+        Leaderboard latest = latestByTab(tab);
+        if (latest == null || userIds.isEmpty()) return result;
+        Optional<Map<UUID, Long>> ranks = rankEngine.rankAll(latest.getLeaderboardId(), userIds);
+        if (ranks.isPresent()) {
+            ranks.get().forEach((userId, rank) -> {
+                if (rank > 0) result.put(userId, rank.intValue());
+            });
+            return result;
+        }
+        // Only while the sorted set is unavailable; the SQL rank is a COUNT per user
+        for (UUID userId : userIds) {
+            Integer rank = leaderboardEntryRepository.findRankByUserAndTab(userId, tab);
+            if (rank != null) result.put(userId, rank);
+        }
+        return result;
+    }
+
+    private Leaderboard latestByTab(String tab) {
+        Leaderboard latest = latestByTab.getIfPresent(tab);
+        if (latest == null) {
+            latest = leaderboardRepository.findMostRecentByTab(tab).orElse(null);
+            if (latest != null) latestByTab.put(tab, latest);
+        }
+        return latest;
+    }
+
     @Override
     @Transactional
     public void updateScore(UUID leaderboardId, UUID userId, double score) {
         LeaderboardEntry entry = ensureEntryExists(userId, leaderboardId);
         entry.setScore((int) score);
-        leaderboardEntryRepository.save(entry);
+        entry = leaderboardEntryRepository.save(entry);
+        indexAfterCommit(entry);
     }
 }
\ No newline at end of file
@@ -11,10 +11,10 @@ import com.connectJPA.LinguaVietnameseApp.dto.response.WritingResponseBody;
 import com.connectJPA.LinguaVietnameseApp.entity.*;
 import com.connectJPA.LinguaVietnameseApp.entity.id.CourseLessonId;
 import com.connectJPA.LinguaVietnameseApp.entity.id.CourseVersionLessonId;
-import com.connectJPA.LinguaVietnameseApp.entity.id.LeaderboardEntryId;
 import com.connectJPA.LinguaVietnameseApp.entity.id.LessonProgressId;
 import com.connectJPA.LinguaVietnameseApp.entity.id.LessonProgressWrongItemsId;
 import com.connectJPA.LinguaVietnameseApp.enums.*;
+import com.connectJPA.LinguaVietnameseApp.event.LeaderboardProgressEvent;
 import com.connectJPA.LinguaVietnameseApp.exception.AppException;
 import com.connectJPA.LinguaVietnameseApp.exception.ErrorCode;
 import com.connectJPA.LinguaVietnameseApp.grpc.GrpcClientService;
@@ -32,6 +32,7 @@ import jakarta.persistence.criteria.Predicate;
 import learning.QuizGenerationResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -70,8 +71,7 @@ public class LessonServiceImpl implements LessonService {
     private final GrpcClientService grpcClientService;
     private final QuizQuestionMapper quizQuestionMapper;
     private final CourseVersionEnrollmentService courseEnrollmentService;
-    private final LeaderboardRepository leaderboardRepository;
-    private final LeaderboardEntryRepository leaderboardEntryRepository;
+    private final ApplicationEventPublisher eventPublisher;
     private final DailyChallengeService dailyChallengeService;
     private final BadgeService badgeService;
     private final PlatformTransactionManager transactionManager;
@@ -544,7 +544,8 @@ public class LessonServiceImpl implements LessonService {
                user.setCoins(user.getCoins() + coinsEarned); 
             }
             userRepository.save(user);
-            syncLeaderboardData(user, percent >= 50 && !alreadyPassed ? expEarned : 0);
+            eventPublisher.publishEvent(new LeaderboardProgressEvent(user.getUserId(), percent >= 50 && !alreadyPassed ? expEarned : 0,
+                    user.getLevel(), user.getExp(), user.getCoins()));
         }
 
         runIsolatedSideEffects(userId, lessonId, percent, lesson.getSkillTypes(), durationSeconds > 0 ? durationSeconds : lesson.getDurationSeconds());
@@ -596,53 +597,6 @@ public class LessonServiceImpl implements LessonService {
         }
     }
     
-    private void syncLeaderboardData(User user, int expEarned) {
-        TransactionTemplate template = new TransactionTemplate(transactionManager);
-        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
-        
-        try {
-            template.execute(status -> {
-                try {
-                    List<Leaderboard> allLeaderboards = leaderboardRepository.findAllByIsDeletedFalse();
-                    for (Leaderboard lb : allLeaderboards) {
-                        LeaderboardEntry entry = leaderboardEntryRepository.findByLeaderboardIdAndUserIdAndIsDeletedFalse(lb.getLeaderboardId(), user.getUserId())
-                            .orElseGet(() -> {
-                                LeaderboardEntry newEntry = new LeaderboardEntry();
-                                newEntry.setLeaderboardEntryId(new LeaderboardEntryId(lb.getLeaderboardId(), user.getUserId()));
-                                newEntry.setLeaderboard(lb);
-                                newEntry.setUser(user);
-                                newEntry.setScore(0);
-                                newEntry.setDeleted(false);
-                                return newEntry;
-                            });
-
-                        boolean isUpdated = false;
-                        if ("global".equalsIgnoreCase(lb.getTab()) || "country".equalsIgnoreCase(lb.getTab())) {
-                            entry.setExp(user.getExp()); 
-                            entry.setLevel(user.getLevel());
-                            entry.setScore(entry.getScore() + expEarned); 
-                            isUpdated = true;
-                        }
-                        else if ("coins".equalsIgnoreCase(lb.getTab())) {
-                            entry.setScore(user.getCoins()); 
-                            isUpdated = true;
-                        }
-
-                        if (isUpdated) {
-                            leaderboardEntryRepository.save(entry);
-                        }
-                    }
-                } catch (Exception e) {
-                    log.error("Failed to sync leaderboard for user {}: {}", user.getUserId(), e.getMessage());
-                    status.setRollbackOnly();
-                }
-                return null;
-            });
-        } catch (Exception e) {
-             log.warn("Leaderboard sync failed silently: {}", e.getMessage());
-        }
-    }
-
     private ChallengeType mapSkillToChallengeType(SkillType skill) {
         if (skill == null) return null;
         return switch (skill) {
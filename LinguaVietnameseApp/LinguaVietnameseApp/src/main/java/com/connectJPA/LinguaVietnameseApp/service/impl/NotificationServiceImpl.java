@@ -1,31 +1,32 @@
 package com.connectJPA.LinguaVietnameseApp.service.impl;
 
 import com.connectJPA.LinguaVietnameseApp.dto.request.NotificationRequest;
+import com.connectJPA.LinguaVietnameseApp.dto.response.CursorPageResponse;
 import com.connectJPA.LinguaVietnameseApp.dto.response.NotificationResponse;
 import com.connectJPA.LinguaVietnameseApp.entity.Notification;
 import com.connectJPA.LinguaVietnameseApp.entity.User;
-import com.connectJPA.LinguaVietnameseApp.entity.UserFcmToken;
-import com.connectJPA.LinguaVietnameseApp.entity.UserSettings;
+import com.connectJPA.LinguaVietnameseApp.enums.EmailTemplate;
 import com.connectJPA.LinguaVietnameseApp.exception.AppException;
 import com.connectJPA.LinguaVietnameseApp.exception.ErrorCode;
 import com.connectJPA.LinguaVietnameseApp.exception.SystemException;
 import com.connectJPA.LinguaVietnameseApp.mapper.NotificationMapper;
 import com.connectJPA.LinguaVietnameseApp.repository.jpa.NotificationRepository;
-import com.connectJPA.LinguaVietnameseApp.repository.jpa.UserFcmTokenRepository;
 import com.connectJPA.LinguaVietnameseApp.repository.jpa.UserRepository;
-import com.connectJPA.LinguaVietnameseApp.repository.jpa.UserSettingsRepository;
-import com.connectJPA.LinguaVietnameseApp.service.EmailService;
 import com.connectJPA.LinguaVietnameseApp.service.NotificationService;
-import com.google.firebase.messaging.*;
-import com.google.gson.Gson;
+import com.connectJPA.LinguaVietnameseApp.service.notification.FanOutAudience;
+import com.connectJPA.LinguaVietnameseApp.service.notification.FanOutTemplate;
+import com.connectJPA.LinguaVietnameseApp.service.notification.NotificationFanOut;
+import com.connectJPA.LinguaVietnameseApp.service.notification.NotificationOutboxWriter;
+import com.connectJPA.LinguaVietnameseApp.service.notification.NotificationUnreadCounter;
+import com.connectJPA.LinguaVietnameseApp.utils.KeysetCursor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.OffsetDateTime;
@@ -37,15 +38,12 @@ import java.util.*;
 public class NotificationServiceImpl implements NotificationService {
     private final NotificationRepository notificationRepository;
     private final NotificationMapper notificationMapper;
-    private final EmailService emailService;
-    private final FirebaseMessaging firebaseMessaging;
-    private final UserFcmTokenRepository userFcmTokenRepository;
     private final UserRepository userRepository;
-    private final UserSettingsRepository userSettingsRepository;
-    private final Gson gson = new Gson();
+    private final NotificationOutboxWriter outboxWriter;
+    private final NotificationUnreadCounter unreadCounter;
+    private final NotificationFanOut notificationFanOut;
 
-    private static final String LANG_VI = "vi";
-    private static final String LANG_ZH = "zh";
+    private static final int MAX_FEED_PAGE_SIZE = 100;
 
     @Override
     public Page<Notification> searchNotifications(String keyword, int page, int size, Map<String, Object> filters) {
@@ -76,12 +74,6 @@ public class NotificationServiceImpl implements NotificationService {
                 .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_FOUND));
         return user.getNativeLanguageCode() != null ? Locale.forLanguageTag(user.getNativeLanguageCode()) : Locale.getDefault();
     }
-    
-    private String getUserLanguageCode(UUID userId) {
-        return userRepository.findByUserIdAndIsDeletedFalse(userId)
-                .map(User::getNativeLanguageCode)
-                .orElse("en");
-    }
 
     @Override
     public Page<NotificationResponse> getAllNotifications(UUID userId, String title, String type, Pageable pageable) {
@@ -117,6 +109,7 @@ public class NotificationServiceImpl implements NotificationService {
             if (!notification.isRead()) {
                 notification.setRead(true);
                 notificationRepository.save(notification);
+                unreadCounter.adjustAfterCommit(notification.getUserId(), -1);
             }
             return notificationMapper.toResponse(notification);
         } catch (Exception e) {
@@ -136,6 +129,7 @@ public class NotificationServiceImpl implements NotificationService {
             notification.setCreatedAt(OffsetDateTime.now());
             notification.setRead(false);
             notification = notificationRepository.save(notification);
+            unreadCounter.adjustAfterCommit(notification.getUserId(), 1);
             return notificationMapper.toResponse(notification);
         } catch (Exception e) {
             log.error("Error while creating notification: {}", e.getMessage());
@@ -143,106 +137,23 @@ public class NotificationServiceImpl implements NotificationService {
         }
     }
 
+    // Joins the caller's transaction: the notification row and its outbox entry commit with the
+    // change that caused them, and nothing is pushed if that change rolls back
     @Override
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Transactional
     public void createPushNotification(NotificationRequest request) {
-        try {
-            Notification notification = notificationMapper.toEntity(request);
-            notification.setCreatedAt(OffsetDateTime.now());
-            notification.setRead(false);
-            notificationRepository.saveAndFlush(notification);
-        } catch (Exception e) {
-            log.error("Failed to save notification to DB due to: {}. Proceeding to send FCM...", e.getMessage());
-        }
-        
-        sendFcmToUser(request);
-    }
-
-    private void sendFcmToUser(NotificationRequest request) {
-        try {
-            List<UserFcmToken> tokens = userFcmTokenRepository.findByUserIdAndIsDeletedFalse(request.getUserId());
-            if (tokens.isEmpty()) return;
-
-            boolean isSoundEnabled = userSettingsRepository.findById(request.getUserId())
-                    .map(UserSettings::isSoundEnabled)
-                    .orElse(true);
-            String soundValue = isSoundEnabled ? "default" : null;
-            
-            String userLang = getUserLanguageCode(request.getUserId());
-
-            String displayTitle = request.getTitle();
-            String displayBody = request.getContent();
-
-            boolean isEncryptedMessage = request.getType() != null && request.getType().contains("CHAT"); 
-            
-            if (isEncryptedMessage) {
-                if (LANG_VI.equalsIgnoreCase(userLang)) {
-                    displayBody = "Bạn có tin nhắn mới (Được mã hoá)";
-                } else if (LANG_ZH.equalsIgnoreCase(userLang)) {
-                    displayBody = "您收到一条加密消息";
-                } else {
-                    displayBody = "You have a new encrypted message";
-                }
-            }
-
-            AndroidConfig androidConfig = AndroidConfig.builder()
-                    .setPriority(AndroidConfig.Priority.HIGH)
-                    .setTtl(3600 * 1000)
-                    .setNotification(AndroidNotification.builder()
-                            .setSound(soundValue)
-                            .setChannelId("default_channel_id")
-                            .build())
-                    .build();
+        Notification notification = notificationMapper.toEntity(request);
+        notification.setCreatedAt(OffsetDateTime.now());
+        notification.setRead(false);
+        notification = notificationRepository.save(notification);
+        unreadCounter.adjustAfterCommit(notification.getUserId(), 1);
 
-            ApnsConfig apnsConfig = ApnsConfig.builder()
-                    .setAps(Aps.builder()
-                            .setSound(soundValue)
-                            .setContentAvailable(true)
-                            .setMutableContent(true)
-                            .build())
-                    .build();
-
-            Map<String, String> dataPayload = new HashMap<>();
-            dataPayload.put("type", request.getType() != null ? request.getType() : "DEFAULT");
-            dataPayload.put("notificationId", request.getId() != null ? request.getId().toString() : "");
-            
-            if (request.getPayload() != null && !request.getPayload().isEmpty()) {
-                try {
-                    Map<String, Object> rawMap = gson.fromJson(request.getPayload(), Map.class);
-                    for (Map.Entry<String, Object> entry : rawMap.entrySet()) {
-                        if (entry.getValue() != null) {
-                            dataPayload.put(entry.getKey(), entry.getValue().toString());
-                        }
-                    }
-                } catch (Exception ex) {
-                    log.warn("Failed to parse JSON payload for push, sending as raw string");
-                    dataPayload.put("rawPayload", request.getPayload());
-                }
-            }
+        outboxWriter.enqueuePush(request, notification.getNotificationId());
+    }
 
-            for (UserFcmToken token : tokens) {
-                try {
-                    Message.Builder messageBuilder = Message.builder()
-                            .setToken(token.getFcmToken())
-                            .setNotification(com.google.firebase.messaging.Notification.builder()
-                                    .setTitle(displayTitle)
-                                    .setBody(displayBody)
-                                    .build())
-                            .setAndroidConfig(androidConfig)
-                            .setApnsConfig(apnsConfig)
-                            .putAllData(dataPayload);
-
-                    firebaseMessaging.send(messageBuilder.build());
-                    log.info("Sent push notification to user {}", request.getUserId());
-
-                } catch (FirebaseMessagingException e) {
-                    log.warn("FCM Error for token ending in ...{}: {}",
-                            token.getFcmToken().substring(Math.max(0, token.getFcmToken().length() - 5)), e.getMessage());
-                }
-            }
-        } catch (Exception e) {
-            log.error("General error in sendFcmToUser: {}", e.getMessage());
-        }
+    @Override
+    public void fanOut(FanOutAudience audience, FanOutTemplate template) {
+        notificationFanOut.fanOut(audience, template);
     }
 
     @Override
@@ -255,6 +166,7 @@ public class NotificationServiceImpl implements NotificationService {
             notificationMapper.updateEntityFromRequest(request, notification);
             notification.setUpdatedAt(OffsetDateTime.now());
             notification = notificationRepository.save(notification);
+            unreadCounter.evictAfterCommit(notification.getUserId());
             return notificationMapper.toResponse(notification);
         } catch (Exception e) {
             log.error("Error while updating notification ID {}: {}", id, e.getMessage());
@@ -270,6 +182,9 @@ public class NotificationServiceImpl implements NotificationService {
             Notification notification = notificationRepository.findByNotificationIdAndIsDeletedFalse(id)
                     .orElseThrow(() -> new AppException(ErrorCode.NOTIFICATION_NOT_FOUND));
             notificationRepository.softDeleteById(id);
+            if (!notification.isRead()) {
+                unreadCounter.adjustAfterCommit(notification.getUserId(), -1);
+            }
         } catch (Exception e) {
             log.error("Error while deleting notification ID {}: {}", id, e.getMessage());
             throw new SystemException(ErrorCode.UNCATEGORIZED_EXCEPTION);
@@ -290,19 +205,44 @@ public class NotificationServiceImpl implements NotificationService {
 
     @Override
     public long countUnreadNotifications(UUID userId) {
-        return notificationRepository.countByUserIdAndReadFalseAndIsDeletedFalse(userId);
+        return unreadCounter.get(userId);
+    }
+
+    @Override
+    public CursorPageResponse<NotificationResponse> getNotificationFeed(UUID userId, String cursor, int size) {
+        Pageable limit = PageRequest.of(0, Math.max(1, Math.min(size, MAX_FEED_PAGE_SIZE)));
+        Slice<Notification> slice;
+        if (cursor == null || cursor.isBlank()) {
+            slice = notificationRepository.findFeed(userId, limit);
+        } else {
+            KeysetCursor position = KeysetCursor.decode(cursor);
+            slice = notificationRepository.findFeedBefore(userId, position.at(), position.id(), limit);
+        }
+
+        String nextCursor = null;
+        if (slice.hasNext() && !slice.getContent().isEmpty()) {
+            Notification last = slice.getContent().get(slice.getContent().size() - 1);
+            nextCursor = new KeysetCursor(last.getCreatedAt(), last.getNotificationId()).encode();
+        }
+        return CursorPageResponse.<NotificationResponse>builder()
+                .content(slice.getContent().stream().map(notificationMapper::toResponse).toList())
+                .nextCursor(nextCursor)
+                .hasNext(nextCursor != null)
+                .build();
     }
 
     @Override
     @Transactional
     public void markAllAsRead(UUID userId) {
         notificationRepository.markAllAsReadByUserId(userId);
+        unreadCounter.resetAfterCommit(userId);
     }
 
     @Override
     @Transactional
     public void deleteAllNotifications(UUID userId) {
         notificationRepository.deleteAllByUserId(userId);
+        unreadCounter.resetAfterCommit(userId);
     }
 
     @Override
@@ -319,7 +259,7 @@ public class NotificationServiceImpl implements NotificationService {
                     .type("COURSE_PURCHASE")
                     .build();
             createNotification(request);
-            emailService.sendPurchaseCourseEmail(email, courseName, locale);
+            outboxWriter.enqueueEmail(EmailTemplate.PURCHASE_COURSE, email, locale, courseName);
         } catch (Exception e) {
             log.error("Error sending course purchase notification: {}", e.getMessage());
             throw new SystemException(ErrorCode.UNCATEGORIZED_EXCEPTION);
@@ -340,7 +280,7 @@ public class NotificationServiceImpl implements NotificationService {
                     .type("VOUCHER_REGISTRATION")
                     .build();
             createNotification(request);
-            emailService.sendVoucherRegistrationEmail(email, voucherCode, locale);
+            outboxWriter.enqueueEmail(EmailTemplate.VOUCHER_REGISTRATION, email, locale, voucherCode);
         } catch (Exception e) {
             log.error("Error sending voucher notification: {}", e.getMessage());
             throw new SystemException(ErrorCode.UNCATEGORIZED_EXCEPTION);
@@ -361,7 +301,7 @@ public class NotificationServiceImpl implements NotificationService {
                     .type("ACHIEVEMENT")
                     .build();
             createNotification(request);
-            emailService.sendAchievementEmail(email, title, message, locale);
+            outboxWriter.enqueueEmail(EmailTemplate.ACHIEVEMENT, email, locale, title, message);
         } catch (Exception e) {
             log.error("Error sending achievement notification: {}", e.getMessage());
             throw new SystemException(ErrorCode.UNCATEGORIZED_EXCEPTION);
@@ -382,7 +322,7 @@ public class NotificationServiceImpl implements NotificationService {
                     .type("DAILY_REMINDER")
                     .build();
             createNotification(request);
-            emailService.sendDailyStudyReminder(email, locale);
+            outboxWriter.enqueueEmail(EmailTemplate.DAILY_REMINDER, email, locale);
         } catch (Exception e) {
             log.error("Error sending daily reminder: {}", e.getMessage());
             throw new SystemException(ErrorCode.UNCATEGORIZED_EXCEPTION);
@@ -403,7 +343,7 @@ public class NotificationServiceImpl implements NotificationService {
                     .type("PASSWORD_RESET")
                     .build();
             createNotification(request);
-            emailService.sendPasswordResetEmail(email, resetLink, locale);
+            outboxWriter.enqueueEmail(EmailTemplate.PASSWORD_RESET, email, locale, resetLink);
         } catch (Exception e) {
             log.error("Error sending password reset notification: {}", e.getMessage());
             throw new SystemException(ErrorCode.UNCATEGORIZED_EXCEPTION);
@@ -424,7 +364,7 @@ public class NotificationServiceImpl implements NotificationService {
                     .type("ACCOUNT_VERIFICATION")
                     .build();
             createNotification(request);
-            emailService.sendVerifyAccountEmail(email, verifyLink, locale);
+            outboxWriter.enqueueEmail(EmailTemplate.VERIFY_ACCOUNT, email, locale, verifyLink);
         } catch (Exception e) {
             log.error("Error sending verify account notification: {}", e.getMessage());
             throw new SystemException(ErrorCode.UNCATEGORIZED_EXCEPTION);
@@ -445,7 +385,7 @@ public class NotificationServiceImpl implements NotificationService {
                     .type("INACTIVITY_WARNING")
                     .build();
             createNotification(request);
-            emailService.sendInactivityWarning(email, days, locale);
+            outboxWriter.enqueueEmail(EmailTemplate.INACTIVITY_WARNING, email, locale, days);
         } catch (Exception e) {
             log.error("Error sending inactivity warning: {}", e.getMessage());
             throw new SystemException(ErrorCode.UNCATEGORIZED_EXCEPTION);
@@ -466,7 +406,7 @@ public class NotificationServiceImpl implements NotificationService {
                     .type("STREAK_REWARD")
                     .build();
             createNotification(request);
-            emailService.sendStreakRewardEmail(email, streakDays, locale);
+            outboxWriter.enqueueEmail(EmailTemplate.STREAK_REWARD, email, locale, streakDays);
         } catch (Exception e) {
             log.error("Error sending streak reward: {}", e.getMessage());
             throw new SystemException(ErrorCode.UNCATEGORIZED_EXCEPTION);
@@ -484,6 +424,7 @@ public class NotificationServiceImpl implements NotificationService {
             if (!notification.isRead()) {
                 notification.setRead(true);
                 notificationRepository.save(notification);
+                unreadCounter.adjustAfterCommit(notification.getUserId(), -1);
             }
         } catch (Exception e) {
             log.error("Error marking as read: {}", e.getMessage());
@@ -6,7 +6,9 @@ import com.connectJPA.LinguaVietnameseApp.entity.Role;
 import com.connectJPA.LinguaVietnameseApp.entity.User;
 import com.connectJPA.LinguaVietnameseApp.entity.UserRole;
 import com.connectJPA.LinguaVietnameseApp.entity.id.UserRoleId;
+import com.connectJPA.LinguaVietnameseApp.enums.ProfileSection;
 import com.connectJPA.LinguaVietnameseApp.enums.RoleName;
+import com.connectJPA.LinguaVietnameseApp.event.ProfileSectionChangedEvent;
 import com.connectJPA.LinguaVietnameseApp.exception.AppException;
 import com.connectJPA.LinguaVietnameseApp.exception.ErrorCode;
 import com.connectJPA.LinguaVietnameseApp.exception.SystemException;
@@ -21,6 +23,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -34,6 +37,7 @@ import java.util.UUID;
 public class RoleServiceImpl implements RoleService {
     private final RoleRepository roleRepository;
     private final RoleMapper roleMapper;
+    private final ApplicationEventPublisher eventPublisher;
     @Autowired
     private UserRepository userRepository;
     @Autowired
@@ -159,6 +163,7 @@ public class RoleServiceImpl implements RoleService {
                     .role(role)
                     .build();
             userRoleRepository.save(userRole);
+            eventPublisher.publishEvent(new ProfileSectionChangedEvent(userId, ProfileSection.TEACHING));
             log.debug("Assigned role successfully.");
         }
     }
@@ -176,6 +181,7 @@ public class RoleServiceImpl implements RoleService {
                 .orElseThrow(() -> new AppException(ErrorCode.ROLE_NOT_FOUND));
 
         userRoleRepository.deleteByIdUserIdAndIdRoleId(user.getUserId(), role.getRoleId());
+        eventPublisher.publishEvent(new ProfileSectionChangedEvent(userId, ProfileSection.TEACHING));
     }
 
 
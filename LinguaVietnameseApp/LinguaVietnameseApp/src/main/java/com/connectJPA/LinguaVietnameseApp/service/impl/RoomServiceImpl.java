@@ -17,6 +17,7 @@ import com.connectJPA.LinguaVietnameseApp.enums.NotificationType;
 import com.connectJPA.LinguaVietnameseApp.enums.RoomPurpose;
 import com.connectJPA.LinguaVietnameseApp.enums.RoomRole;
 import com.connectJPA.LinguaVietnameseApp.enums.RoomType;
+import com.connectJPA.LinguaVietnameseApp.event.RoomMembershipChangedEvent;
 import com.connectJPA.LinguaVietnameseApp.exception.AppException;
 import com.connectJPA.LinguaVietnameseApp.exception.ErrorCode;
 import com.connectJPA.LinguaVietnameseApp.exception.SystemException;
@@ -29,11 +30,13 @@ import com.connectJPA.LinguaVietnameseApp.repository.jpa.RoomRepository;
 import com.connectJPA.LinguaVietnameseApp.repository.jpa.UserRepository;
 import com.connectJPA.LinguaVietnameseApp.service.NotificationService;
 import com.connectJPA.LinguaVietnameseApp.service.RoomService;
+import com.connectJPA.LinguaVietnameseApp.service.chat.ChatReadWatermarkService;
 import com.connectJPA.LinguaVietnameseApp.utils.AESUtils;
 import com.connectJPA.LinguaVietnameseApp.utils.UserStatusUtils;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -62,6 +65,25 @@ public class RoomServiceImpl implements RoomService {
     private final ChatMessageRepository chatMessageRepository;
     private final NotificationService notificationService;
     private final AESUtils aesUtils;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ChatReadWatermarkService readWatermarkService;
+
+    // is_read on messages is no longer maintained; read state comes from the members' watermarks.
+    // The viewer's own last message counts as read once another member has read up to it
+    private boolean isLastMessageRead(UUID roomId, ChatMessage lastMsg, UUID viewerId) {
+        if (viewerId == null) return true;
+        OffsetDateTime sentAt = lastMsg.getId().getSentAt();
+        if (viewerId.equals(lastMsg.getSenderId())) {
+            return readWatermarkService.getRoomWatermarks(roomId).entrySet().stream()
+                    .anyMatch(e -> !e.getKey().equals(viewerId) && !e.getValue().isBefore(sentAt));
+        }
+        OffsetDateTime lastReadAt = readWatermarkService.getLastReadAt(roomId, viewerId);
+        return lastReadAt != null && !lastReadAt.isBefore(sentAt);
+    }
+
+    private void membershipChanged(UUID roomId) {
+        eventPublisher.publishEvent(new RoomMembershipChangedEvent(roomId));
+    }
 
     private UUID getCurrentUserUUID() {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
@@ -108,7 +130,7 @@ public class RoomServiceImpl implements RoomService {
             response.setLastMessage(lastMsg.getContent());
             response.setLastMessageTime(lastMsg.getId().getSentAt());
             response.setLastMessageSenderId(lastMsg.getSenderId().toString());
-            response.setRead(lastMsg.isRead());
+            response.setRead(isLastMessageRead(room.getRoomId(), lastMsg, getCurrentUserUUID()));
             
             if (lastMsg.getMessageType() != null) {
                 response.setLastMessageType(lastMsg.getMessageType().name());
@@ -215,9 +237,7 @@ public class RoomServiceImpl implements RoomService {
                 response.setLastMessageSelfEphemeralKey(lastMsg.getSelfEphemeralKey());
                 response.setLastMessageSelfInitializationVector(lastMsg.getSelfInitializationVector());
                 
-                // === FIX IS HERE: Map the read status ===
-                response.setRead(lastMsg.isRead());
-                // ========================================
+                response.setRead(isLastMessageRead(room.getRoomId(), lastMsg, userId));
 
                 if (lastMsg.getMessageType() != null) {
                     response.setLastMessageType(lastMsg.getMessageType().name());
@@ -285,6 +305,7 @@ public class RoomServiceImpl implements RoomService {
                     .joinedAt(OffsetDateTime.now())
                     .build();
             roomMemberRepository.save(member);
+            membershipChanged(room.getRoomId());
         }
     }
 
@@ -307,6 +328,7 @@ public class RoomServiceImpl implements RoomService {
                     .joinedAt(OffsetDateTime.now())
                     .build();
             roomMemberRepository.save(member);
+            membershipChanged(room.getRoomId());
         }
     }
 
@@ -446,6 +468,7 @@ public class RoomServiceImpl implements RoomService {
                 member.setDeletedAt(null);
                 member.setJoinedAt(OffsetDateTime.now());
                 roomMemberRepository.save(member);
+                membershipChanged(room.getRoomId());
             }
         } else {
              User user = userRepository.findById(userId).orElseThrow(() -> new AppException(ErrorCode.USER_NOT_FOUND));
@@ -458,6 +481,7 @@ public class RoomServiceImpl implements RoomService {
                  .joinedAt(OffsetDateTime.now())
                  .build();
              roomMemberRepository.save(newMember);
+             membershipChanged(room.getRoomId());
         }
     }
 
@@ -474,6 +498,7 @@ public class RoomServiceImpl implements RoomService {
                 .orElseThrow(() -> new AppException(ErrorCode.NOT_ROOM_MEMBER));
 
         roomMemberRepository.softDeleteByIdRoomIdAndIdUserId(roomId, currentUserId);
+        membershipChanged(roomId);
 
         List<RoomMember> remainingMembers = roomMemberRepository.findAllByIdRoomIdAndIsDeletedFalse(roomId);
 
@@ -543,6 +568,7 @@ public class RoomServiceImpl implements RoomService {
             roomMemberRepository.save(member);
             sendInviteNotification(user.getUserId(), room);
         }
+        membershipChanged(roomId);
     }
 
     private void sendInviteNotification(UUID userId, Room room) {
@@ -785,6 +811,7 @@ public class RoomServiceImpl implements RoomService {
                 .joinedAt(OffsetDateTime.now())
                 .build();
         roomMemberRepository.save(member);
+        membershipChanged(room.getRoomId());
 
         return toRoomResponseLightweight(room);
     }
@@ -805,6 +832,7 @@ public class RoomServiceImpl implements RoomService {
                     .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_FOUND));
             roomMapper.updateEntityFromRequest(request, room);
             room = roomRepository.save(room);
+            membershipChanged(id);
 
             return toRoomResponseWithMembers(room);
         } catch (Exception e) {
@@ -826,6 +854,7 @@ public class RoomServiceImpl implements RoomService {
                 throw new AppException(ErrorCode.NOT_ROOM_CREATOR);
             }
             roomRepository.softDeleteByRoomId(id);
+            membershipChanged(id);
         } catch (Exception e) {
             log.error("Error while deleting room ID {}: {}", id, e.getMessage());
             throw new SystemException(ErrorCode.UNCATEGORIZED_EXCEPTION);
@@ -850,6 +879,7 @@ public class RoomServiceImpl implements RoomService {
                         .orElseThrow(() -> new AppException(ErrorCode.NOT_ROOM_MEMBER));
                 roomMemberRepository.softDeleteByIdRoomIdAndIdUserId(roomId, userId);
             }
+            membershipChanged(roomId);
         } catch (Exception e) {
             log.error("Error while removing members from room ID {}: {}", roomId, e.getMessage());
             throw new SystemException(ErrorCode.UNCATEGORIZED_EXCEPTION);
@@ -899,6 +929,7 @@ public class RoomServiceImpl implements RoomService {
                     .joinedAt(OffsetDateTime.now())
                     .build();
             roomMemberRepository.save(member);
+            membershipChanged(roomToJoin.getRoomId());
         }
 
         return toRoomResponseWithMembers(roomToJoin);
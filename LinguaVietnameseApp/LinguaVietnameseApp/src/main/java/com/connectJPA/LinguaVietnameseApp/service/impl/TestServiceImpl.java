@@ -6,6 +6,7 @@ import com.connectJPA.LinguaVietnameseApp.dto.response.TestResultResponse;
 import com.connectJPA.LinguaVietnameseApp.dto.response.TestSessionResponse;
 import com.connectJPA.LinguaVietnameseApp.entity.*;
 import com.connectJPA.LinguaVietnameseApp.enums.ProficiencyLevel;
+import com.connectJPA.LinguaVietnameseApp.event.LeaderboardProgressEvent;
 import com.connectJPA.LinguaVietnameseApp.exception.AppException;
 import com.connectJPA.LinguaVietnameseApp.exception.ErrorCode;
 import com.connectJPA.LinguaVietnameseApp.grpc.GrpcClientService;
@@ -15,6 +16,7 @@ import learning.QuizGenerationResponse;
 import learning.QuizQuestionProto;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -38,6 +40,7 @@ public class TestServiceImpl implements TestService {
     private final TestSessionRepository testSessionRepository;
     private final TestSessionQuestionRepository testQuestionRepository; // Bảng user làm bài
     private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public Page<TestConfigResponse> getAvailableTests(String languageCode, Pageable pageable) {
@@ -270,6 +273,7 @@ public class TestServiceImpl implements TestService {
              }
              user.setExp(user.getExp() + exp);
              userRepository.save(user);
+             eventPublisher.publishEvent(new LeaderboardProgressEvent(userId, exp, user.getLevel(), user.getExp(), user.getCoins()));
         }
     }
 
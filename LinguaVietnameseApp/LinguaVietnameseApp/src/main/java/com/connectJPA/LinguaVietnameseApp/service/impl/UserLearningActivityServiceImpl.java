@@ -5,12 +5,12 @@ import com.connectJPA.LinguaVietnameseApp.dto.request.NotificationRequest;
 import com.connectJPA.LinguaVietnameseApp.dto.request.UserLearningActivityRequest;
 import com.connectJPA.LinguaVietnameseApp.dto.response.*;
 import com.connectJPA.LinguaVietnameseApp.entity.*;
-import com.connectJPA.LinguaVietnameseApp.entity.id.LeaderboardEntryId;
 import com.connectJPA.LinguaVietnameseApp.enums.ActivityType;
 import com.connectJPA.LinguaVietnameseApp.enums.ChallengeType;
 import com.connectJPA.LinguaVietnameseApp.enums.DifficultyLevel;
 import com.connectJPA.LinguaVietnameseApp.enums.ProficiencyLevel;
 import com.connectJPA.LinguaVietnameseApp.enums.SkillType;
+import com.connectJPA.LinguaVietnameseApp.event.LeaderboardProgressEvent;
 import com.connectJPA.LinguaVietnameseApp.grpc.GrpcClientService;
 import com.connectJPA.LinguaVietnameseApp.mapper.UserLearningActivityMapper;
 import com.connectJPA.LinguaVietnameseApp.repository.jpa.*;
@@ -19,6 +19,7 @@ import com.connectJPA.LinguaVietnameseApp.service.NotificationService;
 import com.connectJPA.LinguaVietnameseApp.service.UserLearningActivityService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.redis.core.RedisTemplate;
@@ -49,8 +50,7 @@ public class UserLearningActivityServiceImpl implements UserLearningActivityServ
     private final GrpcClientService grpcClientService;
     private final CourseRepository courseRepository;
     private final NotificationService notificationService;
-    private final LeaderboardEntryRepository leaderboardEntryRepository;
-    private final LeaderboardRepository leaderboardRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     private static final String HISTORY_CACHE_KEY = "user:history:";
     private static final String ONLINE_TIME_KEY = "user:online_minutes:";
@@ -128,7 +128,8 @@ public class UserLearningActivityServiceImpl implements UserLearningActivityServ
             }
             userRepository.save(user);
 
-            syncLeaderboardData(user, expReward);
+            eventPublisher.publishEvent(new LeaderboardProgressEvent(user.getUserId(), expReward,
+                    user.getLevel(), user.getExp(), user.getCoins()));
         }
         
         redisTemplate.delete(HISTORY_CACHE_KEY + request.getUserId() + ":week");
@@ -159,49 +160,6 @@ public class UserLearningActivityServiceImpl implements UserLearningActivityServ
                 .build();
     }
 
-    private void syncLeaderboardData(User user, int expEarned) {
-        try {
-            List<Leaderboard> allLeaderboards = leaderboardRepository.findAllByIsDeletedFalse();
-            
-            for (Leaderboard lb : allLeaderboards) {
-                LeaderboardEntry entry = leaderboardEntryRepository.findByLeaderboardIdAndUserIdAndIsDeletedFalse(lb.getLeaderboardId(), user.getUserId())
-                    .orElseGet(() -> {
-                        LeaderboardEntry newEntry = new LeaderboardEntry();
-                        newEntry.setLeaderboardEntryId(new LeaderboardEntryId(lb.getLeaderboardId(), user.getUserId()));
-                        newEntry.setLeaderboard(lb);
-                        newEntry.setUser(user);
-                        newEntry.setScore(0);
-                        newEntry.setDeleted(false);
-                        return newEntry;
-                    });
-
-                boolean isUpdated = false;
-
-                if ("global".equalsIgnoreCase(lb.getTab())) {
-                    entry.setExp(user.getExp());
-                    entry.setLevel(user.getLevel());
-                    entry.setScore(entry.getScore() + expEarned); 
-                    isUpdated = true;
-                }
-                else if ("coins".equalsIgnoreCase(lb.getTab())) {
-                    entry.setScore(user.getCoins()); 
-                    isUpdated = true;
-                }
-                else if ("country".equalsIgnoreCase(lb.getTab())) {
-                      entry.setExp(user.getExp());
-                      entry.setScore(entry.getScore() + expEarned);
-                      isUpdated = true;
-                }
-
-                if (isUpdated) {
-                    leaderboardEntryRepository.save(entry);
-                }
-            }
-        } catch (Exception e) {
-            log.error("Failed to sync leaderboard for user {}: {}", user.getUserId(), e.getMessage());
-        }
-    }
-
     @Override
     @Transactional
     public UserLearningActivityResponse logUserActivity(UUID userId, ActivityType activityType, UUID relatedEntityId, Integer durationInSeconds, int expReward, String details, SkillType skillTypes) {
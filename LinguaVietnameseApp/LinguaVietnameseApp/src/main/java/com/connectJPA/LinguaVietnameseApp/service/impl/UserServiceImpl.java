@@ -8,6 +8,8 @@ import com.connectJPA.LinguaVietnameseApp.entity.id.UserCertificateId;
 import com.connectJPA.LinguaVietnameseApp.entity.id.UserInterestId;
 import com.connectJPA.LinguaVietnameseApp.entity.id.UserLanguageId;
 import com.connectJPA.LinguaVietnameseApp.enums.*;
+import com.connectJPA.LinguaVietnameseApp.event.LeaderboardProgressEvent;
+import com.connectJPA.LinguaVietnameseApp.event.UserProfileChangedEvent;
 import com.connectJPA.LinguaVietnameseApp.exception.AppException;
 import com.connectJPA.LinguaVietnameseApp.exception.ErrorCode;
 import com.connectJPA.LinguaVietnameseApp.exception.SystemException;
@@ -15,10 +17,16 @@ import com.connectJPA.LinguaVietnameseApp.mapper.Character3dMapper;
 import com.connectJPA.LinguaVietnameseApp.mapper.UserMapper;
 import com.connectJPA.LinguaVietnameseApp.repository.jpa.*;
 import com.connectJPA.LinguaVietnameseApp.service.*;
+import com.connectJPA.LinguaVietnameseApp.service.chat.PresenceService;
+import com.connectJPA.LinguaVietnameseApp.service.leaderboard.LeaderboardRankEngine;
+import com.connectJPA.LinguaVietnameseApp.service.notification.PushRecipientCache;
+import com.connectJPA.LinguaVietnameseApp.service.profile.AdmirationCounters;
+import com.connectJPA.LinguaVietnameseApp.service.profile.UserProfileAssembler;
 import com.connectJPA.LinguaVietnameseApp.utils.UserStatusUtils;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import lombok.RequiredArgsConstructor;
@@ -39,7 +47,6 @@ import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
 import java.time.Period;
 import java.time.format.DateTimeFormatter;
-import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -70,12 +77,10 @@ public class UserServiceImpl implements UserService {
     private final AuthenticationServiceImpl authenticationService;
     private final UserRoleRepository userRoleRepository;
     private final AdmirationRepository admirationRepository;
+    private final AdmirationCounters admirationCounters;
+    private final UserProfileAssembler userProfileAssembler;
     private final BadgeService badgeService;
-    private final FriendshipService friendshipService;
-    private final CourseService courseService;
     private final CoupleService coupleService;
-    private final EventService eventService;
-    private final DatingInviteRepository datingInviteRepository;
     private final StorageService storageService;
     private final WalletRepository walletRepository;
     private final UserFcmTokenRepository userFcmTokenRepository;
@@ -88,9 +93,10 @@ public class UserServiceImpl implements UserService {
     private final LessonProgressRepository lessonProgressRepository;
     private final LessonRepository lessonRepository;
     
-    // Injected Repositories for detailed logic
-    private final CoupleRepository coupleRepository;
-    private final FriendshipRepository friendshipRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PresenceService presenceService;
+    private final PushRecipientCache pushRecipientCache;
+    private final LeaderboardRankEngine leaderboardRankEngine;
 
     // INJECT DailyChallengeService (Lazy to avoid circular dependency)
     @Lazy
@@ -98,8 +104,7 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public long countOnlineUsers() {
-        OffsetDateTime threshold = OffsetDateTime.now().minusMinutes(5);
-        return userRepository.countOnlineUsers(threshold);
+        return presenceService.onlineCount();
     }
     
     @Override
@@ -122,9 +127,7 @@ public class UserServiceImpl implements UserService {
             
             Page<User> users = userRepository.searchAdvanced(searchKeyword, country, gender, ageRange, pageable);
 
-            List<UserProfileResponse> profileResponses = users.stream()
-                    .map(user -> getUserProfile(viewerId, user.getUserId()))
-                    .collect(Collectors.toList());
+            List<UserProfileResponse> profileResponses = userProfileAssembler.assembleAll(viewerId, users.getContent());
             
             return new PageImpl<>(profileResponses, pageable, users.getTotalElements());
         } catch (Exception e) {
@@ -142,6 +145,7 @@ public class UserServiceImpl implements UserService {
         
         user.setVipExpirationDate(OffsetDateTime.now().plusDays(14));
         userRepository.saveAndFlush(user);
+        eventPublisher.publishEvent(new UserProfileChangedEvent(userId));
         notificationService.sendVipSuccessNotification(userId, false, "14-Day Trial");
     }
 
@@ -164,6 +168,7 @@ public class UserServiceImpl implements UserService {
         }
         
         userRepository.saveAndFlush(user);
+        eventPublisher.publishEvent(new UserProfileChangedEvent(userId));
         notificationService.sendVipSuccessNotification(userId, true, planType);
     }
 
@@ -369,6 +374,7 @@ public class UserServiceImpl implements UserService {
                     .user(user)
                     .leaderboard(lb)
                     .build());
+            leaderboardRankEngine.recordAfterCommit(lb, user.getUserId(), 0, user.getLevel(), user.getExp());
             
             userLearningActivityRepository.saveAndFlush(UserLearningActivity.builder()
                     .userId(user.getUserId())
@@ -409,6 +415,7 @@ public class UserServiceImpl implements UserService {
             }
             User user = updateBasicUserInfo(id, request);
             final UUID userId = user.getUserId();
+            eventPublisher.publishEvent(new UserProfileChangedEvent(userId));
             if (request.getGoalIds() != null) {
                 updateUserGoals(userId, request.getGoalIds());
             }
@@ -459,11 +466,17 @@ public class UserServiceImpl implements UserService {
         if (request.getCountry() != null) user.setCountry(request.getCountry());
         if (request.getNativeLanguageCode() != null) user.setNativeLanguageCode(request.getNativeLanguageCode());
         if (request.getProficiency() != null) user.setProficiency(request.getProficiency());
+        boolean levelChanged = request.getLevel() != null && request.getLevel() != user.getLevel();
         if (request.getLevel() != null) user.setLevel(request.getLevel());
         if (request.getStreak() != null) user.setStreak(request.getStreak());
         if (request.getGender() != null) user.setGender(request.getGender());
         
-        return userRepository.saveAndFlush(user);
+        User saved = userRepository.saveAndFlush(user);
+        if (levelChanged) {
+            eventPublisher.publishEvent(new LeaderboardProgressEvent(saved.getUserId(), 0,
+                    saved.getLevel(), saved.getExp(), saved.getCoins()));
+        }
+        return saved;
     }
 
     private void calculateAndSetAgeRange(User user) {
@@ -594,238 +607,12 @@ public class UserServiceImpl implements UserService {
         entityManager.clear();
     }
 
-    @Transactional(readOnly = true)
     @Override
     public UserProfileResponse getUserProfile(UUID viewerId, UUID targetId) {
         if (targetId == null) throw new AppException(ErrorCode.INVALID_KEY);
         User target = userRepository.findByUserIdAndIsDeletedFalse(targetId)
                 .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_FOUND));
-        // Sử dụng MapStruct để map các trường cơ bản
-        UserProfileResponse resp = userMapper.toProfileResponse(target); 
-
-        // Các trường logic và aggregate cần xử lý thủ công
-        // Thay vì sử dụng builder lại, ta dùng response đã map ở trên
-        
-        List<String> languages = new ArrayList<>();
-        try {
-            languages = userLanguageRepository.findLanguageCodesByUserId(targetId);
-        } catch (Exception e) {
-            log.warn("Failed to fetch languages for user profile {}: {}", targetId, e.getMessage());
-        }
-        resp.setLanguages(languages);
-        
-        // --- Calculate Age (already done in mapper if dayOfBirth exists) ---
-        
-        try {
-            resp.setAllowStrangerChat(true); 
-        } catch (Exception e) {
-            resp.setAllowStrangerChat(true);
-        }
-        
-        if (target.getCountry() != null) {
-            resp.setFlag(target.getCountry().name());
-        }
-        try {
-            if (target.getCharacter3dId() != null) {
-                Character3dResponse ch = character3dMapper.toResponse(
-                        character3dRepository.findByCharacter3dIdAndIsDeletedFalse(target.getCharacter3dId())
-                                .orElse(null));
-                resp.setCharacter3d(ch);
-            }
-        } catch (Exception e) {
-            log.debug("character3d mapping failed for user {}: {}", targetId, e.getMessage());
-        }
-        try {
-            resp.setStats(this.getUserStats(targetId));
-        } catch (Exception e) {
-            log.debug("getUserStats failed for {}: {}", targetId, e.getMessage());
-        }
-        try {
-            if (badgeService != null) {
-                resp.setBadges(badgeService.getBadgesForUser(targetId));
-            }
-        } catch (Exception e) {
-            log.debug("getBadgesForUser failed: {}", e.getMessage());
-        }
-        boolean isFriend = false;
-        
-        FriendRequestStatusResponse friendReqStatus = FriendRequestStatusResponse.builder()
-                .hasSentRequest(false)
-                .hasReceivedRequest(false)
-                .build();
-        
-        boolean canSendFriendRequest = true;
-        boolean canUnfriend = false;
-        boolean canBlock = false;
-        
-        if (viewerId != null) {
-            try {
-                isFriend = friendshipService.isFriends(viewerId, targetId);
-                friendReqStatus = friendshipService.getFriendRequestStatus(viewerId, targetId);
-                canUnfriend = isFriend;
-                canBlock = true;
-                
-                canSendFriendRequest = !isFriend && (friendReqStatus == null || !friendReqStatus.isHasSentRequest());
-                
-                if (isFriend) {
-                    Optional<Friendship> friendshipOpt = friendshipRepository.findByIdRequesterIdAndIdReceiverIdAndIsDeletedFalse(viewerId, targetId)
-                            .or(() -> friendshipRepository.findByIdRequesterIdAndIdReceiverIdAndIsDeletedFalse(targetId, viewerId));
-                    
-                    if (friendshipOpt.isPresent()) {
-                        Friendship f = friendshipOpt.get();
-                        OffsetDateTime startDate = f.getUpdatedAt(); 
-                        if (startDate == null) startDate = f.getCreatedAt();
-                        
-                        long days = ChronoUnit.DAYS.between(startDate.toLocalDate(), LocalDate.now());
-                        resp.setFriendshipDurationDays(days);
-                    }
-                }
-
-            } catch (Exception e) {
-                log.debug("friendship check failed: {}", e.getMessage());
-            }
-        } else {
-            canSendFriendRequest = false;
-        }
-        resp.setFriend(isFriend);
-        resp.setFriendRequestStatus(friendReqStatus);
-        resp.setCanSendFriendRequest(canSendFriendRequest);
-        resp.setCanUnfriend(canUnfriend);
-        resp.setCanBlock(canBlock);
-
-        long admirationCount = admirationRepository.countByUserId(targetId);
-        boolean hasAdmired = false;
-        if (viewerId != null) {
-            hasAdmired = admirationRepository.existsByUserIdAndSenderId(targetId, viewerId);
-        }
-        
-        // FIXED: Chuyển admirationCount về Long
-        resp.setAdmirationCount(admirationCount);
-        resp.setHasAdmired(hasAdmired);
-
-        boolean isTeacher = false;
-        List<CourseSummaryResponse> teacherCourses = Collections.emptyList();
-        try {
-            isTeacher = roleService.userHasRole(targetId, RoleName.TEACHER);
-            if (isTeacher && courseService != null) {
-                teacherCourses = courseService.getCourseSummariesByTeacher(targetId, 5);
-            }
-        } catch (Exception e) {
-            log.debug("teacher check or courses load failed: {}", e.getMessage());
-        }
-        resp.setTeacher(isTeacher);
-        resp.setTeacherCourses(teacherCourses);
-        Map<String, Integer> leaderboardRanks = new HashMap<>();
-        try {
-            Integer globalRank = leaderboardEntryService.getRankForUserByTab("global", "student", targetId);
-            if (globalRank != null) leaderboardRanks.put("global_student", globalRank);
-            if (target.getCountry() != null) {
-                Integer countryRank = leaderboardEntryService.getRankForUserByTab(target.getCountry().name(), "student", targetId);
-                if (countryRank != null) leaderboardRanks.put("country_student", countryRank);
-            }
-            Integer teacherRank = leaderboardEntryService.getRankForUserByTab("global", "teacher", targetId);
-            if (teacherRank != null) leaderboardRanks.put("teacher", teacherRank);
-        } catch (Exception e) {
-            log.debug("leaderboard rank fetch failed: {}", e.getMessage());
-        }
-        resp.setLeaderboardRanks(leaderboardRanks);
-        
-        try {
-            Optional<Couple> coupleOpt = coupleRepository.findByUserId(targetId);
-            if (coupleOpt.isPresent()) {
-                Couple c = coupleOpt.get();
-                User partner = c.getUser1().getUserId().equals(targetId) ? c.getUser2() : c.getUser1();
-                
-                long daysInLove = 0;
-                if (c.getStartDate() != null) {
-                    daysInLove = ChronoUnit.DAYS.between(c.getStartDate(), LocalDate.now());
-                } else if (c.getCoupleStartDate() != null) {
-                    daysInLove = ChronoUnit.DAYS.between(c.getCoupleStartDate().toLocalDate(), LocalDate.now());
-                }
-
-                CoupleProfileDetailedResponse coupleDetailed = CoupleProfileDetailedResponse.builder()
-                        .coupleId(c.getId())
-                        .status(c.getStatus().name())
-                        .partnerId(partner.getUserId())
-                        .partnerName(partner.getFullname())
-                        .partnerNickname(partner.getNickname())
-                        .partnerAvatar(partner.getAvatarUrl())
-                        .startDate(c.getStartDate())
-                        .daysInLove(Math.max(0, daysInLove))
-                        .sharedAvatarUrl(c.getSharedAvatarUrl())
-                        .build();
-
-                resp.setCoupleInfo(coupleDetailed);
-                
-                if (c.getStatus() == CoupleStatus.EXPLORING && c.getExploringExpiresAt() != null) {
-                    Duration rem = Duration.between(OffsetDateTime.now(), c.getExploringExpiresAt());
-                    long seconds = Math.max(0, rem.getSeconds());
-                    long days = seconds / (24*3600);
-                    long hours = (seconds % (24*3600)) / 3600;
-                    String exploringExpiresInHuman = days + " ngày " + hours + " giờ";
-                    boolean exploringExpiringSoon = seconds > 0 && seconds <= (2 * 24 * 3600);
-                    
-                    resp.setExploringExpiresInHuman(exploringExpiresInHuman);
-                    resp.setExploringExpiringSoon(exploringExpiringSoon);
-                }
-            }
-        } catch (Exception e) {
-            log.debug("couple info fetch failed: {}", e.getMessage());
-        }
-
-        try {
-            DatingInviteSummary inviteSummary = null;
-            if (viewerId != null && datingInviteRepository != null) {
-                Optional<DatingInvite> sent = datingInviteRepository.findTopBySenderIdAndTargetIdAndStatus(viewerId, targetId, DatingInviteStatus.PENDING);
-                Optional<DatingInvite> received = datingInviteRepository.findTopBySenderIdAndTargetIdAndStatus(targetId, viewerId, DatingInviteStatus.PENDING);
-                DatingInvite di = sent.orElseGet(() -> received.orElse(null));
-                if (di != null) {
-                    long secondsToExpire = di.getExpiresAt() != null ? Math.max(0, Duration.between(OffsetDateTime.now(), di.getExpiresAt()).getSeconds()) : 0;
-                    inviteSummary = DatingInviteSummary.builder()
-                            .inviteId(di.getInviteId())
-                            .senderId(di.getSenderId())
-                            .targetId(di.getTargetId())
-                            .status(di.getStatus())
-                            .createdAt(di.getCreatedAt())
-                            .expiresAt(di.getExpiresAt())
-                            .viewerIsSender(sent.isPresent())
-                            .secondsToExpire(secondsToExpire)
-                            .build();
-                }
-            }
-            resp.setDatingInviteSummary(inviteSummary);
-        } catch (Exception e) {
-            log.debug("dating invite check failed: {}", e.getMessage());
-        }
-        try {
-            List<MemorySummaryResponse> mutualMemories = Collections.emptyList();
-            if (viewerId != null && eventService != null) {
-                mutualMemories = eventService.findMutualMemories(viewerId, targetId);
-            }
-            resp.setMutualMemories(mutualMemories);
-        } catch (Exception e) {
-            log.debug("mutual memories fetch failed: {}", e.getMessage());
-        }
-        if (viewerId != null && viewerId.equals(targetId)) {
-            try {
-                List<FriendshipResponse> pending = friendshipService.getPendingRequestsForUser(targetId, PageRequest.of(0,10)).getContent();
-                resp.setPrivateFriendRequests(pending);
-                List<DatingInvite> pendingInvites = datingInviteRepository.findByTargetIdAndStatus(targetId, DatingInviteStatus.PENDING);
-                resp.setPrivateDatingInvites(pendingInvites.stream().map(di -> DatingInviteSummary.builder()
-                        .inviteId(di.getInviteId())
-                        .senderId(di.getSenderId())
-                        .targetId(di.getTargetId())
-                        .status(di.getStatus())
-                        .createdAt(di.getCreatedAt())
-                        .expiresAt(di.getExpiresAt())
-                        .viewerIsSender(false)
-                        .secondsToExpire(di.getExpiresAt() != null ? Math.max(0, Duration.between(OffsetDateTime.now(), di.getExpiresAt()).getSeconds()) : 0)
-                        .build()).toList());
-            } catch (Exception e) {
-                log.debug("private inbox fetch failed: {}", e.getMessage());
-            }
-        }
-        return resp;
+        return userProfileAssembler.assemble(viewerId, target);
     }
 
     @Override
@@ -857,6 +644,7 @@ public class UserServiceImpl implements UserService {
             User user = userRepository.findByUserIdAndIsDeletedFalse(id)
                     .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_FOUND));
             userRepository.softDeleteById(id);
+            eventPublisher.publishEvent(new UserProfileChangedEvent(id));
         } catch (Exception e) {
             log.error("Error while deleting user ID {}: {}", id, e.getMessage());
             throw new SystemException(ErrorCode.UNCATEGORIZED_EXCEPTION);
@@ -888,6 +676,7 @@ public class UserServiceImpl implements UserService {
              
              user.setAvatarUrl(avatarUrl);
              user = userRepository.saveAndFlush(user);
+             eventPublisher.publishEvent(new UserProfileChangedEvent(id));
              return mapUserToResponseWithAllDetails(user);
           } catch (Exception e) {
               throw new SystemException(ErrorCode.UNCATEGORIZED_EXCEPTION);
@@ -933,6 +722,7 @@ public class UserServiceImpl implements UserService {
                     .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_FOUND));
             user.setCountry(country);
             user = userRepository.saveAndFlush(user);
+            eventPublisher.publishEvent(new UserProfileChangedEvent(id));
             NotificationRequest notificationRequest = NotificationRequest.builder()
                     .userId(id)
                     .title("Country Updated")
@@ -981,6 +771,10 @@ public class UserServiceImpl implements UserService {
                 notificationService.createNotification(notificationRequest);
             }
             user = userRepository.saveAndFlush(user);
+            if (newLevel > oldLevel) {
+                eventPublisher.publishEvent(new UserProfileChangedEvent(id));
+            }
+            eventPublisher.publishEvent(new LeaderboardProgressEvent(id, exp, user.getLevel(), user.getExp(), user.getCoins()));
             
             // AUTOMATION: CHECK EXP CHALLENGE
             if (dailyChallengeService != null) {
@@ -1013,6 +807,7 @@ public class UserServiceImpl implements UserService {
             );
             user.setAvatarUrl(committedMedia.getFileUrl());
             User savedUser = userRepository.saveAndFlush(user);
+            eventPublisher.publishEvent(new UserProfileChangedEvent(userId));
             NotificationRequest notificationRequest = NotificationRequest.builder()
                     .userId(userId)
                     .title("Avatar Updated")
@@ -1216,6 +1011,7 @@ public class UserServiceImpl implements UserService {
             UserFcmToken conflictToken = tokenConflict.get();
             if (!conflictToken.getUserId().equals(userId) || !conflictToken.getDeviceId().equals(deviceId)) {
                 userFcmTokenRepository.delete(conflictToken);
+                pushRecipientCache.evictAfterCommit(conflictToken.getUserId());
                 log.warn("Removed conflict FCM token {} from user {}/device {}", 
                     fcmToken, conflictToken.getUserId(), conflictToken.getDeviceId());
             } else {
@@ -1224,6 +1020,7 @@ public class UserServiceImpl implements UserService {
             }
         }
         
+        pushRecipientCache.evictAfterCommit(userId);
         Optional<UserFcmToken> existingTokenForDevice = userFcmTokenRepository
                 .findByUserIdAndDeviceId(userId, deviceId);
         if (existingTokenForDevice.isPresent()) {
@@ -1414,19 +1211,7 @@ public class UserServiceImpl implements UserService {
                 .createdAt(OffsetDateTime.now())
                 .build();
         admirationRepository.saveAndFlush(a);
-        
-        // --- SYNC WITH LEADERBOARD ---
-        try {
-            List<Leaderboard> boards = leaderboardRepository.findLatestByTabAndIsDeletedFalse("admire", PageRequest.of(0, 1)).getContent();
-            if (!boards.isEmpty()) {
-                Leaderboard lb = boards.get(0);
-                long totalAdmirations = admirationRepository.countByUserId(targetId);
-                leaderboardEntryService.updateScore(lb.getLeaderboardId(), targetId, (double) totalAdmirations);
-            }
-        } catch (Exception e) {
-            log.error("Failed to sync admiration score to leaderboard for user {}: {}", targetId, e.getMessage());
-        }
-        // -----------------------------
+        syncAdmireLeaderboard(targetId, admirationCounters.adjust(senderId, targetId, 1));
 
         NotificationRequest notificationRequest = NotificationRequest.builder()
                 .userId(targetId)
@@ -1444,6 +1229,29 @@ public class UserServiceImpl implements UserService {
         }
     }
 
+    @Transactional
+    @Override
+    public void unadmire(UUID senderId, UUID targetId) {
+        if (senderId == null || targetId == null) {
+            throw new AppException(ErrorCode.MISSING_REQUIRED_FIELD);
+        }
+        if (admirationRepository.deleteByUserIdAndSenderId(targetId, senderId) == 0) {
+            throw new AppException(ErrorCode.ITEM_NOT_FOUND);
+        }
+        syncAdmireLeaderboard(targetId, admirationCounters.adjust(senderId, targetId, -1));
+    }
+
+    private void syncAdmireLeaderboard(UUID targetId, long totalAdmirations) {
+        try {
+            List<Leaderboard> boards = leaderboardRepository.findLatestByTabAndIsDeletedFalse("admire", PageRequest.of(0, 1)).getContent();
+            if (!boards.isEmpty()) {
+                leaderboardEntryService.updateScore(boards.get(0).getLeaderboardId(), targetId, (double) totalAdmirations);
+            }
+        } catch (Exception e) {
+            log.error("Failed to sync admiration score to leaderboard for user {}: {}", targetId, e.getMessage());
+        }
+    }
+
     private Locale getLocaleByUserId(UUID userId) {
         User user = userRepository.findByUserIdAndIsDeletedFalse(userId)
                 .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_FOUND));
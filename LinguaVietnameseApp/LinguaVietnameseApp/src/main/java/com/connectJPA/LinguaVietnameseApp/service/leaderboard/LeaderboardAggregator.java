@@ -0,0 +1,212 @@
+package com.connectJPA.LinguaVietnameseApp.service.leaderboard;
+
+import com.connectJPA.LinguaVietnameseApp.entity.Leaderboard;
+import com.connectJPA.LinguaVietnameseApp.event.LeaderboardProgressEvent;
+import com.connectJPA.LinguaVietnameseApp.repository.jpa.LeaderboardRepository;
+import com.connectJPA.LinguaVietnameseApp.service.leaderboard.LeaderboardRankEngine.EntryScore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies exp and coin changes to leaderboard entries in the background. Progress events are
+ * merged per user in memory and flushed every flush-interval as one upsert per active leaderboard,
+ * so request transactions never touch leaderboard rows. Global and country tabs add the merged exp
+ * to the score, the coins tab stores the latest coin balance. A failed flush puts its deltas back
+ * for the next one; deltas still buffered when the process dies are lost.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class LeaderboardAggregator {
+
+    // Rows and leaderboards go in a fixed order so flushes on different nodes lock entries in the same order
+    private static final String UPSERT_SQL = "INSERT INTO leaderboard_entries (leaderboard_id, user_id, score, level, exp, " +
+            "is_deleted, created_at, updated_at) " +
+            "SELECT ?::uuid, t.user_id, t.score, t.level, t.exp, false, now(), now() " +
+            "FROM unnest(?::uuid[], ?::int4[], ?::int4[], ?::int4[]) AS t(user_id, score, level, exp) ORDER BY t.user_id " +
+            "ON CONFLICT (leaderboard_id, user_id) DO UPDATE SET score = %s, level = EXCLUDED.level, exp = EXCLUDED.exp, " +
+            "is_deleted = false, deleted_at = NULL, updated_at = now() " +
+            "RETURNING user_id, score, level, exp";
+
+    // A soft-deleted entry restarts from zero, as it did when it was re-created through JPA
+    private static final String ACCUMULATE_SQL = String.format(UPSERT_SQL,
+            "CASE WHEN leaderboard_entries.is_deleted THEN EXCLUDED.score ELSE leaderboard_entries.score + EXCLUDED.score END");
+
+    private static final String REPLACE_SQL = String.format(UPSERT_SQL, "EXCLUDED.score");
+
+    private record Progress(int expDelta, int level, int exp, int coins) {
+        Progress then(Progress later) {
+            return new Progress(expDelta + later.expDelta, later.level, later.exp, later.coins);
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final LeaderboardRepository leaderboardRepository;
+    private final LeaderboardRankEngine rankEngine;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${leaderboard.aggregator.flush-interval-ms:2000}")
+    private long flushIntervalMs;
+
+    @Value("${leaderboard.aggregator.max-pending-users:50000}")
+    private int maxPendingUsers;
+
+    private final Map<UUID, Progress> pending = new ConcurrentHashMap<>();
+    private final Object signal = new Object();
+    private Thread flusher;
+    private volatile boolean running;
+
+    private Counter merged;
+    private Counter flushedUsers;
+    private Counter failedFlushes;
+    private Timer flushTimer;
+
+    @PostConstruct
+    public void init() {
+        merged = Counter.builder("leaderboard.aggregator.events").register(meterRegistry);
+        flushedUsers = Counter.builder("leaderboard.aggregator.flushed.users").register(meterRegistry);
+        failedFlushes = Counter.builder("leaderboard.aggregator.flush.failures").register(meterRegistry);
+        flushTimer = Timer.builder("leaderboard.aggregator.flush").register(meterRegistry);
+        Gauge.builder("leaderboard.aggregator.pending.users", pending, Map::size).register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        flusher = new Thread(this::flushLoop, "Leaderboard-aggregator");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProgress(LeaderboardProgressEvent event) {
+        if (event.getUserId() == null) return;
+        pending.merge(event.getUserId(),
+                new Progress(event.getExpDelta(), event.getLevel(), event.getExp(), event.getCoins()), Progress::then);
+        merged.increment();
+        if (pending.size() >= maxPendingUsers) {
+            synchronized (signal) {
+                signal.notifyAll();
+            }
+        }
+    }
+
+    private void flushLoop() {
+        while (running) {
+            try {
+                synchronized (signal) {
+                    signal.wait(flushIntervalMs);
+                }
+                flush();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Leaderboard aggregator error", e);
+            }
+        }
+    }
+
+    private void flush() {
+        Map<UUID, Progress> batch = drain();
+        if (batch.isEmpty()) return;
+
+        long startedAt = System.nanoTime();
+        try {
+            List<Leaderboard> leaderboards = leaderboardRepository.findAllByIsDeletedFalse().stream()
+                    .filter(lb -> sqlFor(lb.getTab()) != null)
+                    .sorted(Comparator.comparing(Leaderboard::getLeaderboardId))
+                    .toList();
+            TransactionTemplate template = new TransactionTemplate(transactionManager);
+            template.executeWithoutResult(status -> {
+                for (Leaderboard lb : leaderboards) {
+                    rankEngine.recordAllAfterCommit(lb, upsert(lb, batch));
+                }
+            });
+            flushedUsers.increment(batch.size());
+        } catch (Exception e) {
+            failedFlushes.increment();
+            batch.forEach((userId, progress) -> pending.merge(userId, progress, (newer, older) -> older.then(newer)));
+            log.warn("Leaderboard flush of {} users failed, retrying next interval: {}", batch.size(), e.getMessage());
+        } finally {
+            flushTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Map<UUID, Progress> drain() {
+        Map<UUID, Progress> batch = new HashMap<>();
+        for (UUID userId : pending.keySet()) {
+            Progress progress = pending.remove(userId);
+            if (progress != null) batch.put(userId, progress);
+        }
+        return batch;
+    }
+
+    private List<EntryScore> upsert(Leaderboard lb, Map<UUID, Progress> batch) {
+        boolean coins = "coins".equalsIgnoreCase(lb.getTab());
+        int size = batch.size();
+        UUID[] userIds = new UUID[size];
+        Integer[] scores = new Integer[size];
+        Integer[] levels = new Integer[size];
+        Integer[] exps = new Integer[size];
+        int i = 0;
+        for (Map.Entry<UUID, Progress> entry : batch.entrySet()) {
+            Progress progress = entry.getValue();
+            userIds[i] = entry.getKey();
+            scores[i] = coins ? progress.coins() : progress.expDelta();
+            levels[i] = progress.level();
+            exps[i] = progress.exp();
+            i++;
+        }
+        return jdbcTemplate.query(sqlFor(lb.getTab()), ps -> {
+            Connection connection = ps.getConnection();
+            ps.setObject(1, lb.getLeaderboardId());
+            ps.setArray(2, connection.createArrayOf("uuid", userIds));
+            ps.setArray(3, connection.createArrayOf("int4", scores));
+            ps.setArray(4, connection.createArrayOf("int4", levels));
+            ps.setArray(5, connection.createArrayOf("int4", exps));
+        }, (rs, n) -> new EntryScore(rs.getObject(1, UUID.class), rs.getInt(2), rs.getInt(3), rs.getInt(4)));
+    }
+
+    private static String sqlFor(String tab) {
+        if ("global".equalsIgnoreCase(tab) || "country".equalsIgnoreCase(tab)) return ACCUMULATE_SQL;
+        if ("coins".equalsIgnoreCase(tab)) return REPLACE_SQL;
+        return null;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        synchronized (signal) {
+            signal.notifyAll();
+        }
+        if (flusher != null) {
+            flusher.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        flush();
+    }
+}
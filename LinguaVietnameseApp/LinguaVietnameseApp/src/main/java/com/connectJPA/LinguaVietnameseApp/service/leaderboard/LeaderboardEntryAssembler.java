@@ -0,0 +1,59 @@
+package com.connectJPA.LinguaVietnameseApp.service.leaderboard;
+
+import com.connectJPA.LinguaVietnameseApp.dto.response.LeaderboardEntryResponse;
+import com.connectJPA.LinguaVietnameseApp.entity.LeaderboardEntry;
+import com.connectJPA.LinguaVietnameseApp.entity.User;
+import com.connectJPA.LinguaVietnameseApp.mapper.LeaderboardEntryMapper;
+import com.connectJPA.LinguaVietnameseApp.service.profile.AdmirationCounters;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Turns leaderboard entries (with their users fetched) into responses carrying the profile fields
+ * and admire count, reading the admiration counters for a whole page in one batch.
+ */
+@Component
+@RequiredArgsConstructor
+public class LeaderboardEntryAssembler {
+
+    private final LeaderboardEntryMapper leaderboardEntryMapper;
+    private final AdmirationCounters admirationCounters;
+
+    public LeaderboardEntryResponse assemble(LeaderboardEntry entry) {
+        return assembleAll(List.of(entry)).get(0);
+    }
+
+    public List<LeaderboardEntryResponse> assembleAll(List<LeaderboardEntry> entries) {
+        Set<UUID> userIds = new LinkedHashSet<>();
+        for (LeaderboardEntry entry : entries) {
+            if (entry.getUser() != null) userIds.add(entry.getUser().getUserId());
+        }
+        Map<UUID, Long> admires = admirationCounters.receivedAll(userIds);
+
+        List<LeaderboardEntryResponse> responses = new ArrayList<>(entries.size());
+        for (LeaderboardEntry entry : entries) {
+            LeaderboardEntryResponse dto = leaderboardEntryMapper.toResponse(entry);
+            User u = entry.getUser();
+            if (u != null) {
+                dto.setUserId(u.getUserId());
+                dto.setAvatarUrl(u.getAvatarUrl());
+                dto.setFullname(u.getFullname());
+                dto.setNickname(u.getNickname());
+                dto.setLevel(u.getLevel());
+                dto.setGender(u.getGender());
+                dto.setExp(u.getExp());
+                dto.setCountry(u.getCountry());
+                dto.setAdmire(admires.getOrDefault(u.getUserId(), 0L).intValue());
+            }
+            responses.add(dto);
+        }
+        return responses;
+    }
+}
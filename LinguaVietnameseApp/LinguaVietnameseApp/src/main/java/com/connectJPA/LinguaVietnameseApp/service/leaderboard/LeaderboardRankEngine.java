@@ -0,0 +1,390 @@
+package com.connectJPA.LinguaVietnameseApp.service.leaderboard;
+
+import com.connectJPA.LinguaVietnameseApp.entity.Leaderboard;
+import com.connectJPA.LinguaVietnameseApp.repository.jpa.LeaderboardEntryRepository;
+import com.connectJPA.LinguaVietnameseApp.repository.jpa.LeaderboardRepository;
+import com.connectJPA.LinguaVietnameseApp.utils.AfterCommit;
+import com.connectJPA.LinguaVietnameseApp.utils.NearCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations.TypedTuple;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Leaderboard rankings in Redis sorted sets, one per leaderboard. The global tab orders by level
+ * then exp, packed into one score as level * 2^32 + exp; every other tab orders by entry score.
+ * Rank is ZCOUNT of strictly higher scores plus one, so ties share a rank exactly like the SQL
+ * COUNT(...)+1 queries did, in O(log n). The database stays the source of truth: sets are
+ * rebuilt from it on startup, when found missing and periodically, and a leaderboard whose set
+ * is not loaded yet reports empty results so callers fall back to SQL.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class LeaderboardRankEngine {
+
+    private static final String KEY_PREFIX = "leaderboard:z:";
+    private static final String LOADED_KEY = "leaderboard:z:loaded";
+    private static final String GLOBAL_TAB = "global";
+    private static final double LEVEL_WEIGHT = 4294967296d;
+    private static final int REBUILD_PAGE = 1000;
+    private static final String REBUILDING_SUFFIX = ":rebuilding";
+    private static final String SCRATCH_SUFFIX = ":scratch";
+    private static final String JOURNAL_SUFFIX = ":journal";
+
+    private static final RedisScript<Long> RANK = new DefaultRedisScript<>(
+            "if redis.call('SISMEMBER', KEYS[2], ARGV[2]) == 0 then return -1 end " +
+            "local s = redis.call('ZSCORE', KEYS[1], ARGV[1]) " +
+            "if not s then return 0 end " +
+            "return redis.call('ZCOUNT', KEYS[1], '(' .. s, '+inf') + 1", Long.class);
+
+    // Mirrors writes into the scratch set while a rebuild is running, so they survive the swap,
+    // and journals the member so a database page read before the write cannot overwrite it
+    private static final RedisScript<Long> UPSERT = new DefaultRedisScript<>(
+            "redis.call('ZADD', KEYS[1], ARGV[2], ARGV[1]) " +
+            "if redis.call('EXISTS', KEYS[2]) == 1 then " +
+            "redis.call('ZADD', KEYS[3], ARGV[2], ARGV[1]) redis.call('SADD', KEYS[4], ARGV[1]) end " +
+            "return 1", Long.class);
+
+    private static final RedisScript<Long> REMOVE = new DefaultRedisScript<>(
+            "redis.call('ZREM', KEYS[1], ARGV[1]) " +
+            "if redis.call('EXISTS', KEYS[2]) == 1 then " +
+            "redis.call('ZREM', KEYS[3], ARGV[1]) redis.call('SADD', KEYS[4], ARGV[1]) end " +
+            "return 1", Long.class);
+
+    // Adds one rebuild page to the scratch set, skipping members written since the rebuild began
+    private static final RedisScript<Long> LOAD_PAGE = new DefaultRedisScript<>(
+            "local added = 0 " +
+            "for i = 1, #ARGV, 2 do " +
+            "if redis.call('SISMEMBER', KEYS[2], ARGV[i]) == 0 then " +
+            "redis.call('ZADD', KEYS[1], ARGV[i + 1], ARGV[i]) added = added + 1 end end " +
+            "return added", Long.class);
+
+    public record RankedMember(UUID userId, double score, long rank) {}
+
+    public record EntryScore(UUID userId, int score, int level, long exp) {}
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final LeaderboardRepository leaderboardRepository;
+    private final LeaderboardEntryRepository leaderboardEntryRepository;
+    private final MeterRegistry meterRegistry;
+    // Resolved by parameter name: the "taskExecutor" bean from AsyncConfiguration
+    private final Executor taskExecutor;
+
+    @Value("${leaderboard.redis.rebuild-lock-seconds:300}")
+    private long rebuildLockSeconds;
+
+    private final NearCache<UUID, Boolean> loaded = new NearCache<>(1_000, Duration.ofMinutes(1));
+    private final Set<UUID> rebuildsRequested = ConcurrentHashMap.newKeySet();
+
+    private Counter fallbacks;
+    private Timer rebuildTimer;
+
+    @PostConstruct
+    public void init() {
+        fallbacks = Counter.builder("leaderboard.redis.fallbacks").register(meterRegistry);
+        rebuildTimer = Timer.builder("leaderboard.redis.rebuild").register(meterRegistry);
+    }
+
+    public static boolean isGlobal(String tab) {
+        return GLOBAL_TAB.equalsIgnoreCase(tab);
+    }
+
+    public static double score(String tab, int score, int level, long exp) {
+        return isGlobal(tab) ? level * LEVEL_WEIGHT + exp : score;
+    }
+
+    public static int levelOf(double globalScore) {
+        return (int) Math.floor(globalScore / LEVEL_WEIGHT);
+    }
+
+    public static long expOf(double globalScore) {
+        return (long) (globalScore - levelOf(globalScore) * LEVEL_WEIGHT);
+    }
+
+    public void recordAfterCommit(Leaderboard leaderboard, UUID userId, int score, int level, long exp) {
+        List<String> keys = keys(leaderboard.getLeaderboardId());
+        String value = Double.toString(score(leaderboard.getTab(), score, level, exp));
+        AfterCommit.runQuietly("Leaderboard Redis update", () -> stringRedisTemplate.execute(UPSERT, keys, userId.toString(), value));
+    }
+
+    /**
+     * Same as {@link #recordAfterCommit} for many users of one leaderboard, pipelined into one round trip.
+     */
+    public void recordAllAfterCommit(Leaderboard leaderboard, List<EntryScore> scores) {
+        if (scores.isEmpty()) return;
+        byte[][] keys = keys(leaderboard.getLeaderboardId()).stream()
+                .map(key -> key.getBytes(StandardCharsets.UTF_8))
+                .toArray(byte[][]::new);
+        List<EntryScore> targets = List.copyOf(scores);
+        AfterCommit.runQuietly("Leaderboard Redis update", () -> stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            byte[] script = UPSERT.getScriptAsString().getBytes(StandardCharsets.UTF_8);
+            for (EntryScore entry : targets) {
+                String value = Double.toString(score(leaderboard.getTab(), entry.score(), entry.level(), entry.exp()));
+                connection.scriptingCommands().eval(script, ReturnType.INTEGER, 4, keys[0], keys[1], keys[2], keys[3],
+                        entry.userId().toString().getBytes(StandardCharsets.UTF_8), value.getBytes(StandardCharsets.UTF_8));
+            }
+            return null;
+        }));
+    }
+
+    public void removeAfterCommit(UUID leaderboardId, UUID userId) {
+        List<String> keys = keys(leaderboardId);
+        AfterCommit.runQuietly("Leaderboard Redis update", () -> stringRedisTemplate.execute(REMOVE, keys, userId.toString()));
+    }
+
+    private static List<String> keys(UUID leaderboardId) {
+        String key = KEY_PREFIX + leaderboardId;
+        return List.of(key, key + REBUILDING_SUFFIX, key + SCRATCH_SUFFIX, key + JOURNAL_SUFFIX);
+    }
+
+    /**
+     * @return the 1-based rank, 0 if the user has no entry, or empty if the set is unavailable
+     */
+    public Optional<Long> rank(UUID leaderboardId, UUID userId) {
+        try {
+            Long rank = stringRedisTemplate.execute(RANK, List.of(KEY_PREFIX + leaderboardId, LOADED_KEY),
+                    userId.toString(), leaderboardId.toString());
+            if (rank != null && rank >= 0) return Optional.of(rank);
+            requestRebuild(leaderboardId);
+        } catch (Exception e) {
+            log.warn("Leaderboard rank lookup failed for {}: {}", leaderboardId, e.getMessage());
+        }
+        fallbacks.increment();
+        return Optional.empty();
+    }
+
+    /**
+     * {@link #rank} for many users of one leaderboard, pipelined into one round trip.
+     *
+     * @return 1-based ranks, 0 for users without an entry, or empty if the set is unavailable
+     */
+    public Optional<Map<UUID, Long>> rankAll(UUID leaderboardId, List<UUID> userIds) {
+        if (userIds.isEmpty()) return Optional.of(Map.of());
+        try {
+            byte[] key = (KEY_PREFIX + leaderboardId).getBytes(StandardCharsets.UTF_8);
+            byte[] loadedKey = LOADED_KEY.getBytes(StandardCharsets.UTF_8);
+            byte[] board = leaderboardId.toString().getBytes(StandardCharsets.UTF_8);
+            byte[] script = RANK.getScriptAsString().getBytes(StandardCharsets.UTF_8);
+            List<Object> results = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (UUID userId : userIds) {
+                    connection.scriptingCommands().eval(script, ReturnType.INTEGER, 2, key, loadedKey,
+                            userId.toString().getBytes(StandardCharsets.UTF_8), board);
+                }
+                return null;
+            });
+            Map<UUID, Long> ranks = new HashMap<>();
+            for (int i = 0; i < userIds.size(); i++) {
+                Long rank = (Long) results.get(i);
+                if (rank == null || rank < 0) {
+                    requestRebuild(leaderboardId);
+                    fallbacks.increment();
+                    return Optional.empty();
+                }
+                ranks.put(userIds.get(i), rank);
+            }
+            return Optional.of(ranks);
+        } catch (Exception e) {
+            log.warn("Leaderboard rank lookup failed for {}: {}", leaderboardId, e.getMessage());
+        }
+        fallbacks.increment();
+        return Optional.empty();
+    }
+
+    /**
+     * Members ranked offset+1 .. offset+count, best first. Tied members get the rank of the
+     * first of them, matching {@link #rank}.
+     */
+    public Optional<List<RankedMember>> range(UUID leaderboardId, long offset, int count) {
+        if (!isLoaded(leaderboardId)) return Optional.empty();
+        try {
+            String key = KEY_PREFIX + leaderboardId;
+            Set<TypedTuple<String>> tuples = stringRedisTemplate.opsForZSet().reverseRangeWithScores(key, offset, offset + count - 1);
+            List<RankedMember> members = new ArrayList<>();
+            if (tuples == null || tuples.isEmpty()) return Optional.of(members);
+
+            double previous = Double.NaN;
+            long rank = 0;
+            long position = offset;
+            for (TypedTuple<String> tuple : tuples) {
+                position++;
+                double value = tuple.getScore() != null ? tuple.getScore() : 0;
+                if (value != previous) {
+                    rank = position == offset + 1 ? firstRank(key, value) : position;
+                    previous = value;
+                }
+                members.add(new RankedMember(UUID.fromString(tuple.getValue()), value, rank));
+            }
+            return Optional.of(members);
+        } catch (Exception e) {
+            log.warn("Leaderboard range lookup failed for {}: {}", leaderboardId, e.getMessage());
+            fallbacks.increment();
+            return Optional.empty();
+        }
+    }
+
+    public Optional<Long> size(UUID leaderboardId) {
+        if (!isLoaded(leaderboardId)) return Optional.empty();
+        try {
+            return Optional.ofNullable(stringRedisTemplate.opsForZSet().zCard(KEY_PREFIX + leaderboardId));
+        } catch (Exception e) {
+            log.warn("Leaderboard size lookup failed for {}: {}", leaderboardId, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    // A page may start in the middle of a tie, so its first rank comes from the set itself
+    private long firstRank(String key, double value) {
+        Long higher = stringRedisTemplate.opsForZSet().count(key, Math.nextUp(value), Double.POSITIVE_INFINITY);
+        return (higher != null ? higher : 0) + 1;
+    }
+
+    private boolean isLoaded(UUID leaderboardId) {
+        if (loaded.getIfPresent(leaderboardId) != null) return true;
+        try {
+            if (Boolean.TRUE.equals(stringRedisTemplate.opsForSet().isMember(LOADED_KEY, leaderboardId.toString()))) {
+                loaded.put(leaderboardId, Boolean.TRUE);
+                return true;
+            }
+            requestRebuild(leaderboardId);
+        } catch (Exception e) {
+            log.warn("Leaderboard load check failed for {}: {}", leaderboardId, e.getMessage());
+        }
+        fallbacks.increment();
+        return false;
+    }
+
+    private void requestRebuild(UUID leaderboardId) {
+        if (!rebuildsRequested.add(leaderboardId)) return;
+        try {
+            taskExecutor.execute(() -> {
+                try {
+                    leaderboardRepository.findByLeaderboardIdAndIsDeletedFalse(leaderboardId).ifPresent(this::rebuild);
+                } finally {
+                    rebuildsRequested.remove(leaderboardId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rebuildsRequested.remove(leaderboardId);
+            log.warn("Leaderboard rebuild for {} rejected, retrying on next request", leaderboardId);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadMissing() {
+        for (Leaderboard leaderboard : leaderboardRepository.findAllByIsDeletedFalse()) {
+            try {
+                if (!Boolean.TRUE.equals(stringRedisTemplate.opsForSet().isMember(LOADED_KEY, leaderboard.getLeaderboardId().toString()))) {
+                    rebuild(leaderboard);
+                }
+            } catch (Exception e) {
+                log.warn("Initial leaderboard load failed for {}: {}", leaderboard.getLeaderboardId(), e.getMessage());
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${leaderboard.redis.rebuild-interval-ms:21600000}",
+            initialDelayString = "${leaderboard.redis.rebuild-interval-ms:21600000}")
+    public void rebuildAll() {
+        Set<String> live = new HashSet<>();
+        for (Leaderboard leaderboard : leaderboardRepository.findAllByIsDeletedFalse()) {
+            live.add(leaderboard.getLeaderboardId().toString());
+            rebuild(leaderboard);
+        }
+        try {
+            Set<String> known = stringRedisTemplate.opsForSet().members(LOADED_KEY);
+            if (known == null) return;
+            for (String id : known) {
+                if (live.contains(id)) continue;
+                stringRedisTemplate.opsForSet().remove(LOADED_KEY, id);
+                stringRedisTemplate.delete(KEY_PREFIX + id);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to drop deleted leaderboards from Redis: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Reloads one leaderboard from the database into a scratch key and swaps it in with RENAME.
+     * Only one node rebuilds a given leaderboard at a time. Writes that land while it runs go
+     * straight into the scratch key and win over the (possibly older) rows the pages read.
+     */
+    public void rebuild(Leaderboard leaderboard) {
+        UUID leaderboardId = leaderboard.getLeaderboardId();
+        String key = KEY_PREFIX + leaderboardId;
+        String lockKey = key + REBUILDING_SUFFIX;
+        String scratchKey = key + SCRATCH_SUFFIX;
+        String journalKey = key + JOURNAL_SUFFIX;
+        boolean locked = false;
+        try {
+            locked = Boolean.TRUE.equals(stringRedisTemplate.opsForValue().setIfAbsent(lockKey, "1", Duration.ofSeconds(rebuildLockSeconds)));
+            if (!locked) return;
+            rebuildTimer.record(() -> {
+                stringRedisTemplate.delete(List.of(scratchKey, journalKey));
+                long members = 0;
+                UUID after = new UUID(0L, 0L);
+                while (true) {
+                    List<Object[]> rows = leaderboardEntryRepository.findRankingRowsAfter(leaderboardId, after, PageRequest.of(0, REBUILD_PAGE));
+                    if (rows.isEmpty()) break;
+                    String[] args = new String[rows.size() * 2];
+                    for (int i = 0; i < rows.size(); i++) {
+                        Object[] row = rows.get(i);
+                        double value = score(leaderboard.getTab(), ((Number) row[1]).intValue(),
+                                ((Number) row[2]).intValue(), ((Number) row[3]).longValue());
+                        args[2 * i] = row[0].toString();
+                        args[2 * i + 1] = Double.toString(value);
+                    }
+                    stringRedisTemplate.execute(LOAD_PAGE, List.of(scratchKey, journalKey), (Object[]) args);
+                    members += rows.size();
+                    after = (UUID) rows.get(rows.size() - 1)[0];
+                    if (rows.size() < REBUILD_PAGE) break;
+                }
+                if (Boolean.TRUE.equals(stringRedisTemplate.hasKey(scratchKey))) {
+                    stringRedisTemplate.rename(scratchKey, key);
+                } else {
+                    stringRedisTemplate.delete(key);
+                }
+                stringRedisTemplate.opsForSet().add(LOADED_KEY, leaderboardId.toString());
+                log.info("Rebuilt leaderboard {} ({}) with {} members", leaderboardId, leaderboard.getTab(), members);
+            });
+        } catch (Exception e) {
+            log.warn("Leaderboard rebuild failed for {}: {}", leaderboardId, e.getMessage());
+        } finally {
+            if (locked) {
+                try {
+                    stringRedisTemplate.delete(List.of(lockKey, journalKey));
+                } catch (Exception e) {
+                    log.warn("Failed to release leaderboard rebuild lock {}: {}", lockKey, e.getMessage());
+                }
+            }
+        }
+    }
+}
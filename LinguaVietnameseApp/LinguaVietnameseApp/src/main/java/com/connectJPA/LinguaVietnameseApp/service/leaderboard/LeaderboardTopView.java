@@ -0,0 +1,326 @@
+package com.connectJPA.LinguaVietnameseApp.service.leaderboard;
+
+import com.connectJPA.LinguaVietnameseApp.dto.response.LeaderboardEntryResponse;
+import com.connectJPA.LinguaVietnameseApp.dto.response.LeaderboardTopDeltaResponse;
+import com.connectJPA.LinguaVietnameseApp.dto.response.LeaderboardTopDeltaResponse.Move;
+import com.connectJPA.LinguaVietnameseApp.entity.Leaderboard;
+import com.connectJPA.LinguaVietnameseApp.event.UserProfileChangedEvent;
+import com.connectJPA.LinguaVietnameseApp.repository.jpa.LeaderboardEntryRepository;
+import com.connectJPA.LinguaVietnameseApp.repository.jpa.LeaderboardRepository;
+import com.connectJPA.LinguaVietnameseApp.service.leaderboard.LeaderboardRankEngine.RankedMember;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.user.SimpSubscription;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Materialized top rows of the leaderboards people are looking at, with profile fields and
+ * admire count already joined. A tick re-reads the top of each Redis sorted set, loads only the
+ * members that entered (or whose profile changed), and pushes what moved to
+ * /topic/leaderboard/{id}/top as a compact delta. Views nobody has read or subscribed to for
+ * idle-minutes are dropped; profiles are reloaded every profile-ttl.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class LeaderboardTopView {
+
+    private static final String TOPIC_PREFIX = "/topic/leaderboard/";
+    private static final String TOPIC_SUFFIX = "/top";
+    private static final String PUBLISHER_PREFIX = "leaderboard:top:publisher:";
+
+    private static final RedisScript<Long> CLAIM = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then redis.call('PEXPIRE', KEYS[1], ARGV[2]) return 1 end " +
+            "if redis.call('SET', KEYS[1], ARGV[1], 'NX', 'PX', ARGV[2]) then return 1 end " +
+            "return 0", Long.class);
+
+    // Rows are never mutated once published in a snapshot; refreshes build new ones
+    private record Snapshot(List<LeaderboardEntryResponse> rows, Map<UUID, LeaderboardEntryResponse> byUser,
+                            long profilesLoadedAt) {}
+
+    private static final class View {
+        final Leaderboard leaderboard;
+        volatile Snapshot snapshot;
+        volatile long lastAccess;
+
+        View(Leaderboard leaderboard, Snapshot snapshot) {
+            this.leaderboard = leaderboard;
+            this.snapshot = snapshot;
+            this.lastAccess = System.currentTimeMillis();
+        }
+    }
+
+    private final LeaderboardRepository leaderboardRepository;
+    private final LeaderboardEntryRepository leaderboardEntryRepository;
+    private final LeaderboardRankEngine rankEngine;
+    private final LeaderboardEntryAssembler assembler;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final SimpUserRegistry simpUserRegistry;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${leaderboard.top-view.size:100}")
+    private int size;
+
+    @Value("${leaderboard.top-view.idle-minutes:10}")
+    private long idleMinutes;
+
+    @Value("${leaderboard.top-view.profile-ttl-ms:300000}")
+    private long profileTtlMs;
+
+    @Value("${leaderboard.top-view.refresh-interval-ms:1000}")
+    private long refreshIntervalMs;
+
+    @Value("${chat.broker.mode:simple}")
+    private String brokerMode;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<UUID, View> views = new ConcurrentHashMap<>();
+    private final Set<UUID> staleUsers = ConcurrentHashMap.newKeySet();
+
+    private Counter loads;
+    private Counter deltas;
+
+    @PostConstruct
+    public void init() {
+        loads = Counter.builder("leaderboard.top.view.loads").register(meterRegistry);
+        deltas = Counter.builder("leaderboard.top.view.deltas").register(meterRegistry);
+        Gauge.builder("leaderboard.top.view.active", views, Map::size).register(meterRegistry);
+    }
+
+    /**
+     * Rows offset+1 .. offset+count of the leaderboard with rank set, or empty when the range
+     * lies beyond the materialized top or the sorted set is unavailable.
+     */
+    public Optional<List<LeaderboardEntryResponse>> top(UUID leaderboardId, long offset, int count) {
+        View view = views.get(leaderboardId);
+        if (view == null) {
+            view = load(leaderboardId).orElse(null);
+            if (view == null) return Optional.empty();
+            View existing = views.putIfAbsent(leaderboardId, view);
+            if (existing != null) view = existing;
+        }
+        view.lastAccess = System.currentTimeMillis();
+
+        List<LeaderboardEntryResponse> rows = view.snapshot.rows();
+        boolean complete = rows.size() < size;
+        if (offset + count > rows.size() && !complete) return Optional.empty();
+        if (offset >= rows.size()) return Optional.of(List.of());
+        return Optional.of(rows.subList((int) offset, (int) Math.min(offset + count, rows.size())));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProfileChanged(UserProfileChangedEvent event) {
+        UUID userId = event.getUserId();
+        if (userId == null) return;
+        for (View view : views.values()) {
+            if (view.snapshot.byUser().containsKey(userId)) {
+                staleUsers.add(userId);
+                return;
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${leaderboard.top-view.refresh-interval-ms:1000}")
+    public void refresh() {
+        Set<UUID> subscribed;
+        try {
+            subscribed = subscribedLeaderboards();
+            for (UUID leaderboardId : subscribed) {
+                if (!views.containsKey(leaderboardId)) {
+                    load(leaderboardId).ifPresent(view -> views.putIfAbsent(leaderboardId, view));
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Leaderboard top view subscription scan failed: {}", e.getMessage());
+            return;
+        }
+        if (views.isEmpty()) return;
+
+        Set<UUID> stale = new HashSet<>(staleUsers);
+        staleUsers.removeAll(stale);
+        long idleBefore = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(idleMinutes);
+        for (View view : views.values()) {
+            UUID leaderboardId = view.leaderboard.getLeaderboardId();
+            boolean watched = subscribed.contains(leaderboardId);
+            if (!watched && view.lastAccess < idleBefore) {
+                views.remove(leaderboardId);
+                continue;
+            }
+            try {
+                Snapshot before = view.snapshot;
+                Optional<Snapshot> after = snapshot(view.leaderboard, before, stale);
+                if (after.isEmpty()) continue;
+                view.snapshot = after.get();
+                if (watched) publish(leaderboardId, diff(leaderboardId, before, after.get()));
+            } catch (Exception e) {
+                log.warn("Leaderboard top view refresh failed for {}: {}", leaderboardId, e.getMessage());
+            }
+        }
+    }
+
+    private Optional<View> load(UUID leaderboardId) {
+        Leaderboard leaderboard = leaderboardRepository.findByLeaderboardIdAndIsDeletedFalse(leaderboardId).orElse(null);
+        if (leaderboard == null) return Optional.empty();
+        return snapshot(leaderboard, null, Set.of()).map(snapshot -> new View(leaderboard, snapshot));
+    }
+
+    private Optional<Snapshot> snapshot(Leaderboard leaderboard, Snapshot previous, Set<UUID> stale) {
+        UUID leaderboardId = leaderboard.getLeaderboardId();
+        Optional<List<RankedMember>> members = rankEngine.range(leaderboardId, 0, size);
+        if (members.isEmpty()) return Optional.empty();
+
+        long now = System.currentTimeMillis();
+        boolean reloadAll = previous == null || now - previous.profilesLoadedAt() > profileTtlMs;
+        Map<UUID, LeaderboardEntryResponse> known = reloadAll ? Map.of() : previous.byUser();
+
+        List<UUID> missing = members.get().stream()
+                .map(RankedMember::userId)
+                .filter(userId -> !known.containsKey(userId) || stale.contains(userId))
+                .toList();
+        Map<UUID, LeaderboardEntryResponse> fresh = new HashMap<>();
+        if (!missing.isEmpty()) {
+            loads.increment();
+            for (LeaderboardEntryResponse row : assembler.assembleAll(
+                    leaderboardEntryRepository.findByLeaderboardIdAndUserIds(leaderboardId, missing))) {
+                fresh.put(row.getUserId(), row);
+            }
+        }
+
+        List<LeaderboardEntryResponse> rows = new ArrayList<>(members.get().size());
+        Map<UUID, LeaderboardEntryResponse> byUser = new LinkedHashMap<>();
+        for (RankedMember member : members.get()) {
+            LeaderboardEntryResponse base = fresh.getOrDefault(member.userId(), known.get(member.userId()));
+            if (base == null) continue;
+            LeaderboardEntryResponse row = ranked(base, leaderboard, member);
+            rows.add(row);
+            byUser.put(member.userId(), row);
+        }
+        return Optional.of(new Snapshot(List.copyOf(rows), byUser, reloadAll ? now : previous.profilesLoadedAt()));
+    }
+
+    // The global set is scored by level and exp, so those come from Redis; other tabs rank by entry score
+    private static LeaderboardEntryResponse ranked(LeaderboardEntryResponse base, Leaderboard leaderboard, RankedMember member) {
+        LeaderboardEntryResponse row = copy(base);
+        row.setRank((int) member.rank());
+        if (LeaderboardRankEngine.isGlobal(leaderboard.getTab())) {
+            row.setLevel(LeaderboardRankEngine.levelOf(member.score()));
+            row.setExp((int) LeaderboardRankEngine.expOf(member.score()));
+        } else {
+            row.setScore((int) member.score());
+        }
+        return row;
+    }
+
+    private static LeaderboardEntryResponse copy(LeaderboardEntryResponse row) {
+        return LeaderboardEntryResponse.builder()
+                .leaderboardEntryId(row.getLeaderboardEntryId())
+                .score(row.getScore())
+                .userId(row.getUserId())
+                .fullname(row.getFullname())
+                .nickname(row.getNickname())
+                .avatarUrl(row.getAvatarUrl())
+                .level(row.getLevel())
+                .exp(row.getExp())
+                .admire(row.getAdmire())
+                .gender(row.getGender())
+                .country(row.getCountry())
+                .rank(row.getRank())
+                .change(row.getChange())
+                .streak(row.getStreak())
+                .isDeleted(row.isDeleted())
+                .createdAt(row.getCreatedAt())
+                .updatedAt(row.getUpdatedAt())
+                .build();
+    }
+
+    private static LeaderboardTopDeltaResponse diff(UUID leaderboardId, Snapshot before, Snapshot after) {
+        List<LeaderboardEntryResponse> upserted = new ArrayList<>();
+        List<Move> moved = new ArrayList<>();
+        for (LeaderboardEntryResponse row : after.rows()) {
+            LeaderboardEntryResponse old = before.byUser().get(row.getUserId());
+            if (old == null) {
+                upserted.add(row);
+            } else if (!old.equals(row)) {
+                LeaderboardEntryResponse unmoved = copy(row);
+                unmoved.setRank(old.getRank());
+                unmoved.setScore(old.getScore());
+                unmoved.setLevel(old.getLevel());
+                unmoved.setExp(old.getExp());
+                if (unmoved.equals(old)) {
+                    moved.add(new Move(row.getUserId(), row.getRank(), row.getScore(), row.getLevel(), row.getExp()));
+                } else {
+                    upserted.add(row);
+                }
+            }
+        }
+        List<UUID> left = before.byUser().keySet().stream()
+                .filter(userId -> !after.byUser().containsKey(userId))
+                .toList();
+        if (upserted.isEmpty() && moved.isEmpty() && left.isEmpty()) return null;
+        return new LeaderboardTopDeltaResponse(leaderboardId, upserted, moved, left);
+    }
+
+    private void publish(UUID leaderboardId, LeaderboardTopDeltaResponse delta) {
+        if (delta == null || !isPublisher(leaderboardId)) return;
+        messagingTemplate.convertAndSend(TOPIC_PREFIX + leaderboardId + TOPIC_SUFFIX, delta);
+        deltas.increment();
+    }
+
+    // Outside simple mode every /topic message reaches the whole cluster, so one node publishes per leaderboard
+    private boolean isPublisher(UUID leaderboardId) {
+        if ("simple".equals(brokerMode)) return true;
+        try {
+            Long claimed = stringRedisTemplate.execute(CLAIM, List.of(PUBLISHER_PREFIX + leaderboardId),
+                    nodeId, Long.toString(refreshIntervalMs * 3));
+            return claimed != null && claimed == 1;
+        } catch (Exception e) {
+            log.warn("Leaderboard publisher claim failed for {}: {}", leaderboardId, e.getMessage());
+            return false;
+        }
+    }
+
+    private Set<UUID> subscribedLeaderboards() {
+        Set<UUID> leaderboardIds = new HashSet<>();
+        for (SimpSubscription subscription : simpUserRegistry.findSubscriptions(this::isTopDestination)) {
+            String destination = subscription.getDestination();
+            try {
+                leaderboardIds.add(UUID.fromString(destination.substring(TOPIC_PREFIX.length(),
+                        destination.length() - TOPIC_SUFFIX.length())));
+            } catch (IllegalArgumentException e) {
+                log.debug("Ignoring malformed leaderboard subscription {}", destination);
+            }
+        }
+        return leaderboardIds;
+    }
+
+    private boolean isTopDestination(SimpSubscription subscription) {
+        String destination = subscription.getDestination();
+        return destination != null && destination.length() > TOPIC_PREFIX.length() + TOPIC_SUFFIX.length()
+                && destination.startsWith(TOPIC_PREFIX) && destination.endsWith(TOPIC_SUFFIX);
+    }
+}
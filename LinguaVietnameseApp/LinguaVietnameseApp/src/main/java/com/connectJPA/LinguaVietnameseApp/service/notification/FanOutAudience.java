@@ -0,0 +1,29 @@
+package com.connectJPA.LinguaVietnameseApp.service.notification;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Recipient source for a fan-out, read in chunks. Each fetch returns up to {@code limit}
+ * candidates after the given cursor; recipients may be filtered out of a chunk, so the end of
+ * the audience is signalled by a null next cursor rather than by a short chunk.
+ */
+@FunctionalInterface
+public interface FanOutAudience {
+
+    record Chunk(List<FanOutRecipient> recipients, String nextCursor) {}
+
+    /**
+     * @param cursor null for the first chunk, otherwise the previous chunk's next cursor
+     */
+    Chunk fetch(String cursor, int limit);
+
+    static FanOutAudience of(Collection<FanOutRecipient> recipients) {
+        List<FanOutRecipient> all = List.copyOf(recipients);
+        return (cursor, limit) -> {
+            int from = cursor != null ? Integer.parseInt(cursor) : 0;
+            int to = Math.min(from + limit, all.size());
+            return new Chunk(all.subList(from, to), to < all.size() ? Integer.toString(to) : null);
+        };
+    }
+}
@@ -0,0 +1,8 @@
+package com.connectJPA.LinguaVietnameseApp.service.notification;
+
+import java.util.UUID;
+
+/**
+ * One fan-out target. {@code args} fill the %-placeholders of the localized content, if any.
+ */
+public record FanOutRecipient(UUID userId, String languageCode, Object... args) {}
@@ -0,0 +1,7 @@
+package com.connectJPA.LinguaVietnameseApp.service.notification;
+
+/**
+ * What a fan-out sends: a {@link com.connectJPA.LinguaVietnameseApp.utils.NotificationI18nUtil}
+ * message key, the notification type and the push payload shared by every recipient.
+ */
+public record FanOutTemplate(String messageKey, String type, String payload) {}
@@ -0,0 +1,250 @@
+package com.connectJPA.LinguaVietnameseApp.service.notification;
+
+import com.connectJPA.LinguaVietnameseApp.enums.NotificationType;
+import com.connectJPA.LinguaVietnameseApp.service.notification.FanOutAudience.Chunk;
+import com.connectJPA.LinguaVietnameseApp.service.notification.PushDeliveryEngine.PushJob;
+import com.connectJPA.LinguaVietnameseApp.utils.NotificationI18nUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Campaign-style notification delivery. The audience is read in chunks on the calling thread;
+ * each chunk is rendered (title/body resolved once per language) and written by a worker as one
+ * JDBC batch of notification rows plus one batch of push outbox rows, in its own transaction.
+ * A Redis per-second counter shared by all nodes caps how many recipients are queued per second,
+ * and the outbox relay does the actual FCM sends.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class NotificationFanOut {
+
+    private static final String INSERT_SQL = "INSERT INTO notifications (notification_id, user_id, title, content, type, " +
+            "language_code, payload, read, is_deleted, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, false, false, ?, ?)";
+    private static final String RATE_KEY_PREFIX = "notification:fanout:rate:";
+    private static final String DEFAULT_LANGUAGE = "en";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final NotificationOutboxWriter outboxWriter;
+    private final NotificationUnreadCounter unreadCounter;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${notification.fanout.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${notification.fanout.parallelism:4}")
+    private int parallelism;
+
+    @Value("${notification.fanout.rate-per-second:2000}")
+    private int ratePerSecond;
+
+    private record Row(UUID notificationId, FanOutRecipient recipient, String title, String content) {}
+
+    private ExecutorService workers;
+    private Semaphore inFlight;
+    private final AtomicInteger activeFanOuts = new AtomicInteger();
+    private final AtomicLong pendingChunks = new AtomicLong();
+
+    private Counter queued;
+    private Counter failed;
+    private Timer chunkTimer;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread thread = new Thread(r, "Notification-fanout-" + threadIndex.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Bounds queued chunks so a huge audience is read no faster than it is written
+        inFlight = new Semaphore(parallelism * 2);
+
+        queued = Counter.builder("notification.fanout.recipients").tag("result", "queued").register(meterRegistry);
+        failed = Counter.builder("notification.fanout.recipients").tag("result", "failed").register(meterRegistry);
+        chunkTimer = Timer.builder("notification.fanout.chunk").register(meterRegistry);
+        Gauge.builder("notification.fanout.active", activeFanOuts, AtomicInteger::get).register(meterRegistry);
+        Gauge.builder("notification.fanout.pending.chunks", pendingChunks, AtomicLong::get).register(meterRegistry);
+    }
+
+    /**
+     * Runs the fan-out, blocking until every chunk has been written. Inside a transaction it
+     * starts only after that transaction commits, so nobody is notified about a change that
+     * rolls back.
+     */
+    public void fanOut(FanOutAudience audience, FanOutTemplate template) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    run(audience, template);
+                }
+            });
+            return;
+        }
+        run(audience, template);
+    }
+
+    private void run(FanOutAudience audience, FanOutTemplate template) {
+        long startedAt = System.nanoTime();
+        AtomicLong sent = new AtomicLong();
+        AtomicLong lost = new AtomicLong();
+        Map<String, String[]> localized = new ConcurrentHashMap<>();
+        List<CompletableFuture<Void>> written = new ArrayList<>();
+        // REQUIRES_NEW because this may run in afterCommit, where the old transaction is finished
+        TransactionTemplate fetchTx = new TransactionTemplate(transactionManager);
+        fetchTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        activeFanOuts.incrementAndGet();
+        try {
+            String cursor = null;
+            int chunks = 0;
+            do {
+                String from = cursor;
+                Chunk chunk = fetchTx.execute(status -> audience.fetch(from, chunkSize));
+                if (chunk == null) break;
+                cursor = chunk.nextCursor();
+                if (chunk.recipients().isEmpty()) continue;
+
+                acquireRate(chunk.recipients().size());
+                inFlight.acquire();
+                pendingChunks.incrementAndGet();
+                chunks++;
+                written.add(CompletableFuture.runAsync(() -> {
+                    try {
+                        chunkTimer.record(() -> write(chunk.recipients(), template, localized));
+                        sent.addAndGet(chunk.recipients().size());
+                        queued.increment(chunk.recipients().size());
+                    } catch (Exception e) {
+                        lost.addAndGet(chunk.recipients().size());
+                        failed.increment(chunk.recipients().size());
+                        log.error("Fan-out {} chunk of {} failed: {}", template.type(), chunk.recipients().size(), e.getMessage());
+                    } finally {
+                        pendingChunks.decrementAndGet();
+                        inFlight.release();
+                    }
+                }, workers));
+                if (chunks % 20 == 0) {
+                    log.info("Fan-out {} progress: {} chunks dispatched, {} recipients queued", template.type(), chunks, sent.get());
+                }
+            } while (cursor != null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Fan-out {} interrupted after {} recipients", template.type(), sent.get());
+        } catch (RuntimeException e) {
+            log.error("Fan-out {} stopped reading its audience: {}", template.type(), e.getMessage());
+        } finally {
+            // Chunk tasks handle their own failures, so this only waits
+            CompletableFuture.allOf(written.toArray(CompletableFuture[]::new)).join();
+            activeFanOuts.decrementAndGet();
+        }
+
+        double seconds = Math.max((System.nanoTime() - startedAt) / 1e9, 0.001);
+        log.info("Fan-out {} done: {} queued, {} failed in {}s ({}/s)", template.type(), sent.get(), lost.get(),
+                String.format(Locale.ROOT, "%.1f", seconds), Math.round(sent.get() / seconds));
+    }
+
+    private void write(List<FanOutRecipient> recipients, FanOutTemplate template, Map<String, String[]> localized) {
+        NotificationType type = toNotificationType(template.type());
+        OffsetDateTime now = OffsetDateTime.now();
+        List<Row> rows = new ArrayList<>(recipients.size());
+        List<PushJob> pushes = new ArrayList<>(recipients.size());
+        for (FanOutRecipient recipient : recipients) {
+            String language = recipient.languageCode() != null ? recipient.languageCode().toLowerCase(Locale.ROOT) : DEFAULT_LANGUAGE;
+            String[] message = localized.computeIfAbsent(language,
+                    lang -> NotificationI18nUtil.getLocalizedMessage(template.messageKey(), lang));
+            Object[] args = recipient.args();
+            String content = args == null || args.length == 0 ? message[1] : String.format(message[1], args);
+            Row row = new Row(UUID.randomUUID(), recipient, message[0], content);
+            rows.add(row);
+            pushes.add(new PushJob(recipient.userId(), row.notificationId(), row.title(), content, template.type(), template.payload()));
+        }
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(INSERT_SQL, rows, rows.size(), (ps, row) -> {
+                ps.setObject(1, row.notificationId());
+                ps.setObject(2, row.recipient().userId());
+                ps.setString(3, row.title());
+                ps.setString(4, row.content());
+                ps.setString(5, type != null ? type.name() : null);
+                ps.setString(6, row.recipient().languageCode());
+                ps.setString(7, template.payload());
+                ps.setObject(8, now);
+                ps.setObject(9, now);
+            });
+            outboxWriter.enqueuePushes(pushes);
+            unreadCounter.adjustAllAfterCommit(recipients.stream().map(FanOutRecipient::userId).toList(), 1);
+        });
+    }
+
+    // Types without a NotificationType constant are stored without one; the push still carries the raw type
+    private static NotificationType toNotificationType(String type) {
+        if (type == null) return null;
+        try {
+            return NotificationType.valueOf(type);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Fixed one-second window shared through Redis: reserve n recipients in the current second,
+     * or wait for the next one. Falls back to no limit if Redis is unavailable.
+     */
+    private void acquireRate(int n) throws InterruptedException {
+        while (true) {
+            long second = System.currentTimeMillis() / 1000;
+            String key = RATE_KEY_PREFIX + second;
+            Long used;
+            try {
+                used = stringRedisTemplate.opsForValue().increment(key, n);
+                if (used != null && used == n) stringRedisTemplate.expire(key, Duration.ofSeconds(5));
+            } catch (Exception e) {
+                log.warn("Fan-out rate limiter unavailable: {}", e.getMessage());
+                return;
+            }
+            // A chunk larger than the whole budget is let through alone in a fresh window
+            if (used == null || used <= ratePerSecond || used == n) return;
+            TimeUnit.MILLISECONDS.sleep(Math.max(1, (second + 1) * 1000 - System.currentTimeMillis()));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        workers.shutdown();
+        workers.awaitTermination(30, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,255 @@
+package com.connectJPA.LinguaVietnameseApp.service.notification;
+
+import com.connectJPA.LinguaVietnameseApp.enums.OutboxKind;
+import com.connectJPA.LinguaVietnameseApp.enums.OutboxStatus;
+import com.connectJPA.LinguaVietnameseApp.service.email.EmailDispatcher;
+import com.connectJPA.LinguaVietnameseApp.service.email.EmailDispatcher.EmailRequest;
+import com.connectJPA.LinguaVietnameseApp.service.notification.NotificationOutboxWriter.EmailJob;
+import com.connectJPA.LinguaVietnameseApp.service.notification.PushDeliveryEngine.PushJob;
+import com.connectJPA.LinguaVietnameseApp.utils.RetryBackoff;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Drains the notification outbox. Each worker thread owns a slice of the partitions and claims
+ * due rows with FOR UPDATE SKIP LOCKED, pushing their next_attempt_at out by a lease so other
+ * workers and nodes skip them. Delivery runs outside any transaction; delivered rows are deleted,
+ * failed rows are rescheduled with exponential backoff and marked DEAD after max-attempts.
+ * A crash mid-delivery just lets the lease expire and the row is retried.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class NotificationOutboxRelay {
+
+    private static final String CLAIM_SQL = "UPDATE notification_outbox SET attempts = attempts + 1, next_attempt_at = ? " +
+            "WHERE outbox_id IN (SELECT outbox_id FROM notification_outbox WHERE status = 'PENDING' " +
+            "AND partition_key IN (%s) AND next_attempt_at <= ? ORDER BY next_attempt_at LIMIT ? FOR UPDATE SKIP LOCKED) " +
+            "RETURNING outbox_id, kind, payload, attempts, created_at";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final PushDeliveryEngine pushDeliveryEngine;
+    private final EmailDispatcher emailDispatcher;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${notification.outbox.partitions:16}")
+    private int partitions;
+
+    @Value("${notification.outbox.workers:2}")
+    private int workers;
+
+    @Value("${notification.outbox.batch-size:200}")
+    private int batchSize;
+
+    @Value("${notification.outbox.poll-interval-ms:1000}")
+    private long pollIntervalMs;
+
+    @Value("${notification.outbox.lease-ms:120000}")
+    private long leaseMs;
+
+    @Value("${notification.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${notification.outbox.base-backoff-ms:2000}")
+    private long baseBackoffMs;
+
+    @Value("${notification.outbox.max-backoff-ms:3600000}")
+    private long maxBackoffMs;
+
+    private record Claimed(UUID id, OutboxKind kind, String payload, int attempts, OffsetDateTime createdAt) {}
+
+    private record Failure(Claimed row, String error) {}
+
+    private final Object signal = new Object();
+    private final List<Thread> workerThreads = new ArrayList<>();
+    private volatile boolean running;
+
+    private Counter delivered;
+    private Counter retried;
+    private Counter dead;
+    private Timer deliveryLag;
+
+    @PostConstruct
+    public void init() {
+        delivered = Counter.builder("notification.outbox.rows").tag("result", "delivered").register(meterRegistry);
+        retried = Counter.builder("notification.outbox.rows").tag("result", "retried").register(meterRegistry);
+        dead = Counter.builder("notification.outbox.rows").tag("result", "dead").register(meterRegistry);
+        deliveryLag = Timer.builder("notification.outbox.lag")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+
+    // Started once the context is up, so the outbox table exists before the first claim
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        for (int i = 0; i < workers; i++) {
+            int worker = i;
+            String owned = IntStream.range(0, partitions)
+                    .filter(p -> p % workers == worker)
+                    .mapToObj(Integer::toString)
+                    .collect(Collectors.joining(","));
+            if (owned.isEmpty()) continue;
+            Thread thread = new Thread(() -> pollLoop(String.format(CLAIM_SQL, owned)), "Notification-outbox-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            workerThreads.add(thread);
+        }
+        log.info("Notification outbox relay started: workers={}, partitions={}, batchSize={}", workers, partitions, batchSize);
+    }
+
+    public void wakeUp() {
+        synchronized (signal) {
+            signal.notifyAll();
+        }
+    }
+
+    private void pollLoop(String claimSql) {
+        while (running) {
+            try {
+                if (drainOnce(claimSql) < batchSize) {
+                    synchronized (signal) {
+                        signal.wait(pollIntervalMs);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Notification outbox worker error", e);
+                sleepQuietly();
+            }
+        }
+    }
+
+    private int drainOnce(String claimSql) {
+        OffsetDateTime now = OffsetDateTime.now();
+        List<Claimed> rows = jdbcTemplate.query(claimSql,
+                (rs, n) -> new Claimed(rs.getObject(1, UUID.class), OutboxKind.valueOf(rs.getString(2)),
+                        rs.getString(3), rs.getInt(4), rs.getObject(5, OffsetDateTime.class)),
+                now.plus(Duration.ofMillis(leaseMs)), now, batchSize);
+        if (rows.isEmpty()) return 0;
+
+        List<Claimed> done = new ArrayList<>();
+        List<Failure> failures = new ArrayList<>();
+        List<Claimed> pushRows = new ArrayList<>();
+        List<PushJob> pushJobs = new ArrayList<>();
+        List<Claimed> emailRows = new ArrayList<>();
+        List<EmailRequest> emails = new ArrayList<>();
+        for (Claimed row : rows) {
+            try {
+                if (row.kind() == OutboxKind.PUSH) {
+                    pushJobs.add(objectMapper.readValue(row.payload(), PushJob.class));
+                    pushRows.add(row);
+                } else {
+                    emails.add(toRequest(objectMapper.readValue(row.payload(), EmailJob.class)));
+                    emailRows.add(row);
+                }
+            } catch (Exception e) {
+                failures.add(new Failure(row, e.getClass().getSimpleName() + ": " + e.getMessage()));
+            }
+        }
+
+        if (!pushJobs.isEmpty()) {
+            try {
+                BitSet retry = pushDeliveryEngine.deliver(pushJobs);
+                for (int i = 0; i < pushRows.size(); i++) {
+                    if (retry.get(i)) failures.add(new Failure(pushRows.get(i), "FCM transient failure"));
+                    else done.add(pushRows.get(i));
+                }
+            } catch (Exception e) {
+                pushRows.forEach(row -> failures.add(new Failure(row, e.getClass().getSimpleName() + ": " + e.getMessage())));
+            }
+        }
+
+        if (!emails.isEmpty()) {
+            BitSet unsent = emailDispatcher.sendNow(emails);
+            for (int i = 0; i < emailRows.size(); i++) {
+                if (unsent.get(i)) failures.add(new Failure(emailRows.get(i), "SMTP delivery failed"));
+                else done.add(emailRows.get(i));
+            }
+        }
+
+        complete(done);
+        reschedule(failures);
+        return rows.size();
+    }
+
+    private EmailRequest toRequest(EmailJob job) {
+        Locale locale = job.languageTag() != null ? Locale.forLanguageTag(job.languageTag()) : null;
+        return new EmailRequest(job.template(), job.email(), locale, job.args() != null ? job.args() : List.of());
+    }
+
+    private void complete(List<Claimed> done) {
+        if (done.isEmpty()) return;
+        jdbcTemplate.batchUpdate("DELETE FROM notification_outbox WHERE outbox_id = ?", done, done.size(),
+                (ps, row) -> ps.setObject(1, row.id()));
+        long nowMillis = System.currentTimeMillis();
+        for (Claimed row : done) {
+            deliveryLag.record(Duration.ofMillis(Math.max(0, nowMillis - row.createdAt().toInstant().toEpochMilli())));
+        }
+        delivered.increment(done.size());
+    }
+
+    private void reschedule(List<Failure> failures) {
+        if (failures.isEmpty()) return;
+        OffsetDateTime now = OffsetDateTime.now();
+        jdbcTemplate.batchUpdate("UPDATE notification_outbox SET status = ?, next_attempt_at = ?, last_error = ? WHERE outbox_id = ?",
+                failures, failures.size(), (ps, failure) -> {
+                    boolean exhausted = failure.row().attempts() >= maxAttempts;
+                    ps.setString(1, (exhausted ? OutboxStatus.DEAD : OutboxStatus.PENDING).name());
+                    ps.setObject(2, now.plus(Duration.ofMillis(RetryBackoff.jitteredMs(failure.row().attempts(), baseBackoffMs, maxBackoffMs))));
+                    ps.setString(3, failure.error());
+                    ps.setObject(4, failure.row().id());
+                });
+        for (Failure failure : failures) {
+            if (failure.row().attempts() >= maxAttempts) {
+                dead.increment();
+                log.warn("Notification outbox row {} ({}) dead after {} attempts: {}",
+                        failure.row().id(), failure.row().kind(), failure.row().attempts(), failure.error());
+            } else {
+                retried.increment();
+            }
+        }
+    }
+
+    private void sleepQuietly() {
+        try {
+            TimeUnit.MILLISECONDS.sleep(pollIntervalMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        wakeUp();
+        for (Thread worker : workerThreads) {
+            worker.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+}
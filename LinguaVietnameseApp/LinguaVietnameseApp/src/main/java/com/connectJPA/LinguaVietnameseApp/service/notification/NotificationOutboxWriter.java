@@ -0,0 +1,103 @@
+package com.connectJPA.LinguaVietnameseApp.service.notification;
+
+import com.connectJPA.LinguaVietnameseApp.dto.request.NotificationRequest;
+import com.connectJPA.LinguaVietnameseApp.enums.EmailTemplate;
+import com.connectJPA.LinguaVietnameseApp.enums.OutboxKind;
+import com.connectJPA.LinguaVietnameseApp.enums.OutboxStatus;
+import com.connectJPA.LinguaVietnameseApp.exception.ErrorCode;
+import com.connectJPA.LinguaVietnameseApp.exception.SystemException;
+import com.connectJPA.LinguaVietnameseApp.service.notification.PushDeliveryEngine.PushJob;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Writes notification side effects to the outbox table through the caller's connection, so they
+ * commit or roll back together with the change that caused them. The relay is woken after commit.
+ */
+@Component
+@RequiredArgsConstructor
+public class NotificationOutboxWriter {
+
+    private static final String INSERT_SQL = "INSERT INTO notification_outbox (outbox_id, kind, status, partition_key, " +
+            "payload, attempts, next_attempt_at, created_at) VALUES (?, ?, ?, ?, ?, 0, ?, ?)";
+
+    public record EmailJob(EmailTemplate template, String email, String languageTag, List<String> args) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final NotificationOutboxRelay relay;
+
+    @Value("${notification.outbox.partitions:16}")
+    private int partitions;
+
+    public void enqueuePush(NotificationRequest request, UUID notificationId) {
+        PushJob job = new PushJob(request.getUserId(), notificationId, request.getTitle(),
+                request.getContent(), request.getType(), request.getPayload());
+        insert(OutboxKind.PUSH, request.getUserId().hashCode(), job);
+    }
+
+    public void enqueueEmail(EmailTemplate template, String email, Locale locale, Object... args) {
+        EmailJob job = new EmailJob(template, email, locale != null ? locale.toLanguageTag() : null,
+                Arrays.stream(args).map(Objects::toString).toList());
+        insert(OutboxKind.EMAIL, email.hashCode(), job);
+    }
+
+    /**
+     * Batch variant of {@link #enqueuePush} for fan-outs: one JDBC batch for the whole chunk.
+     */
+    public void enqueuePushes(List<PushJob> jobs) {
+        if (jobs.isEmpty()) return;
+        OffsetDateTime now = OffsetDateTime.now();
+        jdbcTemplate.batchUpdate(INSERT_SQL, jobs, jobs.size(), (ps, job) -> {
+            ps.setObject(1, UUID.randomUUID());
+            ps.setString(2, OutboxKind.PUSH.name());
+            ps.setString(3, OutboxStatus.PENDING.name());
+            ps.setInt(4, Math.floorMod(job.userId().hashCode(), partitions));
+            ps.setString(5, serialize(job));
+            ps.setObject(6, now);
+            ps.setObject(7, now);
+        });
+        wakeUpAfterCommit();
+    }
+
+    private void insert(OutboxKind kind, int hash, Object job) {
+        OffsetDateTime now = OffsetDateTime.now();
+        jdbcTemplate.update(INSERT_SQL, UUID.randomUUID(), kind.name(), OutboxStatus.PENDING.name(),
+                Math.floorMod(hash, partitions), serialize(job), now, now);
+        wakeUpAfterCommit();
+    }
+
+    private String serialize(Object job) {
+        try {
+            return objectMapper.writeValueAsString(job);
+        } catch (JsonProcessingException e) {
+            throw new SystemException(ErrorCode.UNCATEGORIZED_EXCEPTION);
+        }
+    }
+
+    private void wakeUpAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    relay.wakeUp();
+                }
+            });
+        } else {
+            relay.wakeUp();
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.connectJPA.LinguaVietnameseApp.service.notification;
+
+import com.connectJPA.LinguaVietnameseApp.repository.jpa.NotificationRepository;
+import com.connectJPA.LinguaVietnameseApp.utils.AfterCommit;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Per-user unread notification count in Redis. Missing keys are loaded with one COUNT and then
+ * kept up to date with INCRBY/DECRBY after each commit; adjustments against a missing key are
+ * skipped so they can never seed a wrong value. A reconciliation job compares cached counts with
+ * the database and repairs drift, using a compare-and-set so it never overwrites a concurrent
+ * update.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class NotificationUnreadCounter {
+
+    private static final String KEY_PREFIX = "notification:unread:";
+    private static final int RECONCILE_CHUNK = 500;
+
+    private static final RedisScript<Long> ADJUST_IF_PRESENT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return -1 end " +
+            "local v = redis.call('INCRBY', KEYS[1], ARGV[1]) " +
+            "if v < 0 then redis.call('SET', KEYS[1], '0', 'KEEPTTL') return 0 end " +
+            "return v", Long.class);
+
+    private static final RedisScript<Long> COMPARE_AND_SET = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then redis.call('SET', KEYS[1], ARGV[2], 'KEEPTTL') return 1 end " +
+            "return 0", Long.class);
+
+    private final NotificationRepository notificationRepository;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${notification.unread.ttl-hours:168}")
+    private long ttlHours;
+
+    @Value("${notification.unread.reconcile-max-keys:50000}")
+    private int reconcileMaxKeys;
+
+    private Counter loads;
+    private Counter repaired;
+
+    @PostConstruct
+    public void init() {
+        loads = Counter.builder("notification.unread.loads").register(meterRegistry);
+        repaired = Counter.builder("notification.unread.repaired").register(meterRegistry);
+    }
+
+    public long get(UUID userId) {
+        String key = KEY_PREFIX + userId;
+        try {
+            String cached = stringRedisTemplate.opsForValue().get(key);
+            if (cached != null) return Long.parseLong(cached);
+        } catch (Exception e) {
+            log.warn("Redis read failed for unread count {}: {}", userId, e.getMessage());
+            return notificationRepository.countByUserIdAndReadFalseAndIsDeletedFalse(userId);
+        }
+
+        loads.increment();
+        long count = notificationRepository.countByUserIdAndReadFalseAndIsDeletedFalse(userId);
+        try {
+            stringRedisTemplate.opsForValue().setIfAbsent(key, Long.toString(count), Duration.ofHours(ttlHours));
+        } catch (Exception e) {
+            log.warn("Redis write failed for unread count {}: {}", userId, e.getMessage());
+        }
+        return count;
+    }
+
+    public void adjustAfterCommit(UUID userId, long delta) {
+        if (userId == null || delta == 0) return;
+        AfterCommit.runQuietly("Unread counter update", () -> stringRedisTemplate.execute(ADJUST_IF_PRESENT, List.of(KEY_PREFIX + userId), Long.toString(delta)));
+    }
+
+    /**
+     * Same as {@link #adjustAfterCommit} for many users at once, pipelined into one round trip.
+     */
+    public void adjustAllAfterCommit(Collection<UUID> userIds, long delta) {
+        if (userIds.isEmpty() || delta == 0) return;
+        List<UUID> targets = List.copyOf(userIds);
+        AfterCommit.runQuietly("Unread counter update", () -> stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            byte[] script = ADJUST_IF_PRESENT.getScriptAsString().getBytes(StandardCharsets.UTF_8);
+            byte[] amount = Long.toString(delta).getBytes(StandardCharsets.UTF_8);
+            for (UUID userId : targets) {
+                connection.scriptingCommands().eval(script, ReturnType.INTEGER, 1,
+                        (KEY_PREFIX + userId).getBytes(StandardCharsets.UTF_8), amount);
+            }
+            return null;
+        }));
+    }
+
+    public void resetAfterCommit(UUID userId) {
+        if (userId == null) return;
+        AfterCommit.runQuietly("Unread counter update", () -> stringRedisTemplate.opsForValue().set(KEY_PREFIX + userId, "0", Duration.ofHours(ttlHours)));
+    }
+
+    public void evictAfterCommit(UUID userId) {
+        if (userId == null) return;
+        AfterCommit.runQuietly("Unread counter update", () -> stringRedisTemplate.delete(KEY_PREFIX + userId));
+    }
+
+    @Scheduled(fixedDelayString = "${notification.unread.reconcile-interval-ms:900000}")
+    public void reconcile() {
+        try {
+            List<String> keys = scanKeys();
+            for (int from = 0; from < keys.size(); from += RECONCILE_CHUNK) {
+                reconcileChunk(keys.subList(from, Math.min(from + RECONCILE_CHUNK, keys.size())));
+            }
+        } catch (Exception e) {
+            log.warn("Unread counter reconciliation failed: {}", e.getMessage());
+        }
+    }
+
+    private List<String> scanKeys() {
+        List<String> keys = new ArrayList<>();
+        stringRedisTemplate.execute((RedisCallback<Void>) connection -> {
+            collectKeys(connection, keys);
+            return null;
+        });
+        return keys;
+    }
+
+    private void collectKeys(RedisConnection connection, List<String> keys) {
+        ScanOptions options = ScanOptions.scanOptions().match(KEY_PREFIX + "*").count(1000).build();
+        try (Cursor<byte[]> cursor = connection.keyCommands().scan(options)) {
+            while (cursor.hasNext() && keys.size() < reconcileMaxKeys) {
+                keys.add(new String(cursor.next(), StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    private void reconcileChunk(List<String> keys) {
+        List<String> observed = stringRedisTemplate.opsForValue().multiGet(keys);
+        if (observed == null) return;
+
+        List<UUID> userIds = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            userIds.add(UUID.fromString(key.substring(KEY_PREFIX.length())));
+        }
+        Map<UUID, Long> actual = new HashMap<>();
+        for (Object[] row : notificationRepository.countUnreadByUserIds(userIds)) {
+            actual.put((UUID) row[0], (Long) row[1]);
+        }
+
+        for (int i = 0; i < keys.size(); i++) {
+            String seen = observed.get(i);
+            String expected = Long.toString(actual.getOrDefault(userIds.get(i), 0L));
+            if (seen == null || Objects.equals(seen, expected)) continue;
+            Long swapped = stringRedisTemplate.execute(COMPARE_AND_SET, List.of(keys.get(i)), seen, expected);
+            if (swapped != null && swapped == 1) {
+                repaired.increment();
+                log.debug("Repaired unread count for {}: {} -> {}", userIds.get(i), seen, expected);
+            }
+        }
+    }
+}
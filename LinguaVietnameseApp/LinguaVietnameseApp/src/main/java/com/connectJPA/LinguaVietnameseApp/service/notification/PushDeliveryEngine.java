@@ -0,0 +1,244 @@
+package com.connectJPA.LinguaVietnameseApp.service.notification;
+
+import com.connectJPA.LinguaVietnameseApp.repository.jpa.UserFcmTokenRepository;
+import com.connectJPA.LinguaVietnameseApp.service.notification.PushRecipientCache.PushRecipient;
+import com.google.firebase.messaging.AndroidConfig;
+import com.google.firebase.messaging.AndroidNotification;
+import com.google.firebase.messaging.ApnsConfig;
+import com.google.firebase.messaging.Aps;
+import com.google.firebase.messaging.BatchResponse;
+import com.google.firebase.messaging.FirebaseMessaging;
+import com.google.firebase.messaging.FirebaseMessagingException;
+import com.google.firebase.messaging.Message;
+import com.google.firebase.messaging.MessagingErrorCode;
+import com.google.firebase.messaging.SendResponse;
+import com.google.gson.Gson;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Batched FCM delivery. Resolves all recipients of a batch at once through
+ * {@link PushRecipientCache} and hands every device message to FCM in sendEach calls of up to 500.
+ * Tokens FCM reports as UNREGISTERED, or rejects as malformed, are deleted so later pushes stop
+ * paying for them. Called from the notification outbox workers, never from request threads.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class PushDeliveryEngine {
+
+    private static final int FCM_BATCH_LIMIT = 500;
+    private static final String LANG_VI = "vi";
+    private static final String LANG_ZH = "zh";
+    // FCM rejects the whole message with INVALID_ARGUMENT when data uses one of these
+    private static final Set<String> RESERVED_DATA_KEYS = Set.of("from", "notification", "message_type");
+
+    private final FirebaseMessaging firebaseMessaging;
+    private final PushRecipientCache recipientCache;
+    private final UserFcmTokenRepository userFcmTokenRepository;
+    private final MeterRegistry meterRegistry;
+    private final Gson gson = new Gson();
+
+    @Value("${notification.push.dry-run:false}")
+    private boolean dryRun;
+
+    public record PushJob(UUID userId, UUID notificationId, String title, String content, String type, String payload) {}
+
+    private record Outgoing(Message message, String token, UUID userId, int job) {}
+
+    private Counter delivered;
+    private Counter failed;
+    private Counter pruned;
+    private DistributionSummary batchSizes;
+    private Timer sendTimer;
+
+    @PostConstruct
+    public void init() {
+        delivered = Counter.builder("notification.push.messages").tag("result", "delivered").register(meterRegistry);
+        failed = Counter.builder("notification.push.messages").tag("result", "failed").register(meterRegistry);
+        pruned = Counter.builder("notification.push.tokens.pruned").register(meterRegistry);
+        batchSizes = DistributionSummary.builder("notification.push.batch.size").register(meterRegistry);
+        sendTimer = Timer.builder("notification.push.send").register(meterRegistry);
+    }
+
+    /**
+     * Sends every job of the batch to all of its recipient's devices.
+     *
+     * @return indexes of jobs that reached no device and hit at least one transient failure
+     */
+    public BitSet deliver(List<PushJob> batch) {
+        batchSizes.record(batch.size());
+        Set<UUID> userIds = new LinkedHashSet<>();
+        batch.forEach(job -> userIds.add(job.userId()));
+        Map<UUID, PushRecipient> recipients = recipientCache.getAll(userIds);
+
+        List<Outgoing> outgoing = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            PushJob job = batch.get(i);
+            PushRecipient recipient = recipients.get(job.userId());
+            if (recipient == null || recipient.tokens().isEmpty()) continue;
+            Message.Builder template = render(job, recipient);
+            for (String token : recipient.tokens()) {
+                outgoing.add(new Outgoing(template.setToken(token).build(), token, job.userId(), i));
+            }
+        }
+
+        BitSet reached = new BitSet(batch.size());
+        BitSet transientFailures = new BitSet(batch.size());
+        Map<String, UUID> deadTokens = new HashMap<>();
+        for (int from = 0; from < outgoing.size(); from += FCM_BATCH_LIMIT) {
+            List<Outgoing> chunk = outgoing.subList(from, Math.min(from + FCM_BATCH_LIMIT, outgoing.size()));
+            send(chunk, reached, transientFailures, deadTokens);
+        }
+        prune(deadTokens);
+
+        transientFailures.andNot(reached);
+        return transientFailures;
+    }
+
+    private void send(List<Outgoing> chunk, BitSet reached, BitSet transientFailures, Map<String, UUID> deadTokens) {
+        List<Message> messages = chunk.stream().map(Outgoing::message).toList();
+        long startedAt = System.nanoTime();
+        try {
+            BatchResponse response = firebaseMessaging.sendEach(messages, dryRun);
+            List<SendResponse> responses = response.getResponses();
+            for (int i = 0; i < responses.size(); i++) {
+                Outgoing sent = chunk.get(i);
+                SendResponse result = responses.get(i);
+                if (result.isSuccessful()) {
+                    delivered.increment();
+                    reached.set(sent.job());
+                    continue;
+                }
+                failed.increment();
+                FirebaseMessagingException error = result.getException();
+                MessagingErrorCode code = error != null ? error.getMessagingErrorCode() : null;
+                if (isDeadToken(code, error)) {
+                    deadTokens.put(sent.token(), sent.userId());
+                } else if (code == MessagingErrorCode.INVALID_ARGUMENT) {
+                    // The message itself is bad; the same payload would fail again on every device
+                    log.warn("FCM rejected the push for user {} as malformed: {}", sent.userId(), error.getMessage());
+                } else {
+                    transientFailures.set(sent.job());
+                    log.warn("FCM error {} for user {}: {}", code, sent.userId(), error != null ? error.getMessage() : null);
+                }
+            }
+        } catch (FirebaseMessagingException e) {
+            failed.increment(chunk.size());
+            chunk.forEach(sent -> transientFailures.set(sent.job()));
+            log.error("FCM batch of {} messages failed: {}", chunk.size(), e.getMessage());
+        } finally {
+            sendTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // INVALID_ARGUMENT also covers bad payloads, so it only condemns the token when FCM says so
+    private static boolean isDeadToken(MessagingErrorCode code, FirebaseMessagingException error) {
+        if (code == MessagingErrorCode.UNREGISTERED) return true;
+        if (code != MessagingErrorCode.INVALID_ARGUMENT) return false;
+        String message = error.getMessage();
+        return message != null && message.toLowerCase().contains("registration token");
+    }
+
+    private void prune(Map<String, UUID> deadTokens) {
+        if (deadTokens.isEmpty()) return;
+        try {
+            int removed = userFcmTokenRepository.deleteByFcmTokenIn(deadTokens.keySet());
+            pruned.increment(removed);
+            new HashSet<>(deadTokens.values()).forEach(recipientCache::evict);
+            log.info("Pruned {} dead FCM tokens", removed);
+        } catch (Exception e) {
+            log.warn("Failed to prune {} dead FCM tokens: {}", deadTokens.size(), e.getMessage());
+        }
+    }
+
+    private Message.Builder render(PushJob job, PushRecipient recipient) {
+        String soundValue = recipient.soundEnabled() ? "default" : null;
+        String displayBody = job.content();
+
+        boolean isEncryptedMessage = job.type() != null && job.type().contains("CHAT");
+        if (isEncryptedMessage) {
+            if (LANG_VI.equalsIgnoreCase(recipient.languageCode())) {
+                displayBody = "Bạn có tin nhắn mới (Được mã hoá)";
+            } else if (LANG_ZH.equalsIgnoreCase(recipient.languageCode())) {
+                displayBody = "您收到一条加密消息";
+            } else {
+                displayBody = "You have a new encrypted message";
+            }
+        }
+
+        AndroidConfig androidConfig = AndroidConfig.builder()
+                .setPriority(AndroidConfig.Priority.HIGH)
+                .setTtl(3600 * 1000)
+                .setNotification(AndroidNotification.builder()
+                        .setSound(soundValue)
+                        .setChannelId("default_channel_id")
+                        .build())
+                .build();
+
+        ApnsConfig apnsConfig = ApnsConfig.builder()
+                .setAps(Aps.builder()
+                        .setSound(soundValue)
+                        .setContentAvailable(true)
+                        .setMutableContent(true)
+                        .build())
+                .build();
+
+        return Message.builder()
+                .setNotification(com.google.firebase.messaging.Notification.builder()
+                        .setTitle(job.title())
+                        .setBody(displayBody)
+                        .build())
+                .setAndroidConfig(androidConfig)
+                .setApnsConfig(apnsConfig)
+                .putAllData(dataPayload(job));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, String> dataPayload(PushJob job) {
+        Map<String, String> dataPayload = new HashMap<>();
+        dataPayload.put("type", job.type() != null ? job.type() : "DEFAULT");
+        dataPayload.put("notificationId", job.notificationId() != null ? job.notificationId().toString() : "");
+
+        if (job.payload() != null && !job.payload().isEmpty()) {
+            try {
+                Map<String, Object> rawMap = gson.fromJson(job.payload(), Map.class);
+                for (Map.Entry<String, Object> entry : rawMap.entrySet()) {
+                    if (entry.getValue() == null) continue;
+                    if (isReservedDataKey(entry.getKey())) {
+                        log.debug("Dropping reserved FCM data key {} from push {}", entry.getKey(), job.notificationId());
+                        continue;
+                    }
+                    dataPayload.put(entry.getKey(), entry.getValue().toString());
+                }
+            } catch (Exception ex) {
+                log.warn("Failed to parse JSON payload for push, sending as raw string");
+                dataPayload.put("rawPayload", job.payload());
+            }
+        }
+        return dataPayload;
+    }
+
+    private static boolean isReservedDataKey(String key) {
+        String lower = key.toLowerCase();
+        return key.isEmpty() || RESERVED_DATA_KEYS.contains(lower) || lower.startsWith("google") || lower.startsWith("gcm");
+    }
+}
@@ -0,0 +1,139 @@
+package com.connectJPA.LinguaVietnameseApp.service.notification;
+
+import com.connectJPA.LinguaVietnameseApp.entity.UserFcmToken;
+import com.connectJPA.LinguaVietnameseApp.entity.UserSettings;
+import com.connectJPA.LinguaVietnameseApp.event.UserProfileChangedEvent;
+import com.connectJPA.LinguaVietnameseApp.repository.jpa.UserFcmTokenRepository;
+import com.connectJPA.LinguaVietnameseApp.repository.jpa.UserRepository;
+import com.connectJPA.LinguaVietnameseApp.repository.jpa.UserSettingsRepository;
+import com.connectJPA.LinguaVietnameseApp.utils.NearCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Everything the push engine needs per recipient (device tokens, language, sound preference),
+ * loaded for a whole batch with three queries and kept in a near cache. Token registration,
+ * settings changes and profile updates evict locally and on every other node via Redis pub/sub.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class PushRecipientCache {
+
+    private static final String INVALIDATION_CHANNEL = "cache:invalidate:push-recipient";
+    private static final String DEFAULT_LANGUAGE = "en";
+
+    public record PushRecipient(UUID userId, List<String> tokens, String languageCode, boolean soundEnabled) {}
+
+    private final UserFcmTokenRepository userFcmTokenRepository;
+    private final UserRepository userRepository;
+    private final UserSettingsRepository userSettingsRepository;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final MeterRegistry meterRegistry;
+
+    private final NearCache<UUID, PushRecipient> nearCache = new NearCache<>(100_000, Duration.ofMinutes(30));
+
+    @PostConstruct
+    public void init() {
+        listenerContainer.addMessageListener((message, pattern) -> {
+            try {
+                nearCache.invalidate(UUID.fromString(new String(message.getBody(), StandardCharsets.UTF_8)));
+            } catch (IllegalArgumentException e) {
+                log.warn("Ignoring malformed push recipient invalidation message");
+            }
+        }, new ChannelTopic(INVALIDATION_CHANNEL));
+
+        FunctionCounter.builder("notification.push.recipient.cache.requests", nearCache, NearCache::hitCount)
+                .tag("result", "hit").register(meterRegistry);
+        FunctionCounter.builder("notification.push.recipient.cache.requests", nearCache, NearCache::missCount)
+                .tag("result", "miss").register(meterRegistry);
+    }
+
+    public Map<UUID, PushRecipient> getAll(Collection<UUID> userIds) {
+        Map<UUID, PushRecipient> result = new HashMap<>();
+        Set<UUID> missing = new LinkedHashSet<>();
+        for (UUID userId : userIds) {
+            PushRecipient cached = nearCache.getIfPresent(userId);
+            if (cached != null) result.put(userId, cached);
+            else missing.add(userId);
+        }
+        if (missing.isEmpty()) return result;
+
+        Map<UUID, List<String>> tokens = new HashMap<>();
+        for (UserFcmToken token : userFcmTokenRepository.findByUserIdInAndIsDeletedFalse(missing)) {
+            tokens.computeIfAbsent(token.getUserId(), id -> new ArrayList<>()).add(token.getFcmToken());
+        }
+        Map<UUID, String> languages = new HashMap<>();
+        for (Object[] row : userRepository.findNativeLanguageCodes(missing)) {
+            if (row[1] != null) languages.put((UUID) row[0], (String) row[1]);
+        }
+        Map<UUID, Boolean> sound = new HashMap<>();
+        for (UserSettings settings : userSettingsRepository.findAllById(missing)) {
+            sound.put(settings.getUserId(), settings.isSoundEnabled());
+        }
+
+        for (UUID userId : missing) {
+            PushRecipient recipient = new PushRecipient(userId,
+                    List.copyOf(tokens.getOrDefault(userId, List.of())),
+                    languages.getOrDefault(userId, DEFAULT_LANGUAGE),
+                    sound.getOrDefault(userId, true));
+            nearCache.put(userId, recipient);
+            result.put(userId, recipient);
+        }
+        return result;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProfileChanged(UserProfileChangedEvent event) {
+        evict(event.getUserId());
+    }
+
+    /**
+     * Evicts once the surrounding transaction commits, so a concurrent reload cannot cache the
+     * pre-commit rows again.
+     */
+    public void evictAfterCommit(UUID userId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict(userId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict(userId);
+            }
+        });
+    }
+
+    public void evict(UUID userId) {
+        if (userId == null) return;
+        nearCache.invalidate(userId);
+        try {
+            stringRedisTemplate.convertAndSend(INVALIDATION_CHANNEL, userId.toString());
+        } catch (Exception e) {
+            log.warn("Failed to propagate push recipient invalidation for {}: {}", userId, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package com.connectJPA.LinguaVietnameseApp.service.profile;
+
+import com.connectJPA.LinguaVietnameseApp.utils.AfterCommit;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Received and given admiration totals per user. The admiration_counters row is changed in the
+ * same transaction as the admiration, Redis holds the hot copy (loaded on miss, adjusted after
+ * commit when present), and a nightly job recomputes the table from the admirations themselves
+ * and evicts the users it had to repair. Every change after commit also bumps a per-user version
+ * key; a load only fills the cache if the version it saw before reading the table is unchanged,
+ * so a read that raced a commit cannot cache the old total.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class AdmirationCounters {
+
+    private static final String RECEIVED_PREFIX = "admiration:received:";
+    private static final String GIVEN_PREFIX = "admiration:given:";
+    private static final String VERSION_PREFIX = "admiration:version:";
+    // Row written once the first backfill has finished; no real user has the nil id
+    private static final UUID BACKFILL_MARKER = new UUID(0, 0);
+    private static final int EVICT_CHUNK = 500;
+
+    // The self-admiration form keeps one VALUES row, since ON CONFLICT cannot touch a row twice
+    private static final String ADJUST_SQL = "INSERT INTO admiration_counters (user_id, received_count, given_count, updated_at) " +
+            "VALUES %s ON CONFLICT (user_id) DO UPDATE SET " +
+            "received_count = GREATEST(admiration_counters.received_count + EXCLUDED.received_count, 0), " +
+            "given_count = GREATEST(admiration_counters.given_count + EXCLUDED.given_count, 0), updated_at = now() " +
+            "RETURNING user_id, received_count";
+
+    private static final String RECONCILE_SQL = "INSERT INTO admiration_counters (user_id, received_count, given_count, updated_at) " +
+            "SELECT t.user_id, SUM(t.received), SUM(t.given), now() FROM (" +
+            "SELECT user_id, COUNT(*) AS received, 0 AS given FROM admirations GROUP BY user_id " +
+            "UNION ALL SELECT sender_id, 0, COUNT(*) FROM admirations GROUP BY sender_id) t " +
+            "WHERE t.user_id IS NOT NULL GROUP BY t.user_id " +
+            "ON CONFLICT (user_id) DO UPDATE SET received_count = EXCLUDED.received_count, " +
+            "given_count = EXCLUDED.given_count, updated_at = now() " +
+            "WHERE admiration_counters.received_count <> EXCLUDED.received_count " +
+            "OR admiration_counters.given_count <> EXCLUDED.given_count " +
+            "RETURNING user_id";
+
+    private static final String RECONCILE_ORPHANS_SQL = "UPDATE admiration_counters c SET received_count = 0, given_count = 0, " +
+            "updated_at = now() WHERE (c.received_count <> 0 OR c.given_count <> 0) " +
+            "AND NOT EXISTS (SELECT 1 FROM admirations a WHERE a.user_id = c.user_id OR a.sender_id = c.user_id) " +
+            "RETURNING c.user_id";
+
+    // KEYS: counter, version; ARGV: delta, version ttl seconds
+    private static final RedisScript<Long> ADJUST_IF_PRESENT = new DefaultRedisScript<>(
+            "redis.call('INCR', KEYS[2]) redis.call('EXPIRE', KEYS[2], ARGV[2]) " +
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return -1 end " +
+            "local v = redis.call('INCRBY', KEYS[1], ARGV[1]) " +
+            "if v < 0 then redis.call('SET', KEYS[1], '0', 'KEEPTTL') return 0 end " +
+            "return v", Long.class);
+
+    // KEYS: counter, version; ARGV: version seen before the load ('' for none), value, ttl seconds
+    private static final RedisScript<Long> FILL_IF_UNCHANGED = new DefaultRedisScript<>(
+            "if (redis.call('GET', KEYS[2]) or '') ~= ARGV[1] then return 0 end " +
+            "if redis.call('SET', KEYS[1], ARGV[2], 'EX', ARGV[3], 'NX') then return 1 end " +
+            "return 0", Long.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${admiration.counters.ttl-hours:12}")
+    private long ttlHours;
+
+    private Counter loads;
+    private Counter repaired;
+
+    @PostConstruct
+    public void init() {
+        loads = Counter.builder("admiration.counters.loads").register(meterRegistry);
+        repaired = Counter.builder("admiration.counters.repaired").register(meterRegistry);
+    }
+
+    public long received(UUID userId) {
+        return receivedAll(List.of(userId)).getOrDefault(userId, 0L);
+    }
+
+    public long given(UUID userId) {
+        return counts(GIVEN_PREFIX, List.of(userId)).getOrDefault(userId, 0L);
+    }
+
+    public Map<UUID, Long> receivedAll(Collection<UUID> userIds) {
+        return counts(RECEIVED_PREFIX, userIds);
+    }
+
+    /**
+     * Applies one admiration (delta 1) or its removal (delta -1) to both users' counters through
+     * the caller's transaction.
+     *
+     * @return the target's received total after the change
+     */
+    public long adjust(UUID senderId, UUID targetId, int delta) {
+        boolean self = senderId.equals(targetId);
+        String sql = String.format(ADJUST_SQL, self ? "(?, ?, ?, now())" : "(?, ?, 0, now()), (?, 0, ?, now())");
+        Object[] args = self
+                ? new Object[]{targetId, delta, delta}
+                : new Object[]{targetId, delta, senderId, delta};
+        Map<UUID, Long> totals = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            totals.put(rs.getObject(1, UUID.class), rs.getLong(2));
+        }, args);
+
+        AfterCommit.runQuietly("Admiration counter cache update", () -> stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            byte[] script = bytes(ADJUST_IF_PRESENT.getScriptAsString());
+            byte[] amount = bytes(Integer.toString(delta));
+            byte[] ttl = bytes(Long.toString(ttlSeconds()));
+            connection.scriptingCommands().eval(script, ReturnType.INTEGER, 2,
+                    bytes(RECEIVED_PREFIX + targetId), bytes(VERSION_PREFIX + targetId), amount, ttl);
+            connection.scriptingCommands().eval(script, ReturnType.INTEGER, 2,
+                    bytes(GIVEN_PREFIX + senderId), bytes(VERSION_PREFIX + senderId), amount, ttl);
+            return null;
+        }));
+        return Math.max(0, totals.getOrDefault(targetId, 0L));
+    }
+
+    private Map<UUID, Long> counts(String prefix, Collection<UUID> userIds) {
+        List<UUID> ids = List.copyOf(new LinkedHashSet<>(userIds));
+        Map<UUID, Long> result = new HashMap<>();
+        if (ids.isEmpty()) return result;
+
+        List<UUID> missing = new ArrayList<>();
+        try {
+            List<String> cached = stringRedisTemplate.opsForValue().multiGet(ids.stream().map(id -> prefix + id).toList());
+            for (int i = 0; i < ids.size(); i++) {
+                String value = cached != null ? cached.get(i) : null;
+                if (value != null) result.put(ids.get(i), Long.parseLong(value));
+                else missing.add(ids.get(i));
+            }
+        } catch (Exception e) {
+            log.warn("Redis read failed for admiration counters: {}", e.getMessage());
+            missing = ids;
+        }
+        if (missing.isEmpty()) return result;
+
+        loads.increment();
+        List<String> versions = versions(missing);
+        Map<UUID, long[]> rows = load(missing);
+        for (UUID userId : missing) {
+            long[] counts = rows.getOrDefault(userId, new long[2]);
+            result.put(userId, RECEIVED_PREFIX.equals(prefix) ? counts[0] : counts[1]);
+        }
+        if (versions != null) cache(missing, versions, rows);
+        return result;
+    }
+
+    // Read before the table, so a commit landing in between changes the version and blocks the fill
+    private List<String> versions(List<UUID> userIds) {
+        try {
+            return stringRedisTemplate.opsForValue().multiGet(userIds.stream().map(id -> VERSION_PREFIX + id).toList());
+        } catch (Exception e) {
+            log.warn("Redis read failed for admiration counter versions: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private Map<UUID, long[]> load(List<UUID> userIds) {
+        Map<UUID, long[]> rows = new HashMap<>();
+        jdbcTemplate.query("SELECT user_id, received_count, given_count FROM admiration_counters WHERE user_id = ANY (?)",
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("uuid", userIds.toArray())),
+                rs -> {
+                    rows.put(rs.getObject(1, UUID.class), new long[]{rs.getLong(2), rs.getLong(3)});
+                });
+        return rows;
+    }
+
+    private void cache(List<UUID> userIds, List<String> versions, Map<UUID, long[]> rows) {
+        try {
+            byte[] script = bytes(FILL_IF_UNCHANGED.getScriptAsString());
+            byte[] ttl = bytes(Long.toString(ttlSeconds()));
+            stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (int i = 0; i < userIds.size(); i++) {
+                    UUID userId = userIds.get(i);
+                    byte[] version = bytes(versions.get(i) != null ? versions.get(i) : "");
+                    long[] counts = rows.getOrDefault(userId, new long[2]);
+                    connection.scriptingCommands().eval(script, ReturnType.INTEGER, 2,
+                            bytes(RECEIVED_PREFIX + userId), bytes(VERSION_PREFIX + userId), version,
+                            bytes(Long.toString(counts[0])), ttl);
+                    connection.scriptingCommands().eval(script, ReturnType.INTEGER, 2,
+                            bytes(GIVEN_PREFIX + userId), bytes(VERSION_PREFIX + userId), version,
+                            bytes(Long.toString(counts[1])), ttl);
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            log.warn("Redis write failed for admiration counters: {}", e.getMessage());
+        }
+    }
+
+    // First start after the counters table appears: fill it before the nightly run would. Admirations
+    // made in the meantime already create counter rows, so completion is recorded in a marker row
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnce() {
+        Thread thread = new Thread(() -> {
+            try {
+                if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                        "SELECT EXISTS (SELECT 1 FROM admiration_counters WHERE user_id = ?)", Boolean.class, BACKFILL_MARKER))) {
+                    reconcileNow();
+                    jdbcTemplate.update("INSERT INTO admiration_counters (user_id, received_count, given_count, updated_at) " +
+                            "VALUES (?, 0, 0, now()) ON CONFLICT (user_id) DO NOTHING", BACKFILL_MARKER);
+                }
+            } catch (Exception e) {
+                log.warn("Admiration counter backfill failed: {}", e.getMessage());
+            }
+        }, "Admiration-counter-backfill");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Scheduled(cron = "${admiration.counters.reconcile-cron:0 30 3 * * *}", zone = "UTC")
+    public void reconcile() {
+        try {
+            reconcileNow();
+        } catch (Exception e) {
+            log.warn("Admiration counter reconciliation failed: {}", e.getMessage());
+        }
+    }
+
+    private void reconcileNow() {
+        List<UUID> changed = new ArrayList<>(jdbcTemplate.queryForList(RECONCILE_SQL, UUID.class));
+        changed.addAll(jdbcTemplate.queryForList(RECONCILE_ORPHANS_SQL, UUID.class));
+        repaired.increment(changed.size());
+        for (int from = 0; from < changed.size(); from += EVICT_CHUNK) {
+            evict(changed.subList(from, Math.min(from + EVICT_CHUNK, changed.size())));
+        }
+        if (!changed.isEmpty()) log.info("Reconciled admiration counters for {} users", changed.size());
+    }
+
+    // Bumps the versions too, so loads that read the table before the repair do not cache it
+    private void evict(List<UUID> userIds) {
+        long ttl = ttlSeconds();
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (UUID userId : userIds) {
+                byte[] version = bytes(VERSION_PREFIX + userId);
+                connection.stringCommands().incr(version);
+                connection.keyCommands().expire(version, ttl);
+                connection.keyCommands().del(bytes(RECEIVED_PREFIX + userId), bytes(GIVEN_PREFIX + userId));
+            }
+            return null;
+        });
+    }
+
+    private long ttlSeconds() {
+        return Duration.ofHours(ttlHours).toSeconds();
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
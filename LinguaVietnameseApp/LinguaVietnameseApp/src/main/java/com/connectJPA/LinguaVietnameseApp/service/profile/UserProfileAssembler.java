@@ -0,0 +1,650 @@
+package com.connectJPA.LinguaVietnameseApp.service.profile;
+
+import com.connectJPA.LinguaVietnameseApp.dto.response.BadgeResponse;
+import com.connectJPA.LinguaVietnameseApp.dto.response.Character3dResponse;
+import com.connectJPA.LinguaVietnameseApp.dto.response.CoupleProfileDetailedResponse;
+import com.connectJPA.LinguaVietnameseApp.dto.response.CourseSummaryResponse;
+import com.connectJPA.LinguaVietnameseApp.dto.response.DatingInviteSummary;
+import com.connectJPA.LinguaVietnameseApp.dto.response.FriendRequestStatusResponse;
+import com.connectJPA.LinguaVietnameseApp.dto.response.FriendshipResponse;
+import com.connectJPA.LinguaVietnameseApp.dto.response.MemorySummaryResponse;
+import com.connectJPA.LinguaVietnameseApp.dto.response.UserProfileResponse;
+import com.connectJPA.LinguaVietnameseApp.dto.response.UserStatsResponse;
+import com.connectJPA.LinguaVietnameseApp.entity.Character3d;
+import com.connectJPA.LinguaVietnameseApp.entity.Couple;
+import com.connectJPA.LinguaVietnameseApp.entity.Course;
+import com.connectJPA.LinguaVietnameseApp.entity.DatingInvite;
+import com.connectJPA.LinguaVietnameseApp.entity.Friendship;
+import com.connectJPA.LinguaVietnameseApp.entity.User;
+import com.connectJPA.LinguaVietnameseApp.entity.UserBadge;
+import com.connectJPA.LinguaVietnameseApp.enums.CoupleStatus;
+import com.connectJPA.LinguaVietnameseApp.enums.DatingInviteStatus;
+import com.connectJPA.LinguaVietnameseApp.enums.FriendshipStatus;
+import com.connectJPA.LinguaVietnameseApp.enums.ProfileSection;
+import com.connectJPA.LinguaVietnameseApp.enums.RoleName;
+import com.connectJPA.LinguaVietnameseApp.event.LeaderboardProgressEvent;
+import com.connectJPA.LinguaVietnameseApp.event.ProfileSectionChangedEvent;
+import com.connectJPA.LinguaVietnameseApp.event.UserProfileChangedEvent;
+import com.connectJPA.LinguaVietnameseApp.mapper.BadgeMapper;
+import com.connectJPA.LinguaVietnameseApp.mapper.Character3dMapper;
+import com.connectJPA.LinguaVietnameseApp.mapper.UserMapper;
+import com.connectJPA.LinguaVietnameseApp.repository.jpa.AdmirationRepository;
+import com.connectJPA.LinguaVietnameseApp.repository.jpa.Character3dRepository;
+import com.connectJPA.LinguaVietnameseApp.repository.jpa.ChatMessageRepository;
+import com.connectJPA.LinguaVietnameseApp.repository.jpa.CoupleRepository;
+import com.connectJPA.LinguaVietnameseApp.repository.jpa.CourseRepository;
+import com.connectJPA.LinguaVietnameseApp.repository.jpa.DatingInviteRepository;
+import com.connectJPA.LinguaVietnameseApp.repository.jpa.FriendshipRepository;
+import com.connectJPA.LinguaVietnameseApp.repository.jpa.UserBadgeRepository;
+import com.connectJPA.LinguaVietnameseApp.repository.jpa.UserLanguageRepository;
+import com.connectJPA.LinguaVietnameseApp.repository.jpa.UserRoleRepository;
+import com.connectJPA.LinguaVietnameseApp.repository.jpa.VideoCallRepository;
+import com.connectJPA.LinguaVietnameseApp.service.EventService;
+import com.connectJPA.LinguaVietnameseApp.service.FriendshipService;
+import com.connectJPA.LinguaVietnameseApp.service.LeaderboardEntryService;
+import com.connectJPA.LinguaVietnameseApp.utils.NearCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Builds {@link UserProfileResponse}s from independent sections fetched in parallel on virtual
+ * threads. Each section loads a whole page of users with one query per table and is stitched in
+ * memory. Sections that do not depend on the viewer are kept per target in near caches and
+ * evicted section by section, locally and on other nodes through Redis pub/sub. Each section runs
+ * in its own read-only transaction and falls back to its empty value when it fails, waits too long
+ * for a permit or misses the section timeout, so a profile view costs roughly its slowest section.
+ * Sections that fell back are named in the response's unavailableSections, so clients can tell
+ * "none" from "not loaded".
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class UserProfileAssembler {
+
+    private static final String INVALIDATION_CHANNEL = "cache:invalidate:profile-sections";
+    private static final int CACHE_SIZE = 20_000;
+
+    private record Identity(List<String> languages, Character3dResponse character3d) {}
+
+    private record ActivityCounts(long totalMessages, long translationsUsed, long videoCalls) {}
+
+    private record Teaching(boolean teacher, List<CourseSummaryResponse> courses) {}
+
+    private record CoupleSnapshot(UUID coupleId, CoupleStatus status, UUID partnerId, String partnerName,
+                                  String partnerNickname, String partnerAvatar, LocalDate startDate,
+                                  OffsetDateTime coupleStartDate, OffsetDateTime exploringExpiresAt,
+                                  String sharedAvatarUrl) {}
+
+    private record Friendliness(boolean friend, boolean hasSentRequest, boolean hasReceivedRequest, long durationDays) {}
+
+    private record PrivateInbox(List<FriendshipResponse> friendRequests, List<DatingInviteSummary> datingInvites) {}
+
+    private static final Identity NO_IDENTITY = new Identity(List.of(), null);
+    private static final Teaching NO_TEACHING = new Teaching(false, List.of());
+    private static final Friendliness NO_FRIENDSHIP = new Friendliness(false, false, false, 0);
+
+    private final UserMapper userMapper;
+    private final UserLanguageRepository userLanguageRepository;
+    private final Character3dRepository character3dRepository;
+    private final Character3dMapper character3dMapper;
+    private final ChatMessageRepository chatMessageRepository;
+    private final VideoCallRepository videoCallRepository;
+    private final UserBadgeRepository userBadgeRepository;
+    private final BadgeMapper badgeMapper;
+    private final UserRoleRepository userRoleRepository;
+    private final CourseRepository courseRepository;
+    private final LeaderboardEntryService leaderboardEntryService;
+    private final CoupleRepository coupleRepository;
+    private final FriendshipService friendshipService;
+    private final FriendshipRepository friendshipRepository;
+    private final AdmirationCounters admirationCounters;
+    private final AdmirationRepository admirationRepository;
+    private final DatingInviteRepository datingInviteRepository;
+    private final EventService eventService;
+    private final PlatformTransactionManager transactionManager;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${profile.assembly.section-timeout-ms:1500}")
+    private long sectionTimeoutMs;
+
+    // Every running section can hold a connection, so this has to stay well below the pool size
+    @Value("${profile.assembly.max-concurrent-sections:4}")
+    private int maxConcurrentSections;
+
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private int connectionPoolSize;
+
+    private final NearCache<UUID, Identity> identities = new NearCache<>(CACHE_SIZE, Duration.ofMinutes(15));
+    private final NearCache<UUID, ActivityCounts> activities = new NearCache<>(CACHE_SIZE, Duration.ofMinutes(5));
+    private final NearCache<UUID, List<BadgeResponse>> badges = new NearCache<>(CACHE_SIZE, Duration.ofMinutes(15));
+    private final NearCache<UUID, Teaching> teachings = new NearCache<>(CACHE_SIZE, Duration.ofMinutes(15));
+    private final NearCache<UUID, Map<String, Integer>> ranks = new NearCache<>(CACHE_SIZE, Duration.ofMinutes(1));
+    private final NearCache<UUID, Optional<CoupleSnapshot>> couples = new NearCache<>(CACHE_SIZE, Duration.ofMinutes(15));
+
+    private final Map<ProfileSection, NearCache<UUID, ?>> caches = new EnumMap<>(ProfileSection.class);
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("Profile-section-", 0).factory());
+    private Semaphore permits;
+    private TransactionTemplate readOnly;
+
+    @PostConstruct
+    public void init() {
+        permits = new Semaphore(Math.max(1, Math.min(maxConcurrentSections, connectionPoolSize / 2)));
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        // Applied as a JDBC query timeout, so a section that overruns gives its connection back
+        readOnly.setTimeout(Math.max(1, (int) Math.ceil(sectionTimeoutMs / 1000.0)));
+
+        caches.put(ProfileSection.IDENTITY, identities);
+        caches.put(ProfileSection.ACTIVITY, activities);
+        caches.put(ProfileSection.BADGES, badges);
+        caches.put(ProfileSection.TEACHING, teachings);
+        caches.put(ProfileSection.RANKS, ranks);
+        caches.put(ProfileSection.COUPLE, couples);
+
+        listenerContainer.addMessageListener((message, pattern) -> {
+            try {
+                String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split(":", 2);
+                evictLocal(UUID.fromString(parts[1]), "ALL".equals(parts[0]) ? null : ProfileSection.valueOf(parts[0]));
+            } catch (RuntimeException e) {
+                log.warn("Ignoring malformed profile section invalidation message");
+            }
+        }, new ChannelTopic(INVALIDATION_CHANNEL));
+
+        caches.forEach((section, cache) -> {
+            String name = section.name().toLowerCase();
+            FunctionCounter.builder("profile.section.cache.requests", cache, NearCache::hitCount)
+                    .tag("section", name).tag("result", "hit").register(meterRegistry);
+            FunctionCounter.builder("profile.section.cache.requests", cache, NearCache::missCount)
+                    .tag("section", name).tag("result", "miss").register(meterRegistry);
+        });
+    }
+
+    public UserProfileResponse assemble(UUID viewerId, User target) {
+        return assembleAll(viewerId, List.of(target)).get(0);
+    }
+
+    /**
+     * Profiles for a page of users, in the given order. Every section is loaded for all cache
+     * misses at once, so the number of queries does not grow with the page size.
+     */
+    public List<UserProfileResponse> assembleAll(UUID viewerId, List<User> targets) {
+        if (targets.isEmpty()) return List.of();
+        Map<UUID, User> usersById = new LinkedHashMap<>();
+        for (User target : targets) usersById.put(target.getUserId(), target);
+        List<UUID> ids = List.copyOf(usersById.keySet());
+        boolean hasViewer = viewerId != null;
+        Map<String, Set<UUID>> unavailable = new ConcurrentHashMap<>();
+
+        CompletableFuture<Map<UUID, Identity>> identity = cachedAll(identities, ids, unavailable, "identity", true,
+                missing -> loadIdentities(missing, usersById));
+        CompletableFuture<Map<UUID, ActivityCounts>> activity = cachedAll(activities, ids, unavailable, "activity", true,
+                this::loadActivityCounts);
+        CompletableFuture<Map<UUID, List<BadgeResponse>>> badgeLists = cachedAll(badges, ids, unavailable, "badges", true,
+                this::loadBadges);
+        CompletableFuture<Map<UUID, Teaching>> teaching = cachedAll(teachings, ids, unavailable, "teaching", true,
+                this::loadTeaching);
+        CompletableFuture<Map<UUID, Map<String, Integer>>> rankMaps = cachedAll(ranks, ids, unavailable, "ranks", false,
+                missing -> loadRanks(missing, usersById));
+        CompletableFuture<Map<UUID, Optional<CoupleSnapshot>>> couple = cachedAll(couples, ids, unavailable, "couple", true,
+                this::loadCouples);
+        CompletableFuture<Map<UUID, Long>> admirationCounts = submit("admiration", false,
+                () -> admirationCounters.receivedAll(ids), Map.of(), unavailable, ids);
+
+        CompletableFuture<Map<UUID, Friendliness>> friendliness = hasViewer
+                ? submit("friendship", true, () -> loadFriendliness(viewerId, ids), null, unavailable, ids)
+                : CompletableFuture.completedFuture(null);
+        CompletableFuture<Set<UUID>> admired = hasViewer
+                ? submit("has-admired", true, () -> Set.copyOf(admirationRepository.findAdmiredUserIds(viewerId, ids)), Set.of(),
+                        unavailable, ids)
+                : CompletableFuture.completedFuture(Set.of());
+        CompletableFuture<Map<UUID, DatingInviteSummary>> invites = hasViewer
+                ? submit("dating-invite", true, () -> loadInviteSummaries(viewerId, ids), Map.of(), unavailable, ids)
+                : CompletableFuture.completedFuture(Map.of());
+        CompletableFuture<Map<UUID, List<MemorySummaryResponse>>> memories = hasViewer
+                ? submit("mutual-memories", true, () -> eventService.findMutualMemories(viewerId, ids), Map.of(),
+                        unavailable, ids)
+                : CompletableFuture.completedFuture(Map.of());
+        CompletableFuture<PrivateInbox> inbox = hasViewer && usersById.containsKey(viewerId)
+                ? submit("private-inbox", true, () -> loadPrivateInbox(viewerId), null, unavailable, List.of(viewerId))
+                : CompletableFuture.completedFuture(null);
+
+        List<UserProfileResponse> responses = new ArrayList<>(ids.size());
+        for (User target : usersById.values()) {
+            UUID targetId = target.getUserId();
+            UserProfileResponse resp = userMapper.toProfileResponse(target);
+            resp.setAllowStrangerChat(true);
+            if (target.getCountry() != null) {
+                resp.setFlag(target.getCountry().name());
+            }
+
+            Identity targetIdentity = identity.join().getOrDefault(targetId, NO_IDENTITY);
+            resp.setLanguages(targetIdentity.languages());
+            resp.setCharacter3d(targetIdentity.character3d());
+            ActivityCounts counts = activity.join().get(targetId);
+            if (counts != null) resp.setStats(stats(target, counts));
+            resp.setBadges(badgeLists.join().get(targetId));
+
+            Friendliness friends = friendliness.join() != null
+                    ? friendliness.join().getOrDefault(targetId, NO_FRIENDSHIP)
+                    : null;
+            FriendRequestStatusResponse requestStatus = FriendRequestStatusResponse.builder()
+                    .hasSentRequest(friends != null && friends.hasSentRequest())
+                    .hasReceivedRequest(friends != null && friends.hasReceivedRequest())
+                    .build();
+            boolean isFriend = friends != null && friends.friend();
+            resp.setFriend(isFriend);
+            resp.setFriendshipDurationDays(friends != null ? friends.durationDays() : 0);
+            resp.setFriendRequestStatus(requestStatus);
+            resp.setCanSendFriendRequest(hasViewer && !isFriend && !requestStatus.isHasSentRequest());
+            resp.setCanUnfriend(isFriend);
+            resp.setCanBlock(friends != null);
+
+            resp.setAdmirationCount(admirationCounts.join().getOrDefault(targetId, 0L));
+            resp.setHasAdmired(admired.join().contains(targetId));
+
+            Teaching teach = teaching.join().getOrDefault(targetId, NO_TEACHING);
+            resp.setTeacher(teach.teacher());
+            resp.setTeacherCourses(teach.courses());
+            resp.setLeaderboardRanks(new HashMap<>(rankMaps.join().getOrDefault(targetId, Map.of())));
+            couple.join().getOrDefault(targetId, Optional.empty()).ifPresent(c -> applyCouple(resp, c));
+
+            resp.setDatingInviteSummary(invites.join().get(targetId));
+            if (hasViewer) resp.setMutualMemories(memories.join().getOrDefault(targetId, Collections.emptyList()));
+            PrivateInbox privateInbox = inbox.join();
+            if (privateInbox != null && targetId.equals(viewerId)) {
+                resp.setPrivateFriendRequests(privateInbox.friendRequests());
+                resp.setPrivateDatingInvites(privateInbox.datingInvites());
+            }
+            List<String> missingSections = new ArrayList<>();
+            unavailable.forEach((section, affected) -> {
+                if (affected.contains(targetId)) missingSections.add(section);
+            });
+            Collections.sort(missingSections);
+            resp.setUnavailableSections(missingSections);
+            responses.add(resp);
+        }
+        return responses;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProfileChanged(UserProfileChangedEvent event) {
+        evict(event.getUserId(), null);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSectionChanged(ProfileSectionChangedEvent event) {
+        evict(event.getUserId(), event.getSection());
+    }
+
+    // Own progress moves the user's ranks at once; other users' progress is left to the short TTL
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProgress(LeaderboardProgressEvent event) {
+        if (event.getUserId() != null) ranks.invalidate(event.getUserId());
+    }
+
+    /**
+     * Drops one section (or all of them when {@code section} is null) for the user on every node.
+     */
+    public void evict(UUID userId, ProfileSection section) {
+        if (userId == null) return;
+        evictLocal(userId, section);
+        try {
+            stringRedisTemplate.convertAndSend(INVALIDATION_CHANNEL, (section != null ? section.name() : "ALL") + ":" + userId);
+        } catch (Exception e) {
+            log.warn("Failed to propagate profile section invalidation for {}: {}", userId, e.getMessage());
+        }
+    }
+
+    private void evictLocal(UUID userId, ProfileSection section) {
+        if (section != null) {
+            caches.get(section).invalidate(userId);
+        } else {
+            caches.values().forEach(cache -> cache.invalidate(userId));
+        }
+    }
+
+    // Cache hits are served as is, the misses go to the loader in one call; users the loader leaves
+    // out are not cached, and when the load fails only the misses are reported unavailable
+    private <T> CompletableFuture<Map<UUID, T>> cachedAll(NearCache<UUID, T> cache, List<UUID> ids,
+                                                          Map<String, Set<UUID>> unavailable, String name,
+                                                          boolean transactional, Function<List<UUID>, Map<UUID, T>> loader) {
+        Map<UUID, T> hits = new HashMap<>();
+        List<UUID> missing = new ArrayList<>();
+        for (UUID id : ids) {
+            T hit = cache.getIfPresent(id);
+            if (hit != null) hits.put(id, hit);
+            else missing.add(id);
+        }
+        if (missing.isEmpty()) return CompletableFuture.completedFuture(hits);
+        return submit(name, transactional, () -> {
+            Map<UUID, T> loaded = loader.apply(missing);
+            Map<UUID, T> merged = new HashMap<>(hits);
+            for (UUID id : missing) {
+                T value = loaded.get(id);
+                if (value == null) continue;
+                cache.put(id, value);
+                merged.put(id, value);
+            }
+            return merged;
+        }, hits, unavailable, missing);
+    }
+
+    private <T> CompletableFuture<T> submit(String name, boolean transactional, Supplier<T> work, T fallback,
+                                            Map<String, Set<UUID>> unavailable, Collection<UUID> affected) {
+        Timer timer = meterRegistry.timer("profile.section", "section", name);
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicBoolean settled = new AtomicBoolean();
+        AtomicBoolean running = new AtomicBoolean();
+        // Marked before completing, so the marker is in place by the time the caller joins
+        Consumer<String> giveUp = reason -> {
+            if (!settled.compareAndSet(false, true)) return;
+            meterRegistry.counter("profile.section.unavailable", "section", name, "reason", reason).increment();
+            unavailable.computeIfAbsent(name, k -> ConcurrentHashMap.newKeySet()).addAll(affected);
+            result.complete(fallback);
+        };
+        Future<?> task = executor.submit(() -> {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                giveUp.accept("busy");
+                return;
+            }
+            running.set(true);
+            long startedAt = System.nanoTime();
+            try {
+                T value = transactional ? readOnly.execute(status -> work.get()) : work.get();
+                if (settled.compareAndSet(false, true)) result.complete(value);
+            } catch (RuntimeException e) {
+                log.debug("Profile section {} failed: {}", name, e.getMessage());
+                giveUp.accept("error");
+            } finally {
+                timer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+                permits.release();
+            }
+        });
+        // Interrupt the section too, so a slow one stops waiting for a permit or gives back its
+        // permit and connection instead of running on
+        CompletableFuture.delayedExecutor(sectionTimeoutMs, TimeUnit.MILLISECONDS).execute(() -> {
+            giveUp.accept(running.get() ? "timeout" : "busy");
+            if (!task.isDone()) task.cancel(true);
+        });
+        return result;
+    }
+
+    private Map<UUID, Identity> loadIdentities(List<UUID> userIds, Map<UUID, User> usersById) {
+        Map<UUID, List<String>> languages = new HashMap<>();
+        for (Object[] row : userLanguageRepository.findLanguageCodesByUserIds(userIds)) {
+            languages.computeIfAbsent((UUID) row[0], k -> new ArrayList<>()).add((String) row[1]);
+        }
+        Set<UUID> characterIds = new HashSet<>();
+        for (UUID userId : userIds) {
+            UUID characterId = usersById.get(userId).getCharacter3dId();
+            if (characterId != null) characterIds.add(characterId);
+        }
+        Map<UUID, Character3dResponse> characters = new HashMap<>();
+        if (!characterIds.isEmpty()) {
+            for (Character3d character : character3dRepository.findByCharacter3dIdInAndIsDeletedFalse(characterIds)) {
+                characters.put(character.getCharacter3dId(), character3dMapper.toResponse(character));
+            }
+        }
+
+        Map<UUID, Identity> result = new HashMap<>();
+        for (UUID userId : userIds) {
+            UUID characterId = usersById.get(userId).getCharacter3dId();
+            result.put(userId, new Identity(List.copyOf(languages.getOrDefault(userId, List.of())),
+                    characterId != null ? characters.get(characterId) : null));
+        }
+        return result;
+    }
+
+    private Map<UUID, ActivityCounts> loadActivityCounts(List<UUID> userIds) {
+        Map<UUID, Long> messages = counts(chatMessageRepository.countSentMessagesByUserIds(userIds));
+        counts(chatMessageRepository.countReceivedMessagesByUserIds(userIds)).forEach((id, n) -> messages.merge(id, n, Long::sum));
+        Map<UUID, Long> translations = counts(chatMessageRepository.countTranslationsByUserIds(userIds));
+        Map<UUID, Long> calls = counts(videoCallRepository.countCompletedCallsByCallerIds(userIds));
+        counts(videoCallRepository.countCompletedCallsByCalleeIds(userIds)).forEach((id, n) -> calls.merge(id, n, Long::sum));
+
+        Map<UUID, ActivityCounts> result = new HashMap<>();
+        for (UUID userId : userIds) {
+            result.put(userId, new ActivityCounts(messages.getOrDefault(userId, 0L),
+                    translations.getOrDefault(userId, 0L), calls.getOrDefault(userId, 0L)));
+        }
+        return result;
+    }
+
+    private static Map<UUID, Long> counts(List<Object[]> rows) {
+        Map<UUID, Long> counts = new HashMap<>();
+        for (Object[] row : rows) counts.put((UUID) row[0], (Long) row[1]);
+        return counts;
+    }
+
+    private Map<UUID, List<BadgeResponse>> loadBadges(List<UUID> userIds) {
+        Map<UUID, List<BadgeResponse>> lists = new HashMap<>();
+        for (UserBadge userBadge : userBadgeRepository.findWithBadgeByUserIds(userIds)) {
+            lists.computeIfAbsent(userBadge.getId().getUserId(), k -> new ArrayList<>()).add(badgeMapper.toResponse(userBadge.getBadge()));
+        }
+        Map<UUID, List<BadgeResponse>> result = new HashMap<>();
+        for (UUID userId : userIds) {
+            result.put(userId, List.copyOf(lists.getOrDefault(userId, List.of())));
+        }
+        return result;
+    }
+
+    private UserStatsResponse stats(User target, ActivityCounts counts) {
+        OffsetDateTime lastActive = target.getLastActiveAt();
+        return UserStatsResponse.builder()
+                .userId(target.getUserId())
+                .totalMessages(counts.totalMessages())
+                .translationsUsed(counts.translationsUsed())
+                .videoCalls(counts.videoCalls())
+                .lastActiveAt(lastActive)
+                .online(lastActive != null && lastActive.isAfter(OffsetDateTime.now().minusMinutes(5)))
+                .level(target.getLevel())
+                .exp(target.getExp())
+                .streak(target.getStreak())
+                .build();
+    }
+
+    private Map<UUID, Teaching> loadTeaching(List<UUID> userIds) {
+        Set<UUID> teachers = new HashSet<>(userRoleRepository.findUserIdsWithRole(userIds, RoleName.TEACHER));
+        Map<UUID, List<CourseSummaryResponse>> courses = new HashMap<>();
+        if (!teachers.isEmpty()) {
+            for (Course course : courseRepository.findByCreatorIdInAndIsDeletedFalse(teachers)) {
+                courses.computeIfAbsent(course.getCreatorId(), k -> new ArrayList<>())
+                        .add(new CourseSummaryResponse(course.getCourseId(), course.getTitle()));
+            }
+        }
+        Map<UUID, Teaching> result = new HashMap<>();
+        for (UUID userId : userIds) {
+            result.put(userId, teachers.contains(userId)
+                    ? new Teaching(true, List.copyOf(courses.getOrDefault(userId, List.of())))
+                    : NO_TEACHING);
+        }
+        return result;
+    }
+
+    // Ranks come from the Redis rank index, one pipelined lookup per board for the whole page
+    private Map<UUID, Map<String, Integer>> loadRanks(List<UUID> userIds, Map<UUID, User> usersById) {
+        Map<UUID, Map<String, Integer>> result = new HashMap<>();
+        for (UUID userId : userIds) result.put(userId, new HashMap<>());
+        collectRanks(result, "global_student", leaderboardEntryService.getRanksForUsersByTab("global", "student", userIds));
+
+        Map<String, List<UUID>> byCountry = new HashMap<>();
+        for (UUID userId : userIds) {
+            User target = usersById.get(userId);
+            if (target.getCountry() != null) {
+                byCountry.computeIfAbsent(target.getCountry().name(), k -> new ArrayList<>()).add(userId);
+            }
+        }
+        byCountry.forEach((country, members) -> collectRanks(result, "country_student",
+                leaderboardEntryService.getRanksForUsersByTab(country, "student", members)));
+
+        collectRanks(result, "teacher", leaderboardEntryService.getRanksForUsersByTab("global", "teacher", userIds));
+        result.replaceAll((userId, userRanks) -> Map.copyOf(userRanks));
+        return result;
+    }
+
+    private static void collectRanks(Map<UUID, Map<String, Integer>> result, String name, Map<UUID, Integer> ranks) {
+        ranks.forEach((userId, rank) -> result.get(userId).put(name, rank));
+    }
+
+    private Map<UUID, Optional<CoupleSnapshot>> loadCouples(List<UUID> userIds) {
+        Map<UUID, Optional<CoupleSnapshot>> result = new HashMap<>();
+        for (UUID userId : userIds) result.put(userId, Optional.empty());
+        for (Couple c : coupleRepository.findAllByUserIds(userIds)) {
+            for (UUID userId : List.of(c.getUser1().getUserId(), c.getUser2().getUserId())) {
+                if (result.containsKey(userId) && result.get(userId).isEmpty()) {
+                    result.put(userId, Optional.of(snapshot(c, userId)));
+                }
+            }
+        }
+        return result;
+    }
+
+    private CoupleSnapshot snapshot(Couple c, UUID targetId) {
+        User partner = c.getUser1().getUserId().equals(targetId) ? c.getUser2() : c.getUser1();
+        return new CoupleSnapshot(c.getId(), c.getStatus(), partner.getUserId(), partner.getFullname(),
+                partner.getNickname(), partner.getAvatarUrl(), c.getStartDate(), c.getCoupleStartDate(),
+                c.getExploringExpiresAt(), c.getSharedAvatarUrl());
+    }
+
+    private void applyCouple(UserProfileResponse resp, CoupleSnapshot c) {
+        long daysInLove = 0;
+        if (c.startDate() != null) {
+            daysInLove = ChronoUnit.DAYS.between(c.startDate(), LocalDate.now());
+        } else if (c.coupleStartDate() != null) {
+            daysInLove = ChronoUnit.DAYS.between(c.coupleStartDate().toLocalDate(), LocalDate.now());
+        }
+        resp.setCoupleInfo(CoupleProfileDetailedResponse.builder()
+                .coupleId(c.coupleId())
+                .status(c.status().name())
+                .partnerId(c.partnerId())
+                .partnerName(c.partnerName())
+                .partnerNickname(c.partnerNickname())
+                .partnerAvatar(c.partnerAvatar())
+                .startDate(c.startDate())
+                .daysInLove(Math.max(0, daysInLove))
+                .sharedAvatarUrl(c.sharedAvatarUrl())
+                .build());
+
+        if (c.status() == CoupleStatus.EXPLORING && c.exploringExpiresAt() != null) {
+            long seconds = Math.max(0, Duration.between(OffsetDateTime.now(), c.exploringExpiresAt()).getSeconds());
+            long days = seconds / (24 * 3600);
+            long hours = (seconds % (24 * 3600)) / 3600;
+            resp.setExploringExpiresInHuman(days + " ngày " + hours + " giờ");
+            resp.setExploringExpiringSoon(seconds > 0 && seconds <= (2 * 24 * 3600));
+        }
+    }
+
+    private Map<UUID, Friendliness> loadFriendliness(UUID viewerId, List<UUID> userIds) {
+        Map<UUID, Friendship> sent = new HashMap<>();
+        Map<UUID, Friendship> received = new HashMap<>();
+        for (Friendship f : friendshipRepository.findEdgesBetween(viewerId, userIds)) {
+            if (viewerId.equals(f.getId().getRequesterId())) sent.put(f.getId().getReceiverId(), f);
+            else received.put(f.getId().getRequesterId(), f);
+        }
+
+        Map<UUID, Friendliness> result = new HashMap<>();
+        for (UUID userId : userIds) {
+            Friendship out = sent.get(userId);
+            Friendship in = received.get(userId);
+            boolean friend = (out != null && out.getStatus() == FriendshipStatus.ACCEPTED)
+                    || (in != null && in.getStatus() == FriendshipStatus.ACCEPTED);
+            long durationDays = 0;
+            if (friend) {
+                Friendship f = out != null ? out : in;
+                OffsetDateTime startDate = f.getUpdatedAt() != null ? f.getUpdatedAt() : f.getCreatedAt();
+                durationDays = ChronoUnit.DAYS.between(startDate.toLocalDate(), LocalDate.now());
+            }
+            result.put(userId, new Friendliness(friend,
+                    out != null && out.getStatus() == FriendshipStatus.PENDING,
+                    in != null && in.getStatus() == FriendshipStatus.PENDING,
+                    durationDays));
+        }
+        return result;
+    }
+
+    private Map<UUID, DatingInviteSummary> loadInviteSummaries(UUID viewerId, List<UUID> userIds) {
+        Map<UUID, DatingInviteSummary> result = new HashMap<>();
+        for (DatingInvite di : datingInviteRepository.findBetweenByStatus(viewerId, userIds, DatingInviteStatus.PENDING)) {
+            boolean viewerIsSender = viewerId.equals(di.getSenderId());
+            UUID otherId = viewerIsSender ? di.getTargetId() : di.getSenderId();
+            // An invite the viewer sent wins over one they received
+            if (viewerIsSender || !result.containsKey(otherId)) {
+                result.put(otherId, summary(di, viewerIsSender));
+            }
+        }
+        return result;
+    }
+
+    private PrivateInbox loadPrivateInbox(UUID userId) {
+        List<FriendshipResponse> pending = friendshipService.getPendingRequestsForUser(userId, PageRequest.of(0, 10)).getContent();
+        List<DatingInviteSummary> invites = datingInviteRepository.findByTargetIdAndStatus(userId, DatingInviteStatus.PENDING)
+                .stream().map(di -> summary(di, false)).toList();
+        return new PrivateInbox(pending, invites);
+    }
+
+    private DatingInviteSummary summary(DatingInvite di, boolean viewerIsSender) {
+        return DatingInviteSummary.builder()
+                .inviteId(di.getInviteId())
+                .senderId(di.getSenderId())
+                .targetId(di.getTargetId())
+                .status(di.getStatus())
+                .createdAt(di.getCreatedAt())
+                .expiresAt(di.getExpiresAt())
+                .viewerIsSender(viewerIsSender)
+                .secondsToExpire(di.getExpiresAt() != null ? Math.max(0, Duration.between(OffsetDateTime.now(), di.getExpiresAt()).getSeconds()) : 0)
+                .build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,39 @@
+package com.connectJPA.LinguaVietnameseApp.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Runs cache side effects once the current transaction has committed, or right away when there is
+ * none. Failures are logged and swallowed: the database is the source of truth, and a missed cache
+ * update must not surface as an error after the commit.
+ */
+@Slf4j
+public final class AfterCommit {
+
+    private AfterCommit() {}
+
+    /**
+     * @param description what the action does, for the warning logged when it fails
+     */
+    public static void runQuietly(String description, Runnable action) {
+        Runnable guarded = () -> {
+            try {
+                action.run();
+            } catch (Exception e) {
+                log.warn("{} failed: {}", description, e.getMessage());
+            }
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            guarded.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                guarded.run();
+            }
+        });
+    }
+}
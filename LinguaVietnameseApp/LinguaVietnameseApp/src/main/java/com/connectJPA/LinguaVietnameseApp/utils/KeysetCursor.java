@@ -0,0 +1,35 @@
+package com.connectJPA.LinguaVietnameseApp.utils;
+
+import com.connectJPA.LinguaVietnameseApp.exception.AppException;
+import com.connectJPA.LinguaVietnameseApp.exception.ErrorCode;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Opaque (timestamp, id) position for keyset pagination, encoded as URL-safe base64.
+ */
+public record KeysetCursor(OffsetDateTime at, UUID id) {
+
+    public String encode() {
+        Instant instant = at.toInstant();
+        String raw = instant.getEpochSecond() + "." + instant.getNano() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static KeysetCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int colon = raw.indexOf(':');
+            int dot = raw.indexOf('.');
+            Instant instant = Instant.ofEpochSecond(Long.parseLong(raw.substring(0, dot)), Long.parseLong(raw.substring(dot + 1, colon)));
+            return new KeysetCursor(OffsetDateTime.ofInstant(instant, ZoneOffset.UTC), UUID.fromString(raw.substring(colon + 1)));
+        } catch (RuntimeException e) {
+            throw new AppException(ErrorCode.INVALID_REQUEST);
+        }
+    }
+}
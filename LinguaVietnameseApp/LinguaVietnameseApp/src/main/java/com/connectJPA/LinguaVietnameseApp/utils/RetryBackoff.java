@@ -0,0 +1,21 @@
+package com.connectJPA.LinguaVietnameseApp.utils;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Exponential retry delays shared by the background senders (notification outbox, email queue).
+ */
+public final class RetryBackoff {
+
+    private RetryBackoff() {}
+
+    /**
+     * Delay before retrying after the given 1-based attempt: base doubled per attempt, capped at
+     * max, with +-20% jitter so a burst of failures does not retry in lockstep.
+     */
+    public static long jitteredMs(int attempt, long baseMs, long maxMs) {
+        long exponential = baseMs << Math.min(Math.max(attempt - 1, 0), 20);
+        long capped = Math.min(Math.max(exponential, baseMs), maxMs);
+        return (long) (capped * ThreadLocalRandom.current().nextDouble(0.8, 1.2));
+    }
+}
@@ -0,0 +1,29 @@
+package com.connectJPA.LinguaVietnameseApp.utils;
+
+import java.text.Normalizer;
+import java.util.Locale;
+
+/**
+ * Lower-cases and strips Vietnamese diacritics ("Đường" -> "duong") one character at a time,
+ * so an index into the folded text is also a valid index into the original.
+ */
+public final class VietnameseTextFolder {
+
+    private VietnameseTextFolder() {}
+
+    public static String fold(String text) {
+        if (text == null) return null;
+        StringBuilder folded = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            folded.append(foldChar(text.charAt(i)));
+        }
+        return folded.toString();
+    }
+
+    private static char foldChar(char c) {
+        if (c < 0x80) return Character.toLowerCase(c);
+        if (c == 'đ' || c == 'Đ') return 'd';
+        String decomposed = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD);
+        return decomposed.toLowerCase(Locale.ROOT).charAt(0);
+    }
+}
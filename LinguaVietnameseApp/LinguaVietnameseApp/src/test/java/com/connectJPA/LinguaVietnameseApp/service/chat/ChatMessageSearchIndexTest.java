@@ -0,0 +1,154 @@
+package com.connectJPA.LinguaVietnameseApp.service.chat;
+
+import com.connectJPA.LinguaVietnameseApp.entity.ChatMessage;
+import com.connectJPA.LinguaVietnameseApp.entity.id.ChatMessagesId;
+import com.connectJPA.LinguaVietnameseApp.enums.MessageType;
+import com.connectJPA.LinguaVietnameseApp.enums.RoomPurpose;
+import com.connectJPA.LinguaVietnameseApp.exception.AppException;
+import com.connectJPA.LinguaVietnameseApp.exception.ErrorCode;
+import com.connectJPA.LinguaVietnameseApp.repository.jpa.ChatMessageRepository;
+import com.connectJPA.LinguaVietnameseApp.service.chat.RoomMembershipCache.RoomSnapshot;
+import com.connectJPA.LinguaVietnameseApp.utils.AESUtils;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.lang.reflect.Proxy;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+class ChatMessageSearchIndexTest {
+
+    private final AESUtils aesUtils = new AESUtils();
+    private final UUID lan = UUID.randomUUID();
+    private final UUID minh = UUID.randomUUID();
+    private final List<ChatMessage> stored = new CopyOnWriteArrayList<>();
+    private RuntimeException searchFailure;
+    private ChatMessageSearchIndex searchIndex;
+
+    @BeforeEach
+    void setUp() {
+        searchIndex = new ChatMessageSearchIndex(repository(), aesUtils, new NoOpJdbcTemplate(),
+                new NoOpTransactionManager(), null, null, new CompositeMeterRegistry());
+        ReflectionTestUtils.setField(searchIndex, "candidateLimit", 500);
+        ReflectionTestUtils.setField(searchIndex, "statementTimeoutMs", 2000L);
+        ReflectionTestUtils.setField(searchIndex, "snippetRadius", 40);
+        searchIndex.init();
+    }
+
+    @Test
+    void findsMessageOfGroupRoomWithServerKey() {
+        RoomSnapshot group = new RoomSnapshot(UUID.randomUUID(), "Lớp tiếng Việt", RoomPurpose.GROUP_CHAT,
+                aesUtils.generateRoomKey(), Set.of(lan, minh));
+        ChatMessage message = send(group, lan, "Tối nay mình ôn bài Tiếng Việt nhé");
+        send(group, minh, "Ok bạn");
+
+        List<ChatMessage> hits = searchIndex.search("tieng viet", minh, null, 0, 20);
+
+        assertThat(hits.stream().map(ChatMessage::getId).toList()).containsExactly(message.getId());
+        assertThat(searchIndex.snippet(searchIndex.plaintext(hits.get(0).getContent(), group.secretKey()), "tieng viet"))
+                .isEqualTo("Tối nay mình ôn bài Tiếng Việt nhé");
+    }
+
+    @Test
+    void leavesEndToEndEncryptedPrivateChatsUnindexed() {
+        RoomSnapshot privateChat = new RoomSnapshot(UUID.randomUUID(), null, RoomPurpose.PRIVATE_CHAT, null, Set.of(lan, minh));
+        ChatMessage message = send(privateChat, lan, "client-side ciphertext");
+
+        assertThat(message.getSearchText()).isNull();
+        assertThat(searchIndex.search("ciphertext", minh, null, 0, 20)).isEmpty();
+    }
+
+    @Test
+    void undecryptableTextIsMarkedIndexedButEmpty() {
+        RoomSnapshot group = new RoomSnapshot(UUID.randomUUID(), "Nhóm", RoomPurpose.GROUP_CHAT,
+                aesUtils.generateRoomKey(), Set.of(lan));
+        ChatMessage message = message(group, lan, aesUtils.encrypt("xin chào", aesUtils.generateRoomKey()));
+
+        searchIndex.index(message, group);
+
+        assertThat(message.getSearchText()).isEqualTo("");
+    }
+
+    @Test
+    void statementTimeoutIsReportedAsTooBroad() {
+        searchFailure = new QueryTimeoutException("canceling statement due to statement timeout");
+
+        try {
+            searchIndex.search("chào", lan, null, 0, 20);
+            fail("expected the timeout to surface as SEARCH_TOO_BROAD");
+        } catch (AppException e) {
+            assertThat(e.getErrorCode()).isEqualTo(ErrorCode.SEARCH_TOO_BROAD);
+        }
+    }
+
+    private ChatMessage send(RoomSnapshot room, UUID sender, String text) {
+        ChatMessage message = message(room, sender, room.secretKey() != null ? aesUtils.encrypt(text, room.secretKey()) : text);
+        searchIndex.index(message, room);
+        stored.add(message);
+        return message;
+    }
+
+    private static ChatMessage message(RoomSnapshot room, UUID sender, String content) {
+        return ChatMessage.builder()
+                .id(new ChatMessagesId(UUID.randomUUID(), OffsetDateTime.now()))
+                .roomId(room.roomId())
+                .senderId(sender)
+                .content(content)
+                .messageType(MessageType.TEXT)
+                .build();
+    }
+
+    // Stands in for the indexed native queries: search_text LIKE the folded keyword, limited to rooms
+    // the caller belongs to. Membership is taken from the senders seen in each room
+    private ChatMessageRepository repository() {
+        return (ChatMessageRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{ChatMessageRepository.class}, (proxy, method, args) -> {
+                    if (!method.getName().startsWith("searchIndexed")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    if (searchFailure != null) throw searchFailure;
+                    String query = (String) args[0];
+                    UUID userId = (UUID) args[2];
+                    return stored.stream()
+                            .filter(m -> m.getSearchText() != null && m.getSearchText().contains(query))
+                            .filter(m -> stored.stream().anyMatch(o -> o.getRoomId().equals(m.getRoomId())
+                                    && o.getSenderId().equals(userId)))
+                            .toList();
+                });
+    }
+
+    private static class NoOpJdbcTemplate extends JdbcTemplate {
+        @Override
+        public void execute(String sql) {
+        }
+    }
+
+    private static class NoOpTransactionManager implements PlatformTransactionManager {
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.connectJPA.LinguaVietnameseApp.service.chat;
+
+import com.connectJPA.LinguaVietnameseApp.entity.ChatMessage;
+import com.connectJPA.LinguaVietnameseApp.entity.id.ChatMessagesId;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Messages per second of the direct path (one transaction per message: insert plus rooms touch)
+ * against the write-behind buffer, with the same number of concurrent senders. Commits pay a fixed
+ * WAL flush cost and flushes are serialized, which is the cost group commit amortizes; statement
+ * execution is treated as free, so the ratio is an upper bound for fsync-bound deployments.
+ * Not part of the regular test run (no *Test suffix); run it on its own with
+ * {@code mvn test -Dtest=ChatMessageWriteBehindBenchmark -Dbench.commitMicros=1000 -Dbench.senders=64}.
+ */
+class ChatMessageWriteBehindBenchmark {
+
+    private static final long COMMIT_MICROS = Long.getLong("bench.commitMicros", 1000);
+    private static final int SENDERS = Integer.getInteger("bench.senders", 64);
+    private static final int MESSAGES = Integer.getInteger("bench.messages", 4000);
+    private static final int ROOMS = Integer.getInteger("bench.rooms", 200);
+
+    private final List<UUID> rooms = new ArrayList<>();
+
+    @Test
+    void groupCommitOutrunsPerMessageCommits() throws Exception {
+        for (int i = 0; i < ROOMS; i++) rooms.add(UUID.randomUUID());
+
+        Result direct = run("direct", this::directPath);
+        Result writeBehind = run("write-behind", null);
+
+        System.out.printf("commit=%dus senders=%d messages=%d rooms=%d%n", COMMIT_MICROS, SENDERS, MESSAGES, ROOMS);
+        System.out.println(direct);
+        System.out.println(writeBehind);
+        System.out.printf("speedup=%.1fx%n", writeBehind.perSecond() / direct.perSecond());
+        assertThat(writeBehind.perSecond()).isGreaterThan(direct.perSecond());
+    }
+
+    private record Result(String mode, int messages, long nanos, int commits) {
+        double perSecond() {
+            return messages * 1e9 / nanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-12s %8.0f msg/s  %6d commits  %6.1f msg/commit",
+                    mode, perSecond(), commits, (double) messages / commits);
+        }
+    }
+
+    private interface Sender {
+        void send(ChatMessage message, FsyncBoundTransactionManager tm, CostFreeJdbcTemplate jdbc);
+    }
+
+    private void directPath(ChatMessage message, FsyncBoundTransactionManager tm, CostFreeJdbcTemplate jdbc) {
+        new TransactionTemplate(tm).executeWithoutResult(status -> {
+            jdbc.update("INSERT INTO chat_messages ...", message.getId().getChatMessageId());
+            jdbc.update("UPDATE rooms SET updated_at = ? WHERE room_id = ?", message.getId().getSentAt(), message.getRoomId());
+        });
+    }
+
+    private Result run(String mode, Sender direct) throws Exception {
+        FsyncBoundTransactionManager tm = new FsyncBoundTransactionManager();
+        CostFreeJdbcTemplate jdbc = new CostFreeJdbcTemplate();
+        ChatMessageWriteBehindBuffer buffer = null;
+        if (direct == null) {
+            buffer = new ChatMessageWriteBehindBuffer(jdbc, tm, new ObjectMapper(), new CompositeMeterRegistry());
+            ReflectionTestUtils.setField(buffer, "enabled", true);
+            ReflectionTestUtils.setField(buffer, "capacity", 10_000);
+            ReflectionTestUtils.setField(buffer, "maxBatchSize", 200);
+            ReflectionTestUtils.setField(buffer, "maxDelayMs", 5L);
+            ReflectionTestUtils.setField(buffer, "ackTimeoutMs", 30_000L);
+            ReflectionTestUtils.setField(buffer, "inFlightWaitMs", 30_000L);
+            buffer.init();
+        }
+        ChatMessageWriteBehindBuffer writeBehind = buffer;
+
+        ExecutorService senders = Executors.newFixedThreadPool(SENDERS);
+        AtomicInteger remaining = new AtomicInteger(MESSAGES);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < SENDERS; i++) {
+            futures.add(senders.submit(() -> {
+                start.await();
+                while (remaining.getAndDecrement() > 0) {
+                    ChatMessage message = message();
+                    if (direct != null) direct.send(message, tm, jdbc);
+                    else assertThat(writeBehind.persist(message)).isTrue();
+                }
+                return null;
+            }));
+        }
+        long startedAt = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) future.get(5, TimeUnit.MINUTES);
+        long elapsed = System.nanoTime() - startedAt;
+        senders.shutdown();
+        if (writeBehind != null) writeBehind.shutdown();
+
+        assertThat(jdbc.rows.get()).isEqualTo(MESSAGES);
+        return new Result(mode, MESSAGES, elapsed, tm.commits.get());
+    }
+
+    private ChatMessage message() {
+        return ChatMessage.builder()
+                .id(new ChatMessagesId(UUID.randomUUID(), OffsetDateTime.now()))
+                .roomId(rooms.get((int) (Math.random() * rooms.size())))
+                .senderId(UUID.randomUUID())
+                .content("xin chào")
+                .build();
+    }
+
+    /** Every commit holds the single WAL flush for the configured time. */
+    private static class FsyncBoundTransactionManager implements PlatformTransactionManager {
+        private final ReentrantLock wal = new ReentrantLock();
+        final AtomicInteger commits = new AtomicInteger();
+
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+            wal.lock();
+            try {
+                // A flush waits on the disk, not the CPU
+                long until = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(COMMIT_MICROS);
+                for (long left; (left = until - System.nanoTime()) > 0; ) {
+                    LockSupport.parkNanos(left);
+                }
+                commits.incrementAndGet();
+            } finally {
+                wal.unlock();
+            }
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    }
+
+    /** Counts inserted rows; statements themselves cost nothing. */
+    private static class CostFreeJdbcTemplate extends JdbcTemplate {
+        final AtomicInteger rows = new AtomicInteger();
+
+        @Override
+        public int update(String sql, Object... args) {
+            if (sql.startsWith("INSERT")) rows.incrementAndGet();
+            return 1;
+        }
+
+        @Override
+        public <T> int[][] batchUpdate(String sql, Collection<T> batchArgs, int batchSize,
+                                       ParameterizedPreparedStatementSetter<T> pss) {
+            if (sql.startsWith("INSERT")) rows.addAndGet(batchArgs.size());
+            return new int[][]{new int[batchArgs.size()]};
+        }
+    }
+}
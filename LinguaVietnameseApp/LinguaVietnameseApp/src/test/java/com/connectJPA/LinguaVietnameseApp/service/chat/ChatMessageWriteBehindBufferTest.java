@@ -0,0 +1,172 @@
+package com.connectJPA.LinguaVietnameseApp.service.chat;
+
+import com.connectJPA.LinguaVietnameseApp.entity.ChatMessage;
+import com.connectJPA.LinguaVietnameseApp.entity.id.ChatMessagesId;
+import com.connectJPA.LinguaVietnameseApp.exception.SystemException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.lang.reflect.Method;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.fail;
+
+class ChatMessageWriteBehindBufferTest {
+
+    private final RecordingJdbcTemplate jdbcTemplate = new RecordingJdbcTemplate();
+    private ChatMessageWriteBehindBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        buffer = new ChatMessageWriteBehindBuffer(jdbcTemplate, new NoOpTransactionManager(),
+                new ObjectMapper(), new CompositeMeterRegistry());
+        ReflectionTestUtils.setField(buffer, "enabled", true);
+        ReflectionTestUtils.setField(buffer, "capacity", 16);
+        ReflectionTestUtils.setField(buffer, "maxBatchSize", 16);
+        ReflectionTestUtils.setField(buffer, "maxDelayMs", 0L);
+        ReflectionTestUtils.setField(buffer, "ackTimeoutMs", 200L);
+        ReflectionTestUtils.setField(buffer, "inFlightWaitMs", 500L);
+        buffer.init();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        jdbcTemplate.release.countDown();
+        buffer.shutdown();
+    }
+
+    @Test
+    void acknowledgesAfterCommit() {
+        jdbcTemplate.release.countDown();
+        ChatMessage message = message();
+
+        assertThat(buffer.persist(message)).isTrue();
+        assertThat(jdbcTemplate.inserted).containsExactly(message.getId().getChatMessageId());
+    }
+
+    @Test
+    void timedOutWriteStillQueuedIsWithdrawnAndNeverInserted() throws Exception {
+        ChatMessage inFlight = message();
+        CompletableFuture<Boolean> first = CompletableFuture.supplyAsync(() -> buffer.persist(inFlight));
+        assertThat(jdbcTemplate.entered.await(2, TimeUnit.SECONDS)).isTrue();
+
+        // The flusher is stuck on the first batch, so this one times out while still queued
+        ChatMessage queued = message();
+        assertThatThrownBy(() -> buffer.persist(queued)).isInstanceOf(SystemException.class);
+
+        jdbcTemplate.release.countDown();
+        ChatMessage later = message();
+        assertThat(buffer.persist(later)).isTrue();
+        assertThat(jdbcTemplate.inserted).containsExactly(
+                inFlight.getId().getChatMessageId(), later.getId().getChatMessageId());
+        assertThat(first.get(2, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void inFlightWriteCommittingAfterAckTimeoutIsAcknowledged() throws Exception {
+        ChatMessage inFlight = message();
+        CompletableFuture<Boolean> first = CompletableFuture.supplyAsync(() -> buffer.persist(inFlight));
+        assertThat(jdbcTemplate.entered.await(2, TimeUnit.SECONDS)).isTrue();
+
+        // Past the ack timeout but inside the in-flight wait, so the real commit is reported
+        Thread.sleep(300);
+        jdbcTemplate.release.countDown();
+
+        assertThat(first.get(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(jdbcTemplate.inserted).containsExactly(inFlight.getId().getChatMessageId());
+    }
+
+    @Test
+    void inFlightWriteWithoutOutcomeIsReportedAsFailed() throws Exception {
+        ChatMessage inFlight = message();
+        CompletableFuture<Boolean> first = CompletableFuture.supplyAsync(() -> buffer.persist(inFlight));
+        assertThat(jdbcTemplate.entered.await(2, TimeUnit.SECONDS)).isTrue();
+
+        // The batch is still stuck after ack timeout plus in-flight wait: never claim it was saved
+        try {
+            first.get(2, TimeUnit.SECONDS);
+            fail("expected the send to fail while its batch is still running");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause()).isInstanceOf(SystemException.class);
+        }
+    }
+
+    private static ChatMessage message() {
+        return ChatMessage.builder()
+                .id(new ChatMessagesId(UUID.randomUUID(), OffsetDateTime.now()))
+                .roomId(UUID.randomUUID())
+                .senderId(UUID.randomUUID())
+                .content("xin chào")
+                .build();
+    }
+
+    /** Records inserted ids instead of talking to a database; the first insert waits for {@link #release}. */
+    private static class RecordingJdbcTemplate extends JdbcTemplate {
+        final List<UUID> inserted = new CopyOnWriteArrayList<>();
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public <T> int[][] batchUpdate(String sql, Collection<T> batchArgs, int batchSize,
+                                       ParameterizedPreparedStatementSetter<T> pss) {
+            if (sql.startsWith("INSERT")) {
+                entered.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                for (T arg : batchArgs) {
+                    inserted.add(messageOf(arg).getId().getChatMessageId());
+                }
+            }
+            return new int[][]{new int[batchArgs.size()]};
+        }
+
+        // Batch rows are the buffer's private PendingWrite records
+        private static ChatMessage messageOf(Object write) {
+            try {
+                Method accessor = write.getClass().getDeclaredMethod("message");
+                accessor.setAccessible(true);
+                return (ChatMessage) accessor.invoke(write);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private static class NoOpTransactionManager implements PlatformTransactionManager {
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.connectJPA.LinguaVietnameseApp.service.chat;
+
+import com.connectJPA.LinguaVietnameseApp.dto.response.ChatMessageResponse;
+import com.connectJPA.LinguaVietnameseApp.dto.response.ChatSenderSummary;
+import com.connectJPA.LinguaVietnameseApp.enums.Country;
+import com.connectJPA.LinguaVietnameseApp.enums.MessageType;
+import com.connectJPA.LinguaVietnameseApp.enums.RoomPurpose;
+import com.connectJPA.LinguaVietnameseApp.utils.AESUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+import java.security.SecureRandom;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Bytes per frame and CPU per frame of chat payloads, JSON (before) against the CBOR transcoding
+ * done by {@link CompactPayloadCodec} (after). Frames go through preSend the way the broker fans a
+ * room message out: one payload array, one frame per subscriber session. "json" is the pass-through
+ * cost of a JSON session, "cbor" the cost of a compact session; the serialize line is what the
+ * broker already spends turning the response into JSON, for scale.
+ * Not part of the regular test run (no *Test suffix); run it on its own with
+ * {@code mvn test -Dtest=CompactPayloadCodecBenchmark -Dbench.subscribers=20 -Dbench.rounds=20000}.
+ */
+class CompactPayloadCodecBenchmark {
+
+    private static final int SUBSCRIBERS = Integer.getInteger("bench.subscribers", 20);
+    private static final int ROUNDS = Integer.getInteger("bench.rounds", 20_000);
+
+    private final SecureRandom random = new SecureRandom();
+    private final ObjectMapper objectMapper = objectMapper();
+    private CompactPayloadCodec codec;
+
+    @Test
+    void compactFramesAreSmallerAndCheapToProduce() throws Exception {
+        codec = new CompactPayloadCodec(objectMapper, new CompositeMeterRegistry());
+        codec.init();
+
+        ChatMessageResponse group = groupMessage();
+        ChatMessageResponse privateChat = privateMessage();
+        privateChat.setSenderId(group.getSenderId());
+        byte[] groupJson = objectMapper.writeValueAsBytes(group);
+        byte[] privateJson = objectMapper.writeValueAsBytes(privateChat);
+
+        List<String> jsonSessions = sessions("json", false, group.getSenderId());
+        List<String> compactSessions = sessions("cbor", true, group.getSenderId());
+
+        int groupCbor = payload(codec.preSend(frame(compactSessions.get(1), groupJson), null)).length;
+        int privateFull = payload(codec.preSend(frame(compactSessions.get(0), privateJson), null)).length;
+        int privateStripped = payload(codec.preSend(frame(compactSessions.get(1), privateJson), null)).length;
+
+        System.out.printf("subscribers=%d rounds=%d%n", SUBSCRIBERS, ROUNDS);
+        System.out.printf("%-28s %6s %6s %7s%n", "bytes per message", "json", "cbor", "saved");
+        System.out.println(bytes("group (server key)", groupJson.length, groupCbor));
+        System.out.println(bytes("private, to sender", privateJson.length, privateFull));
+        System.out.println(bytes("private, to recipient", privateJson.length, privateStripped));
+
+        for (int warmup = 0; warmup < 3; warmup++) {
+            serializeNanos(group);
+            fanOutNanos(jsonSessions, group, 1);
+            fanOutNanos(compactSessions, group, 1);
+            fanOutNanos(compactSessions, group, SUBSCRIBERS);
+        }
+        System.out.printf("%-28s %9s%n", "cpu per frame (group)", "ns");
+        System.out.printf("%-28s %9.0f%n", "serialize to json (ref)", serializeNanos(group));
+        System.out.printf("%-28s %9.0f%n", "json session", fanOutNanos(jsonSessions, group, SUBSCRIBERS));
+        System.out.printf("%-28s %9.0f%n", "cbor, 1 subscriber", fanOutNanos(compactSessions, group, 1));
+        System.out.printf("%-28s %9.0f%n", "cbor, " + SUBSCRIBERS + " subscribers", fanOutNanos(compactSessions, group, SUBSCRIBERS));
+
+        assertThat(groupCbor).isLessThan(groupJson.length);
+        assertThat(privateStripped).isLessThan(privateFull);
+    }
+
+    private double serializeNanos(ChatMessageResponse response) throws Exception {
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            objectMapper.writeValueAsBytes(response);
+        }
+        return (double) (System.nanoTime() - start) / ROUNDS;
+    }
+
+    // A fresh payload array per round, as the broker serializes each message once and hands the
+    // same array to every subscriber
+    private double fanOutNanos(List<String> sessions, ChatMessageResponse response, int subscribers) throws Exception {
+        List<byte[]> payloads = new ArrayList<>(ROUNDS);
+        for (int i = 0; i < ROUNDS; i++) payloads.add(objectMapper.writeValueAsBytes(response));
+        long start = System.nanoTime();
+        for (byte[] json : payloads) {
+            for (int s = 0; s < subscribers; s++) {
+                codec.preSend(frame(sessions.get(s), json), null);
+            }
+        }
+        return (double) (System.nanoTime() - start) / ((long) ROUNDS * subscribers);
+    }
+
+    private List<String> sessions(String prefix, boolean compact, UUID sender) {
+        List<String> sessions = new ArrayList<>();
+        for (int i = 0; i < SUBSCRIBERS; i++) {
+            String sessionId = prefix + "-" + i;
+            StompHeaderAccessor connect = StompHeaderAccessor.create(StompCommand.CONNECT);
+            connect.setSessionId(sessionId);
+            String userId = i == 0 ? sender.toString() : UUID.randomUUID().toString();
+            connect.setUser(() -> userId);
+            Map<String, Object> attributes = new HashMap<>();
+            attributes.put(CompactPayloadCodec.NATIVE_TRANSPORT_ATTRIBUTE, Boolean.TRUE);
+            connect.setSessionAttributes(attributes);
+            if (compact) connect.setNativeHeader(CompactPayloadCodec.ENCODING_HEADER, "cbor");
+            codec.negotiate(connect);
+            sessions.add(sessionId);
+        }
+        return sessions;
+    }
+
+    private static Message<byte[]> frame(String sessionId, byte[] json) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        return MessageBuilder.createMessage(json, accessor.getMessageHeaders());
+    }
+
+    private static byte[] payload(Message<?> message) {
+        return (byte[]) message.getPayload();
+    }
+
+    private static String bytes(String label, int json, int cbor) {
+        return String.format("%-28s %6d %6d %6.1f%%", label, json, cbor, 100.0 * (json - cbor) / json);
+    }
+
+    private ChatMessageResponse groupMessage() {
+        AESUtils aesUtils = new AESUtils();
+        ChatMessageResponse response = base(RoomPurpose.GROUP_CHAT);
+        response.setContent(aesUtils.encrypt("Tối nay 8 giờ cả lớp ôn lại bài 12 về thanh điệu nhé, nhớ mang vở!",
+                aesUtils.generateRoomKey()));
+        return response;
+    }
+
+    private ChatMessageResponse privateMessage() {
+        ChatMessageResponse response = base(RoomPurpose.PRIVATE_CHAT);
+        response.setReceiverId(UUID.randomUUID());
+        response.setContent(base64(96));
+        response.setSenderEphemeralKey(base64(32));
+        response.setUsedPreKeyId(17);
+        response.setInitializationVector(base64(12));
+        response.setSelfContent(base64(96));
+        response.setSelfEphemeralKey(base64(32));
+        response.setSelfInitializationVector(base64(12));
+        return response;
+    }
+
+    private ChatMessageResponse base(RoomPurpose purpose) {
+        ChatMessageResponse response = new ChatMessageResponse();
+        response.setChatMessageId(UUID.randomUUID());
+        response.setRoomId(UUID.randomUUID());
+        response.setSenderId(UUID.randomUUID());
+        response.setMessageType(MessageType.TEXT);
+        response.setPurpose(purpose);
+        response.setSentAt(OffsetDateTime.now());
+        response.setUpdatedAt(OffsetDateTime.now());
+        response.setSenderProfile(ChatSenderSummary.builder()
+                .userId(response.getSenderId())
+                .fullname("Nguyễn Thị Lan")
+                .nickname("lan.nguyen")
+                .avatarUrl("https://res.cloudinary.com/lingua/image/upload/v1712345678/avatars/lan.jpg")
+                .country(Country.values()[0])
+                .level(12)
+                .build());
+        return response;
+    }
+
+    private String base64(int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return Base64.getEncoder().encodeToString(bytes);
+    }
+
+    // Same settings as JacksonConfig
+    private static ObjectMapper objectMapper() {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        mapper.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return mapper;
+    }
+}
@@ -0,0 +1,108 @@
+package com.connectJPA.LinguaVietnameseApp.service.chat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompactPayloadCodecTest {
+
+    private static final String CHAT_MESSAGE = "{\"senderId\":\"alice\",\"content\":\"xin chào\"," +
+            "\"selfContent\":\"c2VsZg==\",\"selfEphemeralKey\":\"a2V5\",\"selfInitializationVector\":\"aXY=\"}";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
+    private CompactPayloadCodec codec;
+
+    @BeforeEach
+    void setUp() {
+        codec = new CompactPayloadCodec(objectMapper, new CompositeMeterRegistry());
+        codec.init();
+    }
+
+    @Test
+    void roundTripsJsonThroughCborForCompactSession() throws Exception {
+        connect("s1", "alice", true, "cbor");
+
+        Message<?> sent = codec.preSend(message("s1", CHAT_MESSAGE, MimeTypeUtils.APPLICATION_JSON), null);
+
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(sent);
+        assertThat(accessor.getContentType()).isEqualTo(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+        assertThat(accessor.getFirstNativeHeader(CompactPayloadCodec.ENCODING_HEADER)).isEqualTo("cbor");
+        JsonNode decoded = cborMapper.readTree((byte[]) sent.getPayload());
+        assertThat(decoded).isEqualTo(objectMapper.readTree(CHAT_MESSAGE));
+    }
+
+    @Test
+    void stripsSenderOnlyCopyForOtherRecipients() throws Exception {
+        connect("s2", "bob", true, "cbor");
+
+        Message<?> sent = codec.preSend(message("s2", CHAT_MESSAGE, MimeTypeUtils.APPLICATION_JSON), null);
+
+        JsonNode decoded = cborMapper.readTree((byte[]) sent.getPayload());
+        assertThat(decoded.get("content").asText()).isEqualTo("xin chào");
+        assertThat(decoded.has("selfContent")).isFalse();
+        assertThat(decoded.has("selfEphemeralKey")).isFalse();
+        assertThat(decoded.has("selfInitializationVector")).isFalse();
+    }
+
+    @Test
+    void readsContentTypeStoredAsString() throws Exception {
+        connect("s1", "alice", true, "cbor");
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId("s1");
+        accessor.setHeader(MessageHeaders.CONTENT_TYPE, "application/json");
+
+        Message<?> sent = codec.preSend(MessageBuilder.createMessage(CHAT_MESSAGE.getBytes(StandardCharsets.UTF_8),
+                accessor.getMessageHeaders()), null);
+
+        assertThat(cborMapper.readTree((byte[]) sent.getPayload())).isEqualTo(objectMapper.readTree(CHAT_MESSAGE));
+    }
+
+    @Test
+    void leavesJsonSessionsAndNonJsonPayloadsAlone() {
+        connect("sockjs", "alice", false, "cbor");
+        connect("s1", "alice", true, "cbor");
+
+        Message<byte[]> fromSockJs = message("sockjs", CHAT_MESSAGE, MimeTypeUtils.APPLICATION_JSON);
+        Message<byte[]> plainText = message("s1", "hello", MimeTypeUtils.TEXT_PLAIN);
+
+        assertThat(codec.preSend(fromSockJs, null)).isSameAs(fromSockJs);
+        assertThat(codec.preSend(plainText, null)).isSameAs(plainText);
+    }
+
+    private void connect(String sessionId, String userId, boolean nativeTransport, String encoding) {
+        StompHeaderAccessor connect = StompHeaderAccessor.create(StompCommand.CONNECT);
+        connect.setSessionId(sessionId);
+        connect.setUser(() -> userId);
+        Map<String, Object> attributes = new HashMap<>();
+        if (nativeTransport) attributes.put(CompactPayloadCodec.NATIVE_TRANSPORT_ATTRIBUTE, Boolean.TRUE);
+        connect.setSessionAttributes(attributes);
+        connect.setNativeHeader(CompactPayloadCodec.ENCODING_HEADER, encoding);
+        codec.negotiate(connect);
+    }
+
+    private static Message<byte[]> message(String sessionId, String body, MimeType contentType) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setContentType(contentType);
+        return MessageBuilder.createMessage(body.getBytes(StandardCharsets.UTF_8), accessor.getMessageHeaders());
+    }
+}
@@ -0,0 +1,61 @@
+package com.connectJPA.LinguaVietnameseApp.service.chat;
+
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PresenceServiceTest {
+
+    private final UUID lan = UUID.randomUUID();
+    private PresenceService presenceService;
+
+    @BeforeEach
+    void setUp() {
+        // No Redis: lookups beyond this node fail and report offline
+        presenceService = new PresenceService(null, null, null, null, null, new CompositeMeterRegistry());
+        ReflectionTestUtils.setField(presenceService, "onlineDebounceMs", 60_000L);
+        ReflectionTestUtils.setField(presenceService, "offlineDebounceMs", 60_000L);
+        ReflectionTestUtils.setField(presenceService, "heartbeatTimeoutMs", 50L);
+        presenceService.init();
+    }
+
+    @Test
+    void silentSessionIsDroppedAndComesBackOnNextFrame() throws Exception {
+        presenceService.sessionConnected("s1", lan);
+        Thread.sleep(100);
+
+        presenceService.tick();
+        assertThat(presenceService.isOnline(lan)).isFalse();
+
+        presenceService.touch("s1");
+        assertThat(presenceService.isOnline(lan)).isTrue();
+    }
+
+    @Test
+    void heartbeatKeepsSessionOnline() throws Exception {
+        presenceService.sessionConnected("s1", lan);
+        Thread.sleep(100);
+        presenceService.touch("s1");
+
+        presenceService.tick();
+
+        assertThat(presenceService.isOnline(lan)).isTrue();
+    }
+
+    @Test
+    void closedSessionIsNotRestoredByLateFrame() throws Exception {
+        presenceService.sessionConnected("s1", lan);
+        Thread.sleep(100);
+        presenceService.tick();
+
+        presenceService.sessionDisconnected("s1");
+        presenceService.touch("s1");
+
+        assertThat(presenceService.isOnline(lan)).isFalse();
+    }
+}
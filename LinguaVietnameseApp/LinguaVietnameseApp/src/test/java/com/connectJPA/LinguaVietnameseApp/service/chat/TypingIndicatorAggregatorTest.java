@@ -0,0 +1,108 @@
+package com.connectJPA.LinguaVietnameseApp.service.chat;
+
+import com.connectJPA.LinguaVietnameseApp.dto.response.TypingStateResponse;
+import com.connectJPA.LinguaVietnameseApp.enums.RoomPurpose;
+import com.connectJPA.LinguaVietnameseApp.service.chat.RoomMembershipCache.RoomSnapshot;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TypingIndicatorAggregatorTest {
+
+    private final UUID lan = UUID.randomUUID();
+    private final UUID minh = UUID.randomUUID();
+    private final UUID roomId = UUID.randomUUID();
+    private final RecordingMessagingTemplate messagingTemplate = new RecordingMessagingTemplate();
+    private TypingIndicatorAggregator aggregator;
+
+    @BeforeEach
+    void setUp() {
+        RoomSnapshot privateChat = new RoomSnapshot(roomId, null, RoomPurpose.PRIVATE_CHAT, null, Set.of(lan, minh));
+        aggregator = new TypingIndicatorAggregator(new FixedRoomCache(privateChat), messagingTemplate, new CompositeMeterRegistry());
+        ReflectionTestUtils.setField(aggregator, "ttlMs", 60_000L);
+        // Ticks are driven by the test
+        ReflectionTestUtils.setField(aggregator, "broadcastIntervalMs", 3_600_000L);
+        aggregator.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        aggregator.shutdown();
+    }
+
+    @Test
+    void privateChatTypingGoesOnlyToTheOtherMember() {
+        aggregator.record(roomId, lan, true);
+        aggregator.tick();
+
+        assertThat(messagingTemplate.sent).hasSize(1);
+        assertThat(messagingTemplate.sent.get(0).user()).isEqualTo(minh.toString());
+        assertThat(messagingTemplate.sent.get(0).state().getTypingUserIds()).containsExactly(lan);
+    }
+
+    @Test
+    void stoppingIsAlsoOnlyToldToTheOtherMember() {
+        aggregator.record(roomId, lan, true);
+        aggregator.tick();
+        messagingTemplate.sent.clear();
+
+        aggregator.record(roomId, lan, false);
+        aggregator.tick();
+
+        assertThat(messagingTemplate.sent).hasSize(1);
+        assertThat(messagingTemplate.sent.get(0).user()).isEqualTo(minh.toString());
+        assertThat(messagingTemplate.sent.get(0).state().getTypingUserIds()).isEmpty();
+    }
+
+    @Test
+    void bothTypingTellsEachAboutTheOther() {
+        aggregator.record(roomId, lan, true);
+        aggregator.record(roomId, minh, true);
+        aggregator.tick();
+
+        assertThat(messagingTemplate.sent).hasSize(2);
+        for (Sent sent : messagingTemplate.sent) {
+            assertThat(sent.state().getTypingUserIds()).hasSize(1);
+            assertThat(sent.state().getTypingUserIds().get(0).toString()).isNotEqualTo(sent.user());
+        }
+    }
+
+    private record Sent(String user, TypingStateResponse state) {}
+
+    private static class RecordingMessagingTemplate extends SimpMessagingTemplate {
+        final List<Sent> sent = new CopyOnWriteArrayList<>();
+
+        RecordingMessagingTemplate() {
+            super((message, timeout) -> true);
+        }
+
+        @Override
+        public void convertAndSendToUser(String user, String destination, Object payload) {
+            sent.add(new Sent(user, (TypingStateResponse) payload));
+        }
+    }
+
+    private static class FixedRoomCache extends RoomMembershipCache {
+        private final RoomSnapshot room;
+
+        FixedRoomCache(RoomSnapshot room) {
+            super(null, null, null, null, null);
+            this.room = room;
+        }
+
+        @Override
+        public RoomSnapshot get(UUID roomId) {
+            return room;
+        }
+    }
+}
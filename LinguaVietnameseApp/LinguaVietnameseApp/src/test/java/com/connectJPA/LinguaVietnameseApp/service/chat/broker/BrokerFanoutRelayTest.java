@@ -0,0 +1,212 @@
+package com.connectJPA.LinguaVietnameseApp.service.chat.broker;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.simp.config.AbstractMessageBrokerConfiguration;
+import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.messaging.support.AbstractSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.messaging.DefaultSimpUserRegistry;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two broker nodes in one JVM, joined by the in-jvm fan-out transport.
+ */
+class BrokerFanoutRelayTest {
+
+    private static final long TIMEOUT_MS = 5000;
+
+    private Node nodeA;
+    private Node nodeB;
+
+    @BeforeEach
+    void startNodes() {
+        nodeA = new Node();
+        nodeB = new Node();
+    }
+
+    @AfterEach
+    void stopNodes() {
+        nodeA.context.close();
+        nodeB.context.close();
+    }
+
+    @Test
+    void topicMessageReachesSubscriberOnOtherNode() throws Exception {
+        Principal bob = () -> "bob";
+        nodeB.connect("b1", bob);
+        nodeB.subscribe("b1", "sub-1", "/topic/room/r1/status", bob);
+
+        nodeA.template.convertAndSend("/topic/room/r1/status", "online");
+
+        awaitCount(nodeB.delivered, 1);
+        assertThat(payload(nodeB.delivered.get(0))).isEqualTo("online");
+        assertThat(SimpMessageHeaderAccessor.getSubscriptionId(nodeB.delivered.get(0).getHeaders())).isEqualTo("sub-1");
+    }
+
+    @Test
+    void userDestinationResolvesOnEveryNodeExactlyOnce() throws Exception {
+        Principal alice = () -> "alice";
+        nodeA.connect("a1", alice);
+        nodeA.subscribe("a1", "sub-a", "/user/queue/notify", alice);
+        nodeB.connect("b1", alice);
+        nodeB.subscribe("b1", "sub-b", "/user/queue/notify", alice);
+
+        nodeA.template.convertAndSendToUser("alice", "/queue/notify", "hello");
+
+        awaitCount(nodeA.delivered, 1);
+        awaitCount(nodeB.delivered, 1);
+        // Give a duplicate (e.g. a resolved destination fanned out again) time to show up
+        Thread.sleep(300);
+        assertThat(nodeA.delivered).hasSize(1);
+        assertThat(nodeB.delivered).hasSize(1);
+        assertThat(SimpMessageHeaderAccessor.getSessionId(nodeA.delivered.get(0).getHeaders())).isEqualTo("a1");
+        assertThat(SimpMessageHeaderAccessor.getSessionId(nodeB.delivered.get(0).getHeaders())).isEqualTo("b1");
+        assertThat(payload(nodeB.delivered.get(0))).isEqualTo("hello");
+    }
+
+    @Test
+    void userDestinationForUnknownUserIsDroppedEverywhere() throws Exception {
+        Principal alice = () -> "alice";
+        nodeB.connect("b1", alice);
+        nodeB.subscribe("b1", "sub-b", "/user/queue/notify", alice);
+
+        nodeA.template.convertAndSendToUser("carol", "/queue/notify", "nobody");
+
+        Thread.sleep(300);
+        assertThat(nodeA.delivered).isEmpty();
+        assertThat(nodeB.delivered).isEmpty();
+    }
+
+    private static String payload(Message<?> message) {
+        return new String((byte[]) message.getPayload(), StandardCharsets.UTF_8);
+    }
+
+    private static void awaitCount(List<?> list, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (list.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(list).hasSizeGreaterThanOrEqualTo(count);
+    }
+
+    private static final class Node {
+
+        final AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(NodeConfig.class);
+        final SimpMessagingTemplate template = context.getBean("brokerMessagingTemplate", SimpMessagingTemplate.class);
+        final List<Message<?>> delivered = new CopyOnWriteArrayList<>();
+        final List<String> acknowledged = new CopyOnWriteArrayList<>();
+
+        Node() {
+            context.getBean("clientOutboundChannel", AbstractSubscribableChannel.class).subscribe(message -> {
+                SimpMessageType type = SimpMessageHeaderAccessor.getMessageType(message.getHeaders());
+                if (type == SimpMessageType.MESSAGE) {
+                    delivered.add(message);
+                } else if (type == SimpMessageType.CONNECT_ACK) {
+                    acknowledged.add(SimpMessageHeaderAccessor.getSessionId(message.getHeaders()));
+                }
+            });
+        }
+
+        // What the STOMP sub-protocol handler does for a new session: CONNECT to the broker, then
+        // SessionConnectedEvent for the user registry
+        void connect(String sessionId, Principal user) throws InterruptedException {
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.CONNECT);
+            accessor.setSessionId(sessionId);
+            accessor.setUser(user);
+            context.getBean("clientInboundChannel", MessageChannel.class)
+                    .send(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()));
+            long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+            while (!acknowledged.contains(sessionId) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+
+            SimpMessageHeaderAccessor connected = SimpMessageHeaderAccessor.create(SimpMessageType.CONNECT_ACK);
+            connected.setSessionId(sessionId);
+            connected.setUser(user);
+            context.publishEvent(new SessionConnectedEvent(this,
+                    MessageBuilder.createMessage(new byte[0], connected.getMessageHeaders()), user));
+        }
+
+        void subscribe(String sessionId, String subscriptionId, String destination, Principal user) throws InterruptedException {
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+            accessor.setSessionId(sessionId);
+            accessor.setSubscriptionId(subscriptionId);
+            accessor.setDestination(destination);
+            accessor.setUser(user);
+            context.getBean("clientInboundChannel", MessageChannel.class)
+                    .send(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()));
+
+            // Subscriptions are registered on the inbound executor; wait until the broker knows it
+            SimpleBrokerMessageHandler broker = context.getBean(SimpleBrokerMessageHandler.class);
+            String resolved = destination.startsWith("/user/")
+                    ? destination.substring("/user".length()) + "-user" + sessionId
+                    : destination;
+            SimpMessageHeaderAccessor probe = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+            probe.setDestination(resolved);
+            Message<byte[]> probeMessage = MessageBuilder.createMessage(new byte[0], probe.getMessageHeaders());
+            long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+            while (broker.getSubscriptionRegistry().findSubscriptions(probeMessage).isEmpty()
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+        }
+    }
+
+    @Configuration
+    @Import(BrokerFanoutRelay.class)
+    static class NodeConfig extends AbstractMessageBrokerConfiguration {
+
+        @Override
+        protected void configureMessageBroker(MessageBrokerRegistry registry) {
+            registry.enableSimpleBroker("/topic", "/queue");
+            registry.setApplicationDestinationPrefixes("/app");
+            registry.setUserDestinationPrefix("/user");
+        }
+
+        @Override
+        protected SimpUserRegistry createLocalUserRegistry(Integer order) {
+            DefaultSimpUserRegistry registry = new DefaultSimpUserRegistry();
+            if (order != null) registry.setOrder(order);
+            return registry;
+        }
+
+        @Bean
+        BrokerFanoutTransport brokerFanoutTransport() {
+            return new InJvmBrokerFanoutTransport();
+        }
+
+        @Bean
+        ObjectMapper objectMapper() {
+            return new ObjectMapper();
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            // No backing registry: metrics are not under test here
+            return new CompositeMeterRegistry();
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.connectJPA.LinguaVietnameseApp.service.email;
+
+import com.connectJPA.LinguaVietnameseApp.enums.EmailTemplate;
+import com.connectJPA.LinguaVietnameseApp.service.email.EmailDispatcher.EmailRequest;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import jakarta.mail.Message.RecipientType;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.StaticMessageSource;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EmailDispatcherTest {
+
+    private final FakeMailSender mailSender = new FakeMailSender();
+    private EmailDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        StaticMessageSource messages = new StaticMessageSource();
+        messages.setUseCodeAsDefaultMessage(true);
+        messages.addMessage(EmailTemplate.OTP.subjectCode(), Locale.ENGLISH, "Your code");
+        messages.addMessage(EmailTemplate.OTP.bodyCode(), Locale.ENGLISH, "Code {0} expires in {1} minutes");
+        messages.addMessage(EmailTemplate.OTP.subjectCode(), Locale.of("vi"), "Mã của bạn");
+        messages.addMessage(EmailTemplate.OTP.bodyCode(), Locale.of("vi"), "Mã {0} hết hạn sau {1} phút");
+        EmailTemplateCatalog catalog = new EmailTemplateCatalog(messages);
+        ReflectionTestUtils.setField(catalog, "preloadLocales", List.of("en", "vi"));
+        catalog.init();
+
+        dispatcher = new EmailDispatcher(mailSender, catalog, new CompositeMeterRegistry());
+        ReflectionTestUtils.setField(dispatcher, "fromEmail", "no-reply@lingua.test");
+        ReflectionTestUtils.setField(dispatcher, "queueCapacity", 100);
+        ReflectionTestUtils.setField(dispatcher, "senders", 1);
+        ReflectionTestUtils.setField(dispatcher, "messagesPerConnection", 2);
+        ReflectionTestUtils.setField(dispatcher, "maxAttempts", 3);
+        ReflectionTestUtils.setField(dispatcher, "baseBackoffMs", 10L);
+        ReflectionTestUtils.setField(dispatcher, "maxBackoffMs", 50L);
+        dispatcher.init();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        dispatcher.shutdown();
+    }
+
+    @Test
+    void rendersTemplateInRecipientLanguage() throws Exception {
+        BitSet failures = dispatcher.sendNow(List.of(
+                otp("an@lingua.test", Locale.forLanguageTag("vi-VN"), "123456"),
+                otp("bob@lingua.test", Locale.ENGLISH, "654321")));
+
+        assertThat(failures.isEmpty()).isTrue();
+        MimeMessage vietnamese = mailSender.delivered("an@lingua.test");
+        assertThat(vietnamese.getSubject()).isEqualTo("Mã của bạn");
+        assertThat(body(vietnamese)).isEqualTo("Mã 123456 hết hạn sau 5 phút");
+        assertThat(body(mailSender.delivered("bob@lingua.test"))).isEqualTo("Code 654321 expires in 5 minutes");
+    }
+
+    @Test
+    void sharesOneConnectionPerChunkAndReportsRejectedRecipients() {
+        mailSender.rejectAlways("bounce@lingua.test");
+
+        BitSet failures = dispatcher.sendNow(List.of(
+                otp("a@lingua.test"), otp("bounce@lingua.test"), otp("b@lingua.test"),
+                otp("c@lingua.test"), otp("d@lingua.test")));
+
+        assertThat(mailSender.connections.get()).isEqualTo(3);
+        assertThat(failures.stream().boxed().toList()).containsExactly(1);
+        assertThat(mailSender.recipients()).containsExactlyInAnyOrder(
+                "a@lingua.test", "b@lingua.test", "c@lingua.test", "d@lingua.test");
+    }
+
+    @Test
+    void marksWholeChunkFailedWhenTheConnectionFails() {
+        mailSender.failNextConnections(1);
+
+        BitSet failures = dispatcher.sendNow(List.of(otp("a@lingua.test"), otp("b@lingua.test"), otp("c@lingua.test")));
+
+        assertThat(failures.stream().boxed().toList()).containsExactly(0, 1);
+        assertThat(mailSender.recipients()).containsExactly("c@lingua.test");
+    }
+
+    @Test
+    void retriesQueuedEmailUntilItGoesThrough() throws Exception {
+        mailSender.failNextConnections(2);
+
+        assertThat(dispatcher.submit(otp("a@lingua.test"))).isTrue();
+
+        awaitDeliveries(1);
+        assertThat(mailSender.recipients()).containsExactly("a@lingua.test");
+        assertThat(mailSender.connections.get()).isEqualTo(3);
+    }
+
+    @Test
+    void givesUpAfterMaxAttempts() throws Exception {
+        mailSender.rejectAlways("bounce@lingua.test");
+
+        dispatcher.submit(otp("bounce@lingua.test"));
+        dispatcher.submit(otp("a@lingua.test"));
+
+        awaitDeliveries(1);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (mailSender.attempts("bounce@lingua.test") < 3 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(200);
+        assertThat(mailSender.attempts("bounce@lingua.test")).isEqualTo(3);
+        assertThat(mailSender.recipients()).containsExactly("a@lingua.test");
+    }
+
+    private static EmailRequest otp(String to) {
+        return otp(to, Locale.ENGLISH, "000000");
+    }
+
+    private static EmailRequest otp(String to, Locale locale, String code) {
+        return new EmailRequest(EmailTemplate.OTP, to, locale, List.of(code, "5"));
+    }
+
+    private static String body(MimeMessage message) throws Exception {
+        message.saveChanges();
+        jakarta.mail.Multipart mixed = (jakarta.mail.Multipart) message.getContent();
+        jakarta.mail.Multipart related = (jakarta.mail.Multipart) mixed.getBodyPart(0).getContent();
+        return (String) related.getBodyPart(0).getContent();
+    }
+
+    private void awaitDeliveries(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (mailSender.recipients().size() < count && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Records what would have gone out. Each send call is one SMTP connection; it can fail as a
+     * whole, or reject single recipients the way JavaMailSenderImpl reports them.
+     */
+    private static class FakeMailSender implements JavaMailSender {
+        private final Session session = Session.getInstance(new Properties());
+        private final List<MimeMessage> delivered = new CopyOnWriteArrayList<>();
+        private final Set<String> rejected = ConcurrentHashMap.newKeySet();
+        private final Map<String, AtomicInteger> attempts = new ConcurrentHashMap<>();
+        private final AtomicInteger failingConnections = new AtomicInteger();
+        final AtomicInteger connections = new AtomicInteger();
+
+        void rejectAlways(String recipient) {
+            rejected.add(recipient);
+        }
+
+        void failNextConnections(int count) {
+            failingConnections.set(count);
+        }
+
+        int attempts(String recipient) {
+            AtomicInteger count = attempts.get(recipient);
+            return count != null ? count.get() : 0;
+        }
+
+        List<String> recipients() {
+            List<String> recipients = new ArrayList<>();
+            delivered.forEach(message -> recipients.add(recipient(message)));
+            return recipients;
+        }
+
+        MimeMessage delivered(String recipient) {
+            return delivered.stream().filter(m -> recipient.equals(recipient(m))).findFirst().orElseThrow();
+        }
+
+        @Override
+        public MimeMessage createMimeMessage() {
+            return new MimeMessage(session);
+        }
+
+        @Override
+        public MimeMessage createMimeMessage(InputStream contentStream) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void send(MimeMessage... mimeMessages) {
+            connections.incrementAndGet();
+            if (failingConnections.getAndUpdate(n -> Math.max(n - 1, 0)) > 0) {
+                throw new MailSendException("Connection refused");
+            }
+            Map<Object, Exception> failed = new LinkedHashMap<>();
+            for (MimeMessage message : mimeMessages) {
+                String recipient = recipient(message);
+                attempts.computeIfAbsent(recipient, r -> new AtomicInteger()).incrementAndGet();
+                if (rejected.contains(recipient)) {
+                    failed.put(message, new MessagingException("550 mailbox unavailable"));
+                } else {
+                    delivered.add(message);
+                }
+            }
+            if (!failed.isEmpty()) throw new MailSendException(failed);
+        }
+
+        @Override
+        public void send(SimpleMailMessage... simpleMessages) {
+            throw new UnsupportedOperationException();
+        }
+
+        private static String recipient(MimeMessage message) {
+            try {
+                return message.getRecipients(RecipientType.TO)[0].toString();
+            } catch (MessagingException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
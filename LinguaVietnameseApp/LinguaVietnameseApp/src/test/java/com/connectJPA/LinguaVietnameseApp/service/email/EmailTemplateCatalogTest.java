@@ -0,0 +1,53 @@
+package com.connectJPA.LinguaVietnameseApp.service.email;
+
+import com.connectJPA.LinguaVietnameseApp.enums.EmailTemplate;
+import com.connectJPA.LinguaVietnameseApp.service.email.EmailTemplateCatalog.RenderedEmail;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.StaticMessageSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EmailTemplateCatalogTest {
+
+    private EmailTemplateCatalog catalog;
+
+    @BeforeEach
+    void setUp() {
+        StaticMessageSource messages = new StaticMessageSource();
+        messages.setUseCodeAsDefaultMessage(true);
+        messages.addMessage(EmailTemplate.STREAK_REWARD.subjectCode(), Locale.ENGLISH, "Don't lose your {0}-day streak");
+        messages.addMessage(EmailTemplate.STREAK_REWARD.bodyCode(), Locale.ENGLISH, "Hi {0}, you're {1} days in. {2} {json}");
+        messages.addMessage(EmailTemplate.STREAK_REWARD.subjectCode(), Locale.of("vi"), "Đừng để mất chuỗi {0} ngày");
+        catalog = new EmailTemplateCatalog(messages);
+        ReflectionTestUtils.setField(catalog, "preloadLocales", List.of("en", "vi"));
+        catalog.init();
+    }
+
+    @Test
+    void substitutesPlaceholdersLiterally() {
+        RenderedEmail email = catalog.render(EmailTemplate.STREAK_REWARD, Locale.ENGLISH, List.of("Lan", "{1}"));
+
+        assertThat(email.subject()).isEqualTo("Don't lose your Lan-day streak");
+        // Apostrophes are not MessageFormat quotes, arguments are not re-expanded, and missing ones stay visible
+        assertThat(email.body()).isEqualTo("Hi Lan, you're {1} days in. {2} {json}");
+    }
+
+    @Test
+    void rendersByLanguageRegardlessOfRegion() {
+        RenderedEmail email = catalog.render(EmailTemplate.STREAK_REWARD, Locale.forLanguageTag("vi-VN"), List.of("7"));
+
+        assertThat(email.subject()).isEqualTo("Đừng để mất chuỗi 7 ngày");
+    }
+
+    @Test
+    void fallsBackToMessageCodeWhenBundleHasNoEntry() {
+        RenderedEmail email = catalog.render(EmailTemplate.OTP, Locale.ENGLISH, List.of());
+
+        assertThat(email.subject()).isEqualTo(EmailTemplate.OTP.subjectCode());
+    }
+}
@@ -0,0 +1,213 @@
+package com.connectJPA.LinguaVietnameseApp.service.impl;
+
+import com.connectJPA.LinguaVietnameseApp.dto.request.NotificationRequest;
+import com.connectJPA.LinguaVietnameseApp.entity.Notification;
+import com.connectJPA.LinguaVietnameseApp.mapper.NotificationMapper;
+import com.connectJPA.LinguaVietnameseApp.repository.jpa.NotificationRepository;
+import com.connectJPA.LinguaVietnameseApp.service.NotificationService;
+import com.connectJPA.LinguaVietnameseApp.service.notification.NotificationOutboxRelay;
+import com.connectJPA.LinguaVietnameseApp.service.notification.NotificationOutboxWriter;
+import com.connectJPA.LinguaVietnameseApp.service.notification.NotificationUnreadCounter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.interceptor.TransactionInterceptor;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class NotificationServiceImplTest {
+
+    private final BufferingTransactionManager transactionManager = new BufferingTransactionManager();
+    private final BufferingJdbcTemplate jdbcTemplate = new BufferingJdbcTemplate(transactionManager);
+    private NotificationService notificationService;
+
+    @BeforeEach
+    void setUp() {
+        NotificationOutboxWriter outboxWriter = new NotificationOutboxWriter(jdbcTemplate, new ObjectMapper(), new IdleRelay());
+        ReflectionTestUtils.setField(outboxWriter, "partitions", 16);
+        NotificationServiceImpl target = new NotificationServiceImpl(notificationRepository(), notificationMapper(),
+                null, outboxWriter, new NoOpUnreadCounter(), null);
+
+        ProxyFactory proxyFactory = new ProxyFactory(target);
+        proxyFactory.addInterface(NotificationService.class);
+        proxyFactory.addAdvice(new TransactionInterceptor(transactionManager, new AnnotationTransactionAttributeSource()));
+        notificationService = (NotificationService) proxyFactory.getProxy();
+    }
+
+    @Test
+    void outboxRowCommitsWithTheCaller() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                notificationService.createPushNotification(push()));
+
+        assertThat(jdbcTemplate.committed).hasSize(1);
+    }
+
+    @Test
+    void callerRollbackLeavesNoOutboxRow() {
+        assertThatThrownBy(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            notificationService.createPushNotification(push());
+            throw new IllegalStateException("business change failed after the push was queued");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(jdbcTemplate.committed).isEmpty();
+    }
+
+    @Test
+    void outboxWriteFailureReachesTheCaller() {
+        jdbcTemplate.failInserts = true;
+
+        assertThatThrownBy(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                notificationService.createPushNotification(push())))
+                .isInstanceOf(DataIntegrityViolationException.class);
+
+        assertThat(jdbcTemplate.committed).isEmpty();
+    }
+
+    private static NotificationRequest push() {
+        return NotificationRequest.builder()
+                .userId(UUID.randomUUID())
+                .title("Chuỗi học tập")
+                .content("Bạn sắp mất chuỗi 7 ngày!")
+                .type("STREAK")
+                .build();
+    }
+
+    private static NotificationRepository notificationRepository() {
+        return (NotificationRepository) Proxy.newProxyInstance(NotificationServiceImplTest.class.getClassLoader(),
+                new Class<?>[]{NotificationRepository.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("save")) {
+                        Notification notification = (Notification) args[0];
+                        notification.setNotificationId(UUID.randomUUID());
+                        return notification;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static NotificationMapper notificationMapper() {
+        return (NotificationMapper) Proxy.newProxyInstance(NotificationServiceImplTest.class.getClassLoader(),
+                new Class<?>[]{NotificationMapper.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("toEntity")) {
+                        NotificationRequest request = (NotificationRequest) args[0];
+                        Notification notification = new Notification();
+                        notification.setUserId(request.getUserId());
+                        notification.setTitle(request.getTitle());
+                        notification.setContent(request.getContent());
+                        return notification;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    /**
+     * Stands in for a database transaction: statements are held per transaction and only become
+     * visible in {@link BufferingJdbcTemplate#committed} when the outermost transaction commits.
+     */
+    private static class BufferingTransactionManager extends AbstractPlatformTransactionManager {
+
+        static class Tx {
+            final List<Object[]> statements = new ArrayList<>();
+            boolean rollbackOnly;
+        }
+
+        List<Object[]> committedTarget;
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Tx[]{(Tx) TransactionSynchronizationManager.getResource(this)};
+        }
+
+        @Override
+        protected boolean isExistingTransaction(Object transaction) {
+            return ((Tx[]) transaction)[0] != null;
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+            Tx tx = new Tx();
+            ((Tx[]) transaction)[0] = tx;
+            TransactionSynchronizationManager.bindResource(this, tx);
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+            committedTarget.addAll(((Tx[]) status.getTransaction())[0].statements);
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+            ((Tx[]) status.getTransaction())[0].statements.clear();
+        }
+
+        @Override
+        protected void doSetRollbackOnly(DefaultTransactionStatus status) {
+            ((Tx[]) status.getTransaction())[0].rollbackOnly = true;
+        }
+
+        @Override
+        protected void doCleanupAfterCompletion(Object transaction) {
+            TransactionSynchronizationManager.unbindResource(this);
+        }
+
+        Tx current() {
+            Tx tx = (Tx) TransactionSynchronizationManager.getResource(this);
+            if (tx == null) throw new IllegalStateException("Outbox write outside a transaction");
+            return tx;
+        }
+    }
+
+    private static class BufferingJdbcTemplate extends JdbcTemplate {
+        final List<Object[]> committed = new CopyOnWriteArrayList<>();
+        private final BufferingTransactionManager transactionManager;
+        boolean failInserts;
+
+        BufferingJdbcTemplate(BufferingTransactionManager transactionManager) {
+            this.transactionManager = transactionManager;
+            transactionManager.committedTarget = committed;
+        }
+
+        @Override
+        public int update(String sql, Object... args) {
+            if (failInserts) throw new DataIntegrityViolationException("outbox insert rejected");
+            transactionManager.current().statements.add(args);
+            return 1;
+        }
+    }
+
+    private static class IdleRelay extends NotificationOutboxRelay {
+        IdleRelay() {
+            super(null, null, null, null, null);
+        }
+
+        @Override
+        public void wakeUp() {
+        }
+    }
+
+    private static class NoOpUnreadCounter extends NotificationUnreadCounter {
+        NoOpUnreadCounter() {
+            super(null, null, null);
+        }
+
+        @Override
+        public void adjustAfterCommit(UUID userId, long delta) {
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.connectJPA.LinguaVietnameseApp.service.notification;
+
+import com.connectJPA.LinguaVietnameseApp.repository.jpa.UserFcmTokenRepository;
+import com.connectJPA.LinguaVietnameseApp.service.notification.PushDeliveryEngine.PushJob;
+import com.connectJPA.LinguaVietnameseApp.service.notification.PushRecipientCache.PushRecipient;
+import com.google.api.client.http.LowLevelHttpRequest;
+import com.google.api.client.http.LowLevelHttpResponse;
+import com.google.api.client.testing.http.MockHttpTransport;
+import com.google.api.client.testing.http.MockLowLevelHttpRequest;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+import com.google.auth.oauth2.AccessToken;
+import com.google.auth.oauth2.GoogleCredentials;
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.FirebaseOptions;
+import com.google.firebase.messaging.FirebaseMessaging;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PushDeliveryEngineTest {
+
+    private static final String UNREGISTERED = "{\"error\":{\"code\":404,\"message\":\"Requested entity was not found.\"," +
+            "\"status\":\"NOT_FOUND\",\"details\":[{\"@type\":\"type.googleapis.com/google.firebase.fcm.v1.FcmError\"," +
+            "\"errorCode\":\"UNREGISTERED\"}]}}";
+    private static final String SENDER_ID_MISMATCH = "{\"error\":{\"code\":403,\"message\":\"SenderId mismatch\"," +
+            "\"status\":\"PERMISSION_DENIED\",\"details\":[{\"@type\":\"type.googleapis.com/google.firebase.fcm.v1.FcmError\"," +
+            "\"errorCode\":\"SENDER_ID_MISMATCH\"}]}}";
+    private static final String INVALID_TOKEN = "{\"error\":{\"code\":400,\"message\":\"The registration token is not a valid FCM registration token\"," +
+            "\"status\":\"INVALID_ARGUMENT\",\"details\":[{\"@type\":\"type.googleapis.com/google.firebase.fcm.v1.FcmError\"," +
+            "\"errorCode\":\"INVALID_ARGUMENT\"}]}}";
+    private static final String INVALID_PAYLOAD = "{\"error\":{\"code\":400,\"message\":\"Invalid data payload key: from\"," +
+            "\"status\":\"INVALID_ARGUMENT\",\"details\":[{\"@type\":\"type.googleapis.com/google.firebase.fcm.v1.FcmError\"," +
+            "\"errorCode\":\"INVALID_ARGUMENT\"}]}}";
+
+    private final UUID alice = UUID.randomUUID();
+    private final UUID bob = UUID.randomUUID();
+    private final UUID carol = UUID.randomUUID();
+
+    private final FakeFcm fcm = new FakeFcm();
+    private final FakeRecipientCache recipients = new FakeRecipientCache();
+    private final List<String> prunedTokens = new CopyOnWriteArrayList<>();
+    private FirebaseApp app;
+    private PushDeliveryEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        FirebaseOptions options = FirebaseOptions.builder()
+                .setCredentials(GoogleCredentials.create(new AccessToken("test-token", new Date(System.currentTimeMillis() + 3_600_000))))
+                .setProjectId("test-project")
+                .setHttpTransport(fcm)
+                .build();
+        app = FirebaseApp.initializeApp(options, "push-test-" + UUID.randomUUID());
+        engine = new PushDeliveryEngine(FirebaseMessaging.getInstance(app), recipients, tokenRepository(), new CompositeMeterRegistry());
+        engine.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        app.delete();
+    }
+
+    @Test
+    void prunesDeadTokensAndKeepsJobsThatReachedAnotherDevice() {
+        recipients.put(alice, "alice-phone", "alice-old-tablet");
+        recipients.put(bob, "bob-phone");
+        fcm.fail("alice-old-tablet", 404, UNREGISTERED);
+
+        BitSet retry = engine.deliver(List.of(job(alice), job(bob)));
+
+        assertThat(retry.isEmpty()).isTrue();
+        assertThat(fcm.tokensSent()).containsExactlyInAnyOrder("alice-phone", "alice-old-tablet", "bob-phone");
+        assertThat(prunedTokens).containsExactly("alice-old-tablet");
+        assertThat(recipients.evicted).containsExactly(alice);
+    }
+
+    // Anything but a dead token is retried by the outbox. 5xx would do too, but the Admin SDK
+    // already retries those itself with several seconds of backoff
+    @Test
+    void reportsJobsWhoseOnlyDevicesFailedWithRetryableErrors() {
+        recipients.put(alice, "alice-phone");
+        recipients.put(bob, "bob-phone");
+        recipients.put(carol, "carol-phone", "carol-dead");
+        fcm.fail("bob-phone", 403, SENDER_ID_MISMATCH);
+        fcm.fail("carol-phone", 403, SENDER_ID_MISMATCH);
+        fcm.fail("carol-dead", 404, UNREGISTERED);
+
+        BitSet retry = engine.deliver(List.of(job(alice), job(bob), job(carol)));
+
+        assertThat(retry.stream().boxed().toList()).containsExactly(1, 2);
+        assertThat(prunedTokens).containsExactly("carol-dead");
+        assertThat(recipients.evicted).containsExactly(carol);
+    }
+
+    @Test
+    void prunesTokensFcmRejectsAsMalformed() {
+        recipients.put(alice, "alice-phone", "alice-garbled");
+        fcm.fail("alice-garbled", 400, INVALID_TOKEN);
+
+        BitSet retry = engine.deliver(List.of(job(alice)));
+
+        assertThat(retry.isEmpty()).isTrue();
+        assertThat(prunedTokens).containsExactly("alice-garbled");
+    }
+
+    // A payload FCM rejects says nothing about the device, and retrying it would fail the same way
+    @Test
+    void keepsTokensWhenFcmRejectsThePayload() {
+        recipients.put(alice, "alice-phone", "alice-tablet");
+        fcm.fail("alice-phone", 400, INVALID_PAYLOAD);
+        fcm.fail("alice-tablet", 400, INVALID_PAYLOAD);
+
+        BitSet retry = engine.deliver(List.of(job(alice)));
+
+        assertThat(retry.isEmpty()).isTrue();
+        assertThat(prunedTokens).isEmpty();
+        assertThat(recipients.evicted).isEmpty();
+    }
+
+    @Test
+    void dropsReservedDataKeysFromPayload() {
+        recipients.put(alice, "alice-phone");
+        String payload = "{\"roomId\":\"r1\",\"from\":\"lan\",\"notification\":\"x\",\"google.c.a.e\":\"1\",\"gcm.n.e\":\"1\"}";
+
+        engine.deliver(List.of(new PushJob(alice, UUID.randomUUID(), "Xin chào", "Tin nhắn mới", "CHAT", payload)));
+
+        String sent = fcm.requests.get(0);
+        assertThat(sent.contains("\"roomId\":\"r1\"")).isTrue();
+        assertThat(sent.contains("\"from\"")).isFalse();
+        assertThat(sent.contains("\"notification\":\"x\"")).isFalse();
+        assertThat(sent.contains("google.c.a.e")).isFalse();
+        assertThat(sent.contains("gcm.n.e")).isFalse();
+    }
+
+    @Test
+    void skipsUsersWithoutDevices() {
+        recipients.put(alice, "alice-phone");
+
+        BitSet retry = engine.deliver(List.of(job(bob), job(alice)));
+
+        assertThat(retry.isEmpty()).isTrue();
+        assertThat(fcm.tokensSent()).containsExactly("alice-phone");
+        assertThat(prunedTokens).isEmpty();
+    }
+
+    private PushJob job(UUID userId) {
+        return new PushJob(userId, UUID.randomUUID(), "Xin chào", "Bạn có một thông báo mới", "SYSTEM", null);
+    }
+
+    private UserFcmTokenRepository tokenRepository() {
+        return (UserFcmTokenRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{UserFcmTokenRepository.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("deleteByFcmTokenIn")) {
+                        Collection<?> tokens = (Collection<?>) args[0];
+                        tokens.forEach(token -> prunedTokens.add((String) token));
+                        return tokens.size();
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    /** Answers FCM v1 send requests: success unless the token was told to fail. */
+    private static class FakeFcm extends MockHttpTransport {
+        private final Map<String, MockLowLevelHttpResponse> failures = new HashMap<>();
+        private final List<String> requests = new CopyOnWriteArrayList<>();
+
+        void fail(String token, int status, String body) {
+            failures.put(token, new MockLowLevelHttpResponse().setStatusCode(status)
+                    .setContentType("application/json").setContent(body));
+        }
+
+        List<String> tokensSent() {
+            List<String> tokens = new ArrayList<>();
+            for (String request : requests) {
+                int start = request.indexOf("\"token\":\"") + 9;
+                tokens.add(request.substring(start, request.indexOf('"', start)));
+            }
+            return tokens;
+        }
+
+        @Override
+        public LowLevelHttpRequest buildRequest(String method, String url) {
+            return new MockLowLevelHttpRequest(url) {
+                @Override
+                public LowLevelHttpResponse execute() throws java.io.IOException {
+                    String body = getContentAsString();
+                    requests.add(body);
+                    for (Map.Entry<String, MockLowLevelHttpResponse> failure : failures.entrySet()) {
+                        if (body.contains("\"token\":\"" + failure.getKey() + "\"")) return failure.getValue();
+                    }
+                    return new MockLowLevelHttpResponse().setContentType("application/json")
+                            .setContent("{\"name\":\"projects/test-project/messages/" + UUID.randomUUID() + "\"}");
+                }
+            };
+        }
+    }
+
+    private static class FakeRecipientCache extends PushRecipientCache {
+        private final Map<UUID, PushRecipient> recipients = new ConcurrentHashMap<>();
+        final Set<UUID> evicted = ConcurrentHashMap.newKeySet();
+
+        FakeRecipientCache() {
+            super(null, null, null, null, null, null);
+        }
+
+        void put(UUID userId, String... tokens) {
+            recipients.put(userId, new PushRecipient(userId, List.of(tokens), "vi", true));
+        }
+
+        @Override
+        public Map<UUID, PushRecipient> getAll(Collection<UUID> userIds) {
+            Map<UUID, PushRecipient> found = new HashMap<>();
+            userIds.forEach(id -> {
+                if (recipients.containsKey(id)) found.put(id, recipients.get(id));
+            });
+            return found;
+        }
+
+        @Override
+        public void evict(UUID userId) {
+            evicted.add(userId);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.connectJPA.LinguaVietnameseApp.service.profile;
+
+import com.connectJPA.LinguaVietnameseApp.dto.response.UserProfileResponse;
+import com.connectJPA.LinguaVietnameseApp.entity.User;
+import com.connectJPA.LinguaVietnameseApp.mapper.UserMapperImpl;
+import com.connectJPA.LinguaVietnameseApp.repository.jpa.UserLanguageRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserProfileAssemblerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private UserProfileAssembler assembler;
+
+    // Only the identity section gets a repository (a slow one); every other section has no
+    // dependencies here and fails at once
+    @BeforeEach
+    void setUp() {
+        assembler = new UserProfileAssembler(new UserMapperImpl(), slowLanguages(), null, null, null, null, null, null,
+                null, null, null, null, null, null, null, null, null, null, new NoOpTransactionManager(), null,
+                new RedisMessageListenerContainer(), meterRegistry);
+        ReflectionTestUtils.setField(assembler, "sectionTimeoutMs", 200L);
+        ReflectionTestUtils.setField(assembler, "maxConcurrentSections", 4);
+        ReflectionTestUtils.setField(assembler, "connectionPoolSize", 10);
+        assembler.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        assembler.shutdown();
+    }
+
+    @Test
+    void namesSectionsThatFellBackAndCountsThem() {
+        User target = new User();
+        target.setUserId(UUID.randomUUID());
+
+        UserProfileResponse profile = assembler.assemble(null, target);
+
+        assertThat(profile.getUserId()).isEqualTo(target.getUserId());
+        assertThat(profile.getLanguages()).isEmpty();
+        assertThat(profile.getUnavailableSections())
+                .containsExactly("activity", "admiration", "badges", "couple", "identity", "ranks", "teaching");
+        assertThat(unavailable("identity", "timeout")).isEqualTo(1.0);
+        assertThat(unavailable("badges", "error")).isEqualTo(1.0);
+    }
+
+    @Test
+    void viewerSectionsAreReportedToo() {
+        User target = new User();
+        target.setUserId(UUID.randomUUID());
+
+        UserProfileResponse profile = assembler.assemble(UUID.randomUUID(), target);
+
+        assertThat(profile.getUnavailableSections().containsAll(List.of("friendship", "has-admired", "dating-invite",
+                "mutual-memories"))).isTrue();
+        assertThat(profile.getUnavailableSections().contains("private-inbox")).isFalse();
+    }
+
+    private double unavailable(String section, String reason) {
+        return meterRegistry.counter("profile.section.unavailable", "section", section, "reason", reason).count();
+    }
+
+    private static UserLanguageRepository slowLanguages() {
+        return (UserLanguageRepository) Proxy.newProxyInstance(UserProfileAssemblerTest.class.getClassLoader(),
+                new Class<?>[]{UserLanguageRepository.class}, (proxy, method, args) -> {
+                    Thread.sleep(2_000);
+                    return List.of();
+                });
+    }
+
+    private static class NoOpTransactionManager implements PlatformTransactionManager {
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    }
+}